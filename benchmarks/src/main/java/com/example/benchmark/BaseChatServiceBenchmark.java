@@ -0,0 +1,69 @@
+package com.example.benchmark;
+
+import com.example.dto.stream.ChatEvent;
+import com.example.service.BaseChatService;
+import com.example.stream.TextStreamRequest;
+import com.example.stream.springai.SpringAiTextStreamClient;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 流式片段分发与结束时的完整回答拼接（上游为内存中的片段序列）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaseChatServiceBenchmark {
+
+  @Param({"200", "2000"})
+  public int chunkCount;
+
+  private BenchmarkChatService service;
+  private TextStreamRequest request;
+
+  @Setup
+  public void setup() {
+    List<String> chunks = BenchmarkTexts.chunks(BenchmarkTexts.answer(chunkCount * 4), 4);
+    SpringAiTextStreamClient client =
+        new SpringAiTextStreamClient(null, null) {
+          @Override
+          public Flux<String> stream(TextStreamRequest request) {
+            return Flux.fromIterable(chunks);
+          }
+        };
+    service = new BenchmarkChatService(client);
+    request = TextStreamRequest.builder().prompt("benchmark").build();
+  }
+
+  @Benchmark
+  public ChatEvent streamAndAccumulate() {
+    return service.stream(request).blockLast();
+  }
+
+  static final class BenchmarkChatService extends BaseChatService {
+
+    BenchmarkChatService(SpringAiTextStreamClient client) {
+      super(client);
+    }
+
+    Flux<ChatEvent> stream(TextStreamRequest request) {
+      return streamText(request, (req, content) -> Mono.just(ChatEvent.end(1L, content)));
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.example.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试用的典型回答文本
+ * 混合标题、加粗小标题、列表、代码块与中英文段落，贴近模型的真实输出
+ */
+public final class BenchmarkTexts {
+
+  private static final String[] SECTIONS = {
+    "## 问题分析\n",
+    "在高并发场景下，响应式流的背压处理决定了服务的稳定性。Spring WebFlux 基于 Reactor，"
+        + "每个请求都在事件循环上执行，阻塞调用会直接拖慢所有连接。\n",
+    "**核心要点**\n",
+    "-首先确认阻塞点\n-其次隔离到弹性线程池\n- 最后用指标验证效果\n",
+    "常见做法包括：连接池-线程池-缓存三者配合使用。\n",
+    "```java\nFlux.fromIterable(items)\n    .flatMap(this::load, 8)\n    .collectList();\n```\n",
+    "**注意事项：**\n",
+    "1. 不要在 map 中执行 IO\n2. 超时必须显式设置\n3. 重试需要退避\n",
+    "The same applies to JDBC calls: wrap them with subscribeOn(Schedulers.boundedElastic()) "
+        + "and keep the event loop free.\n\n",
+  };
+
+  private BenchmarkTexts() {}
+
+  /** 拼接到不少于 targetChars 字符的回答 */
+  public static String answer(int targetChars) {
+    StringBuilder builder = new StringBuilder(targetChars + 256);
+    int i = 0;
+    while (builder.length() < targetChars) {
+      builder.append(SECTIONS[i % SECTIONS.length]);
+      i++;
+    }
+    return builder.toString();
+  }
+
+  /** 按固定长度切分为流式输出片段 */
+  public static List<String> chunks(String text, int chunkChars) {
+    List<String> chunks = new ArrayList<>(text.length() / chunkChars + 1);
+    for (int i = 0; i < text.length(); i += chunkChars) {
+      chunks.add(text.substring(i, Math.min(text.length(), i + chunkChars)));
+    }
+    return chunks;
+  }
+}
@@ -0,0 +1,53 @@
+package com.example.benchmark;
+
+import com.example.handler.ChatErrorHandler;
+import com.example.handler.DefaultChatErrorHandler;
+import java.net.ConnectException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 错误分类（按异常类型与消息关键字匹配）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatErrorTypeBenchmark {
+
+  private final DefaultChatErrorHandler handler = new DefaultChatErrorHandler();
+  private Throwable[] errors;
+
+  @Setup
+  public void setup() {
+    errors =
+        new Throwable[] {
+          new ConnectException("Connection refused"),
+          new TimeoutException("Did not observe any item or terminal signal within 30000ms"),
+          new IllegalStateException("401 unauthorized: invalid api key"),
+          new IllegalStateException("provider deepseek rate limit exceeded, please retry later"),
+          new RuntimeException("unexpected end of stream"),
+        };
+  }
+
+  @Benchmark
+  public void classify(Blackhole blackhole) {
+    for (Throwable error : errors) {
+      ChatErrorHandler.ErrorType type = handler.getErrorType(error);
+      blackhole.consume(type);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.example.benchmark;
+
+import com.example.memory.AbstractDatabaseChatMemory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.messages.Message;
+
+/**
+ * 历史消息实体到 Spring AI Message 的转换（每次请求加载记忆时执行）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMemoryConversionBenchmark {
+
+  @Param({"20", "200"})
+  public int messageCount;
+
+  private InMemoryChatMemory memory;
+
+  @Setup
+  public void setup() {
+    List<AbstractDatabaseChatMemory.MessageEntity> entities = new ArrayList<>(messageCount);
+    String answer = BenchmarkTexts.answer(1500);
+    for (int i = 0; i < messageCount; i++) {
+      String role = i % 2 == 0 ? "user" : "assistant";
+      String content = i % 2 == 0 ? "请解释一下响应式背压的处理方式" : answer;
+      entities.add(new Entity(role, content));
+    }
+    memory = new InMemoryChatMemory(entities);
+  }
+
+  @Benchmark
+  public List<Message> loadAndConvert() {
+    return memory.get("42");
+  }
+
+  record Entity(String role, String content) implements AbstractDatabaseChatMemory.MessageEntity {
+    @Override
+    public String getRole() {
+      return role;
+    }
+
+    @Override
+    public String getContent() {
+      return content;
+    }
+  }
+
+  static final class InMemoryChatMemory extends AbstractDatabaseChatMemory {
+    private final List<MessageEntity> entities;
+
+    InMemoryChatMemory(List<MessageEntity> entities) {
+      this.entities = entities;
+    }
+
+    @Override
+    protected void saveMessage(Long conversationId, String role, String content) {}
+
+    @Override
+    protected List<MessageEntity> loadMessages(Long conversationId) {
+      return entities;
+    }
+
+    @Override
+    protected void deleteMessages(Long conversationId) {}
+  }
+}
@@ -0,0 +1,63 @@
+package com.example.benchmark;
+
+import com.example.util.MarkdownNormalizer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 完整回答的Markdown规范化（回答结束时执行一次）
+ * 对比单遍实现、流式逐片段实现与原多遍正则实现；三者输出一致性由 agent-core 的
+ * MarkdownNormalizerTest 以黄金样例保证
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkdownNormalizerBenchmark {
+
+  @Param({"2000", "16000"})
+  public int answerChars;
+
+  private String answer;
+  private List<String> chunks;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    answer = BenchmarkTexts.answer(answerChars);
+    chunks = BenchmarkTexts.chunks(answer, 4);
+  }
+
+  @Benchmark
+  public String normalize() {
+    return MarkdownNormalizer.normalize(answer);
+  }
+
+  @Benchmark
+  public String normalizeIncremental() {
+    MarkdownNormalizer.Incremental normalizer = MarkdownNormalizer.incremental();
+    StringBuilder out = new StringBuilder(answer.length() + 64);
+    for (String chunk : chunks) {
+      out.append(normalizer.append(chunk));
+    }
+    return out.append(normalizer.finish()).toString();
+  }
+
+  @Benchmark
+  public String normalizeLegacy() {
+    return LegacyMarkdownNormalizer.normalize(answer);
+  }
+}
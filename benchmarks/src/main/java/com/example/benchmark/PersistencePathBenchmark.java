@@ -0,0 +1,281 @@
+package com.example.benchmark;
+
+import com.example.blocking.BlockingIoExecutor;
+import com.example.config.BlockingIoProperties;
+import com.example.config.PersistenceProperties;
+import com.example.config.R2dbcPersistenceConfig;
+import com.example.entity.Conversation;
+import com.example.mapper.ConversationMapper;
+import com.example.mapper.ConversationTurnMapper;
+import com.example.mapper.MessageMapper;
+import com.example.mapper.MessageToolResultMapper;
+import com.example.persistence.DatabaseFeatures;
+import com.example.persistence.IdBlockAllocator;
+import com.example.persistence.WriteBehindMessageWriter;
+import com.example.repository.ConversationR2dbcRepository;
+import com.example.repository.MessageR2dbcRepository;
+import com.example.repository.MessageToolResultR2dbcRepository;
+import com.example.service.ConversationService;
+import com.example.service.MessageService;
+import com.example.service.impl.ConversationServiceImpl;
+import com.example.service.impl.MessageServiceImpl;
+import com.example.service.impl.MessageToolResultServiceImpl;
+import com.example.service.impl.R2dbcConversationServiceImpl;
+import com.example.service.impl.R2dbcMessageServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+/**
+ * 消息/会话持久化：MyBatis（阻塞I/O调度器）、MyBatis 写后批量提交与 R2DBC 三条路径的吞吐对比
+ *
+ * <p>各路径经同一组 MessageService / ConversationService 接口访问同一个 H2 内存库，
+ * 连接池与阻塞I/O线程数同为 {@link #POOL_SIZE}。saveMessages 每次并发写入一批用户消息，
+ * readConversation 流式读取一段含搜索结果的历史对话。write-behind 路径使用 ACK_AFTER_FLUSH，
+ * 每条写入都在提交后才确认。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistencePathBenchmark {
+
+  private static final int POOL_SIZE = 10;
+  private static final int CONCURRENT_SAVES = 64;
+  private static final int HISTORY_TURNS = 10;
+  private static final String JDBC_URL = "jdbc:h2:mem:persistence_bench;DB_CLOSE_DELAY=-1";
+  private static final String R2DBC_URL =
+      "r2dbc:h2:mem:///persistence_bench?options=DB_CLOSE_DELAY=-1";
+
+  private static final String PATH_WRITE_BEHIND = "write-behind";
+
+  @Param({"mybatis", PATH_WRITE_BEHIND, "r2dbc"})
+  public String path;
+
+  private HikariDataSource dataSource;
+  private BlockingIoExecutor blockingIo;
+  private WriteBehindMessageWriter writeBehind;
+  private ConnectionPool connectionPool;
+  private MessageService messageService;
+  private ConversationService conversationService;
+  private long writeConversationId;
+  private long readConversationId;
+  private String userMessage;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl(JDBC_URL);
+    dataSource.setMaximumPoolSize(POOL_SIZE);
+    createSchema();
+    SqlSessionManager sessions = mybatis();
+    MessageMapper messageMapper = sessions.getMapper(MessageMapper.class);
+    ConversationMapper conversationMapper = sessions.getMapper(ConversationMapper.class);
+    ConversationTurnMapper turnMapper = sessions.getMapper(ConversationTurnMapper.class);
+    MessageToolResultMapper toolResultMapper = sessions.getMapper(MessageToolResultMapper.class);
+    ObjectMapper objectMapper = new ObjectMapper();
+    MessageToolResultServiceImpl toolResultService =
+        new MessageToolResultServiceImpl(toolResultMapper, objectMapper);
+
+    writeConversationId = insertConversation(conversationMapper);
+    readConversationId = insertConversation(conversationMapper);
+    String answer = BenchmarkTexts.answer(1200);
+    for (int i = 0; i < HISTORY_TURNS; i++) {
+      insertMessage(messageMapper, readConversationId, "user", "第" + i + "轮提问");
+      long assistantId = insertMessage(messageMapper, readConversationId, "assistant", answer);
+      toolResultService.saveSearchResults(assistantId, "查询" + i, List.of());
+    }
+    userMessage = "请帮我总结一下今天的会议纪要，并列出三条待办事项";
+
+    if (PersistenceProperties.MODE_R2DBC.equals(path)) {
+      PersistenceProperties properties = new PersistenceProperties();
+      properties.getR2dbc().setUrl(R2DBC_URL);
+      properties.getR2dbc().setMaxSize(POOL_SIZE);
+      R2dbcPersistenceConfig config = new R2dbcPersistenceConfig();
+      connectionPool = config.r2dbcConnectionFactory(properties);
+      DatabaseClient client = config.r2dbcDatabaseClient(connectionPool);
+      MessageR2dbcRepository messages = new MessageR2dbcRepository(client);
+      MessageToolResultR2dbcRepository toolResults = new MessageToolResultR2dbcRepository(client);
+      messageService = new R2dbcMessageServiceImpl(messages, toolResults);
+      conversationService =
+          new R2dbcConversationServiceImpl(
+              new ConversationR2dbcRepository(client),
+              messages,
+              toolResults,
+              config.r2dbcTransactionalOperator(connectionPool),
+              objectMapper,
+              null);
+    } else {
+      BlockingIoProperties properties = new BlockingIoProperties();
+      properties.setMaxThreads(POOL_SIZE);
+      blockingIo =
+          new BlockingIoExecutor(
+              properties,
+              new StandardEnvironment(),
+              new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+      DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+      if (PATH_WRITE_BEHIND.equals(path)) {
+        writeBehind =
+            new WriteBehindMessageWriter(
+                new PersistenceProperties(),
+                sessions,
+                messageMapper,
+                turnMapper,
+                blockingIo,
+                beans.getBeanProvider(MeterRegistry.class));
+        writeBehind.start();
+        beans.registerSingleton("writeBehind", writeBehind);
+      }
+      messageService =
+          new MessageServiceImpl(
+              messageMapper,
+              turnMapper,
+              toolResultService,
+              blockingIo,
+              beans.getBeanProvider(WriteBehindMessageWriter.class),
+              beans.getBeanProvider(IdBlockAllocator.class),
+              new DatabaseFeatures(dataSource));
+      conversationService =
+          new ConversationServiceImpl(
+              conversationMapper,
+              turnMapper,
+              messageMapper,
+              toolResultService,
+              objectMapper,
+              null,
+              blockingIo,
+              beans.getBeanProvider(IdBlockAllocator.class));
+    }
+    Long messages = readConversation();
+    if (messages == null || messages != HISTORY_TURNS * 2) {
+      throw new IllegalStateException(path + " 路径读取到的消息数不符: " + messages);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    if (connectionPool != null) {
+      connectionPool.dispose();
+    }
+    if (writeBehind != null) {
+      writeBehind.shutdown();
+    }
+    if (blockingIo != null) {
+      blockingIo.shutdown();
+    }
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("DROP ALL OBJECTS");
+    }
+    dataSource.close();
+  }
+
+  @Benchmark
+  public Long saveMessages() {
+    return Flux.range(0, CONCURRENT_SAVES)
+        .flatMap(
+            i -> messageService.saveUserMessageAsync(writeConversationId, userMessage),
+            CONCURRENT_SAVES)
+        .count()
+        .block();
+  }
+
+  @Benchmark
+  public Long readConversation() {
+    return conversationService.getConversationMessagesAsync(readConversationId).count().block();
+  }
+
+  private void createSchema() throws Exception {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create table conversations (id bigint auto_increment primary key, user_id bigint not"
+              + " null, title varchar(200), message_count int not null default 0,"
+              + " last_message_at timestamp, last_message_preview varchar(100),"
+              + " created_at timestamp default CURRENT_TIMESTAMP,"
+              + " updated_at timestamp default CURRENT_TIMESTAMP)");
+      statement.execute(
+          "create table messages (id bigint auto_increment primary key, conversation_id bigint"
+              + " not null, role varchar(20) not null, content varchar(100000) not null, thinking"
+              + " varchar(100000), created_at timestamp default CURRENT_TIMESTAMP, updated_at"
+              + " timestamp default CURRENT_TIMESTAMP)");
+      statement.execute(
+          "create table message_tool_results (id bigint auto_increment primary key, message_id"
+              + " bigint not null, tool_name varchar(50) not null, call_sequence int not null,"
+              + " tool_input varchar(100000), tool_result varchar(100000), status varchar(20) not"
+              + " null default 'IN_PROGRESS', error_message varchar(10000), created_at timestamp"
+              + " default CURRENT_TIMESTAMP, updated_at timestamp default CURRENT_TIMESTAMP)");
+      statement.execute("create index idx_messages_conversation_id on messages (conversation_id)");
+      statement.execute(
+          "create index idx_message_tool_results_message_id on message_tool_results (message_id)");
+    }
+  }
+
+  private SqlSessionManager mybatis() throws Exception {
+    Configuration configuration =
+        new Configuration(new Environment("bench", new JdbcTransactionFactory(), dataSource));
+    configuration.setMapUnderscoreToCamelCase(true);
+    List<String> resources =
+        List.of(
+            "mapper/MessageMapper.xml",
+            "mapper/ConversationMapper.xml",
+            "mapper/ConversationTurnMapper.xml");
+    for (String resource : resources) {
+      try (InputStream in = Resources.getResourceAsStream(resource)) {
+        new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+      }
+    }
+    configuration.addMapper(MessageToolResultMapper.class);
+    return SqlSessionManager.newInstance(new SqlSessionFactoryBuilder().build(configuration));
+  }
+
+  private static long insertConversation(ConversationMapper mapper) {
+    Conversation conversation = new Conversation();
+    conversation.setUserId(1L);
+    conversation.setTitle("基准会话");
+    mapper.insert(conversation);
+    return conversation.getId();
+  }
+
+  private static long insertMessage(
+      MessageMapper mapper, long conversationId, String role, String content) {
+    com.example.entity.Message message = new com.example.entity.Message();
+    message.setConversationId(conversationId);
+    message.setRole(role);
+    message.setContent(content);
+    mapper.insert(message);
+    return message.getId();
+  }
+}
@@ -0,0 +1,61 @@
+package com.example.benchmark;
+
+import com.example.dto.stream.ChatEvent;
+import com.example.sse.SseEventMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.codec.ServerSentEvent;
+
+/**
+ * SSE事件映射与payload JSON编码（每个输出片段都会经过一次）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SseEventMapperBenchmark {
+
+  @Param({"8", "64"})
+  public int chunkChars;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private ChatEvent chunk;
+  private ChatEvent end;
+
+  @Setup
+  public void setup() {
+    chunk = ChatEvent.chunk(42L, BenchmarkTexts.answer(chunkChars).substring(0, chunkChars));
+    end = ChatEvent.end(42L, BenchmarkTexts.answer(4096));
+  }
+
+  @Benchmark
+  public ServerSentEvent<Object> mapChunk() {
+    return SseEventMapper.toSseEvent(chunk, "3f2a9c0d5e6b4a1f8c7d2e3f4a5b6c7d", 128);
+  }
+
+  @Benchmark
+  public String mapAndEncodeChunk() throws JsonProcessingException {
+    ServerSentEvent<Object> event =
+        SseEventMapper.toSseEvent(chunk, "3f2a9c0d5e6b4a1f8c7d2e3f4a5b6c7d", 128);
+    return objectMapper.writeValueAsString(event.data());
+  }
+
+  @Benchmark
+  public String mapAndEncodeEnd() throws JsonProcessingException {
+    return objectMapper.writeValueAsString(SseEventMapper.toSseEvent(end).data());
+  }
+}
@@ -0,0 +1,85 @@
+package com.example.benchmark;
+
+import com.example.blocking.VirtualThreads;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 平台线程与虚拟线程调度器下的并发流对比
+ *
+ * <p>每次操作同时发起 streams 路模拟会话：保存用户消息、联网搜索工具、保存AI回答，
+ * 三段均为阻塞调用（sleep 模拟 JDBC 与 HTTP 等待）。platform 为默认 boundedElastic 配置
+ * （10×CPU 线程上限），virtual 为每任务一个虚拟线程。SampleTime 输出的 p0.99 即该并发下
+ * 全部会话完成耗时的 p99，平台线程在并发超过线程上限后开始排队。
+ * virtual 需要 Java 21+，JDK 17 上请加 {@code -p mode=platform}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadSchedulerBenchmark {
+
+  private static final Duration DB_LATENCY = Duration.ofMillis(2);
+  private static final Duration TOOL_LATENCY = Duration.ofMillis(20);
+  private static final int VIRTUAL_THREAD_CAP = 100_000;
+
+  @Param({"platform", "virtual"})
+  public String mode;
+
+  @Param({"100", "1000", "5000"})
+  public int streams;
+
+  private Scheduler scheduler;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    scheduler =
+        "virtual".equals(mode)
+            ? new Schedulers.Factory() {}.newThreadPerTaskBoundedElastic(
+                VIRTUAL_THREAD_CAP, Integer.MAX_VALUE, VirtualThreads.threadFactory("bench-virtual-"))
+            : Schedulers.newBoundedElastic(
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE, Integer.MAX_VALUE, "bench-platform");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    scheduler.dispose();
+  }
+
+  @Benchmark
+  public Long concurrentStreams() {
+    return Flux.range(0, streams).flatMap(i -> stream(), streams).count().block();
+  }
+
+  private Mono<Integer> stream() {
+    return blocking(DB_LATENCY).then(blocking(TOOL_LATENCY)).then(blocking(DB_LATENCY));
+  }
+
+  private Mono<Integer> blocking(Duration latency) {
+    return Mono.fromCallable(
+            () -> {
+              Thread.sleep(latency.toMillis());
+              return 1;
+            })
+        .subscribeOn(scheduler);
+  }
+}
@@ -0,0 +1,63 @@
+package com.example.integration.ai.greatwall;
+
+import com.example.config.GreatWallProperties;
+import com.example.config.MultiModelProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * 长城大模型SSE行的校验与解析（每个上游片段执行一次）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreatWallLineParsingBenchmark {
+
+  private static final String EVENT_CHUNK =
+      "data: {\"event\":\"llm_chunk\",\"data\":{\"choices\":[{\"index\":0,"
+          + "\"delta\":{\"content\":\"响应式流的背压\"}}]}}";
+  private static final String DIRECT_CHUNK =
+      "{\"id\":\"chatcmpl-1\",\"model\":\"greatwall-deepseek-v3\",\"choices\":[{\"index\":0,"
+          + "\"delta\":{\"content\":\"处理方式\"}}]}";
+
+  private GreatWallChatApi api;
+
+  @Setup
+  public void setup() {
+    api =
+        new GreatWallChatApi(
+            WebClient.builder(),
+            new ObjectMapper(),
+            new MultiModelProperties(),
+            new GreatWallProperties());
+  }
+
+  @Benchmark
+  public void parseEventChunk(Blackhole blackhole) {
+    if (api.isValidSseLine(EVENT_CHUNK)) {
+      api.parseJsonLine(EVENT_CHUNK).subscribe(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void parseDirectChunk(Blackhole blackhole) {
+    if (api.isValidSseLine(DIRECT_CHUNK)) {
+      api.parseJsonLine(DIRECT_CHUNK).subscribe(blackhole::consume);
+    }
+  }
+}
@@ -3,12 +3,15 @@ package com.example.config;
 import com.example.client.SystemPromptProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
 /**
  * Chat模块的SystemPromptProvider实现
  * 针对不同provider提供定制化的system prompt
+ * 启用时优先于 agent-core 的 ConfigurableSystemPromptProvider
  */
+@Primary
 @Component
 @ConditionalOnProperty(
     prefix = "chat.system-prompt",
@@ -6,10 +6,12 @@ import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
 
 /**
  * DeepSeek模型自动配置类 - 使用OpenAI兼容接口
@@ -24,7 +26,9 @@ public class DeepSeekConfig {
   /** 创建DeepSeek ChatModel Bean - 使用OpenAI兼容实现 */
   @Bean
   @ConditionalOnMissingBean(name = "deepseekChatModel")
-  public ChatModel deepseekChatModel(MultiModelProperties multiModelProperties) {
+  public ChatModel deepseekChatModel(
+      MultiModelProperties multiModelProperties,
+      ObjectProvider<WebClient.Builder> webClientBuilder) {
     log.info("🏗️ 创建DeepSeek ChatModel Bean（基于OpenAI兼容API）");
 
     // 获取DeepSeek配置
@@ -42,8 +46,13 @@ public class DeepSeekConfig {
 
     try {
       // 使用Builder模式创建OpenAI API客户端，指向DeepSeek端点
+      // 流式调用使用容器的WebClient.Builder，以便挂载录制/回放等过滤器
       OpenAiApi openAiApi =
-          OpenAiApi.builder().baseUrl(providerConfig.getBaseUrl()).apiKey(apiKey).build();
+          OpenAiApi.builder()
+              .baseUrl(providerConfig.getBaseUrl())
+              .apiKey(apiKey)
+              .webClientBuilder(webClientBuilder.getIfAvailable(WebClient::builder))
+              .build();
 
       // 使用Builder模式创建ChatModel
       return OpenAiChatModel.builder()
@@ -1,8 +1,11 @@
 package com.example.config;
 
+import com.example.mapper.ConversationTurnMapper;
 import com.example.mapper.MessageMapper;
 import com.example.memory.DatabaseChatMemory;
-import com.example.service.MessageToolResultService;
+import com.example.memory.TurnHistoryCache;
+import com.example.metrics.ChatPipelineMetrics;
+import com.example.profiling.RequestResourceTracker;
 import com.example.strategy.prompt.DefaultPromptBuilder;
 import com.example.strategy.prompt.PromptBuilder;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
@@ -20,8 +23,13 @@ public class MemoryConfig {
 
   @Bean
   public ChatMemory chatMemory(
-      MessageMapper messageMapper, MessageToolResultService messageToolResultService) {
-    return new DatabaseChatMemory(messageMapper, messageToolResultService);
+      MessageMapper messageMapper,
+      ConversationTurnMapper conversationTurnMapper,
+      TurnHistoryCache turnHistoryCache,
+      ChatPipelineMetrics pipelineMetrics,
+      RequestResourceTracker resourceTracker) {
+    return new DatabaseChatMemory(
+        messageMapper, conversationTurnMapper, turnHistoryCache, pipelineMetrics, resourceTracker);
   }
 
   @Bean
@@ -0,0 +1,39 @@
+package com.example.config;
+
+import com.example.integration.ai.mock.MockChatModel;
+import com.example.util.ModelConfigHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 模拟provider配置，用于离线压测与延迟复现
+ *
+ * @author xupeng
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "ai.models.providers.mock.enabled", havingValue = "true")
+public class MockProviderConfig {
+
+  /** 创建模拟 ChatModel Bean */
+  @Bean
+  @ConditionalOnMissingBean(name = "mockChatModel")
+  public ChatModel mockChatModel(
+      MultiModelProperties multiModelProperties,
+      ObjectProvider<ToolCallingManager> toolCallingManager) {
+    MultiModelProperties.ModelConfig modelConfig =
+        ModelConfigHelper.getDefaultModelConfig(multiModelProperties, "mock");
+    String modelName = modelConfig != null ? modelConfig.getName() : "mock-model";
+    log.warn("⚠️ 模拟provider已启用，模型 {} 输出为合成内容", modelName);
+    return new MockChatModel(
+        multiModelProperties,
+        modelName,
+        toolCallingManager.getIfAvailable(() -> ToolCallingManager.builder().build()));
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息与会话持久化方式配置
+ * mybatis（默认）：JDBC + MyBatis，响应式方法经阻塞I/O调度器执行；
+ * r2dbc：MessageService / ConversationService 切换为 R2DBC 实现，读写全程非阻塞
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.persistence")
+public class PersistenceProperties {
+
+  public static final String MODE_MYBATIS = "mybatis";
+  public static final String MODE_R2DBC = "r2dbc";
+
+  /** 持久化方式：mybatis / r2dbc */
+  private String mode = MODE_MYBATIS;
+
+  private R2dbc r2dbc = new R2dbc();
+
+  private WriteBehind writeBehind = new WriteBehind();
+
+  private IdAllocation idAllocation = new IdAllocation();
+
+  @Data
+  public static class R2dbc {
+    /** 连接URL，如 r2dbc:postgresql://localhost:5432/ai_chat、r2dbc:h2:mem:///ai_chat */
+    private String url = "r2dbc:postgresql://localhost:5432/ai_chat";
+    private String username;
+    private String password;
+    /** 连接池初始连接数 */
+    private int initialSize = 5;
+    /** 连接池最大连接数 */
+    private int maxSize = 20;
+  }
+
+  /**
+   * 写后（write-behind）批量提交：消息插入与标题更新进入内存队列，
+   * 由单个写线程按 batchSize 条或 flushInterval 合并为一次 JDBC 批量执行与一次提交。仅 mybatis 模式生效。
+   */
+  @Data
+  public static class WriteBehind {
+    private boolean enabled = false;
+    /** 队列容量，满时退化为调用方直接写库 */
+    private int queueCapacity = 10000;
+    /** 单批最大行数 */
+    private int batchSize = 100;
+    /** 首条写入入队后最多等待多久提交 */
+    private Duration flushInterval = Duration.ofMillis(5);
+    /** 持久性：ACK_AFTER_FLUSH 提交后才完成；FIRE_AND_FORGET 入队即完成（消息ID为空） */
+    private Durability durability = Durability.ACK_AFTER_FLUSH;
+    /** 停机时等待队列排空的最长时间 */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+  }
+
+  /**
+   * 消息/会话ID按块预分配（pooled-lo）：一次 nextval 取得块首 v，应用在内存中发放 [v, v + 步长)。
+   * 块大小取自序列自身的 increment by，与数据库默认生成的ID天然互不重叠。仅 mybatis 模式生效。
+   */
+  @Data
+  public static class IdAllocation {
+    private boolean enabled = false;
+    /** 消息表ID序列 */
+    private String messageSequence = "messages_id_seq";
+    /** 会话表ID序列 */
+    private String conversationSequence = "conversations_id_seq";
+  }
+
+  public enum Durability {
+    ACK_AFTER_FLUSH,
+    FIRE_AND_FORGET
+  }
+}
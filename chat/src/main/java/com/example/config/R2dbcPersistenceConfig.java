@@ -0,0 +1,58 @@
+package com.example.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.StringUtils;
+
+/**
+ * R2DBC 持久化配置（app.persistence.mode=r2dbc）
+ *
+ * <p>连接池与事务由本配置自建，Spring Boot 的 R2DBC 自动配置已在 application.yml 中排除：
+ * 否则其 R2dbcTransactionManager 会与 JDBC 事务管理器并存，导致 MyBatis 侧 @Transactional 无法确定事务管理器。
+ * 响应式事务只通过 {@link TransactionalOperator} 使用。
+ */
+@Configuration
+@ConditionalOnProperty(
+    prefix = "app.persistence",
+    name = "mode",
+    havingValue = PersistenceProperties.MODE_R2DBC)
+public class R2dbcPersistenceConfig {
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionPool r2dbcConnectionFactory(PersistenceProperties properties) {
+    PersistenceProperties.R2dbc r2dbc = properties.getR2dbc();
+    ConnectionFactoryOptions.Builder options =
+        ConnectionFactoryOptions.parse(r2dbc.getUrl()).mutate();
+    if (StringUtils.hasText(r2dbc.getUsername())) {
+      options.option(ConnectionFactoryOptions.USER, r2dbc.getUsername());
+    }
+    if (StringUtils.hasText(r2dbc.getPassword())) {
+      options.option(ConnectionFactoryOptions.PASSWORD, r2dbc.getPassword());
+    }
+    ConnectionFactory connectionFactory = ConnectionFactories.get(options.build());
+    return new ConnectionPool(
+        ConnectionPoolConfiguration.builder(connectionFactory)
+            .initialSize(r2dbc.getInitialSize())
+            .maxSize(r2dbc.getMaxSize())
+            .build());
+  }
+
+  @Bean
+  public DatabaseClient r2dbcDatabaseClient(ConnectionFactory connectionFactory) {
+    return DatabaseClient.create(connectionFactory);
+  }
+
+  @Bean
+  public TransactionalOperator r2dbcTransactionalOperator(ConnectionFactory connectionFactory) {
+    return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+  }
+}
@@ -2,12 +2,18 @@ package com.example.controller;
 
 import com.example.dto.request.StreamChatRequest;
 import com.example.dto.stream.ChatEvent;
-import com.example.sse.SseEventMapper;
+import com.example.integration.cluster.ConversationAffinityService;
+import com.example.sse.SseReplayRegistry;
 import com.example.service.AiChatService;
+import com.example.stream.limit.AdaptiveConcurrencyLimiter;
+import java.net.URI;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
@@ -24,27 +30,69 @@ public class ChatController {
 
   @Autowired private AiChatService aiChatService;
 
+  @Autowired private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+  @Autowired private SseReplayRegistry replayRegistry;
+
+  @Autowired(required = false)
+  private ConversationAffinityService affinityService;
+
   /**
    * SSE聊天端点 - 按需建立连接处理消息（支持模型选择） 利用Spring自动参数绑定，将URL路径参数和查询参数自动绑定到StreamChatRequest对象
    *
    * @param request 流式聊天请求对象，包含所有参数
+   * @param lastEventId 浏览器断线重连时携带的最后事件ID，存在时续传原生成而不是重新生成
+   * @param forwardedBy 由其它节点转发时携带的来源节点ID
    * @return 响应式SSE事件流
    */
   @GetMapping(value = "/stream/{conversationId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
   public Flux<ServerSentEvent<Object>> streamChat(
-      @PathVariable Long conversationId, StreamChatRequest request) {
+      @PathVariable Long conversationId,
+      StreamChatRequest request,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+      @RequestHeader(value = ConversationAffinityService.FORWARDED_HEADER, required = false)
+          String forwardedBy,
+      ServerHttpRequest httpRequest,
+      ServerHttpResponse httpResponse) {
     // 设置路径参数到请求对象中
     request.setConversationId(conversationId);
 
+    // 会话由其它节点持有时重定向或转发，续传请求同样需要到持有节点的回放缓冲
+    if (affinityService != null && forwardedBy == null) {
+      ConversationAffinityService.Owner owner = affinityService.ownerOf(conversationId);
+      if (!owner.local() && owner.baseUrl() != null) {
+        String pathAndQuery =
+            httpRequest.getURI().getRawPath()
+                + (httpRequest.getURI().getRawQuery() != null
+                    ? "?" + httpRequest.getURI().getRawQuery()
+                    : "");
+        if (affinityService.settings().isRedirect()) {
+          log.debug("会话 {} 由节点 {} 持有，重定向", conversationId, owner.nodeId());
+          httpResponse.setStatusCode(HttpStatus.TEMPORARY_REDIRECT);
+          httpResponse.getHeaders().setLocation(URI.create(owner.baseUrl() + pathAndQuery));
+          return Flux.empty();
+        }
+        if (affinityService.settings().isForward()) {
+          return affinityService.forward(owner, pathAndQuery, lastEventId);
+        }
+      }
+    }
+
+    if (lastEventId != null && !lastEventId.isBlank()) {
+      log.info("SSE重连续传，会话ID: {}, Last-Event-ID: {}", conversationId, lastEventId);
+      return replayRegistry.resume(conversationId, lastEventId);
+    }
+
     if (request.getMessage() == null || request.getMessage().trim().isEmpty()) {
       // 无消息时返回空流，连接会自然结束
       log.debug("无消息内容，返回空流");
       return Flux.empty();
     }
 
-    return aiChatService
-        .streamChat(request)
-        .map(SseEventMapper::toSseEvent)
+    return replayRegistry
+        .start(
+            request.getConversationId(),
+            concurrencyLimiter.guard(() -> aiChatService.streamChat(request)))
         .doOnNext(
             event -> {
               if (log.isDebugEnabled()) {
@@ -66,5 +114,5 @@ public class ChatController {
         .doOnComplete(() -> log.info("流式聊天完成，会话ID: {}", request.getConversationId()));
   }
 
-  // 统一由 SseEventMapper 处理事件名与payload
+  // 统一由 SseEventMapper 处理事件名、事件ID与payload
 }
@@ -0,0 +1,50 @@
+package com.example.controller;
+
+import com.example.dto.response.ApiResponse;
+import com.example.integration.cluster.ConversationAffinityService;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 集群控制器，供网关或前端查询会话归属节点
+ *
+ * @author xupeng
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/cluster")
+@CrossOrigin(origins = "*")
+public class ClusterController {
+
+  @Autowired(required = false)
+  private ConversationAffinityService affinityService;
+
+  /**
+   * 查询会话的持有节点；未启用亲和路由时始终返回本节点
+   *
+   * @param conversationId 会话ID
+   * @return 会话归属
+   */
+  @GetMapping("/owner/{conversationId}")
+  public ApiResponse<ConversationAffinityService.Owner> getOwner(@PathVariable Long conversationId) {
+    if (affinityService == null) {
+      return ApiResponse.success(new ConversationAffinityService.Owner(conversationId, null, null, true));
+    }
+    return ApiResponse.success(affinityService.ownerOf(conversationId));
+  }
+
+  /**
+   * 查询存活节点
+   *
+   * @return 节点ID到地址的映射
+   */
+  @GetMapping("/nodes")
+  public ApiResponse<Map<String, String>> getNodes() {
+    if (affinityService == null) {
+      return ApiResponse.success(Map.of());
+    }
+    return ApiResponse.success(affinityService.nodes());
+  }
+}
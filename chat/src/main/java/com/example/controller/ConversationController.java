@@ -1,8 +1,10 @@
 package com.example.controller;
 
+import com.example.blocking.BlockingIoExecutor;
 import com.example.dto.request.ConversationRequest;
 import com.example.dto.request.MessageRequest;
 import com.example.dto.response.ApiResponse;
+import com.example.dto.response.CursorPage;
 import com.example.entity.Conversation;
 import com.example.entity.Message;
 import com.example.service.ConversationService;
@@ -11,10 +13,14 @@ import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 /**
  * 对话控制器，处理对话相关的HTTP请求
  *
+ * <p>同步的服务调用（JDBC，或 r2dbc 模式下内部 block 的方法）统一经 {@link BlockingIoExecutor}
+ * 提交，不在 Netty 事件循环线程上执行。
+ *
  * @author xupeng
  */
 @Slf4j
@@ -27,6 +33,8 @@ public class ConversationController {
 
   @Autowired private MessageService messageService;
 
+  @Autowired private BlockingIoExecutor blockingIo;
+
   /** 默认对话标题 */
   private static final String DEFAULT_CONVERSATION_TITLE = "新对话";
 
@@ -37,16 +45,42 @@ public class ConversationController {
    * @return 对话列表的ApiResponse
    */
   @GetMapping
-  public ApiResponse<List<Conversation>> getConversations(@RequestParam Long userId) {
+  public Mono<ApiResponse<List<Conversation>>> getConversations(@RequestParam Long userId) {
     log.debug("获取用户对话列表，用户ID: {}", userId);
 
     if (userId == null || userId <= 0) {
       throw new IllegalArgumentException("用户ID无效");
     }
 
-    List<Conversation> conversations = conversationService.getUserConversations(userId);
-    log.debug("获取对话列表成功，用户ID: {}, 对话数量: {}", userId, conversations.size());
-    return ApiResponse.success(conversations);
+    return blockingIo
+        .call("conversation.list", () -> conversationService.getUserConversations(userId))
+        .doOnNext(
+            conversations ->
+                log.debug("获取对话列表成功，用户ID: {}, 对话数量: {}", userId, conversations.size()))
+        .map(ApiResponse::success);
+  }
+
+  /**
+   * 键集分页获取用户对话列表，按更新时间倒序
+   *
+   * @param userId 用户ID
+   * @param cursor 上一页返回的游标，第一页不传
+   * @param size 每页条数，默认20，最多100
+   * @return 对话分页的ApiResponse
+   */
+  @GetMapping("/page")
+  public Mono<ApiResponse<CursorPage<Conversation>>> getConversationsPage(
+      @RequestParam Long userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int size) {
+    if (userId == null || userId <= 0) {
+      throw new IllegalArgumentException("用户ID无效");
+    }
+    return blockingIo
+        .call(
+            "conversation.page",
+            () -> conversationService.getUserConversationsPage(userId, cursor, size))
+        .map(ApiResponse::success);
   }
 
   /**
@@ -56,7 +90,8 @@ public class ConversationController {
    * @return 新创建对话的ApiResponse
    */
   @PostMapping
-  public ApiResponse<Conversation> createConversation(@RequestBody ConversationRequest request) {
+  public Mono<ApiResponse<Conversation>> createConversation(
+      @RequestBody ConversationRequest request) {
     log.info("创建新对话，用户ID: {}, 标题: {}", request.getUserId(), request.getTitle());
 
     if (request.getUserId() == null || request.getUserId() <= 0) {
@@ -72,9 +107,13 @@ public class ConversationController {
       title = title.trim();
     }
 
-    Conversation conversation = conversationService.createConversation(request.getUserId(), title);
-    log.info("对话创建成功，对话ID: {}", conversation.getId());
-    return ApiResponse.success("创建对话成功", conversation);
+    String conversationTitle = title;
+    return blockingIo
+        .call(
+            "conversation.create",
+            () -> conversationService.createConversation(request.getUserId(), conversationTitle))
+        .doOnNext(conversation -> log.info("对话创建成功，对话ID: {}", conversation.getId()))
+        .map(conversation -> ApiResponse.success("创建对话成功", conversation));
   }
 
   /**
@@ -84,9 +123,10 @@ public class ConversationController {
    * @return 对话详细信息的ApiResponse
    */
   @GetMapping("/{id}")
-  public ApiResponse<Conversation> getConversation(@PathVariable Long id) {
-    Conversation conversation = conversationService.getConversationById(id);
-    return ApiResponse.success(conversation);
+  public Mono<ApiResponse<Conversation>> getConversation(@PathVariable Long id) {
+    return blockingIo
+        .call("conversation.get", () -> conversationService.getConversationById(id))
+        .map(ApiResponse::success);
   }
 
   /**
@@ -96,16 +136,17 @@ public class ConversationController {
    * @return 删除结果的ApiResponse
    */
   @DeleteMapping("/{id}")
-  public ApiResponse<Void> deleteConversation(@PathVariable Long id) {
+  public Mono<ApiResponse<Void>> deleteConversation(@PathVariable Long id) {
     log.info("删除对话请求，对话ID: {}", id);
 
     if (id == null || id <= 0) {
       throw new IllegalArgumentException("对话ID无效");
     }
 
-    conversationService.deleteConversation(id);
-    log.info("对话删除成功，对话ID: {}", id);
-    return ApiResponse.success("删除成功", null);
+    return blockingIo
+        .run("conversation.delete", () -> conversationService.deleteConversation(id))
+        .doOnSuccess(ignored -> log.info("对话删除成功，对话ID: {}", id))
+        .then(Mono.fromSupplier(() -> ApiResponse.<Void>success("删除成功", null)));
   }
 
   /**
@@ -115,13 +156,57 @@ public class ConversationController {
    * @return 消息列表的ApiResponse
    */
   @GetMapping("/{id}/messages")
-  public ApiResponse<List<Message>> getMessages(@PathVariable Long id) {
+  public Mono<ApiResponse<List<Message>>> getMessages(@PathVariable Long id) {
     if (id == null || id <= 0) {
       throw new IllegalArgumentException("对话ID无效");
     }
 
-    List<Message> messages = conversationService.getConversationMessages(id);
-    return ApiResponse.success(messages);
+    return conversationService
+        .getConversationMessagesAsync(id)
+        .collectList()
+        .map(ApiResponse::success);
+  }
+
+  /**
+   * 键集分页获取指定对话的消息，从最新一页向更早翻页；列表项不含 thinking
+   *
+   * @param id 对话ID
+   * @param cursor 上一页返回的游标，第一页不传
+   * @param size 每页条数，默认20，最多100
+   * @return 消息分页的ApiResponse
+   */
+  @GetMapping("/{id}/messages/page")
+  public Mono<ApiResponse<CursorPage<Message>>> getMessagesPage(
+      @PathVariable Long id,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int size) {
+    if (id == null || id <= 0) {
+      throw new IllegalArgumentException("对话ID无效");
+    }
+
+    return conversationService
+        .getConversationMessagesPageAsync(id, cursor, size)
+        .map(ApiResponse::success);
+  }
+
+  /**
+   * 获取指定对话中单条消息的完整内容（含 thinking）
+   *
+   * @param id 对话ID
+   * @param messageId 消息ID
+   * @return 消息的ApiResponse
+   */
+  @GetMapping("/{id}/messages/{messageId}")
+  public Mono<ApiResponse<Message>> getMessage(
+      @PathVariable Long id, @PathVariable Long messageId) {
+    if (id == null || id <= 0 || messageId == null || messageId <= 0) {
+      throw new IllegalArgumentException("消息ID无效");
+    }
+
+    return conversationService
+        .getConversationMessageAsync(id, messageId)
+        .switchIfEmpty(Mono.error(new IllegalArgumentException("消息不存在")))
+        .map(ApiResponse::success);
   }
 
   /**
@@ -132,11 +217,14 @@ public class ConversationController {
    * @return 发送的消息的ApiResponse
    */
   @PostMapping("/{id}/messages")
-  public ApiResponse<Message> sendMessage(
+  public Mono<ApiResponse<Message>> sendMessage(
       @PathVariable Long id, @RequestBody MessageRequest request) {
-    Message userMessage =
-        messageService.saveMessage(
-            com.example.dto.request.MessageSaveRequest.forUser(id, request.getContent()));
-    return ApiResponse.success("消息发送成功", userMessage);
+    return blockingIo
+        .call(
+            "message.saveUser",
+            () ->
+                messageService.saveMessage(
+                    com.example.dto.request.MessageSaveRequest.forUser(id, request.getContent())))
+        .map(userMessage -> ApiResponse.success("消息发送成功", userMessage));
   }
 }
@@ -6,6 +6,7 @@ import com.example.dto.stream.ChatEvent;
 import com.example.service.AiChatService;
 import com.example.service.NovelRagService;
 import com.example.sse.SseEventMapper;
+import com.example.stream.limit.AdaptiveConcurrencyLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
@@ -32,6 +33,9 @@ public class NovelController {
     @Autowired
     private NovelRagService novelRagService;
 
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
     /**
      * 获取可用的模型列表
      */
@@ -72,7 +76,7 @@ public class NovelController {
             chatRequest.setModel(model);
             chatRequest.setConversationId(0L); // 临时对话，不保存
 
-            return aiChatService.streamChat(chatRequest)
+            return concurrencyLimiter.guard(() -> aiChatService.streamChat(chatRequest))
                 .map(SseEventMapper::toSseEvent);
         } catch (Exception e) {
             log.error("流式生成失败", e);
@@ -0,0 +1,47 @@
+package com.example.dto.request;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 键集分页游标：上一页最后一行的排序键（时间戳, ID），对外以 base64url 不透明字符串传递
+ *
+ * @param at 排序时间戳（会话为 updated_at，消息为 created_at）
+ * @param id 行ID，时间戳相同时决定先后
+ */
+public record KeysetCursor(LocalDateTime at, Long id) {
+
+  private static final String SEPARATOR = "|";
+
+  public String encode() {
+    String raw = at + SEPARATOR + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * 解析游标，空值表示第一页
+   *
+   * @param cursor 游标字符串
+   * @return 游标，第一页时为 null
+   */
+  public static KeysetCursor decode(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+      int split = raw.lastIndexOf(SEPARATOR);
+      if (split <= 0) {
+        throw new IllegalArgumentException("分页游标无效");
+      }
+      return new KeysetCursor(
+          LocalDateTime.parse(raw.substring(0, split)), Long.valueOf(raw.substring(split + 1)));
+    } catch (DateTimeParseException | IllegalArgumentException e) {
+      throw new IllegalArgumentException("分页游标无效", e);
+    }
+  }
+}
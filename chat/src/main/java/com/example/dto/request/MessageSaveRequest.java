@@ -11,11 +11,14 @@ import lombok.NoArgsConstructor;
  * @author xupeng
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class MessageSaveRequest {
 
+  /** 预分配的消息ID（可选，为空时由数据库生成） */
+  private Long id;
+
   /** 会话ID */
   private Long conversationId;
 
@@ -0,0 +1,56 @@
+package com.example.dto.response;
+
+import com.example.dto.request.KeysetCursor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 键集分页结果
+ *
+ * @param <T> 数据类型
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+  /** 默认每页条数 */
+  public static final int DEFAULT_SIZE = 20;
+
+  /** 每页条数上限 */
+  public static final int MAX_SIZE = 100;
+
+  /** 本页数据 */
+  private List<T> items;
+
+  /** 下一页游标，没有更多数据时为 null */
+  private String nextCursor;
+
+  /** 是否还有更多数据 */
+  private boolean hasMore;
+
+  /** 将请求的每页条数限制在 [1, MAX_SIZE] */
+  public static int clampSize(int size) {
+    return size <= 0 ? DEFAULT_SIZE : Math.min(size, MAX_SIZE);
+  }
+
+  /**
+   * 由多查一行的结果构造分页：查询按 size + 1 取数，多出的一行只用于判断是否还有下一页
+   *
+   * @param rows 查询结果（最多 size + 1 行，按分页顺序排列）
+   * @param size 每页条数
+   * @param cursorOf 由本页最后一行生成下一页游标
+   * @return 分页结果
+   */
+  public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+    if (rows.size() <= size) {
+      return new CursorPage<>(rows, null, false);
+    }
+    List<T> items = new ArrayList<>(rows.subList(0, size));
+    return new CursorPage<>(items, cursorOf.apply(items.get(size - 1)).encode(), true);
+  }
+}
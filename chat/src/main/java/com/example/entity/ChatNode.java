@@ -0,0 +1,31 @@
+package com.example.entity;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 集群节点实体类 用于会话亲和路由的成员表
+ *
+ * @author xupeng
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatNode {
+
+  /** 节点ID */
+  private String nodeId;
+
+  /** 节点对外地址 */
+  private String baseUrl;
+
+  /** 启动时间 */
+  private LocalDateTime startedAt;
+
+  /** 最近心跳时间 */
+  private LocalDateTime heartbeatAt;
+}
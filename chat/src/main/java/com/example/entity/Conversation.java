@@ -23,6 +23,31 @@ public class Conversation implements BaseSession {
   /** 创建时间 */
   private LocalDateTime createdAt;
 
-  /** 更新时间 */
+  /** 更新时间（写入消息时同步刷新，即最近活动时间） */
   private LocalDateTime updatedAt;
+
+  /** 消息数量 */
+  private Integer messageCount;
+
+  /** 最后一条消息时间 */
+  private LocalDateTime lastMessageAt;
+
+  /** 最后一条消息预览 */
+  private String lastMessagePreview;
+
+  /** 消息预览最大长度（字符数），与 SQL 中 LEFT(content, 100) 一致 */
+  public static final int PREVIEW_LENGTH = 100;
+
+  /**
+   * 截取消息预览，按码点截断避免拆开代理对
+   *
+   * @param content 消息内容
+   * @return 预览文本
+   */
+  public static String previewOf(String content) {
+    if (content == null || content.codePointCount(0, content.length()) <= PREVIEW_LENGTH) {
+      return content;
+    }
+    return content.substring(0, content.offsetByCodePoints(0, PREVIEW_LENGTH));
+  }
 }
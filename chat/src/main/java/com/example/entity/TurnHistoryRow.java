@@ -0,0 +1,14 @@
+package com.example.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 插入用户消息并读取历史的单语句结果行：insertedId 为本轮插入的用户消息ID，
+ * 其余字段为插入前的一条历史消息（会话无历史时仅有一行且消息字段为空）
+ */
+@Getter
+@Setter
+public class TurnHistoryRow extends Message {
+  private Long insertedId;
+}
@@ -194,8 +194,8 @@ public class GreatWallChatApi implements ChatApi {
     return prefix + "_" + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
   }
 
-  /** 检查是否为有效的SSE行 */
-  private boolean isValidSseLine(String line) {
+  /** 检查是否为有效的SSE行（包级可见，供基准测试使用） */
+  boolean isValidSseLine(String line) {
     if (line == null || line.trim().isEmpty()) {
       return false;
     }
@@ -212,7 +212,7 @@ public class GreatWallChatApi implements ChatApi {
   }
 
   /** 解析JSON行（整合原GreatWallSseParser逻辑） */
-  private Flux<ChatCompletionResponse> parseJsonLine(String line) {
+  Flux<ChatCompletionResponse> parseJsonLine(String line) {
     try {
       String jsonData = extractJsonData(line);
       if (jsonData == null || jsonData.trim().isEmpty()) {
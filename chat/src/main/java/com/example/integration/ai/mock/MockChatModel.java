@@ -0,0 +1,218 @@
+package com.example.integration.ai.mock;
+
+import com.example.config.MultiModelProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolExecutionEligibilityPredicate;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionEligibilityPredicate;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.util.json.JsonParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 本地模拟ChatModel，按配置的速率流式输出合成token，不访问任何外部服务
+ *
+ * <p>用于压测与延迟复现：首token延迟、输出速率、抖动、错误注入与工具调用均可通过 ai.models.mock 配置。
+ * 工具调用轮次与真实provider一致，由本模型通过 {@link ToolCallingManager} 执行后继续生成。
+ *
+ * @author xupeng
+ */
+@Slf4j
+public class MockChatModel implements ChatModel {
+
+  private static final String[] WORDS = {
+    "这是", "一段", "用于", "压测", "的", "模拟", "输出", "，", "mock ", "token ", "stream ", "。\n"
+  };
+
+  private final MultiModelProperties properties;
+  private final String modelName;
+  private final ToolCallingManager toolCallingManager;
+  private final ToolExecutionEligibilityPredicate toolExecutionEligibilityPredicate =
+      new DefaultToolExecutionEligibilityPredicate();
+
+  public MockChatModel(
+      MultiModelProperties properties, String modelName, ToolCallingManager toolCallingManager) {
+    this.properties = properties;
+    this.modelName = modelName;
+    this.toolCallingManager = toolCallingManager;
+  }
+
+  @Override
+  public ChatResponse call(Prompt prompt) {
+    StringBuilder content = new StringBuilder();
+    ChatResponse last =
+        stream(prompt)
+            .doOnNext(response -> content.append(textOf(response)))
+            .blockLast();
+    ChatResponseMetadata metadata = last != null ? last.getMetadata() : null;
+    return new ChatResponse(
+        List.of(new Generation(new AssistantMessage(content.toString()), stopMetadata())),
+        metadata);
+  }
+
+  @Override
+  public Flux<ChatResponse> stream(Prompt prompt) {
+    return Flux.defer(
+        () -> {
+          MultiModelProperties.Mock settings = properties.getMock();
+          if (shouldCallTool(prompt, settings)) {
+            return toolRound(prompt, settings);
+          }
+          return tokens(prompt, settings);
+        });
+  }
+
+  @Override
+  public ChatOptions getDefaultOptions() {
+    return ToolCallingChatOptions.builder().model(modelName).build();
+  }
+
+  /** 输出合成token，最后一块携带usage；命中错误率时在随机位置中断 */
+  private Flux<ChatResponse> tokens(Prompt prompt, MultiModelProperties.Mock settings) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int count = tokenCount(prompt, settings);
+    int failAt = random.nextDouble() < settings.getErrorRate() ? random.nextInt(count) : -1;
+    int promptTokens = Math.max(1, prompt.getContents().length() / 2);
+    long intervalMs =
+        settings.getTokensPerSecond() > 0 ? Math.round(1000 / settings.getTokensPerSecond()) : 0;
+
+    return Flux.range(0, count)
+        .concatMap(
+            i -> {
+              long base = i == 0 ? settings.getFirstTokenDelayMs() : intervalMs;
+              Mono<Integer> next = Mono.delay(jitter(base, settings)).thenReturn(i);
+              if (i == failAt) {
+                return next.then(
+                    Mono.error(new IllegalStateException(settings.getErrorMessage())));
+              }
+              return next;
+            })
+        .map(
+            i -> {
+              String token = WORDS[i % WORDS.length];
+              if (i < count - 1) {
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(token))));
+              }
+              return new ChatResponse(
+                  List.of(new Generation(new AssistantMessage(token), stopMetadata())),
+                  ChatResponseMetadata.builder()
+                      .model(modelName)
+                      .usage(new DefaultUsage(promptTokens, count))
+                      .build());
+            })
+        .doOnError(error -> log.debug("模拟provider注入错误: {}", error.getMessage()));
+  }
+
+  /** 首token延迟后返回工具调用，执行工具并以工具结果继续生成 */
+  private Flux<ChatResponse> toolRound(Prompt prompt, MultiModelProperties.Mock settings) {
+    AssistantMessage.ToolCall toolCall =
+        new AssistantMessage.ToolCall(
+            "call_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12),
+            "function",
+            settings.getToolName(),
+            JsonParser.toJson(Map.of("query", lastUserText(prompt))));
+    ChatResponse response =
+        new ChatResponse(
+            List.of(
+                new Generation(
+                    new AssistantMessage("", Map.of(), List.of(toolCall)),
+                    ChatGenerationMetadata.builder().finishReason("TOOL_CALLS").build())));
+
+    return Mono.delay(jitter(settings.getFirstTokenDelayMs(), settings))
+        .thenMany(
+            Flux.defer(
+                () -> {
+                  if (!toolExecutionEligibilityPredicate.isToolExecutionRequired(
+                      prompt.getOptions(), response)) {
+                    return Flux.just(response);
+                  }
+                  return Mono.fromCallable(
+                          () -> toolCallingManager.executeToolCalls(prompt, response))
+                      .subscribeOn(Schedulers.boundedElastic())
+                      .flatMapMany(result -> continueAfterTools(prompt, result, response));
+                }));
+  }
+
+  private Flux<ChatResponse> continueAfterTools(
+      Prompt prompt, ToolExecutionResult result, ChatResponse response) {
+    if (result.returnDirect()) {
+      return Flux.just(
+          ChatResponse.builder()
+              .from(response)
+              .generations(ToolExecutionResult.buildGenerations(result))
+              .build());
+    }
+    return stream(new Prompt(result.conversationHistory(), prompt.getOptions()));
+  }
+
+  /** 仅在请求注册了目标工具、且当前不是工具结果轮次时触发 */
+  private boolean shouldCallTool(Prompt prompt, MultiModelProperties.Mock settings) {
+    if (settings.getToolCallRate() <= 0
+        || !(prompt.getOptions() instanceof ToolCallingChatOptions options)) {
+      return false;
+    }
+    List<Message> messages = prompt.getInstructions();
+    if (!messages.isEmpty() && messages.get(messages.size() - 1) instanceof ToolResponseMessage) {
+      return false;
+    }
+    boolean registered =
+        options.getToolCallbacks().stream()
+                .anyMatch(
+                    callback -> settings.getToolName().equals(callback.getToolDefinition().name()))
+            || options.getToolNames().contains(settings.getToolName());
+    return registered && ThreadLocalRandom.current().nextDouble() < settings.getToolCallRate();
+  }
+
+  private static int tokenCount(Prompt prompt, MultiModelProperties.Mock settings) {
+    int count = Math.max(1, settings.getTokens());
+    Integer maxTokens = prompt.getOptions() != null ? prompt.getOptions().getMaxTokens() : null;
+    return maxTokens != null && maxTokens > 0 ? Math.min(count, maxTokens) : count;
+  }
+
+  private static Duration jitter(long baseMs, MultiModelProperties.Mock settings) {
+    if (baseMs <= 0) {
+      return Duration.ZERO;
+    }
+    double ratio = Math.max(0, settings.getJitterRatio());
+    double factor = ratio > 0 ? 1 + ThreadLocalRandom.current().nextDouble(-ratio, ratio) : 1;
+    return Duration.ofMillis(Math.max(0, Math.round(baseMs * factor)));
+  }
+
+  private static String lastUserText(Prompt prompt) {
+    UserMessage message = prompt.getUserMessage();
+    String text = message != null && message.getText() != null ? message.getText() : "";
+    return text.length() > 64 ? text.substring(0, 64) : text;
+  }
+
+  private static String textOf(ChatResponse response) {
+    if (response.getResult() == null || response.getResult().getOutput().getText() == null) {
+      return "";
+    }
+    return response.getResult().getOutput().getText();
+  }
+
+  private static ChatGenerationMetadata stopMetadata() {
+    return ChatGenerationMetadata.builder().finishReason("STOP").build();
+  }
+}
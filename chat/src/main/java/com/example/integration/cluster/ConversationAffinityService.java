@@ -0,0 +1,215 @@
+package com.example.integration.cluster;
+
+import com.example.cluster.ConsistentHashRing;
+import com.example.cluster.ConversationRebalanceEvent;
+import com.example.config.ClusterProperties;
+import com.example.entity.ChatNode;
+import com.example.mapper.ChatNodeMapper;
+import com.example.replay.TrafficCaptureFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 会话亲和路由服务
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>通过 chat_nodes 成员表登记本节点并定期心跳</li>
+ *   <li>按存活节点构建一致性哈希环，确定会话的持有节点</li>
+ *   <li>成员变化时发布 {@link ConversationRebalanceEvent}，由各组件清理本地会话状态</li>
+ *   <li>forward 模式下把非本节点会话的SSE流代理到持有节点</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("${ai.cluster.enabled:false} and ${ai.cluster.affinity.enabled:false}")
+public class ConversationAffinityService {
+
+  /** 转发请求携带的头，持有节点收到后不再路由，避免转发环路 */
+  public static final String FORWARDED_HEADER = "X-Chat-Forwarded-By";
+
+  private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+      new ParameterizedTypeReference<>() {};
+
+  private final ClusterProperties properties;
+  private final ChatNodeMapper chatNodeMapper;
+  private final ApplicationEventPublisher eventPublisher;
+  private final WebClient webClient;
+  private final String baseUrl;
+  private final LocalDateTime startedAt = LocalDateTime.now();
+  private volatile ConsistentHashRing ring;
+  private volatile Map<String, String> nodeUrls = Map.of();
+  private Disposable heartbeat;
+
+  public ConversationAffinityService(
+      ClusterProperties properties,
+      ChatNodeMapper chatNodeMapper,
+      ApplicationEventPublisher eventPublisher,
+      WebClient.Builder webClientBuilder,
+      ObjectProvider<MeterRegistry> meterRegistry,
+      @Value("${server.port:8080}") int serverPort) {
+    this.properties = properties;
+    this.chatNodeMapper = chatNodeMapper;
+    this.eventPublisher = eventPublisher;
+    this.webClient = webClientBuilder.build();
+    this.baseUrl = resolveBaseUrl(properties.getAffinity().getAdvertisedUrl(), serverPort);
+    this.ring = ConsistentHashRing.of(List.of(nodeId()), properties.getAffinity().getVirtualNodes());
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    if (registry != null) {
+      Gauge.builder("ai.cluster.nodes", this, service -> service.ring.nodes().size())
+          .tag("node", nodeId())
+          .register(registry);
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    refresh();
+    heartbeat =
+        Flux.interval(Duration.ofMillis(properties.getAffinity().getHeartbeatIntervalMs()))
+            .onBackpressureDrop()
+            .publishOn(Schedulers.boundedElastic())
+            .subscribe(tick -> refresh());
+    log.info("🧭 会话亲和路由已启用: node={}, url={}, mode={}",
+        nodeId(), baseUrl, properties.getAffinity().getMode());
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (heartbeat != null) {
+      heartbeat.dispose();
+    }
+    try {
+      chatNodeMapper.deleteById(nodeId());
+    } catch (Exception e) {
+      log.warn("注销集群节点失败: {}", e.getMessage());
+    }
+  }
+
+  public String nodeId() {
+    return properties.getNodeId();
+  }
+
+  public ClusterProperties.Affinity settings() {
+    return properties.getAffinity();
+  }
+
+  /** 查询会话的持有节点 */
+  public Owner ownerOf(Long conversationId) {
+    String owner = ring.ownerOf(conversationId);
+    if (owner == null || owner.equals(nodeId())) {
+      return new Owner(conversationId, nodeId(), baseUrl, true);
+    }
+    return new Owner(conversationId, owner, nodeUrls.get(owner), false);
+  }
+
+  /** 当前存活节点及地址 */
+  public Map<String, String> nodes() {
+    Map<String, String> nodes = new HashMap<>(nodeUrls);
+    nodes.put(nodeId(), baseUrl);
+    return nodes;
+  }
+
+  /**
+   * 代理持有节点的SSE流，事件ID与数据原样透传，客户端续传仍可命中持有节点的回放缓冲。
+   */
+  public Flux<ServerSentEvent<Object>> forward(Owner owner, String pathAndQuery, String lastEventId) {
+    log.debug("转发会话 {} 的SSE流到节点 {}", owner.conversationId(), owner.nodeId());
+    return webClient
+        .get()
+        .uri(owner.baseUrl() + pathAndQuery)
+        .header(FORWARDED_HEADER, nodeId())
+        // 节点间转发不是上游流量，不参与录制/回放
+        .attribute(TrafficCaptureFilter.SKIP_ATTRIBUTE, true)
+        .headers(
+            headers -> {
+              if (lastEventId != null && !lastEventId.isBlank()) {
+                headers.set("Last-Event-ID", lastEventId);
+              }
+            })
+        .retrieve()
+        .bodyToFlux(SSE_TYPE)
+        .map(
+            event ->
+                ServerSentEvent.<Object>builder()
+                    .id(event.id())
+                    .event(event.event())
+                    .data(event.data())
+                    .retry(event.retry())
+                    .build());
+  }
+
+  /** 心跳并按最新成员重建哈希环；心跳时间与存活截止均取数据库时钟，不受节点间时钟偏差影响 */
+  void refresh() {
+    ChatNode self = ChatNode.builder().nodeId(nodeId()).baseUrl(baseUrl).startedAt(startedAt).build();
+    List<ChatNode> alive;
+    try {
+      if (chatNodeMapper.heartbeat(self) == 0) {
+        chatNodeMapper.insert(self);
+      }
+      long ttlMs = properties.getAffinity().getNodeTtlMs();
+      // 异常退出未注销的节点在两倍TTL后清理
+      chatNodeMapper.deleteExpired(ttlMs * 2);
+      alive = chatNodeMapper.findAlive(ttlMs);
+    } catch (Exception e) {
+      // 成员表不可用时保留上一次的哈希环
+      log.warn("集群节点心跳失败: {}", e.getMessage());
+      return;
+    }
+    Map<String, String> urls = new HashMap<>();
+    for (ChatNode node : alive) {
+      if (!node.getNodeId().equals(nodeId()) && node.getBaseUrl() != null) {
+        urls.put(node.getNodeId(), node.getBaseUrl());
+      }
+    }
+    nodeUrls = Map.copyOf(urls);
+    List<String> members = new ArrayList<>(urls.keySet());
+    members.add(nodeId());
+    ConsistentHashRing previous = ring;
+    if (previous.nodes().equals(Set.copyOf(members))) {
+      return;
+    }
+    ring = ConsistentHashRing.of(members, properties.getAffinity().getVirtualNodes());
+    log.info("集群成员变化: {} -> {}", previous.nodes(), ring.nodes());
+    eventPublisher.publishEvent(new ConversationRebalanceEvent(this, previous, ring));
+  }
+
+  private static String resolveBaseUrl(String advertisedUrl, int serverPort) {
+    if (advertisedUrl != null && !advertisedUrl.isBlank()) {
+      return advertisedUrl.endsWith("/")
+          ? advertisedUrl.substring(0, advertisedUrl.length() - 1)
+          : advertisedUrl;
+    }
+    try {
+      return "http://" + InetAddress.getLocalHost().getHostAddress() + ":" + serverPort;
+    } catch (UnknownHostException e) {
+      return "http://localhost:" + serverPort;
+    }
+  }
+
+  /** 会话归属 */
+  public record Owner(Long conversationId, String nodeId, String baseUrl, boolean local) {}
+}
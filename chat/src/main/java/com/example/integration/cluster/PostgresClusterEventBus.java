@@ -0,0 +1,145 @@
+package com.example.integration.cluster;
+
+import com.example.cluster.AbstractClusterEventBus;
+import com.example.config.ClusterProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 Postgres LISTEN/NOTIFY 的集群事件总线
+ *
+ * <p>每个节点监听自己的通道与广播通道；监听使用按 spring.datasource 配置直连的独立长连接，
+ * 不占用连接池，断开后自动重连。NOTIFY 发送仍走连接池的短连接。
+ * NOTIFY 载荷上限为 8000 字节，批次由基类按上限切分或压缩。
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression(
+    "${ai.cluster.enabled:false} and '${ai.cluster.bus:postgres}' == 'postgres'")
+public class PostgresClusterEventBus extends AbstractClusterEventBus {
+
+  private static final int NOTIFY_MAX_BYTES = 7900;
+  private static final int POLL_TIMEOUT_MS = 500;
+  private static final long RECONNECT_DELAY_MS = 2000;
+
+  private final DataSource dataSource;
+  private final DataSourceProperties dataSourceProperties;
+  private volatile boolean running;
+  private Thread listener;
+
+  public PostgresClusterEventBus(
+      ClusterProperties properties,
+      ObjectMapper objectMapper,
+      DataSource dataSource,
+      DataSourceProperties dataSourceProperties,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    super(properties, objectMapper, meterRegistry.getIfAvailable());
+    this.dataSource = dataSource;
+    this.dataSourceProperties = dataSourceProperties;
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    startBatching();
+    listener = new Thread(this::listenLoop, "cluster-event-listener");
+    listener.setDaemon(true);
+    listener.start();
+    log.info("🌐 Postgres集群事件总线已启动: node={}, channel={}", nodeId(), channelOf(nodeId()));
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    stopBatching();
+    if (listener != null) {
+      listener.interrupt();
+    }
+  }
+
+  @Override
+  protected void sendBatch(String target, String payload) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+      statement.setString(1, BROADCAST.equals(target) ? broadcastChannel() : channelOf(target));
+      statement.setString(2, payload);
+      statement.execute();
+    }
+  }
+
+  @Override
+  protected int maxPayloadBytes() {
+    return NOTIFY_MAX_BYTES;
+  }
+
+  private void listenLoop() {
+    while (running) {
+      try (Connection connection = openListenConnection()) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + channelOf(nodeId()));
+          statement.execute("LISTEN " + broadcastChannel());
+        }
+        PGConnection pg = connection.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+          if (notifications == null) {
+            continue;
+          }
+          for (PGNotification notification : notifications) {
+            receiveBatch(notification.getParameter());
+          }
+        }
+      } catch (SQLException e) {
+        if (!running) {
+          return;
+        }
+        log.warn("集群事件监听连接异常，{}ms 后重连: {}", RECONNECT_DELAY_MS, e.getMessage());
+        try {
+          Thread.sleep(RECONNECT_DELAY_MS);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /** 不经连接池的专用连接：LISTEN 需长期持有会话，占用池中连接会让业务可用连接少一条 */
+  private Connection openListenConnection() throws SQLException {
+    Properties info = new Properties();
+    String username = dataSourceProperties.determineUsername();
+    String password = dataSourceProperties.determinePassword();
+    if (username != null) {
+      info.setProperty("user", username);
+    }
+    if (password != null) {
+      info.setProperty("password", password);
+    }
+    info.setProperty("ApplicationName", "cluster-event-listener");
+    return DriverManager.getConnection(dataSourceProperties.determineUrl(), info);
+  }
+
+  private String broadcastChannel() {
+    return properties.getChannelPrefix() + "_all";
+  }
+
+  private String channelOf(String node) {
+    return (properties.getChannelPrefix() + "_" + node).toLowerCase().replaceAll("[^a-z0-9_]", "_");
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.mapper;
+
+import com.example.entity.ChatNode;
+import java.util.List;
+import org.apache.ibatis.annotations.*;
+
+/**
+ * 集群节点成员表Mapper接口
+ * 心跳时间与存活判断统一使用数据库时钟，各节点本地时钟偏差不影响成员判定
+ *
+ * @author xupeng
+ */
+@Mapper
+public interface ChatNodeMapper {
+
+  /**
+   * 刷新节点心跳（数据库当前时间）
+   *
+   * @param node 节点实体
+   * @return 更新行数，0 表示节点尚未登记
+   */
+  @Update(
+      """
+        UPDATE chat_nodes
+        SET base_url = #{baseUrl}, heartbeat_at = CURRENT_TIMESTAMP
+        WHERE node_id = #{nodeId}
+        """)
+  int heartbeat(ChatNode node);
+
+  /**
+   * 登记节点
+   *
+   * @param node 节点实体
+   */
+  @Insert(
+      """
+        INSERT INTO chat_nodes (node_id, base_url, started_at, heartbeat_at)
+        VALUES (#{nodeId}, #{baseUrl}, #{startedAt}, CURRENT_TIMESTAMP)
+        """)
+  void insert(ChatNode node);
+
+  /**
+   * 查询心跳未过期的节点
+   *
+   * @param ttlMs 心跳有效期（毫秒），以数据库当前时间为准
+   * @return 存活节点列表
+   */
+  @Select(
+      """
+        SELECT node_id, base_url, started_at, heartbeat_at
+        FROM chat_nodes
+        WHERE heartbeat_at >= CURRENT_TIMESTAMP - CAST(#{ttlMs} AS BIGINT) * INTERVAL '0.001' SECOND
+        ORDER BY node_id
+        """)
+  List<ChatNode> findAlive(@Param("ttlMs") long ttlMs);
+
+  /**
+   * 注销节点
+   *
+   * @param nodeId 节点ID
+   */
+  @Delete("DELETE FROM chat_nodes WHERE node_id = #{nodeId}")
+  void deleteById(String nodeId);
+
+  /**
+   * 清理长时间未心跳的节点
+   *
+   * @param expiryMs 超过该时长（毫秒）未心跳即删除，以数据库当前时间为准
+   */
+  @Delete(
+      """
+        DELETE FROM chat_nodes
+        WHERE heartbeat_at < CURRENT_TIMESTAMP - CAST(#{expiryMs} AS BIGINT) * INTERVAL '0.001' SECOND
+        """)
+  void deleteExpired(@Param("expiryMs") long expiryMs);
+}
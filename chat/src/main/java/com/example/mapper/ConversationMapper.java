@@ -1,6 +1,7 @@
 package com.example.mapper;
 
 import com.example.entity.Conversation;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -45,6 +46,21 @@ public interface ConversationMapper {
    */
   List<Conversation> selectRecentByUserId(@Param("userId") Long userId, @Param("limit") int limit);
 
+  /**
+   * 键集分页查询用户对话，按更新时间倒序
+   *
+   * @param userId 用户ID
+   * @param cursorUpdatedAt 上一页最后一行的更新时间，第一页为 null
+   * @param cursorId 上一页最后一行的ID，第一页为 null
+   * @param limit 限制数量
+   * @return 对话列表
+   */
+  List<Conversation> selectPageByUserId(
+      @Param("userId") Long userId,
+      @Param("cursorUpdatedAt") LocalDateTime cursorUpdatedAt,
+      @Param("cursorId") Long cursorId,
+      @Param("limit") int limit);
+
   /**
    * 根据ID更新对话
    *
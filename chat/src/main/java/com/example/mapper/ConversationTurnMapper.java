@@ -0,0 +1,88 @@
+package com.example.mapper;
+
+import com.example.entity.Message;
+import com.example.entity.TurnHistoryRow;
+import java.util.List;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 会话轮次Mapper接口：把一轮对话及会话删除涉及的多次往返合并为单条语句
+ *
+ * @author xupeng
+ */
+@Mapper
+public interface ConversationTurnMapper {
+
+  /**
+   * 插入用户消息并返回插入前的会话历史（一次往返）
+   *
+   * @param message 用户消息，id 为空时由数据库生成
+   * @return 历史消息行，每行带本轮插入的消息ID
+   */
+  List<TurnHistoryRow> insertReturningHistory(Message message);
+
+  /**
+   * 写入消息后刷新会话摘要（消息数、最后消息时间与预览、最近活动时间）
+   *
+   * @param conversationId 会话ID
+   * @param added 本次写入的消息条数
+   * @param preview 最后一条消息的预览，见 {@link com.example.entity.Conversation#previewOf}
+   * @return 更新行数
+   */
+  int touchConversation(
+      @Param("conversationId") Long conversationId,
+      @Param("added") int added,
+      @Param("preview") String preview);
+
+  /**
+   * 按剩余消息重算会话摘要（删除消息后使用）
+   *
+   * @param conversationId 会话ID
+   * @return 更新行数
+   */
+  int refreshConversationSummary(@Param("conversationId") Long conversationId);
+
+  /**
+   * 仅当标题仍为空或默认标题时更新
+   *
+   * @param id 会话ID
+   * @param title 新标题
+   * @param defaultTitle 默认标题
+   * @return 更新行数
+   */
+  int updateTitleIfDefault(
+      @Param("id") Long id, @Param("title") String title, @Param("defaultTitle") String defaultTitle);
+
+  /**
+   * 删除会话下所有消息的工具调用结果
+   *
+   * @param conversationId 会话ID
+   * @return 删除行数
+   */
+  int deleteToolResultsByConversationId(@Param("conversationId") Long conversationId);
+
+  /**
+   * 删除用户所有会话下消息的工具调用结果
+   *
+   * @param userId 用户ID
+   * @return 删除行数
+   */
+  int deleteToolResultsByUserId(@Param("userId") Long userId);
+
+  /**
+   * 删除用户所有会话下的消息
+   *
+   * @param userId 用户ID
+   * @return 删除行数
+   */
+  int deleteMessagesByUserId(@Param("userId") Long userId);
+
+  /**
+   * 删除用户的所有会话
+   *
+   * @param userId 用户ID
+   * @return 删除行数
+   */
+  int deleteConversationsByUserId(@Param("userId") Long userId);
+}
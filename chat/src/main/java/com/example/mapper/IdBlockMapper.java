@@ -0,0 +1,34 @@
+package com.example.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * ID块分配Mapper接口
+ *
+ * @author xupeng
+ */
+@Mapper
+public interface IdBlockMapper {
+
+  /**
+   * 取序列下一个值，作为一块ID的块首
+   *
+   * @param sequence 序列名（来自配置，非用户输入）
+   * @return 块首ID
+   */
+  @Select("SELECT nextval('${sequence}')")
+  Long nextBlock(@Param("sequence") String sequence);
+
+  /**
+   * 查询序列步长，即每块ID数
+   *
+   * @param sequence 当前 schema 下的序列名
+   * @return 步长，序列不存在时为 null
+   */
+  @Select(
+      "SELECT increment_by FROM pg_sequences"
+          + " WHERE schemaname = current_schema() AND sequencename = #{sequence}")
+  Long incrementBy(@Param("sequence") String sequence);
+}
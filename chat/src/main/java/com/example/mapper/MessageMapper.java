@@ -1,6 +1,7 @@
 package com.example.mapper;
 
 import com.example.entity.Message;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -15,6 +16,11 @@ public interface MessageMapper {
   List<Message> selectByConversationId(@Param("conversationId") Long conversationId);
   List<Message> selectRecentMessages(
       @Param("conversationId") Long conversationId, @Param("limit") int limit);
+  List<Message> selectPageByConversationId(
+      @Param("conversationId") Long conversationId,
+      @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+      @Param("cursorId") Long cursorId,
+      @Param("limit") int limit);
   void deleteById(@Param("id") Long id);
   void deleteByConversationId(@Param("conversationId") Long conversationId);
   void updateById(Message message);
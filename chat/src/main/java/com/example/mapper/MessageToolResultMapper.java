@@ -72,6 +72,28 @@ public interface MessageToolResultMapper {
   List<MessageToolResult> findByMessageIdAndToolName(
       @Param("messageId") Long messageId, @Param("toolName") String toolName);
 
+  /**
+   * 批量查询多条消息指定工具的调用结果，按消息ID与调用序号排序
+   *
+   * @param messageIds 消息ID集合（非空）
+   * @param toolName 工具名称
+   * @return 工具调用结果列表
+   */
+  @Select(
+      """
+        <script>
+        SELECT id, message_id, tool_name, call_sequence, tool_input, tool_result, status, error_message, created_at, updated_at
+        FROM message_tool_results
+        WHERE tool_name = #{toolName} AND message_id IN
+        <foreach collection="messageIds" item="messageId" open="(" close=")" separator=",">
+            #{messageId}
+        </foreach>
+        ORDER BY message_id ASC, call_sequence ASC
+        </script>
+        """)
+  List<MessageToolResult> findByMessageIdsAndToolName(
+      @Param("messageIds") List<Long> messageIds, @Param("toolName") String toolName);
+
   /**
    * 获取指定消息的下一个工具调用序号
    *
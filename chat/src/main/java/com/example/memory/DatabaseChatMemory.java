@@ -1,8 +1,11 @@
 package com.example.memory;
 
+import com.example.entity.Conversation;
 import com.example.entity.Message;
+import com.example.mapper.ConversationTurnMapper;
 import com.example.mapper.MessageMapper;
-import com.example.service.MessageToolResultService;
+import com.example.metrics.ChatPipelineMetrics;
+import com.example.profiling.RequestResourceTracker;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
@@ -19,7 +22,10 @@ import org.springframework.stereotype.Component;
 public class DatabaseChatMemory extends com.example.memory.AbstractDatabaseChatMemory {
 
   private final MessageMapper messageMapper;
-  private final MessageToolResultService messageToolResultService;
+  private final ConversationTurnMapper conversationTurnMapper;
+  private final TurnHistoryCache turnHistoryCache;
+  private final ChatPipelineMetrics pipelineMetrics;
+  private final RequestResourceTracker resourceTracker;
 
   @Override
   protected void saveMessage(Long conversationId, String role, String content) {
@@ -32,12 +38,27 @@ public class DatabaseChatMemory extends com.example.memory.AbstractDatabaseChatM
     entity.setRole(role);
     entity.setContent(content);
     messageMapper.insert(entity);
+    conversationTurnMapper.touchConversation(conversationId, 1, Conversation.previewOf(content));
   }
 
   @Override
   protected List<MessageEntity> loadMessages(Long conversationId) {
-    List<Message> messages = messageMapper.selectByConversationId(conversationId);
-    return messages.stream()
+    long start = System.nanoTime();
+    // 本轮插入用户消息时已读回的历史优先，省去一次查询
+    List<Message> primed = turnHistoryCache.get(conversationId);
+    List<Message> messages =
+        primed != null
+            ? primed
+            : resourceTracker.measure(
+                "memory_load", () -> messageMapper.selectByConversationId(conversationId));
+    pipelineMetrics.recordMemoryLoad(conversationId, System.nanoTime() - start);
+    // 未经本轮预读时（如写后模式或其他调用方），本轮用户消息是否已被读到取决于时序；
+    // Advisor 会自行追加本轮用户消息，因此丢弃末尾尚无回复的用户消息，保证提示词与落库时序无关
+    int end = messages.size();
+    while (end > 0 && "user".equals(messages.get(end - 1).getRole())) {
+      end--;
+    }
+    return messages.subList(0, end).stream()
         .map(
             msg ->
                 new MessageEntity() {
@@ -57,16 +78,13 @@ public class DatabaseChatMemory extends com.example.memory.AbstractDatabaseChatM
   @Override
   protected void deleteMessages(Long conversationId) {
     messageMapper.deleteByConversationId(conversationId);
+    conversationTurnMapper.refreshConversationSummary(conversationId);
   }
 
   @Override
   protected void afterClear(Long conversationId) {
     try {
-      List<Message> messages = messageMapper.selectByConversationId(conversationId);
-      if (messages != null && !messages.isEmpty()) {
-        List<Long> ids = messages.stream().map(Message::getId).toList();
-        messageToolResultService.deleteMessageToolResultsByMessageIds(ids);
-      }
+      conversationTurnMapper.deleteToolResultsByConversationId(conversationId);
     } catch (Exception e) {
       log.warn("清理tool results失败: {}", e.getMessage());
     }
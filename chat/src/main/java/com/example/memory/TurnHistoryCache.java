@@ -0,0 +1,33 @@
+package com.example.memory;
+
+import com.example.entity.Message;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * 进行中对话轮次的历史消息
+ *
+ * <p>插入用户消息时已一并读回历史，在本轮生成期间由 ChatMemory 直接使用，
+ * 避免 MessageChatMemoryAdvisor（以及响应缓存的键计算）再次查询数据库。轮次结束后释放。
+ */
+@Component
+public class TurnHistoryCache {
+
+  private final Map<Long, List<Message>> histories = new ConcurrentHashMap<>();
+
+  public void put(Long conversationId, List<Message> history) {
+    histories.put(conversationId, history);
+  }
+
+  /** 本轮已读回的历史；没有进行中的轮次时为 null */
+  public List<Message> get(Long conversationId) {
+    return histories.get(conversationId);
+  }
+
+  /** 仅释放自己放入的历史，同一会话的并发轮次互不影响 */
+  public void release(Long conversationId, List<Message> history) {
+    histories.remove(conversationId, history);
+  }
+}
@@ -0,0 +1,280 @@
+package com.example.metrics;
+
+import com.example.util.TokenEstimator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 聊天链路分阶段耗时指标
+ *
+ * <p>每次流式聊天对应一个 {@link Trace}，按阶段记录到 {@code ai.chat.stage.duration}（stage/provider/model 标签），
+ * 另记录首token后的token间隔、tokens/sec 与每次响应的chunk数分布。
+ * 每个 Trace 有独立的请求ID：工具调用经工具上下文中的 requestId 找到所属 Trace 取标签；
+ * 记忆加载只能拿到会话ID（ChatMemory 接口限制），记到该会话最近开始的请求。
+ */
+@Component
+public class ChatPipelineMetrics {
+
+  private static final String UNKNOWN = "unknown";
+
+  /** 链路阶段 */
+  public enum Stage {
+    TITLE("title"),
+    USER_MESSAGE("user_message"),
+    MEMORY_LOAD("memory_load"),
+    PROMPT_BUILD("prompt_build"),
+    FIRST_TOKEN("first_token"),
+    TOOL("tool"),
+    ASSISTANT_MESSAGE("assistant_message"),
+    TOTAL("total");
+
+    private final String tag;
+
+    Stage(String tag) {
+      this.tag = tag;
+    }
+  }
+
+  private final MeterRegistry meterRegistry;
+  private final Counter requestCounter;
+  private final Counter successCounter;
+  private final Counter errorCounter;
+  private final Counter sseConnectionCounter;
+  private final Counter toolCallCounter;
+  private final Counter searchRequestCounter;
+  private final Timer responseTimer;
+  private final Timer searchResponseTimer;
+  private final AtomicLong requestIds = new AtomicLong();
+  /** 进行中的请求，按请求ID索引；同一会话的并发请求互不覆盖 */
+  private final Map<Long, Trace> traces = new ConcurrentHashMap<>();
+  /** 每个会话最近开始的请求，仅供只带会话ID的记忆加载取标签 */
+  private final Map<Long, Trace> latestByConversation = new ConcurrentHashMap<>();
+  /** 按 provider/model 缓存的指标，chunk 级记录不再经注册表查找 */
+  private final Map<ModelKey, ModelMeters> modelMeters = new ConcurrentHashMap<>();
+  /** 按工具名缓存的执行耗时 Timer */
+  private final Map<String, Timer> toolTimers = new ConcurrentHashMap<>();
+
+  public ChatPipelineMetrics(
+      MeterRegistry meterRegistry,
+      @Qualifier("aiChatRequestCounter") Counter requestCounter,
+      @Qualifier("aiChatSuccessCounter") Counter successCounter,
+      @Qualifier("aiChatErrorCounter") Counter errorCounter,
+      @Qualifier("sseConnectionCounter") Counter sseConnectionCounter,
+      @Qualifier("toolCallCounter") Counter toolCallCounter,
+      @Qualifier("searchRequestCounter") Counter searchRequestCounter,
+      @Qualifier("aiResponseTimer") Timer responseTimer,
+      @Qualifier("searchResponseTimer") Timer searchResponseTimer) {
+    this.meterRegistry = meterRegistry;
+    this.requestCounter = requestCounter;
+    this.successCounter = successCounter;
+    this.errorCounter = errorCounter;
+    this.sseConnectionCounter = sseConnectionCounter;
+    this.toolCallCounter = toolCallCounter;
+    this.searchRequestCounter = searchRequestCounter;
+    this.responseTimer = responseTimer;
+    this.searchResponseTimer = searchResponseTimer;
+  }
+
+  /** 开始一次聊天请求的计时 */
+  public Trace begin(Long conversationId) {
+    requestCounter.increment();
+    sseConnectionCounter.increment();
+    Trace trace = new Trace(requestIds.incrementAndGet(), conversationId);
+    traces.put(trace.requestId, trace);
+    if (conversationId != null) {
+      latestByConversation.put(conversationId, trace);
+    }
+    return trace;
+  }
+
+  /** 记录会话历史加载耗时 */
+  public void recordMemoryLoad(Long conversationId, long nanos) {
+    Trace trace = conversationId != null ? latestByConversation.get(conversationId) : null;
+    if (trace != null) {
+      trace.record(Stage.MEMORY_LOAD, nanos);
+    } else {
+      stageTimer(Stage.MEMORY_LOAD, UNKNOWN, UNKNOWN).record(Duration.ofNanos(nanos));
+    }
+  }
+
+  /**
+   * 记录工具调用耗时
+   *
+   * @param requestId {@link Trace#getRequestId()}，经工具上下文传入；为空时标签记为 unknown
+   */
+  public void recordToolCall(Long requestId, String toolName, long nanos) {
+    toolCallCounter.increment();
+    Trace trace = requestId != null ? traces.get(requestId) : null;
+    String provider = trace != null ? trace.provider : UNKNOWN;
+    String model = trace != null ? trace.model : UNKNOWN;
+    stageTimer(Stage.TOOL, provider, model).record(Duration.ofNanos(nanos));
+    toolTimers
+        .computeIfAbsent(
+            toolName,
+            tool ->
+                Timer.builder("ai.chat.tool.duration")
+                    .description("Tool execution time by tool")
+                    .tag("tool", tool)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry))
+        .record(Duration.ofNanos(nanos));
+  }
+
+  /** 记录一次搜索请求 */
+  public void recordSearch(long nanos) {
+    searchRequestCounter.increment();
+    searchResponseTimer.record(Duration.ofNanos(nanos));
+  }
+
+  private Timer stageTimer(Stage stage, String provider, String model) {
+    return meters(provider, model).stage(stage);
+  }
+
+  private ModelMeters meters(String provider, String model) {
+    return modelMeters.computeIfAbsent(new ModelKey(provider, model), ModelMeters::new);
+  }
+
+  private record ModelKey(String provider, String model) {}
+
+  /** 一个 provider/model 组合下的全部指标，首次使用时注册 */
+  private final class ModelMeters {
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Timer tokenGap;
+    private final DistributionSummary responseChunks;
+    private final DistributionSummary tokensPerSecond;
+
+    private ModelMeters(ModelKey key) {
+      for (Stage stage : Stage.values()) {
+        stages.put(
+            stage,
+            Timer.builder("ai.chat.stage.duration")
+                .description("Chat pipeline stage latency")
+                .tag("stage", stage.tag)
+                .tag("provider", key.provider())
+                .tag("model", key.model())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+      }
+      this.tokenGap =
+          Timer.builder("ai.chat.token.gap")
+              .description("Gap between consecutive output chunks")
+              .tag("provider", key.provider())
+              .tag("model", key.model())
+              .publishPercentileHistogram()
+              .register(meterRegistry);
+      this.responseChunks =
+          DistributionSummary.builder("ai.chat.response.chunks")
+              .description("Chunks per response")
+              .tag("provider", key.provider())
+              .tag("model", key.model())
+              .publishPercentileHistogram()
+              .register(meterRegistry);
+      this.tokensPerSecond =
+          DistributionSummary.builder("ai.chat.tokens.per.second")
+              .description("Output tokens per second after the first token (estimated)")
+              .tag("provider", key.provider())
+              .tag("model", key.model())
+              .publishPercentileHistogram()
+              .register(meterRegistry);
+    }
+
+    Timer stage(Stage stage) {
+      return stages.get(stage);
+    }
+  }
+
+  /** 单次聊天请求的计时上下文 */
+  public final class Trace {
+    private final long requestId;
+    private final Long conversationId;
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger chunks = new AtomicInteger();
+    private volatile String provider = UNKNOWN;
+    private volatile String model = UNKNOWN;
+    private volatile ModelMeters meters = meters(UNKNOWN, UNKNOWN);
+    private volatile long firstChunkNanos;
+    private volatile long lastChunkNanos;
+
+    private Trace(long requestId, Long conversationId) {
+      this.requestId = requestId;
+      this.conversationId = conversationId;
+    }
+
+    /** 本进程内唯一的请求ID，随 TextStreamRequest 传到工具上下文 */
+    public Long getRequestId() {
+      return requestId;
+    }
+
+    /** 模型选定后补充标签 */
+    public void model(String provider, String model) {
+      this.provider = provider != null ? provider : UNKNOWN;
+      this.model = model != null ? model : UNKNOWN;
+      this.meters = meters(this.provider, this.model);
+    }
+
+    public void record(Stage stage, long nanos) {
+      meters.stage(stage).record(Duration.ofNanos(nanos));
+    }
+
+    /** 对 Mono 从订阅到结束计时 */
+    public <T> Mono<T> time(Stage stage, Mono<T> mono) {
+      return Mono.defer(
+          () -> {
+            long start = System.nanoTime();
+            return mono.doFinally(signal -> record(stage, System.nanoTime() - start));
+          });
+    }
+
+    /** 收到一个输出chunk；首个chunk记为首token耗时（自请求开始），之后记录token间隔 */
+    public void onChunk() {
+      long now = System.nanoTime();
+      if (chunks.getAndIncrement() == 0) {
+        firstChunkNanos = now;
+        record(Stage.FIRST_TOKEN, now - startNanos);
+      } else {
+        meters.tokenGap.record(now - lastChunkNanos, TimeUnit.NANOSECONDS);
+      }
+      lastChunkNanos = now;
+    }
+
+    /** 生成完成：记录chunk数与输出速率 */
+    public void onCompletion(String content) {
+      ModelMeters current = meters;
+      current.responseChunks.record(chunks.get());
+      long generationNanos = lastChunkNanos - firstChunkNanos;
+      int tokens = TokenEstimator.estimate(content);
+      if (generationNanos > 0 && tokens > 0) {
+        current.tokensPerSecond.record(tokens / (generationNanos / 1_000_000_000.0));
+      }
+    }
+
+    /** 请求结束：记录总耗时与成功/失败计数 */
+    public void finish(SignalType signal) {
+      long total = System.nanoTime() - startNanos;
+      record(Stage.TOTAL, total);
+      responseTimer.record(Duration.ofNanos(total));
+      if (signal == SignalType.ON_COMPLETE) {
+        successCounter.increment();
+      } else if (signal == SignalType.ON_ERROR) {
+        errorCounter.increment();
+      }
+      traces.remove(requestId, this);
+      if (conversationId != null) {
+        latestByConversation.remove(conversationId, this);
+      }
+    }
+  }
+}
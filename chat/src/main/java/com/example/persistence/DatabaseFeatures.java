@@ -0,0 +1,47 @@
+package com.example.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 当前 JDBC 数据源的方言能力
+ *
+ * <p>会话轮次的单语句写法（带 INSERT/UPDATE 的 CTE）只有 PostgreSQL 支持；H2 开发模式
+ * （init-h2.sql）等其他数据库退回到分开的插入与查询。首次使用时读取一次数据库产品名。
+ */
+@Slf4j
+@Component
+public class DatabaseFeatures {
+
+  private final DataSource dataSource;
+  private volatile Boolean writableCte;
+
+  public DatabaseFeatures(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  /** 是否支持数据修改型 CTE（WITH ... INSERT ... RETURNING） */
+  public boolean supportsWritableCte() {
+    Boolean supported = writableCte;
+    if (supported == null) {
+      supported = detect();
+      writableCte = supported;
+    }
+    return supported;
+  }
+
+  private boolean detect() {
+    try (Connection connection = dataSource.getConnection()) {
+      String product = connection.getMetaData().getDatabaseProductName();
+      boolean postgres = product != null && product.toLowerCase().contains("postgresql");
+      log.info("数据库产品: {}，会话轮次单语句写法: {}", product, postgres ? "启用" : "退回分步执行");
+      return postgres;
+    } catch (SQLException e) {
+      log.warn("读取数据库产品名失败，按不支持 CTE 写入处理: {}", e.getMessage());
+      return false;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package com.example.persistence;
+
+import com.example.blocking.BlockingIoExecutor;
+import com.example.config.PersistenceProperties;
+import com.example.mapper.IdBlockMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * 消息/会话ID块分配器（pooled-lo）
+ *
+ * <p>每块一次 nextval 取得块首 v，此后 [v, v + 步长) 在内存中发放，插入前即可知道ID：
+ * 助手消息ID可在生成开始前交给工具调用记录，插入也可以延后或合并提交。
+ * 块大小在启动时取自序列的 increment by，不依赖配置，与数据库默认生成的ID互不重叠；序列不存在时拒绝启动。
+ * 取块失败时返回空，调用方退回由数据库在插入时生成ID。
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression(
+    "${app.persistence.id-allocation.enabled:false} and '${app.persistence.mode:mybatis}' == 'mybatis'")
+public class IdBlockAllocator {
+
+  private final IdBlockMapper idBlockMapper;
+  private final BlockingIoExecutor blockingIo;
+  private final Sequence messages;
+  private final Sequence conversations;
+
+  public IdBlockAllocator(
+      PersistenceProperties properties, IdBlockMapper idBlockMapper, BlockingIoExecutor blockingIo) {
+    PersistenceProperties.IdAllocation config = properties.getIdAllocation();
+    this.idBlockMapper = idBlockMapper;
+    this.blockingIo = blockingIo;
+    this.messages = new Sequence(config.getMessageSequence());
+    this.conversations = new Sequence(config.getConversationSequence());
+  }
+
+  /** 下一个消息ID；当前块用尽时在阻塞I/O调度器上取新块，失败时为空 */
+  public Mono<Long> nextMessageId() {
+    return messages.next();
+  }
+
+  /** 下一个会话ID（同步）；仅在已处于阻塞调用路径时使用，失败时返回 null */
+  public Long nextConversationId() {
+    return conversations.nextBlocking();
+  }
+
+  /** 一个序列对应的当前ID块 */
+  private final class Sequence {
+
+    private final String name;
+    private final long blockSize;
+    private long next;
+    private long limit;
+    private Mono<Void> refill;
+
+    Sequence(String name) {
+      this.name = name;
+      Long increment = idBlockMapper.incrementBy(name);
+      if (increment == null || increment < 1) {
+        throw new IllegalStateException("ID块分配无法读取序列步长: sequence=" + name);
+      }
+      this.blockSize = increment;
+      if (blockSize == 1) {
+        log.warn("序列步长为 1，每个ID仍需一次 nextval，可按 init.sql 调大步长: sequence={}", name);
+      } else {
+        log.info("ID块分配已启用: sequence={}, blockSize={}", name, blockSize);
+      }
+    }
+
+    Mono<Long> next() {
+      return Mono.defer(
+          () -> {
+            Mono<Void> pending;
+            synchronized (this) {
+              if (next < limit) {
+                return Mono.just(next++);
+              }
+              if (refill == null) {
+                // 并发取块的调用方共享同一次 nextval
+                refill =
+                    blockingIo
+                        .call("id.block", () -> idBlockMapper.nextBlock(name))
+                        .switchIfEmpty(Mono.error(() -> new IllegalStateException("序列未返回值")))
+                        .doOnNext(this::install)
+                        .doOnError(error -> clearRefill())
+                        .then()
+                        .cache();
+              }
+              pending = refill;
+            }
+            return pending.then(next());
+          })
+          .onErrorResume(
+              error -> {
+                log.warn("ID块分配失败，退回数据库生成ID: sequence={}, error={}", name, error.getMessage());
+                return Mono.empty();
+              });
+    }
+
+    synchronized Long nextBlocking() {
+      if (next >= limit) {
+        try {
+          install(idBlockMapper.nextBlock(name));
+        } catch (Exception e) {
+          log.warn("ID块分配失败，退回数据库生成ID: sequence={}, error={}", name, e.getMessage());
+          return null;
+        }
+      }
+      return next++;
+    }
+
+    private synchronized void install(Long low) {
+      next = low;
+      limit = low + blockSize;
+      refill = null;
+      log.debug("分配ID块: sequence={}, range=[{}, {})", name, next, limit);
+    }
+
+    private synchronized void clearRefill() {
+      refill = null;
+    }
+  }
+}
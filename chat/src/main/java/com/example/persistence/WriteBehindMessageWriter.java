@@ -0,0 +1,374 @@
+package com.example.persistence;
+
+import com.example.blocking.BlockingIoExecutor;
+import com.example.config.PersistenceProperties;
+import com.example.entity.Conversation;
+import com.example.entity.Message;
+import com.example.mapper.ConversationTurnMapper;
+import com.example.mapper.MessageMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 消息写后（write-behind）批量提交管道
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>消息插入与会话标题更新进入有界内存队列，按入队顺序由单个写线程处理</li>
+ *   <li>写线程在首条写入入队后最多等待 flushInterval，或凑满 batchSize 条，
+ *       以 MyBatis BATCH 执行器合并为一次 JDBC 批量执行与一次提交（group commit）</li>
+ *   <li>同一批内每个会话的摘要（消息数、最后消息预览）合并为一条 UPDATE，随批量一并提交</li>
+ *   <li>批量失败时回滚并逐条重试，只让出错的那条写入失败</li>
+ *   <li>队列满时退化为调用方经阻塞I/O调度器直接写库；停机时排空队列后再退出</li>
+ *   <li>停机超时或写线程被中断时，未提交的写入按入队顺序转为直接写库，不会静默丢失</li>
+ * </ul>
+ * 持久性由 durability 决定：ACK_AFTER_FLUSH 在提交后完成并回填ID，FIRE_AND_FORGET 入队即完成。
+ * ACK_AFTER_FLUSH 的完成信号切到阻塞I/O调度器上发出，调用方的后续处理不占用写线程。
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression(
+    "${app.persistence.write-behind.enabled:false} and '${app.persistence.mode:mybatis}' == 'mybatis'")
+public class WriteBehindMessageWriter {
+
+  private static final long IDLE_POLL_MS = 100;
+  private static final String DEFAULT_CONVERSATION_TITLE = "新对话";
+
+  private final PersistenceProperties.WriteBehind properties;
+  private final SqlSessionFactory sqlSessionFactory;
+  private final MessageMapper messageMapper;
+  private final ConversationTurnMapper conversationTurnMapper;
+  private final BlockingIoExecutor blockingIo;
+  private final BlockingQueue<PendingWrite> queue;
+  private final Thread writer;
+  private final Counter overflowCounter;
+  private final Counter failedCounter;
+  private final DistributionSummary batchRows;
+  private final Timer flushTimer;
+  private volatile boolean running = true;
+
+  public WriteBehindMessageWriter(
+      PersistenceProperties properties,
+      SqlSessionFactory sqlSessionFactory,
+      MessageMapper messageMapper,
+      ConversationTurnMapper conversationTurnMapper,
+      BlockingIoExecutor blockingIo,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    this.properties = properties.getWriteBehind();
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.messageMapper = messageMapper;
+    this.conversationTurnMapper = conversationTurnMapper;
+    this.blockingIo = blockingIo;
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, this.properties.getQueueCapacity()));
+    this.writer = new Thread(this::drainLoop, "message-write-behind");
+    this.writer.setDaemon(true);
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    if (registry != null) {
+      Gauge.builder("ai.chat.write-behind.queued", queue, BlockingQueue::size).register(registry);
+      this.overflowCounter = Counter.builder("ai.chat.write-behind.overflow").register(registry);
+      this.failedCounter = Counter.builder("ai.chat.write-behind.failed").register(registry);
+      this.batchRows = DistributionSummary.builder("ai.chat.write-behind.batch.rows").register(registry);
+      this.flushTimer = Timer.builder("ai.chat.write-behind.flush").register(registry);
+    } else {
+      this.overflowCounter = null;
+      this.failedCounter = null;
+      this.batchRows = null;
+      this.flushTimer = null;
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    writer.start();
+    log.info(
+        "消息写后批量提交已启用: batchSize={}, flushInterval={}, durability={}",
+        properties.getBatchSize(),
+        properties.getFlushInterval(),
+        properties.getDurability());
+  }
+
+  /** 停机时停止接收新写入，等待写线程排空队列；超时后剩余写入转为直接写库 */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    running = false;
+    writer.join(properties.getShutdownTimeout().toMillis());
+    List<PendingWrite> remaining = new ArrayList<>();
+    queue.drainTo(remaining);
+    if (!remaining.isEmpty()) {
+      log.warn("停机时写后队列未排空，剩余 {} 条写入转为直接写库", remaining.size());
+      writeDirectly(remaining).block(properties.getShutdownTimeout());
+    }
+  }
+
+  /** 插入消息；ACK_AFTER_FLUSH 下提交后回填ID再完成 */
+  public Mono<Message> insertMessage(Message message) {
+    return submit(
+        "message.insert",
+        session -> session.getMapper(MessageMapper.class).insert(message),
+        () -> {
+          messageMapper.insert(message);
+          conversationTurnMapper.touchConversation(
+              message.getConversationId(), 1, Conversation.previewOf(message.getContent()));
+        },
+        message,
+        message);
+  }
+
+  /** 标题仍为默认值时更新会话标题 */
+  public Mono<Void> updateTitleIfDefault(Long conversationId, String title) {
+    return submit(
+            "conversation.updateTitle",
+            session ->
+                session
+                    .getMapper(ConversationTurnMapper.class)
+                    .updateTitleIfDefault(conversationId, title, DEFAULT_CONVERSATION_TITLE),
+            () ->
+                conversationTurnMapper.updateTitleIfDefault(
+                    conversationId, title, DEFAULT_CONVERSATION_TITLE),
+            conversationId,
+            null)
+        .then();
+  }
+
+  public int queued() {
+    return queue.size();
+  }
+
+  private <T> Mono<T> submit(
+      String operation,
+      Consumer<SqlSession> batched,
+      Runnable direct,
+      T result,
+      Message inserted) {
+    boolean ack = properties.getDurability() == PersistenceProperties.Durability.ACK_AFTER_FLUSH;
+    return Mono.defer(
+        () -> {
+          if (!running) {
+            return directWrite(operation, direct, result);
+          }
+          if (!ack) {
+            PendingWrite write = new PendingWrite(operation, batched, direct, inserted, null);
+            if (!queue.offer(write)) {
+              return overflow(operation, direct, result);
+            }
+            return withdrawn(write)
+                ? directWrite(operation, direct, result)
+                : Mono.justOrEmpty(result);
+          }
+          return Mono.<T>create(
+                  sink -> {
+                    PendingWrite write =
+                        new PendingWrite(
+                            operation,
+                            batched,
+                            direct,
+                            inserted,
+                            error -> {
+                              if (error == null) {
+                                sink.success(result);
+                              } else {
+                                sink.error(error);
+                              }
+                            });
+                    if (!queue.offer(write)) {
+                      overflow(operation, direct, result).subscribe(sink::success, sink::error);
+                    } else if (withdrawn(write)) {
+                      directWrite(operation, direct, result).subscribe(sink::success, sink::error);
+                    }
+                  })
+              // 写线程只负责提交，调用方的下游（如开始生成回复）不在写线程上执行
+              .publishOn(blockingIo.scheduler());
+        });
+  }
+
+  /**
+   * 入队后写线程已停止（停机与入队竞争）时撤回该写入；撤回成功说明写线程不会再处理它，
+   * 由调用方直接写库，否则写线程或停机排空已取走，照常等待其完成
+   */
+  private boolean withdrawn(PendingWrite write) {
+    return !running && queue.remove(write);
+  }
+
+  private <T> Mono<T> overflow(String operation, Runnable direct, T result) {
+    if (overflowCounter != null) {
+      overflowCounter.increment();
+    }
+    log.debug("写后队列已满，直接写库: {}", operation);
+    return directWrite(operation, direct, result);
+  }
+
+  private <T> Mono<T> directWrite(String operation, Runnable direct, T result) {
+    return blockingIo.run(operation, direct).then(Mono.justOrEmpty(result));
+  }
+
+  /** 按入队顺序逐条直接写库，并以各自结果完成写入 */
+  private Mono<Void> writeDirectly(List<PendingWrite> writes) {
+    return Flux.fromIterable(writes)
+        .concatMap(
+            write ->
+                blockingIo
+                    .run(write.operation(), write.direct())
+                    .doOnSuccess(ignored -> write.complete(null))
+                    .onErrorResume(
+                        error -> {
+                          if (failedCounter != null) {
+                            failedCounter.increment();
+                          }
+                          log.error("写后直接写库失败: {}", write.operation(), error);
+                          write.complete(error);
+                          return Mono.empty();
+                        }))
+        .then();
+  }
+
+  private void drainLoop() {
+    List<PendingWrite> batch = new ArrayList<>(properties.getBatchSize());
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingWrite first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        collect(batch);
+        flush(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        // 停止接收新写入，已取出的一批与队列剩余写入交给阻塞I/O调度器直接写库
+        running = false;
+        List<PendingWrite> remaining = new ArrayList<>(batch);
+        queue.drainTo(remaining);
+        log.warn("写后线程被中断，{} 条未提交写入转为直接写库", remaining.size());
+        writeDirectly(remaining).subscribe();
+        return;
+      } catch (Exception e) {
+        log.error("写后批量提交异常", e);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  /** 凑满一批，或等到首条入队后的 flushInterval */
+  private void collect(List<PendingWrite> batch) throws InterruptedException {
+    int batchSize = Math.max(1, properties.getBatchSize());
+    long deadline = System.nanoTime() + properties.getFlushInterval().toNanos();
+    while (batch.size() < batchSize) {
+      if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+        continue;
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return;
+      }
+      PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        return;
+      }
+      batch.add(next);
+    }
+  }
+
+  private void flush(List<PendingWrite> batch) {
+    long start = System.nanoTime();
+    try {
+      execute(batch);
+      batch.forEach(write -> write.complete(null));
+    } catch (Exception e) {
+      log.warn("批量提交失败，逐条重试: rows={}, error={}", batch.size(), e.getMessage());
+      batch.forEach(this::retryAlone);
+    } finally {
+      if (flushTimer != null) {
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchRows.record(batch.size());
+      }
+    }
+  }
+
+  private void retryAlone(PendingWrite write) {
+    try {
+      execute(List.of(write));
+      write.complete(null);
+    } catch (Exception e) {
+      if (failedCounter != null) {
+        failedCounter.increment();
+      }
+      log.error("写后提交失败: {}", write.operation(), e);
+      write.complete(e);
+    }
+  }
+
+  private void execute(List<PendingWrite> writes) {
+    try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+      try {
+        writes.forEach(write -> write.batched().accept(session));
+        touchConversations(session, writes);
+        // 批量执行后回填自增ID，再一次性提交
+        session.flushStatements();
+        session.commit();
+      } catch (RuntimeException e) {
+        session.rollback();
+        throw e;
+      }
+    }
+  }
+
+  /** 按会话合并本批插入的消息，每个会话一条摘要 UPDATE；队列按入队顺序，预览取最后一条 */
+  private void touchConversations(SqlSession session, List<PendingWrite> writes) {
+    Map<Long, ConversationTouch> touches = new LinkedHashMap<>();
+    for (PendingWrite write : writes) {
+      Message inserted = write.inserted();
+      if (inserted != null) {
+        touches.merge(
+            inserted.getConversationId(),
+            new ConversationTouch(1, Conversation.previewOf(inserted.getContent())),
+            (earlier, later) ->
+                new ConversationTouch(earlier.added() + later.added(), later.preview()));
+      }
+    }
+    ConversationTurnMapper mapper = session.getMapper(ConversationTurnMapper.class);
+    touches.forEach((id, touch) -> mapper.touchConversation(id, touch.added(), touch.preview()));
+  }
+
+  private record ConversationTouch(int added, String preview) {}
+
+  /**
+   * 一条待写入；direct 为写线程不可用时的直接写库方式，inserted 为插入的消息（用于刷新会话摘要），
+   * callback 为空表示入队即已确认
+   */
+  private record PendingWrite(
+      String operation,
+      Consumer<SqlSession> batched,
+      Runnable direct,
+      Message inserted,
+      Consumer<Throwable> callback) {
+
+    void complete(Throwable error) {
+      if (callback != null) {
+        callback.accept(error);
+      }
+    }
+  }
+}
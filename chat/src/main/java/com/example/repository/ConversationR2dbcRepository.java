@@ -0,0 +1,137 @@
+package com.example.repository;
+
+import com.example.config.PersistenceProperties;
+import com.example.entity.Conversation;
+import io.r2dbc.spi.Readable;
+import java.time.LocalDateTime;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 会话表的 R2DBC 访问，SQL 与 ConversationMapper.xml 保持一致
+ */
+@Repository
+@ConditionalOnProperty(
+    prefix = "app.persistence",
+    name = "mode",
+    havingValue = PersistenceProperties.MODE_R2DBC)
+public class ConversationR2dbcRepository {
+
+  private static final String COLUMNS =
+      "id, user_id, title, created_at, updated_at, message_count, last_message_at,"
+          + " last_message_preview";
+
+  private final DatabaseClient client;
+
+  public ConversationR2dbcRepository(DatabaseClient client) {
+    this.client = client;
+  }
+
+  /** 插入并回填自增ID */
+  public Mono<Conversation> insert(Conversation conversation) {
+    return client
+        .sql(
+            "INSERT INTO conversations (user_id, title, created_at, updated_at)"
+                + " VALUES (:userId, :title, NOW(), NOW())")
+        .bind("userId", conversation.getUserId())
+        .bind("title", conversation.getTitle())
+        .filter(statement -> statement.returnGeneratedValues("id"))
+        .map(row -> row.get("id", Long.class))
+        .one()
+        .map(
+            id -> {
+              conversation.setId(id);
+              return conversation;
+            });
+  }
+
+  public Mono<Conversation> findById(Long id) {
+    return client
+        .sql("SELECT " + COLUMNS + " FROM conversations WHERE id = :id")
+        .bind("id", id)
+        .map(ConversationR2dbcRepository::toConversation)
+        .one();
+  }
+
+  public Flux<Conversation> findByUserId(Long userId) {
+    return client
+        .sql(
+            "SELECT " + COLUMNS + " FROM conversations WHERE user_id = :userId"
+                + " ORDER BY updated_at DESC, id DESC")
+        .bind("userId", userId)
+        .map(ConversationR2dbcRepository::toConversation)
+        .all();
+  }
+
+  public Flux<Conversation> findRecentByUserId(Long userId, int limit) {
+    return client
+        .sql(
+            "SELECT " + COLUMNS + " FROM conversations WHERE user_id = :userId"
+                + " ORDER BY updated_at DESC, id DESC LIMIT :limit")
+        .bind("userId", userId)
+        .bind("limit", limit)
+        .map(ConversationR2dbcRepository::toConversation)
+        .all();
+  }
+
+  /** 键集分页：按 (updated_at, id) 倒序 */
+  public Flux<Conversation> findPageByUserId(
+      Long userId, LocalDateTime cursorUpdatedAt, Long cursorId, int limit) {
+    String sql =
+        "SELECT " + COLUMNS + " FROM conversations WHERE user_id = :userId"
+            + (cursorId != null ? " AND (updated_at, id) < (:cursorUpdatedAt, :cursorId)" : "")
+            + " ORDER BY updated_at DESC, id DESC LIMIT :limit";
+    DatabaseClient.GenericExecuteSpec spec =
+        client.sql(sql).bind("userId", userId).bind("limit", limit);
+    if (cursorId != null) {
+      spec = spec.bind("cursorUpdatedAt", cursorUpdatedAt).bind("cursorId", cursorId);
+    }
+    return spec.map(ConversationR2dbcRepository::toConversation).all();
+  }
+
+  public Mono<Long> updateTitle(Long id, String title) {
+    return client
+        .sql("UPDATE conversations SET title = :title, updated_at = NOW() WHERE id = :id")
+        .bind("id", id)
+        .bind("title", title)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  /** 仅当标题仍为空或默认标题时更新 */
+  public Mono<Long> updateTitleIfDefault(Long id, String title, String defaultTitle) {
+    return client
+        .sql(
+            "UPDATE conversations SET title = :title, updated_at = NOW() WHERE id = :id AND (title"
+                + " IS NULL OR TRIM(title) = '' OR TRIM(title) = :defaultTitle)")
+        .bind("id", id)
+        .bind("title", title)
+        .bind("defaultTitle", defaultTitle)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  public Mono<Long> deleteById(Long id) {
+    return client
+        .sql("DELETE FROM conversations WHERE id = :id")
+        .bind("id", id)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  static Conversation toConversation(Readable row) {
+    Conversation conversation = new Conversation();
+    conversation.setId(row.get("id", Long.class));
+    conversation.setUserId(row.get("user_id", Long.class));
+    conversation.setTitle(row.get("title", String.class));
+    conversation.setCreatedAt(row.get("created_at", LocalDateTime.class));
+    conversation.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+    conversation.setMessageCount(row.get("message_count", Integer.class));
+    conversation.setLastMessageAt(row.get("last_message_at", LocalDateTime.class));
+    conversation.setLastMessagePreview(row.get("last_message_preview", String.class));
+    return conversation;
+  }
+}
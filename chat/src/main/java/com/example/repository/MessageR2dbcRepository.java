@@ -0,0 +1,247 @@
+package com.example.repository;
+
+import com.example.config.PersistenceProperties;
+import com.example.entity.Conversation;
+import com.example.entity.Message;
+import io.r2dbc.spi.Readable;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 消息表的 R2DBC 访问，SQL 与 MessageMapper.xml 保持一致
+ */
+@Repository
+@ConditionalOnProperty(
+    prefix = "app.persistence",
+    name = "mode",
+    havingValue = PersistenceProperties.MODE_R2DBC)
+public class MessageR2dbcRepository {
+
+  private static final String COLUMNS = "id, conversation_id, role, content, thinking, created_at";
+  private static final String LIST_COLUMNS = "id, conversation_id, role, content, created_at";
+
+  private final DatabaseClient client;
+  /** 带 INSERT/UPDATE 的 CTE 仅 PostgreSQL 支持，其他数据库（如 r2dbc-h2）分步执行 */
+  private final boolean writableCte;
+
+  public MessageR2dbcRepository(DatabaseClient client) {
+    this.client = client;
+    this.writableCte =
+        client.getConnectionFactory().getMetadata().getName().toLowerCase().contains("postgresql");
+  }
+
+  /** 插入并回填自增ID */
+  public Mono<Message> insert(Message message) {
+    if (message.getId() != null) {
+      DatabaseClient.GenericExecuteSpec spec =
+          client.sql(
+              "INSERT INTO messages (id, conversation_id, role, content, thinking, created_at,"
+                  + " updated_at) VALUES (:id, :conversationId, :role, :content, :thinking, NOW(),"
+                  + " NOW())");
+      return bindText(spec, "thinking", message.getThinking())
+          .bind("id", message.getId())
+          .bind("conversationId", message.getConversationId())
+          .bind("role", message.getRole())
+          .bind("content", message.getContent())
+          .then()
+          .thenReturn(message);
+    }
+    DatabaseClient.GenericExecuteSpec spec =
+        client
+            .sql(
+                "INSERT INTO messages (conversation_id, role, content, thinking, created_at,"
+                    + " updated_at) VALUES (:conversationId, :role, :content, :thinking, NOW(),"
+                    + " NOW())")
+            .bind("conversationId", message.getConversationId())
+            .bind("role", message.getRole())
+            .bind("content", message.getContent());
+    return bindText(spec, "thinking", message.getThinking())
+        .filter(statement -> statement.returnGeneratedValues("id"))
+        .map(row -> row.get("id", Long.class))
+        .one()
+        .map(
+            id -> {
+              message.setId(id);
+              return message;
+            });
+  }
+
+  /**
+   * 插入用户消息并返回插入前的会话历史（一次往返）。主查询看不到同一语句中 CTE 插入的行；
+   * LEFT JOIN 保证无历史时也能拿回插入ID。插入ID回填到 message，会话摘要在同一语句中刷新。
+   * 不支持 CTE 写入的数据库退回为插入、刷新摘要、读取历史三步。
+   */
+  public Mono<List<Message>> insertReturningHistory(Message message) {
+    if (!writableCte) {
+      return insert(message)
+          .flatMap(
+              inserted ->
+                  touchConversation(
+                      inserted.getConversationId(),
+                      1,
+                      Conversation.previewOf(inserted.getContent())))
+          .thenMany(findByConversationId(message.getConversationId()))
+          .filter(row -> !row.getId().equals(message.getId()))
+          .collectList();
+    }
+    boolean withId = message.getId() != null;
+    String sql =
+        "WITH inserted AS (INSERT INTO messages ("
+            + (withId ? "id, " : "")
+            + "conversation_id, role, content, thinking, created_at, updated_at) VALUES ("
+            + (withId ? ":id, " : "")
+            + ":conversationId, :role, :content, :thinking, NOW(), NOW())"
+            + " RETURNING id, conversation_id, content),"
+            + " touched AS (UPDATE conversations c SET message_count = c.message_count + 1,"
+            + " last_message_at = NOW(), last_message_preview = LEFT(i.content, 100),"
+            + " updated_at = NOW() FROM inserted i WHERE c.id = i.conversation_id)"
+            + " SELECT i.id AS inserted_id, m.id, m.conversation_id, m.role, m.content, m.thinking,"
+            + " m.created_at FROM inserted i LEFT JOIN messages m ON m.conversation_id ="
+            + " :conversationId ORDER BY m.created_at ASC, m.id ASC";
+    DatabaseClient.GenericExecuteSpec spec = client.sql(sql);
+    if (withId) {
+      spec = spec.bind("id", message.getId());
+    }
+    return bindText(spec, "thinking", message.getThinking())
+        .bind("conversationId", message.getConversationId())
+        .bind("role", message.getRole())
+        .bind("content", message.getContent())
+        .map(
+            row -> {
+              message.setId(row.get("inserted_id", Long.class));
+              return row.get("id", Long.class) != null
+                  ? Optional.of(toMessage(row))
+                  : Optional.<Message>empty();
+            })
+        .all()
+        .flatMap(Mono::justOrEmpty)
+        .collectList();
+  }
+
+  public Mono<Message> findById(Long id) {
+    return client
+        .sql("SELECT " + COLUMNS + " FROM messages WHERE id = :id")
+        .bind("id", id)
+        .map(MessageR2dbcRepository::toMessage)
+        .one();
+  }
+
+  public Flux<Message> findByConversationId(Long conversationId) {
+    return client
+        .sql(
+            "SELECT " + COLUMNS + " FROM messages WHERE conversation_id = :conversationId"
+                + " ORDER BY created_at ASC, id ASC")
+        .bind("conversationId", conversationId)
+        .map(MessageR2dbcRepository::toMessage)
+        .all();
+  }
+
+  public Flux<Message> findRecent(Long conversationId, int limit) {
+    return client
+        .sql(
+            "SELECT " + COLUMNS + " FROM messages WHERE conversation_id = :conversationId"
+                + " ORDER BY created_at DESC, id DESC LIMIT :limit")
+        .bind("conversationId", conversationId)
+        .bind("limit", limit)
+        .map(MessageR2dbcRepository::toMessage)
+        .all();
+  }
+
+  /** 写入消息后刷新会话摘要，SQL 与 ConversationTurnMapper.touchConversation 一致 */
+  public Mono<Long> touchConversation(Long conversationId, int added, String preview) {
+    DatabaseClient.GenericExecuteSpec spec =
+        client.sql(
+            "UPDATE conversations SET message_count = message_count + :added,"
+                + " last_message_at = NOW(), last_message_preview = :preview, updated_at = NOW()"
+                + " WHERE id = :conversationId");
+    return bindText(spec, "preview", preview)
+        .bind("added", added)
+        .bind("conversationId", conversationId)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  /** 按剩余消息重算会话摘要（删除消息后使用） */
+  public Mono<Long> refreshConversationSummary(Long conversationId) {
+    return client
+        .sql(
+            "UPDATE conversations c SET"
+                + " message_count = (SELECT COUNT(*) FROM messages m WHERE m.conversation_id = c.id),"
+                + " last_message_at = (SELECT MAX(m.created_at) FROM messages m"
+                + " WHERE m.conversation_id = c.id),"
+                + " last_message_preview = (SELECT LEFT(m.content, 100) FROM messages m"
+                + " WHERE m.conversation_id = c.id ORDER BY m.created_at DESC, m.id DESC LIMIT 1)"
+                + " WHERE c.id = :conversationId")
+        .bind("conversationId", conversationId)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  /** 键集分页：按 (created_at, id) 倒序向更早的消息翻页，不取 thinking */
+  public Flux<Message> findPage(
+      Long conversationId, LocalDateTime cursorCreatedAt, Long cursorId, int limit) {
+    String sql =
+        "SELECT " + LIST_COLUMNS + " FROM messages WHERE conversation_id = :conversationId"
+            + (cursorId != null ? " AND (created_at, id) < (:cursorCreatedAt, :cursorId)" : "")
+            + " ORDER BY created_at DESC, id DESC LIMIT :limit";
+    DatabaseClient.GenericExecuteSpec spec =
+        client.sql(sql).bind("conversationId", conversationId).bind("limit", limit);
+    if (cursorId != null) {
+      spec = spec.bind("cursorCreatedAt", cursorCreatedAt).bind("cursorId", cursorId);
+    }
+    return spec.map(MessageR2dbcRepository::toMessageSummary).all();
+  }
+
+  public Mono<Long> updateContent(Long id, String content, String thinking) {
+    DatabaseClient.GenericExecuteSpec spec =
+        client.sql(
+            "UPDATE messages SET content = :content, thinking = :thinking, updated_at = NOW()"
+                + " WHERE id = :id");
+    spec = bindText(spec, "content", content);
+    return bindText(spec, "thinking", thinking)
+        .bind("id", id)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  public Mono<Long> deleteById(Long id) {
+    return client.sql("DELETE FROM messages WHERE id = :id").bind("id", id).fetch().rowsUpdated();
+  }
+
+  public Mono<Long> deleteByConversationId(Long conversationId) {
+    return client
+        .sql("DELETE FROM messages WHERE conversation_id = :conversationId")
+        .bind("conversationId", conversationId)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  /** 可空文本参数：null 时按 VARCHAR 绑定 NULL，驱动才能推断参数类型 */
+  private static DatabaseClient.GenericExecuteSpec bindText(
+      DatabaseClient.GenericExecuteSpec spec, String name, @Nullable String value) {
+    return value != null ? spec.bind(name, value) : spec.bindNull(name, String.class);
+  }
+
+  static Message toMessage(Readable row) {
+    Message message = toMessageSummary(row);
+    message.setThinking(row.get("thinking", String.class));
+    return message;
+  }
+
+  static Message toMessageSummary(Readable row) {
+    Message message = new Message();
+    message.setId(row.get("id", Long.class));
+    message.setConversationId(row.get("conversation_id", Long.class));
+    message.setRole(row.get("role", String.class));
+    message.setContent(row.get("content", String.class));
+    message.setCreatedAt(row.get("created_at", LocalDateTime.class));
+    return message;
+  }
+}
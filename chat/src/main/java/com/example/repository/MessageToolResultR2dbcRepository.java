@@ -0,0 +1,94 @@
+package com.example.repository;
+
+import com.example.config.PersistenceProperties;
+import com.example.entity.MessageToolResult;
+import io.r2dbc.spi.Readable;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 工具调用结果表的 R2DBC 访问（响应式读路径与会话级清理），SQL 与 MessageToolResultMapper 保持一致
+ */
+@Repository
+@ConditionalOnProperty(
+    prefix = "app.persistence",
+    name = "mode",
+    havingValue = PersistenceProperties.MODE_R2DBC)
+public class MessageToolResultR2dbcRepository {
+
+  private final DatabaseClient client;
+
+  public MessageToolResultR2dbcRepository(DatabaseClient client) {
+    this.client = client;
+  }
+
+  public Flux<MessageToolResult> findByMessageIdAndToolName(Long messageId, String toolName) {
+    return client
+        .sql(
+            "SELECT id, message_id, tool_name, call_sequence, tool_input, tool_result, status,"
+                + " error_message, created_at, updated_at FROM message_tool_results"
+                + " WHERE message_id = :messageId AND tool_name = :toolName"
+                + " ORDER BY call_sequence ASC")
+        .bind("messageId", messageId)
+        .bind("toolName", toolName)
+        .map(MessageToolResultR2dbcRepository::toToolResult)
+        .all();
+  }
+
+  /** 批量查询多条消息指定工具的调用结果，按消息ID与调用序号排序 */
+  public Flux<MessageToolResult> findByMessageIdsAndToolName(
+      Collection<Long> messageIds, String toolName) {
+    if (messageIds == null || messageIds.isEmpty()) {
+      return Flux.empty();
+    }
+    return client
+        .sql(
+            "SELECT id, message_id, tool_name, call_sequence, tool_input, tool_result, status,"
+                + " error_message, created_at, updated_at FROM message_tool_results"
+                + " WHERE tool_name = :toolName AND message_id IN (:messageIds)"
+                + " ORDER BY message_id ASC, call_sequence ASC")
+        .bind("messageIds", messageIds)
+        .bind("toolName", toolName)
+        .map(MessageToolResultR2dbcRepository::toToolResult)
+        .all();
+  }
+
+  public Mono<Long> deleteByMessageId(Long messageId) {
+    return client
+        .sql("DELETE FROM message_tool_results WHERE message_id = :messageId")
+        .bind("messageId", messageId)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  /** 删除会话下所有消息的工具调用结果 */
+  public Mono<Long> deleteByConversationId(Long conversationId) {
+    return client
+        .sql(
+            "DELETE FROM message_tool_results WHERE message_id IN"
+                + " (SELECT id FROM messages WHERE conversation_id = :conversationId)")
+        .bind("conversationId", conversationId)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  static MessageToolResult toToolResult(Readable row) {
+    return MessageToolResult.builder()
+        .id(row.get("id", Long.class))
+        .messageId(row.get("message_id", Long.class))
+        .toolName(row.get("tool_name", String.class))
+        .callSequence(row.get("call_sequence", Integer.class))
+        .toolInput(row.get("tool_input", String.class))
+        .toolResult(row.get("tool_result", String.class))
+        .status(row.get("status", String.class))
+        .errorMessage(row.get("error_message", String.class))
+        .createdAt(row.get("created_at", LocalDateTime.class))
+        .updatedAt(row.get("updated_at", LocalDateTime.class))
+        .build();
+  }
+}
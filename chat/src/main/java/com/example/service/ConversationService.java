@@ -1,8 +1,10 @@
 package com.example.service;
 
+import com.example.dto.response.CursorPage;
 import com.example.entity.Conversation;
 import com.example.entity.Message;
 import java.util.List;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -37,6 +39,16 @@ public interface ConversationService {
    */
   List<Conversation> getUserConversations(Long userId);
 
+  /**
+   * 键集分页获取用户对话列表，按更新时间倒序
+   *
+   * @param userId 用户ID
+   * @param cursor 上一页返回的游标，第一页为空
+   * @param size 每页条数
+   * @return 对话分页
+   */
+  CursorPage<Conversation> getUserConversationsPage(Long userId, String cursor, int size);
+
   /**
    * 获取用户最近的对话列表
    *
@@ -54,6 +66,15 @@ public interface ConversationService {
    */
   void updateConversationTitle(Long conversationId, String title);
 
+  /**
+   * 仅当标题仍为空或默认标题时更新（单条条件UPDATE，无需先查询会话）
+   *
+   * @param conversationId 对话ID
+   * @param title 对话标题
+   * @return 是否更新
+   */
+  boolean updateTitleIfDefault(Long conversationId, String title);
+
   /**
    * 删除对话
    *
@@ -69,6 +90,34 @@ public interface ConversationService {
    */
   List<Message> getConversationMessages(Long conversationId);
 
+  /**
+   * 流式获取对话消息列表（AI消息已填充搜索结果），按创建时间升序
+   *
+   * @param conversationId 对话ID
+   * @return 消息流
+   */
+  Flux<Message> getConversationMessagesAsync(Long conversationId);
+
+  /**
+   * 键集分页获取对话消息，从最新一页向更早翻页，页内按创建时间升序；列表视图不含 thinking
+   *
+   * @param conversationId 对话ID
+   * @param cursor 上一页返回的游标，第一页为空
+   * @param size 每页条数
+   * @return 消息分页
+   */
+  Mono<CursorPage<Message>> getConversationMessagesPageAsync(
+      Long conversationId, String cursor, int size);
+
+  /**
+   * 获取对话中单条消息的完整内容（含 thinking 与搜索结果），供分页列表按需展开
+   *
+   * @param conversationId 对话ID
+   * @param messageId 消息ID
+   * @return 消息，不存在或不属于该对话时为空
+   */
+  Mono<Message> getConversationMessageAsync(Long conversationId, Long messageId);
+
   /**
    * 获取对话最近的消息列表
    *
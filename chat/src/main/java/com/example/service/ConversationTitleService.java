@@ -1,6 +1,10 @@
 package com.example.service;
 
+import com.example.blocking.BlockingIoExecutor;
+import com.example.persistence.WriteBehindMessageWriter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
@@ -18,9 +22,17 @@ public class ConversationTitleService {
   private static final String PUNCTUATION_REGEX = ".*[。！？，、；：]$";
 
   private final ConversationService conversationService;
+  private final BlockingIoExecutor blockingIo;
+  private final ObjectProvider<WriteBehindMessageWriter> writeBehind;
 
-  public ConversationTitleService(ConversationService conversationService) {
+  /** ConversationServiceImpl 依赖本服务生成标题，此处延迟注入以打破构造器循环依赖 */
+  public ConversationTitleService(
+      @Lazy ConversationService conversationService,
+      BlockingIoExecutor blockingIo,
+      ObjectProvider<WriteBehindMessageWriter> writeBehind) {
     this.conversationService = conversationService;
+    this.blockingIo = blockingIo;
+    this.writeBehind = writeBehind;
   }
 
   public String generateTitle(String message) {
@@ -54,11 +66,13 @@ public class ConversationTitleService {
     return truncated + "...";
   }
 
+  /**
+   * 标题仍为默认值时按用户消息生成标题。判断与更新合并为一条条件UPDATE，不再先查询会话；
+   * 启用写后管道时随消息插入一起批量提交。
+   */
   public Mono<Void> updateTitleIfNeeded(Long conversationId, String userMessage) {
-    return Mono.fromCallable(() -> conversationService.getConversationById(conversationId))
-        .filter(this::needsTitle)
-        .flatMap(conversation -> generateAndUpdateTitle(conversationId, userMessage))
-        .then()
+    return Mono.fromCallable(() -> generateTitle(userMessage))
+        .flatMap(title -> updateTitle(conversationId, title))
         .doOnSuccess(v -> log.debug("对话标题生成完成，会话ID: {}", conversationId))
         .onErrorResume(
             error -> {
@@ -67,19 +81,18 @@ public class ConversationTitleService {
             });
   }
 
-  private boolean needsTitle(com.example.entity.Conversation conversation) {
-    return conversation.getTitle() == null
-        || conversation.getTitle().trim().isEmpty()
-        || DEFAULT_CONVERSATION_TITLE.equals(conversation.getTitle().trim());
-  }
-
-  private Mono<Void> generateAndUpdateTitle(Long conversationId, String userMessage) {
-    return Mono.fromCallable(
-        () -> {
-          String newTitle = generateTitle(userMessage.trim());
-          conversationService.updateConversationTitle(conversationId, newTitle);
-          log.debug("自动生成对话标题成功，会话ID: {}, 标题: {}", conversationId, newTitle);
-          return null;
-        });
+  private Mono<Void> updateTitle(Long conversationId, String title) {
+    WriteBehindMessageWriter writer = writeBehind.getIfAvailable();
+    if (writer != null) {
+      return writer.updateTitleIfDefault(conversationId, title);
+    }
+    return blockingIo
+        .call(
+            "conversation.updateTitle",
+            () -> conversationService.updateTitleIfDefault(conversationId, title))
+        .filter(Boolean::booleanValue)
+        .doOnNext(
+            updated -> log.debug("自动生成对话标题成功，会话ID: {}, 标题: {}", conversationId, title))
+        .then();
   }
 }
@@ -63,6 +63,16 @@ public interface MessageService {
    */
   Mono<Message> saveUserMessageAsync(Long conversationId, String content);
 
+  /**
+   * 异步保存用户消息，并返回保存前的会话历史；两者合并为一次数据库往返。
+   * 写后模式下读到历史即返回，用户消息入队后异步提交，同会话随后的AI消息写入排在其后
+   *
+   * @param conversationId 会话ID
+   * @param content 消息内容
+   * @return 本轮用户消息之前的历史消息
+   */
+  Mono<List<Message>> saveUserMessageWithHistoryAsync(Long conversationId, String content);
+
   /**
    * 异步保存AI响应消息
    *
@@ -71,7 +81,28 @@ public interface MessageService {
    * @param thinking 推理过程内容（可选）
    * @return 保存的AI消息和结束事件
    */
-  Mono<ChatEvent> saveAiMessageAsync(Long conversationId, String content, String thinking);
+  default Mono<ChatEvent> saveAiMessageAsync(Long conversationId, String content, String thinking) {
+    return saveAiMessageAsync(conversationId, null, content, thinking);
+  }
+
+  /**
+   * 以预分配的消息ID异步保存AI响应消息
+   *
+   * @param conversationId 会话ID
+   * @param messageId 预分配的消息ID（为空时由数据库生成）
+   * @param content AI响应内容
+   * @param thinking 推理过程内容（可选）
+   * @return 保存的AI消息和结束事件
+   */
+  Mono<ChatEvent> saveAiMessageAsync(
+      Long conversationId, Long messageId, String content, String thinking);
+
+  /**
+   * 预分配一个消息ID，使工具调用记录等在消息落库前即可关联
+   *
+   * @return 消息ID；未启用ID块分配时为空，由数据库在插入时生成
+   */
+  Mono<Long> reserveMessageId();
 
   /**
    * 异步获取会话历史消息
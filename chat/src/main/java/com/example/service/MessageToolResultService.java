@@ -3,6 +3,7 @@ package com.example.service;
 import com.example.dto.response.SearchResult;
 import com.example.entity.MessageToolResult;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 消息工具调用结果服务接口
@@ -14,6 +15,8 @@ public interface MessageToolResultService {
   Long saveSearchResults(Long messageId, String query, List<SearchResult> searchResults);
   List<MessageToolResult> getMessageToolResults(Long messageId);
   List<SearchResult> getMessageSearchResults(Long messageId);
+  /** 一次查询批量获取多条消息的搜索结果，键为消息ID，无结果的消息不出现在结果中 */
+  Map<Long, List<SearchResult>> getSearchResultsByMessageIds(List<Long> messageIds);
   void deleteMessageToolResults(Long messageId);
   void deleteMessageToolResultsByMessageIds(java.util.List<Long> messageIds);
 }
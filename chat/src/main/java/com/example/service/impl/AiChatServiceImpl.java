@@ -2,16 +2,25 @@ package com.example.service.impl;
 
 import com.example.dto.request.StreamChatRequest;
 import com.example.dto.stream.ChatEvent;
+import com.example.entity.Message;
 import com.example.handler.ChatErrorHandler;
+import com.example.memory.TurnHistoryCache;
+import com.example.metrics.ChatPipelineMetrics;
+import com.example.metrics.ChatPipelineMetrics.Stage;
+import com.example.profiling.RequestResourceTracker;
 import com.example.service.AiChatService;
 import com.example.service.BaseChatService;
 import com.example.service.ConversationService;
 import com.example.service.MessageService;
 import com.example.service.SseEventPublisher;
+import com.example.stream.StreamPriority;
 import com.example.stream.TextStreamRequest;
 import com.example.stream.springai.SpringAiTextStreamClient;
 import com.example.strategy.model.ModelSelector;
 import com.example.strategy.prompt.PromptBuilder;
+import com.example.util.TokenEstimator;
+import java.util.List;
+import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
@@ -27,6 +36,9 @@ public class AiChatServiceImpl extends BaseChatService implements AiChatService
   private final PromptBuilder promptBuilder;
   private final ChatErrorHandler errorHandler;
   private final SseEventPublisher sseEventPublisher;
+  private final ChatPipelineMetrics pipelineMetrics;
+  private final RequestResourceTracker resourceTracker;
+  private final TurnHistoryCache turnHistoryCache;
 
   public AiChatServiceImpl(
       ConversationService conversationService,
@@ -35,6 +47,9 @@ public class AiChatServiceImpl extends BaseChatService implements AiChatService
       PromptBuilder promptBuilder,
       ChatErrorHandler errorHandler,
       SseEventPublisher sseEventPublisher,
+      ChatPipelineMetrics pipelineMetrics,
+      RequestResourceTracker resourceTracker,
+      TurnHistoryCache turnHistoryCache,
       SpringAiTextStreamClient textStreamClient) {
     super(textStreamClient);
     this.conversationService = conversationService;
@@ -43,6 +58,9 @@ public class AiChatServiceImpl extends BaseChatService implements AiChatService
     this.promptBuilder = promptBuilder;
     this.errorHandler = errorHandler;
     this.sseEventPublisher = sseEventPublisher;
+    this.pipelineMetrics = pipelineMetrics;
+    this.resourceTracker = resourceTracker;
+    this.turnHistoryCache = turnHistoryCache;
   }
 
   @Override
@@ -58,54 +76,118 @@ public class AiChatServiceImpl extends BaseChatService implements AiChatService
         request.getModel());
 
     var searchEventFlux = sseEventPublisher.registerConversationFlux(request.getConversationId());
+    ChatPipelineMetrics.Trace trace = pipelineMetrics.begin(request.getConversationId());
 
-    return Flux.merge(
-            searchEventFlux,
-            Flux.concat(prepareContext(request), processChat(request), finishChat(request)))
-        .doFinally(signalType -> sseEventPublisher.removeConversation(request.getConversationId()))
-        .onErrorResume(errorHandler::handleChatError);
+    return resourceTracker.track(
+        "chat",
+        request.getConversationId(),
+        Flux.merge(
+                searchEventFlux,
+                Flux.concat(
+                        prepareContext(request, trace),
+                        processChat(request, trace),
+                        finishChat(request))
+                    // 本轮生成结束即完成会话事件流，整条SSE流随之结束，不依赖客户端断开
+                    .doFinally(
+                        signalType ->
+                            sseEventPublisher.removeConversation(request.getConversationId())))
+            .doFinally(trace::finish)
+            .onErrorResume(errorHandler::handleChatError));
   }
 
-  private Flux<ChatEvent> prepareContext(StreamChatRequest request) {
-    conversationService
-        .generateTitleIfNeededAsync(request.getConversationId(), request.getMessage())
-        .subscribe();
-    return Flux.empty();
+  private Flux<ChatEvent> prepareContext(StreamChatRequest request, ChatPipelineMetrics.Trace trace) {
+    // 标题生成独立订阅，带上请求上下文以便资源采样跟随
+    return Flux.deferContextual(
+        ctx -> {
+          resourceTracker
+              .stage(
+                  "title",
+                  trace.time(
+                      Stage.TITLE,
+                      conversationService.generateTitleIfNeededAsync(
+                          request.getConversationId(), request.getMessage())))
+              .contextWrite(ctx)
+              .subscribe();
+          return Flux.empty();
+        });
   }
 
-  private Flux<ChatEvent> processChat(StreamChatRequest request) {
+  private Flux<ChatEvent> processChat(StreamChatRequest request, ChatPipelineMetrics.Trace trace) {
     String userMessage = request.getMessage();
     return Flux.defer(
         () -> {
           ModelSelector.ModelSelection selected = selectModel(request);
-          return messageService
-              .saveUserMessageAsync(request.getConversationId(), userMessage)
+          trace.model(selected.providerName(), selected.modelName());
+          // 用户消息插入与历史读取合并为一次往返，与提示词构建、助手消息ID分配并行；
+          // 读回的历史在本轮生成期间供 ChatMemory 直接使用
+          Mono<List<Message>> userSaved =
+              resourceTracker.stage(
+                  "user_message",
+                  trace.time(
+                      Stage.USER_MESSAGE,
+                      messageService.saveUserMessageWithHistoryAsync(
+                          request.getConversationId(), userMessage)));
+          // 助手消息ID预先分配（未启用ID块分配时为空），生成期间的工具调用记录可直接关联
+          Mono<Optional<Long>> assistantMessageId =
+              messageService.reserveMessageId().map(Optional::of).defaultIfEmpty(Optional.empty());
+          return Mono.zip(
+                  userSaved,
+                  resourceTracker.stage(
+                      "prompt_build", trace.time(Stage.PROMPT_BUILD, buildPrompt(request))),
+                  assistantMessageId)
               .flatMapMany(
-                  ignored ->
-                      buildPrompt(request)
-                          .flatMapMany(
-                              prompt -> {
-                                TextStreamRequest streamRequest =
-                                    TextStreamRequest.builder()
-                                        .provider(selected.providerName())
-                                        .model(selected.modelName())
-                                        .prompt(prompt)
-                                        .conversationId(request.getConversationId())
-                                        .userId(request.getUserId())
-                                        .deepThinking(request.isDeepThinking())
-                                        .searchEnabled(request.isSearchEnabled())
-                                        .build();
+                  tuple -> {
+                    List<Message> history = tuple.getT1();
+                    Long messageId = tuple.getT3().orElse(null);
+                    TextStreamRequest streamRequest =
+                        TextStreamRequest.builder()
+                            .provider(selected.providerName())
+                            .model(selected.modelName())
+                            .prompt(tuple.getT2())
+                            .conversationId(request.getConversationId())
+                            .lastMessageId(
+                                history.isEmpty() ? 0L : history.get(history.size() - 1).getId())
+                            .historyTokens(estimateTokens(history))
+                            .assistantMessageId(messageId)
+                            .requestId(trace.getRequestId())
+                            .userId(request.getUserId())
+                            .deepThinking(request.isDeepThinking())
+                            .searchEnabled(request.isSearchEnabled())
+                            .modelUnpinned(isModelUnpinned(request))
+                            .priority(StreamPriority.INTERACTIVE)
+                            .build();
 
-                                return streamText(
+                    turnHistoryCache.put(request.getConversationId(), history);
+                    return resourceTracker
+                        .stage(
+                            "generate",
+                            streamText(
                                     streamRequest,
                                     (req, content) -> {
+                                      trace.onCompletion(content);
                                       if (content == null || content.isEmpty()) {
                                         return Mono.empty();
                                       }
-                                      return messageService.saveAiMessageAsync(
-                                          request.getConversationId(), content, null);
-                                    });
-                              }));
+                                      return resourceTracker.stage(
+                                          "assistant_message",
+                                          trace.time(
+                                              Stage.ASSISTANT_MESSAGE,
+                                              messageService.saveAiMessageAsync(
+                                                  request.getConversationId(),
+                                                  messageId,
+                                                  content,
+                                                  null)));
+                                    })
+                                .doOnNext(
+                                    event -> {
+                                      if (event.getType() == ChatEvent.ChatEventType.CHUNK) {
+                                        trace.onChunk();
+                                      }
+                                    }))
+                        .doFinally(
+                            signal ->
+                                turnHistoryCache.release(request.getConversationId(), history));
+                  });
         });
   }
 
@@ -118,6 +200,21 @@ public class AiChatServiceImpl extends BaseChatService implements AiChatService
         request.getConversationId(), request.getMessage(), request.isSearchEnabled());
   }
 
+  /** 会话记忆会把这些历史注入提示词，限流按其估算预留 */
+  private static int estimateTokens(List<Message> history) {
+    int tokens = 0;
+    for (Message message : history) {
+      tokens += TokenEstimator.estimate(message.getContent());
+    }
+    return tokens;
+  }
+
+  /** 调用方未指定provider与model时，才允许对冲或限流改路到其它provider */
+  private boolean isModelUnpinned(StreamChatRequest request) {
+    return (request.getProvider() == null || request.getProvider().isBlank())
+        && (request.getModel() == null || request.getModel().isBlank());
+  }
+
   private ModelSelector.ModelSelection selectModel(StreamChatRequest request) {
     if (request.getUserId() != null) {
       return modelSelector.selectModelForUser(
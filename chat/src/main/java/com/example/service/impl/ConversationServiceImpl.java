@@ -1,19 +1,30 @@
 package com.example.service.impl;
 
+import com.example.blocking.BlockingIoExecutor;
+import com.example.config.PersistenceProperties;
+import com.example.dto.request.KeysetCursor;
+import com.example.dto.response.CursorPage;
 import com.example.dto.response.SearchResult;
 import com.example.entity.Conversation;
 import com.example.entity.Message;
 import com.example.mapper.ConversationMapper;
+import com.example.mapper.ConversationTurnMapper;
 import com.example.mapper.MessageMapper;
+import com.example.persistence.IdBlockAllocator;
 import com.example.service.ConversationService;
 import com.example.service.ConversationTitleService;
 import com.example.service.MessageToolResultService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -23,16 +34,24 @@ import reactor.core.publisher.Mono;
  */
 @Slf4j
 @Service
+@ConditionalOnProperty(
+    prefix = "app.persistence",
+    name = "mode",
+    havingValue = PersistenceProperties.MODE_MYBATIS,
+    matchIfMissing = true)
 @RequiredArgsConstructor
 public class ConversationServiceImpl implements ConversationService {
 
   private static final String DEFAULT_CONVERSATION_TITLE = "新对话";
 
   private final ConversationMapper conversationMapper;
+  private final ConversationTurnMapper conversationTurnMapper;
   private final MessageMapper messageMapper;
   private final MessageToolResultService messageToolResultService;
   private final ObjectMapper objectMapper;
   private final ConversationTitleService conversationTitleService;
+  private final BlockingIoExecutor blockingIo;
+  private final ObjectProvider<IdBlockAllocator> idAllocator;
 
   @Override
   public Conversation createConversation(Long userId, String title) {
@@ -41,6 +60,10 @@ public class ConversationServiceImpl implements ConversationService {
     }
 
     Conversation conversation = new Conversation();
+    IdBlockAllocator allocator = idAllocator.getIfAvailable();
+    if (allocator != null) {
+      conversation.setId(allocator.nextConversationId());
+    }
     conversation.setUserId(userId);
 
     // 处理标题：如果为null或空则使用默认标题
@@ -74,6 +97,25 @@ public class ConversationServiceImpl implements ConversationService {
     return conversationMapper.selectByUserId(userId);
   }
 
+  @Override
+  public CursorPage<Conversation> getUserConversationsPage(Long userId, String cursor, int size) {
+    if (userId == null || userId <= 0) {
+      throw new IllegalArgumentException("用户ID无效");
+    }
+    KeysetCursor after = KeysetCursor.decode(cursor);
+    int pageSize = CursorPage.clampSize(size);
+    List<Conversation> rows =
+        conversationMapper.selectPageByUserId(
+            userId,
+            after != null ? after.at() : null,
+            after != null ? after.id() : null,
+            pageSize + 1);
+    return CursorPage.of(
+        rows,
+        pageSize,
+        conversation -> new KeysetCursor(conversation.getUpdatedAt(), conversation.getId()));
+  }
+
   @Override
   public List<Conversation> getRecentConversations(Long userId, int limit) {
     if (userId == null || userId <= 0) {
@@ -90,19 +132,22 @@ public class ConversationServiceImpl implements ConversationService {
     conversationMapper.updateById(conversation);
   }
 
+  @Override
+  public boolean updateTitleIfDefault(Long conversationId, String title) {
+    return conversationTurnMapper.updateTitleIfDefault(
+            conversationId, title, DEFAULT_CONVERSATION_TITLE)
+        > 0;
+  }
+
   @Override
   @Transactional(rollbackFor = Exception.class)
   public void deleteConversation(Long conversationId) {
     if (conversationId == null || conversationId <= 0) {
       throw new IllegalArgumentException("对话ID无效");
     }
-    // 先清理该会话下所有消息的工具调用结果，再删除消息
+    // 先清理该会话下所有消息的工具调用结果（子查询，不再把消息读回应用），再删除消息
     try {
-      List<Message> messages = messageMapper.selectByConversationId(conversationId);
-      if (messages != null && !messages.isEmpty()) {
-        java.util.List<Long> ids = messages.stream().map(Message::getId).toList();
-        messageToolResultService.deleteMessageToolResultsByMessageIds(ids);
-      }
+      conversationTurnMapper.deleteToolResultsByConversationId(conversationId);
     } catch (Exception e) {
       log.warn("删除会话前清理工具调用结果失败，会话ID: {}，错误: {}", conversationId, e.getMessage());
     }
@@ -117,26 +162,77 @@ public class ConversationServiceImpl implements ConversationService {
     }
     List<Message> messages = messageMapper.selectByConversationId(conversationId);
 
-    // 为每条AI消息填充其搜索结果，便于前端历史展示（不做任何兼容回溯）
-    if (messages != null && !messages.isEmpty()) {
-      for (Message msg : messages) {
-        try {
-          if (msg != null && "assistant".equalsIgnoreCase(msg.getRole())) {
-            List<SearchResult> results =
-                messageToolResultService.getMessageSearchResults(msg.getId());
-            if (results != null && !results.isEmpty()) {
-              // 历史接口返回完整结果集合（包括摘要等非链接项）；前端在展示层再做过滤
-              msg.setSearchResults(results);
-            }
+    attachSearchResults(conversationId, messages);
+    return messages;
+  }
+
+  @Override
+  public Flux<Message> getConversationMessagesAsync(Long conversationId) {
+    return blockingIo
+        .call("conversation.messages", () -> getConversationMessages(conversationId))
+        .flatMapIterable(messages -> messages);
+  }
+
+  @Override
+  public Mono<CursorPage<Message>> getConversationMessagesPageAsync(
+      Long conversationId, String cursor, int size) {
+    if (conversationId == null || conversationId <= 0) {
+      return Mono.error(new IllegalArgumentException("对话ID无效"));
+    }
+    KeysetCursor after = KeysetCursor.decode(cursor);
+    int pageSize = CursorPage.clampSize(size);
+    return blockingIo.call(
+        "conversation.messagesPage",
+        () -> {
+          List<Message> rows =
+              messageMapper.selectPageByConversationId(
+                  conversationId,
+                  after != null ? after.at() : null,
+                  after != null ? after.id() : null,
+                  pageSize + 1);
+          CursorPage<Message> page =
+              CursorPage.of(
+                  rows, pageSize, msg -> new KeysetCursor(msg.getCreatedAt(), msg.getId()));
+          // 倒序取数，页内翻转为升序便于直接渲染
+          Collections.reverse(page.getItems());
+          attachSearchResults(conversationId, page.getItems());
+          return page;
+        });
+  }
+
+  @Override
+  public Mono<Message> getConversationMessageAsync(Long conversationId, Long messageId) {
+    return blockingIo
+        .call("conversation.message", () -> messageMapper.selectById(messageId))
+        .filter(msg -> msg.getConversationId().equals(conversationId))
+        .doOnNext(msg -> attachSearchResults(conversationId, List.of(msg)));
+  }
+
+  /** 一次批量查询所有AI消息的搜索结果，再按消息ID回填，便于前端历史展示 */
+  private void attachSearchResults(Long conversationId, List<Message> messages) {
+    if (messages == null || messages.isEmpty()) {
+      return;
+    }
+    List<Long> assistantIds =
+        messages.stream()
+            .filter(msg -> msg != null && "assistant".equalsIgnoreCase(msg.getRole()))
+            .map(Message::getId)
+            .toList();
+    try {
+      Map<Long, List<SearchResult>> resultsByMessageId =
+          messageToolResultService.getSearchResultsByMessageIds(assistantIds);
+      if (!resultsByMessageId.isEmpty()) {
+        for (Message msg : messages) {
+          List<SearchResult> results = msg != null ? resultsByMessageId.get(msg.getId()) : null;
+          if (results != null) {
+            // 历史接口返回完整结果集合（包括摘要等非链接项）；前端在展示层再做过滤
+            msg.setSearchResults(results);
           }
-        } catch (Exception e) {
-          log.warn(
-              "填充搜索结果时发生异常，messageId: {}，错误: {}", msg != null ? msg.getId() : null, e.getMessage());
         }
       }
+    } catch (Exception e) {
+      log.warn("填充搜索结果时发生异常，会话ID: {}，错误: {}", conversationId, e.getMessage());
     }
-
-    return messages;
   }
 
   @Override
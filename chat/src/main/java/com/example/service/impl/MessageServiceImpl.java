@@ -3,14 +3,27 @@ package com.example.service.impl;
 import static com.example.constant.AiChatConstants.ROLE_ASSISTANT;
 import static com.example.constant.AiChatConstants.ROLE_USER;
 
+import com.example.blocking.BlockingIoExecutor;
+import com.example.config.PersistenceProperties;
 import com.example.dto.request.MessageSaveRequest;
 import com.example.dto.stream.ChatEvent;
+import com.example.entity.Conversation;
 import com.example.entity.Message;
+import com.example.entity.TurnHistoryRow;
+import com.example.mapper.ConversationTurnMapper;
 import com.example.mapper.MessageMapper;
+import com.example.persistence.DatabaseFeatures;
+import com.example.persistence.IdBlockAllocator;
+import com.example.persistence.WriteBehindMessageWriter;
 import com.example.service.MessageService;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
@@ -21,14 +34,43 @@ import reactor.core.publisher.Mono;
  */
 @Slf4j
 @Service
+@ConditionalOnProperty(
+    prefix = "app.persistence",
+    name = "mode",
+    havingValue = PersistenceProperties.MODE_MYBATIS,
+    matchIfMissing = true)
 @RequiredArgsConstructor
 public class MessageServiceImpl implements MessageService {
 
   private final MessageMapper messageMapper;
+  private final ConversationTurnMapper conversationTurnMapper;
   private final com.example.service.MessageToolResultService messageToolResultService;
+  private final BlockingIoExecutor blockingIo;
+  private final ObjectProvider<WriteBehindMessageWriter> writeBehind;
+  private final ObjectProvider<IdBlockAllocator> idAllocator;
+  private final DatabaseFeatures databaseFeatures;
+
+  /** 写后模式下尚未确认的本轮用户消息写入，按会话ID登记，助手消息写入排在其后 */
+  private final Map<Long, Mono<Message>> pendingUserSaves = new ConcurrentHashMap<>();
 
   @Override
   public Message saveMessage(com.example.dto.request.MessageSaveRequest request) {
+    Message message = toEntity(request);
+    // 搜索结果已迁移到message_tool_results表，不再存储在message中
+    insert(message);
+
+    log.debug("消息保存成功，消息ID: {}", message.getId());
+    return message;
+  }
+
+  /** 插入消息并刷新会话摘要 */
+  private void insert(Message message) {
+    messageMapper.insert(message);
+    conversationTurnMapper.touchConversation(
+        message.getConversationId(), 1, Conversation.previewOf(message.getContent()));
+  }
+
+  private Message toEntity(MessageSaveRequest request) {
     // 参数验证
     if (request == null) {
       throw new IllegalArgumentException("消息保存请求不能为空");
@@ -51,17 +93,39 @@ public class MessageServiceImpl implements MessageService {
         request.getThinking() != null);
 
     Message message = new Message();
+    message.setId(request.getId());
     message.setConversationId(request.getConversationId());
     message.setRole(request.getRole());
     message.setContent(request.getContent());
     message.setThinking(request.getThinking());
-    // 搜索结果已迁移到message_tool_results表，不再存储在message中
-    messageMapper.insert(message);
-
-    log.debug("消息保存成功，消息ID: {}", message.getId());
     return message;
   }
 
+  /** 启用写后管道时经批量提交写入，否则在阻塞I/O调度器上直接写库 */
+  private Mono<Message> saveAsync(String operation, MessageSaveRequest request) {
+    if (request != null && request.getId() == null) {
+      return reserveMessageId()
+          .map(id -> request.toBuilder().id(id).build())
+          .defaultIfEmpty(request)
+          .flatMap(withId -> insertAsync(operation, withId));
+    }
+    return insertAsync(operation, request);
+  }
+
+  private Mono<Message> insertAsync(String operation, MessageSaveRequest request) {
+    WriteBehindMessageWriter writer = writeBehind.getIfAvailable();
+    if (writer == null) {
+      return blockingIo.call(operation, () -> saveMessage(request));
+    }
+    return Mono.fromCallable(() -> toEntity(request)).flatMap(writer::insertMessage);
+  }
+
+  @Override
+  public Mono<Long> reserveMessageId() {
+    IdBlockAllocator allocator = idAllocator.getIfAvailable();
+    return allocator != null ? allocator.nextMessageId() : Mono.empty();
+  }
+
   @Override
   public Message getMessageById(Long messageId) {
     return messageMapper.selectById(messageId);
@@ -86,7 +150,11 @@ public class MessageServiceImpl implements MessageService {
         messageToolResultService.deleteMessageToolResults(messageId);
       } catch (Exception ignore) {
       }
+      Message existing = messageMapper.selectById(messageId);
       messageMapper.deleteById(messageId);
+      if (existing != null) {
+        conversationTurnMapper.refreshConversationSummary(existing.getConversationId());
+      }
     } catch (Exception e) {
       log.error("删除消息失败，消息ID: {}", messageId, e);
       // 不抛出异常，保持与测试一致的行为
@@ -119,18 +187,14 @@ public class MessageServiceImpl implements MessageService {
 
   @Override
   public Mono<Message> saveUserMessageAsync(Long conversationId, String content) {
-    return Mono.fromCallable(
-            () -> {
-              Message userMessage =
-                  saveMessage(
-                      MessageSaveRequest.builder()
-                          .conversationId(conversationId)
-                          .role(ROLE_USER)
-                          .content(content)
-                          .build());
-              log.info("用户消息保存成功，消息ID: {}", userMessage.getId());
-              return userMessage;
-            })
+    return saveAsync(
+            "message.saveUser",
+            MessageSaveRequest.builder()
+                .conversationId(conversationId)
+                .role(ROLE_USER)
+                .content(content)
+                .build())
+        .doOnNext(userMessage -> log.info("用户消息保存成功，消息ID: {}", userMessage.getId()))
         .onErrorMap(
             error -> {
               log.error("保存用户消息失败，会话ID: {}", conversationId, error);
@@ -139,20 +203,95 @@ public class MessageServiceImpl implements MessageService {
   }
 
   @Override
-  public Mono<ChatEvent> saveAiMessageAsync(Long conversationId, String content, String thinking) {
-    return Mono.fromCallable(
-            () -> {
-              // 保存AI消息，包含thinking内容
-              Message aiMessage =
-                  saveMessage(
-                      MessageSaveRequest.builder()
-                          .conversationId(conversationId)
-                          .role(ROLE_ASSISTANT)
-                          .content(content)
-                          .thinking(thinking)
-                          // 不再使用searchResults字段
-                          .build());
+  public Mono<List<Message>> saveUserMessageWithHistoryAsync(Long conversationId, String content) {
+    MessageSaveRequest request =
+        MessageSaveRequest.builder()
+            .conversationId(conversationId)
+            .role(ROLE_USER)
+            .content(content)
+            .build();
+    WriteBehindMessageWriter writer = writeBehind.getIfAvailable();
+    Mono<List<Message>> saved;
+    if (writer != null) {
+      // 写后模式下只等历史读取：读完后用户消息入队即返回，不等批量提交；
+      // 历史先于入队读取，不会读到本轮消息
+      saved =
+          Mono.fromCallable(() -> toEntity(request))
+              .then(getConversationHistoryAsync(conversationId))
+              .doOnNext(history -> enqueueUserSave(conversationId, request));
+    } else {
+      saved =
+          reserveMessageId()
+              .map(id -> request.toBuilder().id(id).build())
+              .defaultIfEmpty(request)
+              .flatMap(
+                  withId ->
+                      blockingIo.call(
+                          "message.saveUserWithHistory",
+                          () -> insertReturningHistory(toEntity(withId))));
+    }
+    return saved
+        .doOnNext(
+            history ->
+                log.info("用户消息保存成功，会话ID: {}, 历史消息数量: {}", conversationId, history.size()))
+        .onErrorMap(
+            error -> {
+              log.error("保存用户消息失败，会话ID: {}", conversationId, error);
+              return new RuntimeException("保存用户消息失败: " + error.getMessage(), error);
+            });
+  }
+
+  /** 立即订阅用户消息写入并登记，提交成功后注销；失败时保留，由随后的助手消息写入抛出 */
+  private void enqueueUserSave(Long conversationId, MessageSaveRequest request) {
+    Mono<Message> pending = saveAsync("message.saveUser", request).cache();
+    pendingUserSaves.put(conversationId, pending);
+    pending
+        .doOnSuccess(message -> pendingUserSaves.remove(conversationId, pending))
+        .subscribe(
+            message -> log.debug("用户消息写入已提交，消息ID: {}", message.getId()),
+            error -> log.error("用户消息写入失败，会话ID: {}", conversationId, error));
+  }
+
+  private List<Message> insertReturningHistory(Message message) {
+    if (!databaseFeatures.supportsWritableCte()) {
+      // 不支持 CTE 写入的数据库（如 H2 开发模式）：先插入，再读取历史并剔除本轮消息
+      insert(message);
+      return messageMapper.selectByConversationId(message.getConversationId()).stream()
+          .filter(row -> !row.getId().equals(message.getId()))
+          .toList();
+    }
+    List<TurnHistoryRow> rows = conversationTurnMapper.insertReturningHistory(message);
+    List<Message> history = new ArrayList<>(rows.size());
+    for (TurnHistoryRow row : rows) {
+      message.setId(row.getInsertedId());
+      if (row.getId() != null) {
+        history.add(row);
+      }
+    }
+    return history;
+  }
 
+  @Override
+  public Mono<ChatEvent> saveAiMessageAsync(
+      Long conversationId, Long messageId, String content, String thinking) {
+    // 保存AI消息，包含thinking内容；写后模式下排在本轮用户消息写入之后
+    return Mono.defer(
+            () ->
+                Mono.justOrEmpty(pendingUserSaves.remove(conversationId))
+                    .flatMap(pending -> pending)
+                    .then(
+                        saveAsync(
+                            "message.saveAi",
+                            MessageSaveRequest.builder()
+                                .id(messageId)
+                                .conversationId(conversationId)
+                                .role(ROLE_ASSISTANT)
+                                .content(content)
+                                .thinking(thinking)
+                                // 不再使用searchResults字段
+                                .build())))
+        .map(
+            aiMessage -> {
               log.info(
                   "AI消息保存成功，消息ID: {}, thinking内容: {}",
                   aiMessage.getId(),
@@ -172,7 +311,7 @@ public class MessageServiceImpl implements MessageService {
       return Mono.error(new IllegalArgumentException("对话ID无效"));
     }
 
-    return Mono.fromCallable(() -> getMessagesByConversationId(conversationId))
+    return blockingIo.call("message.history", () -> getMessagesByConversationId(conversationId))
         .doOnNext(
             messages -> log.debug("加载会话历史，会话ID: {}, 消息数量: {}", conversationId, messages.size()));
   }
@@ -183,7 +322,8 @@ public class MessageServiceImpl implements MessageService {
       return Mono.error(new IllegalArgumentException("对话ID无效"));
     }
 
-    return Mono.fromCallable(
+    return blockingIo.call(
+            "message.preCreate",
             () -> {
               log.debug("预创建助手消息，会话ID: {}", conversationId);
 
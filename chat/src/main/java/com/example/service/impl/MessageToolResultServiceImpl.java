@@ -8,7 +8,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -24,6 +26,9 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class MessageToolResultServiceImpl implements MessageToolResultService {
 
+  private static final String SEARCH_TOOL_NAME = "webSearch";
+  private static final int SEARCH_RESULT_BATCH_SIZE = 500;
+
   private final MessageToolResultMapper messageToolResultMapper;
   private final ObjectMapper objectMapper;
 
@@ -128,26 +133,55 @@ public class MessageToolResultServiceImpl implements MessageToolResultService {
     log.debug("获取消息搜索结果，消息ID: {}", messageId);
 
     List<MessageToolResult> toolResults =
-        messageToolResultMapper.findByMessageIdAndToolName(messageId, "webSearch");
+        messageToolResultMapper.findByMessageIdAndToolName(messageId, SEARCH_TOOL_NAME);
     List<SearchResult> allSearchResults = new ArrayList<>();
 
     for (MessageToolResult toolResult : toolResults) {
-      if ("SUCCESS".equals(toolResult.getStatus()) && toolResult.getToolResult() != null) {
-        try {
-          List<SearchResult> searchResults =
-              objectMapper.readValue(
-                  toolResult.getToolResult(), new TypeReference<List<SearchResult>>() {});
-          allSearchResults.addAll(searchResults);
-        } catch (JsonProcessingException e) {
-          log.error("反序列化搜索结果失败，工具调用记录ID: {}", toolResult.getId(), e);
-        }
-      }
+      appendSearchResults(allSearchResults, toolResult);
     }
 
     log.debug("消息 {} 共有 {} 条搜索结果", messageId, allSearchResults.size());
     return allSearchResults;
   }
 
+  @Override
+  public Map<Long, List<SearchResult>> getSearchResultsByMessageIds(List<Long> messageIds) {
+    Map<Long, List<SearchResult>> resultsByMessageId = new HashMap<>();
+    if (messageIds == null || messageIds.isEmpty()) {
+      return resultsByMessageId;
+    }
+    // 分片查询，避免 IN 列表过长；结果已按消息ID排序，单次遍历归组
+    for (int from = 0; from < messageIds.size(); from += SEARCH_RESULT_BATCH_SIZE) {
+      List<Long> slice =
+          messageIds.subList(from, Math.min(from + SEARCH_RESULT_BATCH_SIZE, messageIds.size()));
+      for (MessageToolResult toolResult :
+          messageToolResultMapper.findByMessageIdsAndToolName(slice, SEARCH_TOOL_NAME)) {
+        List<SearchResult> results = new ArrayList<>();
+        appendSearchResults(results, toolResult);
+        if (!results.isEmpty()) {
+          resultsByMessageId
+              .computeIfAbsent(toolResult.getMessageId(), id -> new ArrayList<>())
+              .addAll(results);
+        }
+      }
+    }
+    log.debug("批量获取搜索结果，消息数量: {}，含结果消息数量: {}", messageIds.size(), resultsByMessageId.size());
+    return resultsByMessageId;
+  }
+
+  private void appendSearchResults(List<SearchResult> target, MessageToolResult toolResult) {
+    if (!"SUCCESS".equals(toolResult.getStatus()) || toolResult.getToolResult() == null) {
+      return;
+    }
+    try {
+      target.addAll(
+          objectMapper.readValue(
+              toolResult.getToolResult(), new TypeReference<List<SearchResult>>() {}));
+    } catch (JsonProcessingException e) {
+      log.error("反序列化搜索结果失败，工具调用记录ID: {}", toolResult.getId(), e);
+    }
+  }
+
   @Override
   @Transactional(rollbackFor = Exception.class)
   public void deleteMessageToolResults(Long messageId) {
@@ -0,0 +1,270 @@
+package com.example.service.impl;
+
+import com.example.config.PersistenceProperties;
+import com.example.dto.request.KeysetCursor;
+import com.example.dto.response.CursorPage;
+import com.example.dto.response.SearchResult;
+import com.example.entity.Conversation;
+import com.example.entity.Message;
+import com.example.repository.ConversationR2dbcRepository;
+import com.example.repository.MessageR2dbcRepository;
+import com.example.repository.MessageToolResultR2dbcRepository;
+import com.example.service.ConversationService;
+import com.example.service.ConversationTitleService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 会话服务的 R2DBC 实现（app.persistence.mode=r2dbc）
+ *
+ * <p>消息列表以 {@link Flux} 逐行流出，AI消息的搜索结果按批批量查询后回填；同步方法内部阻塞等待，
+ * 不应在事件循环线程上调用。
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(
+    prefix = "app.persistence",
+    name = "mode",
+    havingValue = PersistenceProperties.MODE_R2DBC)
+@RequiredArgsConstructor
+public class R2dbcConversationServiceImpl implements ConversationService {
+
+  private static final String DEFAULT_CONVERSATION_TITLE = "新对话";
+  private static final String SEARCH_TOOL_NAME = "webSearch";
+  /** 流式读取消息时每批回填搜索结果的消息数，内存中最多缓冲一批 */
+  private static final int SEARCH_RESULT_BATCH_SIZE = 100;
+
+  private final ConversationR2dbcRepository conversationRepository;
+  private final MessageR2dbcRepository messageRepository;
+  private final MessageToolResultR2dbcRepository toolResultRepository;
+  private final TransactionalOperator transactionalOperator;
+  private final ObjectMapper objectMapper;
+  private final ConversationTitleService conversationTitleService;
+
+  @Override
+  public Conversation createConversation(Long userId, String title) {
+    if (userId == null || userId <= 0) {
+      throw new IllegalArgumentException("用户ID无效");
+    }
+    Conversation conversation = new Conversation();
+    conversation.setUserId(userId);
+    conversation.setTitle(
+        title == null || title.trim().isEmpty() ? DEFAULT_CONVERSATION_TITLE : title.trim());
+    return conversationRepository.insert(conversation).block();
+  }
+
+  @Override
+  public Conversation getConversationById(Long conversationId) {
+    if (conversationId == null || conversationId <= 0) {
+      throw new IllegalArgumentException("对话ID无效");
+    }
+    Conversation conversation = conversationRepository.findById(conversationId).block();
+    if (conversation == null) {
+      throw new IllegalArgumentException("对话不存在");
+    }
+    return conversation;
+  }
+
+  @Override
+  public List<Conversation> getUserConversations(Long userId) {
+    if (userId == null || userId <= 0) {
+      throw new IllegalArgumentException("用户ID无效");
+    }
+    return conversationRepository.findByUserId(userId).collectList().block();
+  }
+
+  @Override
+  public CursorPage<Conversation> getUserConversationsPage(Long userId, String cursor, int size) {
+    if (userId == null || userId <= 0) {
+      throw new IllegalArgumentException("用户ID无效");
+    }
+    KeysetCursor after = KeysetCursor.decode(cursor);
+    int pageSize = CursorPage.clampSize(size);
+    List<Conversation> rows =
+        conversationRepository
+            .findPageByUserId(
+                userId,
+                after != null ? after.at() : null,
+                after != null ? after.id() : null,
+                pageSize + 1)
+            .collectList()
+            .block();
+    return CursorPage.of(
+        rows,
+        pageSize,
+        conversation -> new KeysetCursor(conversation.getUpdatedAt(), conversation.getId()));
+  }
+
+  @Override
+  public List<Conversation> getRecentConversations(Long userId, int limit) {
+    if (userId == null || userId <= 0) {
+      throw new IllegalArgumentException("用户ID无效");
+    }
+    return conversationRepository.findRecentByUserId(userId, limit).collectList().block();
+  }
+
+  @Override
+  public void updateConversationTitle(Long conversationId, String title) {
+    conversationRepository.updateTitle(conversationId, title).block();
+  }
+
+  @Override
+  public boolean updateTitleIfDefault(Long conversationId, String title) {
+    Long updated =
+        conversationRepository
+            .updateTitleIfDefault(conversationId, title, DEFAULT_CONVERSATION_TITLE)
+            .block();
+    return updated != null && updated > 0;
+  }
+
+  @Override
+  public void deleteConversation(Long conversationId) {
+    if (conversationId == null || conversationId <= 0) {
+      throw new IllegalArgumentException("对话ID无效");
+    }
+    // 先清理该会话下所有消息的工具调用结果，再删除消息与会话
+    toolResultRepository
+        .deleteByConversationId(conversationId)
+        .then(messageRepository.deleteByConversationId(conversationId))
+        .then(conversationRepository.deleteById(conversationId))
+        .as(transactionalOperator::transactional)
+        .block();
+  }
+
+  @Override
+  public List<Message> getConversationMessages(Long conversationId) {
+    return getConversationMessagesAsync(conversationId).collectList().block();
+  }
+
+  @Override
+  public Flux<Message> getConversationMessagesAsync(Long conversationId) {
+    if (conversationId == null || conversationId <= 0) {
+      return Flux.error(new IllegalArgumentException("对话ID无效"));
+    }
+    return messageRepository
+        .findByConversationId(conversationId)
+        .buffer(SEARCH_RESULT_BATCH_SIZE)
+        .concatMap(this::attachSearchResults)
+        .flatMapIterable(messages -> messages);
+  }
+
+  @Override
+  public Mono<CursorPage<Message>> getConversationMessagesPageAsync(
+      Long conversationId, String cursor, int size) {
+    if (conversationId == null || conversationId <= 0) {
+      return Mono.error(new IllegalArgumentException("对话ID无效"));
+    }
+    return Mono.defer(
+        () -> {
+          KeysetCursor after = KeysetCursor.decode(cursor);
+          int pageSize = CursorPage.clampSize(size);
+          return messageRepository
+              .findPage(
+                  conversationId,
+                  after != null ? after.at() : null,
+                  after != null ? after.id() : null,
+                  pageSize + 1)
+              .collectList()
+              .map(
+                  rows ->
+                      CursorPage.of(
+                          rows,
+                          pageSize,
+                          message -> new KeysetCursor(message.getCreatedAt(), message.getId())))
+              .flatMap(
+                  page -> {
+                    // 倒序取数，页内翻转为升序便于直接渲染
+                    Collections.reverse(page.getItems());
+                    return attachSearchResults(page.getItems()).thenReturn(page);
+                  });
+        });
+  }
+
+  @Override
+  public Mono<Message> getConversationMessageAsync(Long conversationId, Long messageId) {
+    return messageRepository
+        .findById(messageId)
+        .filter(message -> message.getConversationId().equals(conversationId))
+        .flatMap(message -> attachSearchResults(List.of(message)).thenReturn(message));
+  }
+
+  @Override
+  public List<Message> getRecentMessages(Long conversationId, int limit) {
+    if (conversationId == null || conversationId <= 0) {
+      throw new IllegalArgumentException("对话ID无效");
+    }
+    return messageRepository.findRecent(conversationId, limit).collectList().block();
+  }
+
+  @Override
+  public Mono<Void> generateTitleIfNeededAsync(Long conversationId, String userMessage) {
+    return conversationTitleService.updateTitleIfNeeded(conversationId, userMessage);
+  }
+
+  @Override
+  public String generateTitleFromMessage(String message) {
+    return conversationTitleService.generateTitle(message);
+  }
+
+  /** 一次批量查询这批AI消息的搜索结果，按消息ID回填 */
+  private Mono<List<Message>> attachSearchResults(List<Message> messages) {
+    List<Long> assistantIds =
+        messages.stream()
+            .filter(message -> "assistant".equalsIgnoreCase(message.getRole()))
+            .map(Message::getId)
+            .toList();
+    if (assistantIds.isEmpty()) {
+      return Mono.just(messages);
+    }
+    return toolResultRepository
+        .findByMessageIdsAndToolName(assistantIds, SEARCH_TOOL_NAME)
+        .filter(result -> "SUCCESS".equals(result.getStatus()) && result.getToolResult() != null)
+        .collectList()
+        .map(
+            toolResults -> {
+              Map<Long, List<SearchResult>> resultsByMessageId = new HashMap<>();
+              toolResults.forEach(
+                  toolResult -> {
+                    try {
+                      resultsByMessageId
+                          .computeIfAbsent(toolResult.getMessageId(), id -> new ArrayList<>())
+                          .addAll(
+                              objectMapper.readValue(
+                                  toolResult.getToolResult(),
+                                  new TypeReference<List<SearchResult>>() {}));
+                    } catch (JsonProcessingException e) {
+                      log.error("反序列化搜索结果失败，工具调用记录ID: {}", toolResult.getId(), e);
+                    }
+                  });
+              messages.forEach(
+                  message -> {
+                    List<SearchResult> results = resultsByMessageId.get(message.getId());
+                    if (results != null && !results.isEmpty()) {
+                      message.setSearchResults(results);
+                    }
+                  });
+              return messages;
+            })
+        .onErrorResume(
+            e -> {
+              log.warn(
+                  "填充搜索结果时发生异常，会话ID: {}，错误: {}",
+                  messages.get(0).getConversationId(),
+                  e.getMessage());
+              return Mono.just(messages);
+            });
+  }
+}
@@ -0,0 +1,234 @@
+package com.example.service.impl;
+
+import static com.example.constant.AiChatConstants.ROLE_ASSISTANT;
+import static com.example.constant.AiChatConstants.ROLE_USER;
+
+import com.example.config.PersistenceProperties;
+import com.example.dto.request.MessageSaveRequest;
+import com.example.dto.stream.ChatEvent;
+import com.example.entity.Conversation;
+import com.example.entity.Message;
+import com.example.repository.MessageR2dbcRepository;
+import com.example.repository.MessageToolResultR2dbcRepository;
+import com.example.service.MessageService;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * 消息服务的 R2DBC 实现（app.persistence.mode=r2dbc）
+ *
+ * <p>响应式方法全程非阻塞；同步方法供 ChatMemory 等同步调用方使用，内部阻塞等待结果，
+ * 不应在事件循环线程上调用。
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(
+    prefix = "app.persistence",
+    name = "mode",
+    havingValue = PersistenceProperties.MODE_R2DBC)
+@RequiredArgsConstructor
+public class R2dbcMessageServiceImpl implements MessageService {
+
+  private final MessageR2dbcRepository messageRepository;
+  private final MessageToolResultR2dbcRepository toolResultRepository;
+
+  @Override
+  public Message saveMessage(MessageSaveRequest request) {
+    return insert(request).block();
+  }
+
+  @Override
+  public Message getMessageById(Long messageId) {
+    return messageRepository.findById(messageId).block();
+  }
+
+  @Override
+  public List<Message> getMessagesByConversationId(Long conversationId) {
+    return getConversationHistoryAsync(conversationId).block();
+  }
+
+  @Override
+  public void deleteMessage(Long messageId) {
+    if (messageId == null || messageId <= 0) {
+      throw new IllegalArgumentException("消息ID无效");
+    }
+    toolResultRepository
+        .deleteByMessageId(messageId)
+        .onErrorResume(e -> Mono.empty())
+        .then(messageRepository.findById(messageId))
+        .flatMap(
+            existing ->
+                messageRepository
+                    .deleteById(messageId)
+                    .then(messageRepository.refreshConversationSummary(existing.getConversationId())))
+        .doOnError(e -> log.error("删除消息失败，消息ID: {}", messageId, e))
+        .onErrorResume(e -> Mono.empty())
+        .block();
+  }
+
+  @Override
+  public void updateMessageContent(Long messageId, String content, String thinking) {
+    if (messageId == null || messageId <= 0) {
+      throw new IllegalArgumentException("消息ID无效");
+    }
+    messageRepository
+        .updateContent(messageId, content, thinking)
+        .doOnSuccess(
+            rows ->
+                log.info(
+                    "消息更新成功，消息ID: {}，内容长度: {}，是否包含thinking: {}",
+                    messageId,
+                    content != null ? content.length() : 0,
+                    thinking != null))
+        .doOnError(e -> log.error("更新消息失败，消息ID: {}", messageId, e))
+        .block();
+  }
+
+  // ========================= 响应式方法实现 =========================
+
+  @Override
+  public Mono<Message> saveUserMessageAsync(Long conversationId, String content) {
+    return insert(
+            MessageSaveRequest.builder()
+                .conversationId(conversationId)
+                .role(ROLE_USER)
+                .content(content)
+                .build())
+        .doOnNext(message -> log.info("用户消息保存成功，消息ID: {}", message.getId()))
+        .onErrorMap(
+            error -> {
+              log.error("保存用户消息失败，会话ID: {}", conversationId, error);
+              return new RuntimeException("保存用户消息失败: " + error.getMessage(), error);
+            });
+  }
+
+  @Override
+  public Mono<ChatEvent> saveAiMessageAsync(
+      Long conversationId, Long messageId, String content, String thinking) {
+    return insert(
+            MessageSaveRequest.builder()
+                .id(messageId)
+                .conversationId(conversationId)
+                .role(ROLE_ASSISTANT)
+                .content(content)
+                .thinking(thinking)
+                .build())
+        .map(
+            message -> {
+              log.info(
+                  "AI消息保存成功，消息ID: {}, thinking内容: {}",
+                  message.getId(),
+                  thinking != null ? "有" : "无");
+              return ChatEvent.end(message.getId());
+            })
+        .onErrorMap(
+            error -> {
+              log.error("保存AI消息失败，会话ID: {}", conversationId, error);
+              return new RuntimeException("保存AI消息失败: " + error.getMessage(), error);
+            });
+  }
+
+  @Override
+  public Mono<List<Message>> saveUserMessageWithHistoryAsync(Long conversationId, String content) {
+    return Mono.fromCallable(
+            () ->
+                toEntity(
+                    MessageSaveRequest.builder()
+                        .conversationId(conversationId)
+                        .role(ROLE_USER)
+                        .content(content)
+                        .build()))
+        .flatMap(
+            message ->
+                messageRepository
+                    .insertReturningHistory(message)
+                    .doOnNext(
+                        history ->
+                            log.info(
+                                "用户消息保存成功，消息ID: {}, 历史消息数量: {}",
+                                message.getId(),
+                                history.size())))
+        .onErrorMap(
+            error -> {
+              log.error("保存用户消息失败，会话ID: {}", conversationId, error);
+              return new RuntimeException("保存用户消息失败: " + error.getMessage(), error);
+            });
+  }
+
+  @Override
+  public Mono<List<Message>> getConversationHistoryAsync(Long conversationId) {
+    if (conversationId == null || conversationId <= 0) {
+      return Mono.error(new IllegalArgumentException("对话ID无效"));
+    }
+    return messageRepository
+        .findByConversationId(conversationId)
+        .collectList()
+        .doOnNext(
+            messages -> log.debug("加载会话历史，会话ID: {}, 消息数量: {}", conversationId, messages.size()));
+  }
+
+  @Override
+  public Mono<Long> preCreateAssistantMessage(Long conversationId) {
+    if (conversationId == null || conversationId <= 0) {
+      return Mono.error(new IllegalArgumentException("对话ID无效"));
+    }
+    return insert(
+            MessageSaveRequest.builder()
+                .conversationId(conversationId)
+                .role(ROLE_ASSISTANT)
+                .content("")
+                .build())
+        .map(Message::getId)
+        .doOnNext(id -> log.debug("助手消息预创建成功，消息ID: {}", id))
+        .onErrorMap(
+            error -> {
+              log.error("预创建助手消息失败，会话ID: {}", conversationId, error);
+              return new RuntimeException("预创建助手消息失败: " + error.getMessage(), error);
+            });
+  }
+
+  /** R2DBC 模式不做ID块分配，ID由数据库在插入时生成 */
+  @Override
+  public Mono<Long> reserveMessageId() {
+    return Mono.empty();
+  }
+
+  private Mono<Message> insert(MessageSaveRequest request) {
+    return Mono.fromCallable(() -> toEntity(request))
+        .flatMap(messageRepository::insert)
+        .flatMap(
+            message ->
+                messageRepository
+                    .touchConversation(
+                        message.getConversationId(),
+                        1,
+                        Conversation.previewOf(message.getContent()))
+                    .thenReturn(message));
+  }
+
+  private Message toEntity(MessageSaveRequest request) {
+    if (request == null) {
+      throw new IllegalArgumentException("消息保存请求不能为空");
+    }
+    if (request.getConversationId() == null || request.getConversationId() <= 0) {
+      throw new IllegalArgumentException("对话ID无效");
+    }
+    if (request.getRole() == null || request.getRole().trim().isEmpty()) {
+      throw new IllegalArgumentException("消息角色不能为空");
+    }
+    if (request.getContent() == null || request.getContent().trim().isEmpty()) {
+      throw new IllegalArgumentException("消息内容不能为空");
+    }
+    Message message = new Message();
+    message.setId(request.getId());
+    message.setConversationId(request.getConversationId());
+    message.setRole(request.getRole());
+    message.setContent(request.getContent());
+    message.setThinking(request.getThinking());
+    return message;
+  }
+}
@@ -1,12 +1,8 @@
 package com.example.service.impl;
 
-import com.example.entity.Conversation;
-import com.example.entity.Message;
 import com.example.entity.User;
-import com.example.mapper.ConversationMapper;
-import com.example.mapper.MessageMapper;
+import com.example.mapper.ConversationTurnMapper;
 import com.example.mapper.UserMapper;
-import com.example.service.MessageToolResultService;
 import com.example.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -25,9 +21,7 @@ public class UserServiceImpl implements UserService {
   private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
 
   private final UserMapper userMapper;
-  private final ConversationMapper conversationMapper;
-  private final MessageMapper messageMapper;
-  private final MessageToolResultService messageToolResultService;
+  private final ConversationTurnMapper conversationTurnMapper;
 
   @Override
   public User createUser(String username, String nickname) {
@@ -88,27 +82,14 @@ public class UserServiceImpl implements UserService {
       throw new IllegalArgumentException("用户ID无效");
     }
     try {
-      // 1) 找到用户的所有会话
-      java.util.List<Conversation> conversations = conversationMapper.selectByUserId(userId);
-      if (conversations != null) {
-        for (Conversation c : conversations) {
-          try {
-            // 2) 对每个会话：先清工具结果，再删消息，最后删会话
-            java.util.List<Message> messages = messageMapper.selectByConversationId(c.getId());
-            if (messages != null && !messages.isEmpty()) {
-              java.util.List<Long> ids = messages.stream().map(Message::getId).toList();
-              try {
-                messageToolResultService.deleteMessageToolResultsByMessageIds(ids);
-              } catch (Exception ignore) {
-              }
-            }
-            messageMapper.deleteByConversationId(c.getId());
-            conversationMapper.deleteById(c.getId());
-          } catch (Exception ignore) {
-          }
-        }
+      // 1) 按用户整体删除（子查询，不再逐个会话读回消息）：先清工具结果，再删消息，最后删会话
+      try {
+        conversationTurnMapper.deleteToolResultsByUserId(userId);
+      } catch (Exception ignore) {
       }
-      // 3) 删除用户
+      conversationTurnMapper.deleteMessagesByUserId(userId);
+      conversationTurnMapper.deleteConversationsByUserId(userId);
+      // 2) 删除用户
       userMapper.deleteById(userId);
     } catch (Exception e) {
       log.error("删除用户失败，userId: {}", userId, e);
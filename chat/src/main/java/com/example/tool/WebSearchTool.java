@@ -1,6 +1,10 @@
 package com.example.tool;
 
 import com.example.dto.response.SearchResult;
+import com.example.jfr.JfrEvents;
+import com.example.jfr.ToolExecutionEvent;
+import com.example.metrics.ChatPipelineMetrics;
+import com.example.profiling.RequestResourceTracker;
 import com.example.service.MessageToolResultService;
 import com.example.service.SearchService;
 import com.example.service.SseEventPublisher;
@@ -32,6 +36,8 @@ public class WebSearchTool {
   private final SseEventPublisher sseEventPublisher;
   private final MessageToolResultService messageToolResultService;
   private final ObjectMapper objectMapper;
+  private final ChatPipelineMetrics pipelineMetrics;
+  private final RequestResourceTracker resourceTracker;
 
   @Tool(description = "执行网络搜索获取最新信息")
   public List<SearchResult> searchWeb(
@@ -39,6 +45,7 @@ public class WebSearchTool {
     Map<String, Object> ctx = toolContext != null ? toolContext.getContext() : Map.of();
     Long conversationId = asLong(ctx.get("conversationId"));
     Long messageId = asLong(ctx.get("messageId"));
+    Long requestId = asLong(ctx.get("requestId"));
 
     // 开关由调用端决定（AiChatServiceImpl 按请求注入工具并传递 searchEnabled）
     if (!asBoolean(ctx.get("searchEnabled"))) {
@@ -51,6 +58,10 @@ public class WebSearchTool {
       return Collections.emptyList();
     }
 
+    long start = System.nanoTime();
+    ToolExecutionEvent span = new ToolExecutionEvent();
+    span.begin();
+    boolean success = false;
     Long toolResultId = null;
     try {
       // 记录工具调用（非关键路径，失败不影响主流程）
@@ -64,7 +75,10 @@ public class WebSearchTool {
       sseEventPublisher.publishSearchStart(conversationId);
 
       // 执行搜索（SearchService 内部已配置超时和重试）
-      List<SearchResult> results = searchService.search(query).block();
+      long searchStart = System.nanoTime();
+      List<SearchResult> results =
+          resourceTracker.measure("tool", () -> searchService.search(query).block());
+      pipelineMetrics.recordSearch(System.nanoTime() - searchStart);
       if (results == null) results = Collections.emptyList();
 
       // 仅向前端发送可引用来源
@@ -87,6 +101,7 @@ public class WebSearchTool {
         }
       }
 
+      success = true;
       return results;
 
     } catch (Exception e) {
@@ -101,6 +116,15 @@ public class WebSearchTool {
         sseEventPublisher.publishSearchError(conversationId, "搜索服务暂时不可用，请稍后重试");
       }
       return Collections.emptyList();
+    } finally {
+      pipelineMetrics.recordToolCall(requestId, "webSearch", System.nanoTime() - start);
+      span.end();
+      if (span.shouldCommit()) {
+        span.tool = "webSearch";
+        span.conversationId = JfrEvents.idOf(conversationId);
+        span.success = success;
+        span.commit();
+      }
     }
   }
 
@@ -12,6 +12,9 @@ create table if not exists conversations (
   id            bigint generated by default as identity primary key,
   user_id       bigint not null,
   title         varchar(200),
+  message_count        int not null default 0,
+  last_message_at      timestamp,
+  last_message_preview varchar(100),
   created_at    timestamp default CURRENT_TIMESTAMP,
   updated_at    timestamp default CURRENT_TIMESTAMP
 );
@@ -39,8 +42,17 @@ create table if not exists message_tool_results (
   updated_at    timestamp default CURRENT_TIMESTAMP
 );
 
-create index if not exists idx_conversations_user_id on conversations (user_id);
+create table if not exists chat_nodes (
+  node_id       varchar(64) primary key,
+  base_url      varchar(255),
+  started_at    timestamp default CURRENT_TIMESTAMP,
+  heartbeat_at  timestamp default CURRENT_TIMESTAMP
+);
+
+create index if not exists idx_chat_nodes_heartbeat_at on chat_nodes (heartbeat_at);
+create index if not exists idx_conversations_user_list on conversations (user_id, updated_at desc, id desc);
 create index if not exists idx_messages_conversation_id on messages (conversation_id);
+create index if not exists idx_messages_conversation_id_created_at on messages (conversation_id, created_at, id);
 create index if not exists idx_message_tool_results_message_id on message_tool_results (message_id);
 create index if not exists idx_message_tool_results_message_id_tool_name on message_tool_results (message_id, tool_name);
 create index if not exists idx_message_tool_results_message_id_sequence on message_tool_results (message_id, call_sequence);
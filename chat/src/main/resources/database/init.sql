@@ -19,6 +19,10 @@ create table if not exists conversations (
   id           bigserial primary key,
   user_id      bigint not null,
   title        varchar(200),
+  -- 会话摘要（写消息时由应用维护，列表查询无需再查消息表）
+  message_count        int not null default 0,
+  last_message_at      timestamp,
+  last_message_preview varchar(100),
   created_at   timestamp default CURRENT_TIMESTAMP,
   updated_at   timestamp default CURRENT_TIMESTAMP
 );
@@ -48,14 +52,59 @@ create table if not exists message_tool_results (
   updated_at    timestamp default CURRENT_TIMESTAMP
 );
 
+-- 集群节点（会话亲和路由的成员表）
+create table if not exists chat_nodes (
+  node_id       varchar(64) primary key,
+  base_url      varchar(255),
+  started_at    timestamp default CURRENT_TIMESTAMP,
+  heartbeat_at  timestamp default CURRENT_TIMESTAMP
+);
+
+-- 已有库补齐会话摘要列并按现有消息回填：仅在列尚不存在时执行一次，之后每次启动只查一次元数据
+-- （DO 块体用单引号包裹，便于 spring.sql.init 按分号切分脚本）
+do '
+begin
+  if not exists (
+    select 1 from information_schema.columns
+    where table_name = ''conversations'' and column_name = ''message_count'') then
+    alter table conversations add column message_count int not null default 0;
+    alter table conversations add column last_message_at timestamp;
+    alter table conversations add column last_message_preview varchar(100);
+    update conversations c set
+      message_count = s.message_count,
+      last_message_at = s.last_message_at,
+      last_message_preview = (
+        select left(m.content, 100) from messages m
+        where m.conversation_id = c.id order by m.created_at desc, m.id desc limit 1)
+    from (
+      select conversation_id, count(*) as message_count, max(created_at) as last_message_at
+      from messages group by conversation_id
+    ) s
+    where s.conversation_id = c.id;
+  end if;
+end';
+
 -- 2) 索引（为常用查询加速）
 -- ------------------------------
-create index if not exists idx_conversations_user_id on conversations (user_id);
+create index if not exists idx_chat_nodes_heartbeat_at on chat_nodes (heartbeat_at);
 create index if not exists idx_messages_conversation_id on messages (conversation_id);
+-- 键集分页：会话列表按 (updated_at, id) 倒序、消息历史按 (created_at, id) 翻页；
+-- 会话列表索引覆盖列表投影的全部列，一次索引范围扫描即可返回一页
+-- user_id 单列索引与早期分页索引已被其前缀覆盖，删除以免规划器选中后再回表排序
+drop index if exists idx_conversations_user_id;
+drop index if exists idx_conversations_user_id_updated_at;
+create index if not exists idx_conversations_user_list on conversations (user_id, updated_at desc, id desc)
+  include (title, created_at, message_count, last_message_at, last_message_preview);
+create index if not exists idx_messages_conversation_id_created_at on messages (conversation_id, created_at, id);
 create index if not exists idx_message_tool_results_message_id on message_tool_results (message_id);
 create index if not exists idx_message_tool_results_message_id_tool_name on message_tool_results (message_id, tool_name);
 create index if not exists idx_message_tool_results_message_id_sequence on message_tool_results (message_id, call_sequence);
 
+-- 消息/会话ID按块分配（app.persistence.id-allocation）：应用启动时读取序列步长作为块大小，
+-- 步长为 1 时每个ID仍需一次 nextval。启用前可调大步长，数据库默认生成的ID同样按步长前进，互不重叠：
+-- alter sequence messages_id_seq increment by 50;
+-- alter sequence conversations_id_seq increment by 50;
+
 -- 3) 初始数据（仅开发）
 -- ------------------------------
 insert into users (username, nickname)
@@ -0,0 +1,46 @@
+package com.example.blocking;
+
+import static org.mockito.Mockito.mock;
+
+import com.example.config.BlockingIoProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * 单元测试用的阻塞I/O执行器
+ *
+ * <p>-Pblockhound 运行测试时（-Dai.blocking-io.block-hound=true）同时安装 BlockHound，
+ * 从 parallel 线程订阅的响应式路径若在订阅线程上执行阻塞调用会直接失败。
+ */
+public final class TestBlockingIo {
+
+  /** 阻塞I/O调度器的线程名前缀 */
+  public static final String THREAD_PREFIX = "blocking-io";
+
+  private TestBlockingIo() {}
+
+  public static BlockingIoExecutor create() {
+    BlockingIoProperties properties = new BlockingIoProperties();
+    properties.setMaxThreads(2);
+    properties.setBlockHound(Boolean.getBoolean("ai.blocking-io.block-hound"));
+    new BlockHoundInstaller(properties).install();
+    ObjectProvider<MeterRegistry> meterRegistry = absent();
+    return new BlockingIoExecutor(properties, new MockEnvironment(), meterRegistry);
+  }
+
+  /** 用于 Mockito 应答中模拟 JDBC 调用：sleep 在 BlockHound 下属于阻塞调用 */
+  public static void simulateJdbc() {
+    try {
+      Thread.sleep(1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** 未注册任何 Bean 的 ObjectProvider，getIfAvailable 返回 null */
+  @SuppressWarnings("unchecked")
+  public static <T> ObjectProvider<T> absent() {
+    return mock(ObjectProvider.class);
+  }
+}
@@ -0,0 +1,164 @@
+package com.example.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.blocking.BlockingIoExecutor;
+import com.example.blocking.TestBlockingIo;
+import com.example.config.PersistenceProperties;
+import com.example.entity.Message;
+import com.example.mapper.ConversationTurnMapper;
+import com.example.mapper.MessageMapper;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * WriteBehindMessageWriter 异常退出路径：停机超时与写线程中断时，未提交的写入转为直接写库并完成
+ */
+class WriteBehindMessageWriterTest {
+
+  private static final long CONVERSATION_ID = 7L;
+  private static final Duration VERIFY_TIMEOUT = Duration.ofSeconds(5);
+
+  private final SqlSessionFactory sqlSessionFactory = mock(SqlSessionFactory.class);
+  private final SqlSession session = mock(SqlSession.class);
+  private final MessageMapper messageMapper = mock(MessageMapper.class);
+  private final ConversationTurnMapper conversationTurnMapper = mock(ConversationTurnMapper.class);
+  private final PersistenceProperties properties = new PersistenceProperties();
+  private final CountDownLatch releaseFlush = new CountDownLatch(1);
+
+  private BlockingIoExecutor blockingIo;
+  private WriteBehindMessageWriter writer;
+
+  @BeforeEach
+  void setUp() {
+    blockingIo = TestBlockingIo.create();
+    when(sqlSessionFactory.openSession(any(ExecutorType.class), anyBoolean())).thenReturn(session);
+    when(session.getMapper(MessageMapper.class)).thenReturn(mock(MessageMapper.class));
+    when(session.getMapper(ConversationTurnMapper.class))
+        .thenReturn(mock(ConversationTurnMapper.class));
+    properties.getWriteBehind().setBatchSize(10);
+    properties.getWriteBehind().setShutdownTimeout(Duration.ofMillis(200));
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    releaseFlush.countDown();
+    writer.shutdown();
+    blockingIo.shutdown();
+  }
+
+  @Test
+  void writesQueuedBehindAStuckFlushAreWrittenDirectlyOnShutdownTimeout() throws Exception {
+    CountDownLatch flushing = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              flushing.countDown();
+              releaseFlush.await();
+              return null;
+            })
+        .when(session)
+        .flushStatements();
+    properties.getWriteBehind().setFlushInterval(Duration.ZERO);
+    writer = start();
+
+    writer.insertMessage(message("卡住的一批")).subscribe();
+    assertTrue(flushing.await(5, TimeUnit.SECONDS));
+    Message queued = message("排在后面");
+    Mono<Message> acked = writer.insertMessage(queued);
+
+    StepVerifier.create(acked)
+        .then(this::shutdownQuietly)
+        .expectNext(queued)
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+
+    verify(messageMapper).insert(queued);
+    verify(conversationTurnMapper).touchConversation(eq(CONVERSATION_ID), eq(1), anyString());
+  }
+
+  @Test
+  void collectedBatchIsWrittenDirectlyWhenTheWriterThreadIsInterrupted() {
+    // 首条入队后等待凑批的时间足够长，中断时写入仍停留在写线程已取出的批内
+    properties.getWriteBehind().setFlushInterval(Duration.ofMinutes(1));
+    writer = start();
+    Message collected = message("凑批中");
+
+    StepVerifier.create(writer.insertMessage(collected))
+        .then(() -> interruptWriterOnce(() -> writer.queued() == 0))
+        .expectNext(collected)
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+    verify(messageMapper).insert(collected);
+
+    // 写线程退出后的新写入直接写库，不再进入无人处理的队列
+    Message later = message("中断之后");
+    StepVerifier.create(writer.insertMessage(later)).expectNext(later).verifyComplete();
+    verify(messageMapper, timeout(1000)).insert(later);
+    verify(sqlSessionFactory, never())
+        .openSession(any(ExecutorType.class), anyBoolean());
+    verify(conversationTurnMapper, times(2))
+        .touchConversation(eq(CONVERSATION_ID), anyInt(), anyString());
+  }
+
+  private WriteBehindMessageWriter start() {
+    WriteBehindMessageWriter started =
+        new WriteBehindMessageWriter(
+            properties,
+            sqlSessionFactory,
+            messageMapper,
+            conversationTurnMapper,
+            blockingIo,
+            TestBlockingIo.absent());
+    started.start();
+    return started;
+  }
+
+  private void shutdownQuietly() {
+    try {
+      writer.shutdown();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** 等到写线程取走队首写入后中断它 */
+  private static void interruptWriterOnce(BooleanSupplier taken) {
+    long deadline = System.nanoTime() + VERIFY_TIMEOUT.toNanos();
+    while (!taken.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.onSpinWait();
+    }
+    Thread.getAllStackTraces().keySet().stream()
+        .filter(thread -> "message-write-behind".equals(thread.getName()) && thread.isAlive())
+        .forEach(Thread::interrupt);
+  }
+
+  private static Message message(String content) {
+    Message message = new Message();
+    message.setConversationId(CONVERSATION_ID);
+    message.setRole("user");
+    message.setContent(content);
+    return message;
+  }
+}
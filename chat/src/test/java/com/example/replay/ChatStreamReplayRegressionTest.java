@@ -0,0 +1,105 @@
+package com.example.replay;
+
+import com.example.service.ConversationService;
+import com.example.springai.SpringaiApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+/**
+ * /api/chat/stream 回放性能回归
+ *
+ * <p>以 H2 内存库启动完整应用，上游 DeepSeek 调用由 src/test/resources/replay/recordings
+ * 下的录制回放（默认不等待原时序，只测服务自身开销，-Dreplay.speed 可调），
+ * 吞吐、p99 与单请求分配须在 replay/baseline.json 派生的预算内。通过 -Preplay-regression 启用。
+ * 提交的 baseline.json 在参考机器上测得，其他机器上的用法见 {@link ReplayBaseline}。
+ */
+@EnabledIfSystemProperty(named = "replay.regression", matches = "true")
+@SpringBootTest(
+    classes = SpringaiApplication.class,
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:chat_replay;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;"
+          + "DATABASE_TO_UPPER=false",
+      "spring.datasource.driver-class-name=org.h2.Driver",
+      "spring.datasource.username=sa",
+      "spring.datasource.password=",
+      "spring.sql.init.schema-locations=classpath:database/init-h2.sql",
+      "mybatis.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl",
+      "ai.traffic-capture.mode=replay",
+      "ai.traffic-capture.directory=src/test/resources/replay/recordings",
+      "ai.traffic-capture.replay-speed=${replay.speed:0}",
+      "ai.models.providers.deepseek.api-key=replay",
+      "ai.models.providers.deepseek.base-url=https://api.deepseek.com",
+      "ai.profiling.enabled=true",
+      "ai.profiling.sample-rate=1",
+      "search.enabled=false",
+      "ai.concurrency.enabled=false",
+      "logging.level.root=WARN",
+      "logging.level.com.example=WARN"
+    })
+class ChatStreamReplayRegressionTest {
+
+  private static final Path BASELINE = Path.of("src/test/resources/replay/baseline.json");
+  private static final long USER_ID = 1L;
+  private static final int WARMUP_REQUESTS = 40;
+  private static final int REQUESTS = 200;
+  private static final int CONCURRENCY = 10;
+  private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE =
+      new ParameterizedTypeReference<>() {};
+
+  @LocalServerPort private int port;
+
+  @Autowired private ConversationService conversationService;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Test
+  void streamStaysWithinBaselineBudgets() {
+    // 不使用容器的 WebClient.Builder，避免客户端请求也被回放过滤器拦截
+    WebClient client = WebClient.create("http://localhost:" + port);
+    // 每个请求使用独立会话，历史一致，且并发请求互不共享会话事件流
+    List<Long> warmup = createConversations(WARMUP_REQUESTS);
+    List<Long> measured = createConversations(REQUESTS);
+
+    ReplayLoadRunner.run(
+        WARMUP_REQUESTS, CONCURRENCY, i -> stream(client, warmup.get(i)), meterRegistry, "chat");
+    ReplayLoadRunner.Result result =
+        ReplayLoadRunner.run(
+            REQUESTS, CONCURRENCY, i -> stream(client, measured.get(i)), meterRegistry, "chat");
+
+    ReplayBaseline.verify(BASELINE, result);
+  }
+
+  private List<Long> createConversations(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> conversationService.createConversation(USER_ID, "新对话").getId())
+        .toList();
+  }
+
+  private static Flux<ServerSentEvent<String>> stream(WebClient client, Long conversationId) {
+    return client
+        .get()
+        .uri(
+            uri ->
+                uri.path("/api/chat/stream/{conversationId}")
+                    .queryParam("message", "你好")
+                    .queryParam("userId", USER_ID)
+                    .queryParam("searchEnabled", false)
+                    .build(conversationId))
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .retrieve()
+        .bodyToFlux(SSE);
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.blocking.BlockingIoExecutor;
+import com.example.blocking.TestBlockingIo;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/** ConversationTitleService 标题异步更新测试 */
+class ConversationTitleServiceTest {
+
+  private final ConversationService conversationService = mock(ConversationService.class);
+
+  private BlockingIoExecutor blockingIo;
+  private ConversationTitleService titleService;
+
+  @BeforeEach
+  void setUp() {
+    blockingIo = TestBlockingIo.create();
+    titleService =
+        new ConversationTitleService(conversationService, blockingIo, TestBlockingIo.absent());
+  }
+
+  @AfterEach
+  void tearDown() {
+    blockingIo.shutdown();
+  }
+
+  @Test
+  void updatesDefaultTitleOnBlockingIoThread() {
+    AtomicReference<String> thread = new AtomicReference<>();
+    when(conversationService.updateTitleIfDefault(anyLong(), anyString()))
+        .thenAnswer(
+            invocation -> {
+              thread.set(Thread.currentThread().getName());
+              TestBlockingIo.simulateJdbc();
+              return true;
+            });
+
+    StepVerifier.create(
+            Mono.defer(() -> titleService.updateTitleIfNeeded(5L, "如何配置连接池"))
+                .subscribeOn(Schedulers.parallel()))
+        .verifyComplete();
+
+    verify(conversationService).updateTitleIfDefault(5L, "如何配置连接池");
+    assertTrue(thread.get().startsWith(TestBlockingIo.THREAD_PREFIX), thread.get());
+  }
+
+  @Test
+  void swallowsUpdateFailure() {
+    when(conversationService.updateTitleIfDefault(anyLong(), anyString()))
+        .thenThrow(new IllegalStateException("db down"));
+
+    StepVerifier.create(titleService.updateTitleIfNeeded(5L, "标题")).verifyComplete();
+  }
+
+  @Test
+  void generatesTitleFromFirstSentence() {
+    assertEquals(
+        "如何在WebFlux中隔离阻塞调用",
+        titleService.generateTitle(
+            "如何在WebFlux中隔离阻塞调用？我们的服务使用MyBatis访问数据库，并且有大量并发请求"));
+  }
+}
@@ -0,0 +1,181 @@
+package com.example.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.blocking.BlockingIoExecutor;
+import com.example.blocking.TestBlockingIo;
+import com.example.dto.stream.ChatEvent;
+import com.example.entity.Message;
+import com.example.entity.TurnHistoryRow;
+import com.example.mapper.ConversationTurnMapper;
+import com.example.mapper.MessageMapper;
+import com.example.persistence.DatabaseFeatures;
+import com.example.service.MessageToolResultService;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * MessageServiceImpl 响应式路径测试：从 parallel 线程订阅，mapper 调用必须落在阻塞I/O调度器上
+ */
+class MessageServiceImplTest {
+
+  private static final long CONVERSATION_ID = 7L;
+
+  private final MessageMapper messageMapper = mock(MessageMapper.class);
+  private final ConversationTurnMapper conversationTurnMapper = mock(ConversationTurnMapper.class);
+  private final DatabaseFeatures databaseFeatures = mock(DatabaseFeatures.class);
+  private final Set<String> jdbcThreads = ConcurrentHashMap.newKeySet();
+
+  private BlockingIoExecutor blockingIo;
+  private MessageServiceImpl messageService;
+
+  @BeforeEach
+  void setUp() {
+    blockingIo = TestBlockingIo.create();
+    messageService =
+        new MessageServiceImpl(
+            messageMapper,
+            conversationTurnMapper,
+            mock(MessageToolResultService.class),
+            blockingIo,
+            TestBlockingIo.absent(),
+            TestBlockingIo.absent(),
+            databaseFeatures);
+  }
+
+  @AfterEach
+  void tearDown() {
+    blockingIo.shutdown();
+  }
+
+  @Test
+  void saveUserMessageWithHistoryReturnsEarlierMessagesOffTheSubscribingThread() {
+    when(databaseFeatures.supportsWritableCte()).thenReturn(true);
+    when(conversationTurnMapper.insertReturningHistory(any()))
+        .thenAnswer(
+            invocation -> {
+              recordJdbcThread();
+              return List.of(
+                  historyRow(1L, "user", "你好"), historyRow(2L, "assistant", "您好"));
+            });
+
+    StepVerifier.create(
+            Mono.defer(
+                    () -> messageService.saveUserMessageWithHistoryAsync(CONVERSATION_ID, "再见"))
+                .subscribeOn(Schedulers.parallel()))
+        .assertNext(
+            history -> {
+              assertEquals(List.of(1L, 2L), history.stream().map(Message::getId).toList());
+              assertEquals("您好", history.get(1).getContent());
+            })
+        .verifyComplete();
+    assertJdbcOnBlockingIo();
+  }
+
+  @Test
+  void saveUserMessageWithHistoryFallsBackToInsertAndSelectWithoutWritableCte() {
+    when(databaseFeatures.supportsWritableCte()).thenReturn(false);
+    Message previous = new Message();
+    previous.setId(1L);
+    when(messageMapper.selectByConversationId(CONVERSATION_ID))
+        .thenAnswer(
+            invocation -> {
+              recordJdbcThread();
+              Message inserted = new Message();
+              inserted.setId(2L);
+              return List.of(previous, inserted);
+            });
+    doAnswer(
+            invocation -> {
+              recordJdbcThread();
+              invocation.<Message>getArgument(0).setId(2L);
+              return null;
+            })
+        .when(messageMapper)
+        .insert(any());
+
+    StepVerifier.create(
+            Mono.defer(
+                    () -> messageService.saveUserMessageWithHistoryAsync(CONVERSATION_ID, "再见"))
+                .subscribeOn(Schedulers.parallel()))
+        .assertNext(
+            history -> assertEquals(List.of(1L), history.stream().map(Message::getId).toList()))
+        .verifyComplete();
+    verify(conversationTurnMapper).touchConversation(eq(CONVERSATION_ID), eq(1), anyString());
+    verify(conversationTurnMapper, never()).insertReturningHistory(any());
+    assertJdbcOnBlockingIo();
+  }
+
+  @Test
+  void saveAiMessageEndsWithSavedMessageId() {
+    doAnswer(
+            invocation -> {
+              recordJdbcThread();
+              invocation.<Message>getArgument(0).setId(42L);
+              return null;
+            })
+        .when(messageMapper)
+        .insert(any());
+
+    StepVerifier.create(
+            Mono.defer(() -> messageService.saveAiMessageAsync(CONVERSATION_ID, "回答", null))
+                .subscribeOn(Schedulers.parallel()))
+        .assertNext(
+            event -> {
+              assertEquals(ChatEvent.ChatEventType.END, event.getType());
+              assertEquals(ChatEvent.end(42L), event);
+            })
+        .verifyComplete();
+    verify(conversationTurnMapper).touchConversation(eq(CONVERSATION_ID), anyInt(), eq("回答"));
+    assertJdbcOnBlockingIo();
+  }
+
+  @Test
+  void historyRejectsInvalidConversationIdWithoutTouchingTheDatabase() {
+    StepVerifier.create(messageService.getConversationHistoryAsync(0L))
+        .expectError(IllegalArgumentException.class)
+        .verify();
+    verify(messageMapper, never()).selectByConversationId(any());
+  }
+
+  private void recordJdbcThread() {
+    jdbcThreads.add(Thread.currentThread().getName());
+    TestBlockingIo.simulateJdbc();
+  }
+
+  private void assertJdbcOnBlockingIo() {
+    assertTrue(!jdbcThreads.isEmpty(), "mapper 未被调用");
+    jdbcThreads.forEach(
+        name ->
+            assertTrue(
+                name.startsWith(TestBlockingIo.THREAD_PREFIX),
+                "mapper 在非阻塞I/O线程上执行: " + name));
+  }
+
+  private static TurnHistoryRow historyRow(Long id, String role, String content) {
+    TurnHistoryRow row = new TurnHistoryRow();
+    row.setInsertedId(3L);
+    row.setId(id);
+    row.setConversationId(CONVERSATION_ID);
+    row.setRole(role);
+    row.setContent(content);
+    return row;
+  }
+}
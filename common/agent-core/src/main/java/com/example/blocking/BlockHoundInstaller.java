@@ -0,0 +1,51 @@
+package com.example.blocking;
+
+import com.example.config.BlockingIoProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import reactor.blockhound.BlockHound;
+
+/**
+ * 阻塞调用检测：开启 ai.blocking-io.block-hound 且类路径上有 BlockHound（-Pblockhound）时安装，
+ * Netty 事件循环、parallel 等非阻塞线程上的 JDBC/文件/sleep 等阻塞调用会抛出 BlockingOperationError，
+ * 测试与压测中直接失败。blocking-io 与 boundedElastic 线程不受限制。
+ */
+@Slf4j
+@Component
+public class BlockHoundInstaller {
+
+  private static final String BLOCK_HOUND_CLASS = "reactor.blockhound.BlockHound";
+
+  private final BlockingIoProperties properties;
+
+  public BlockHoundInstaller(BlockingIoProperties properties) {
+    this.properties = properties;
+  }
+
+  @PostConstruct
+  public void install() {
+    if (!properties.isBlockHound()) {
+      return;
+    }
+    if (!ClassUtils.isPresent(BLOCK_HOUND_CLASS, getClass().getClassLoader())) {
+      log.warn("已开启 ai.blocking-io.block-hound，但类路径上没有 BlockHound，请使用 -Pblockhound 构建");
+      return;
+    }
+    Installer.install();
+    log.info("BlockHound 已安装，非阻塞线程上的阻塞调用将直接失败");
+  }
+
+  /** 隔离对 BlockHound 的类引用，未引入依赖时不会被加载 */
+  private static final class Installer {
+    static void install() {
+      BlockHound.install(
+          builder ->
+              builder
+                  // 日志输出在事件循环上同步写控制台，属预期行为
+                  .allowBlockingCallsInside("ch.qos.logback.core.OutputStreamAppender", "writeBytes")
+                  .allowBlockingCallsInside("java.util.UUID", "randomUUID"));
+    }
+  }
+}
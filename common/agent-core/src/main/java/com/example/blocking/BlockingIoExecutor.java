@@ -0,0 +1,165 @@
+package com.example.blocking;
+
+import com.example.config.BlockingIoProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 响应式流程中的阻塞I/O执行器
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>为 MyBatis mapper 等 JDBC 调用提供有界的专用调度器，线程数与连接池对齐，
+ *       调用不再落在订阅线程（常为 Netty 事件循环）上</li>
+ *   <li>暴露在执行数、排队数、排队等待与执行耗时指标（ai.blocking-io.*）</li>
+ * </ul>
+ * 响应式代码中的阻塞调用统一经 {@link #call} / {@link #run} 提交；开启
+ * spring.threads.virtual.enabled（Java 21+）时改为虚拟线程执行。
+ */
+@Slf4j
+@Component
+public class BlockingIoExecutor {
+
+  private static final String DEFAULT_POOL_SIZE_KEY = "spring.datasource.hikari.maximum-pool-size";
+  private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+  private final Scheduler scheduler;
+  private final int maxThreads;
+  private final boolean virtual;
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final MeterRegistry meterRegistry;
+  /** 按操作名缓存的等待/执行计时器，避免每次调用都经注册表查找 */
+  private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+  private final Map<String, Timer> executionTimers = new ConcurrentHashMap<>();
+
+  public BlockingIoExecutor(
+      BlockingIoProperties properties,
+      Environment environment,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    this.maxThreads =
+        properties.getMaxThreads() > 0
+            ? properties.getMaxThreads()
+            : environment.getProperty(
+                DEFAULT_POOL_SIZE_KEY, Integer.class, HIKARI_DEFAULT_POOL_SIZE);
+    this.virtual = VirtualThreads.isEnabled(environment);
+    // 虚拟线程模式下每个任务一个虚拟线程，并发上限仍与连接池对齐，避免大量线程排队等连接
+    this.scheduler =
+        virtual
+            ? new Schedulers.Factory() {}.newThreadPerTaskBoundedElastic(
+                maxThreads, properties.getQueueCapacity(), VirtualThreads.threadFactory("blocking-io-"))
+            : Schedulers.newBoundedElastic(
+                maxThreads,
+                properties.getQueueCapacity(),
+                "blocking-io",
+                properties.getTtlSeconds(),
+                true);
+    this.meterRegistry = meterRegistry.getIfAvailable();
+    if (this.meterRegistry != null) {
+      Gauge.builder("ai.blocking-io.active", active, AtomicInteger::get).register(this.meterRegistry);
+      Gauge.builder("ai.blocking-io.pending", pending, AtomicInteger::get)
+          .register(this.meterRegistry);
+      Gauge.builder("ai.blocking-io.max-threads", () -> maxThreads).register(this.meterRegistry);
+    }
+    log.info(
+        "阻塞I/O调度器已创建: maxThreads={}, queueCapacity={}, virtualThreads={}",
+        maxThreads,
+        properties.getQueueCapacity(),
+        virtual);
+  }
+
+  /**
+   * 在阻塞I/O调度器上执行有返回值的调用，返回 null 时为空 Mono。
+   *
+   * @param operation 指标中的操作名，如 message.insert
+   */
+  public <T> Mono<T> call(String operation, Callable<T> task) {
+    return Mono.defer(
+        () -> {
+          long submitted = System.nanoTime();
+          AtomicBoolean started = new AtomicBoolean();
+          pending.incrementAndGet();
+          return Mono.fromCallable(
+                  () -> {
+                    if (started.compareAndSet(false, true)) {
+                      pending.decrementAndGet();
+                    }
+                    active.incrementAndGet();
+                    long start = System.nanoTime();
+                    record(waitTimers, "ai.blocking-io.wait", operation, start - submitted);
+                    try {
+                      return task.call();
+                    } finally {
+                      active.decrementAndGet();
+                      record(
+                          executionTimers,
+                          "ai.blocking-io.execution",
+                          operation,
+                          System.nanoTime() - start);
+                    }
+                  })
+              .subscribeOn(scheduler)
+              .doFinally(
+                  signal -> {
+                    // 排队期间被取消或被调度器拒绝
+                    if (started.compareAndSet(false, true)) {
+                      pending.decrementAndGet();
+                    }
+                  });
+        });
+  }
+
+  /** 在阻塞I/O调度器上执行无返回值的调用 */
+  public Mono<Void> run(String operation, Runnable task) {
+    return call(
+            operation,
+            () -> {
+              task.run();
+              return null;
+            })
+        .then();
+  }
+
+  /** 供需要自行组合的场景（如 publishOn）使用的底层调度器 */
+  public Scheduler scheduler() {
+    return scheduler;
+  }
+
+  public int getMaxThreads() {
+    return maxThreads;
+  }
+
+  public boolean isVirtual() {
+    return virtual;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.dispose();
+  }
+
+  private void record(Map<String, Timer> timers, String name, String operation, long nanos) {
+    if (meterRegistry != null) {
+      timers
+          .computeIfAbsent(
+              operation,
+              op -> Timer.builder(name).tag("operation", op).register(meterRegistry))
+          .record(nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+}
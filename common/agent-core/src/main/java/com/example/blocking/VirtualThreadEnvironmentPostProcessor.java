@@ -0,0 +1,47 @@
+package com.example.blocking;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 开启 spring.threads.virtual.enabled 时，把 Reactor 默认的 boundedElastic 切换为
+ * 每任务一个虚拟线程的实现（reactor.schedulers.defaultBoundedElasticOnVirtualThreads）。
+ * 该系统属性只在 Schedulers 类初始化时读取，因此在环境准备阶段、任何响应式代码运行前设置。
+ */
+public class VirtualThreadEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+  static final String REACTOR_PROPERTY = "reactor.schedulers.defaultBoundedElasticOnVirtualThreads";
+
+  /** 日志系统此时尚未初始化，使用延迟输出的日志 */
+  private final Log log;
+
+  public VirtualThreadEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+    this.log = logFactory.getLog(VirtualThreadEnvironmentPostProcessor.class);
+  }
+
+  @Override
+  public void postProcessEnvironment(
+      ConfigurableEnvironment environment, SpringApplication application) {
+    if (!environment.getProperty(VirtualThreads.ENABLED_PROPERTY, Boolean.class, false)) {
+      return;
+    }
+    if (!VirtualThreads.isSupported()) {
+      log.warn(
+          "已开启 " + VirtualThreads.ENABLED_PROPERTY + "，但当前JVM为 " + Runtime.version()
+              + "，需要 Java 21+，继续使用平台线程");
+      return;
+    }
+    if (System.getProperty(REACTOR_PROPERTY) == null) {
+      System.setProperty(REACTOR_PROPERTY, "true");
+    }
+    if (!Schedulers.DEFAULT_BOUNDED_ELASTIC_ON_VIRTUAL_THREADS) {
+      log.warn(
+          "Reactor Schedulers 已提前初始化，boundedElastic 仍使用平台线程；可改用 -D"
+              + REACTOR_PROPERTY + "=true 启动");
+    }
+  }
+}
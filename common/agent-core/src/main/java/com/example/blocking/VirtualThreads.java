@@ -0,0 +1,49 @@
+package com.example.blocking;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import org.springframework.core.env.Environment;
+
+/**
+ * 虚拟线程支持判断与线程工厂
+ * 以 Java 17 为编译基线，Java 21 的 Thread.ofVirtual() 经反射调用；运行在 21 以下时不可用
+ */
+public final class VirtualThreads {
+
+  /** 与 Spring Boot 共用的开关：同时控制 Tomcat 请求线程与应用内阻塞调度器 */
+  public static final String ENABLED_PROPERTY = "spring.threads.virtual.enabled";
+
+  private static final int MIN_FEATURE_VERSION = 21;
+
+  private VirtualThreads() {}
+
+  public static boolean isSupported() {
+    return Runtime.version().feature() >= MIN_FEATURE_VERSION;
+  }
+
+  /** 开关已打开且当前JVM支持虚拟线程 */
+  public static boolean isEnabled(Environment environment) {
+    return isSupported() && environment.getProperty(ENABLED_PROPERTY, Boolean.class, false);
+  }
+
+  /**
+   * 创建以 prefix 加序号命名的虚拟线程工厂。
+   *
+   * @throws IllegalStateException 当前JVM不支持虚拟线程
+   */
+  public static ThreadFactory threadFactory(String prefix) {
+    if (!isSupported()) {
+      throw new IllegalStateException("虚拟线程需要 Java 21+，当前: " + Runtime.version());
+    }
+    try {
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      Method name = builderType.getMethod("name", String.class, long.class);
+      Method factory = builderType.getMethod("factory");
+      Object builder = name.invoke(ofVirtual.invoke(null), prefix, 0L);
+      return (ThreadFactory) factory.invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("创建虚拟线程工厂失败", e);
+    }
+  }
+}
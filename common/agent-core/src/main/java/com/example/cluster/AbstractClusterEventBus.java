@@ -0,0 +1,280 @@
+package com.example.cluster;
+
+import com.example.config.ClusterProperties;
+import com.example.dto.stream.ChatEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiPredicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 集群事件总线的通用实现
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>维护会话持有节点表（来自其它节点的 claim/release 广播）</li>
+ *   <li>按目标节点合并事件，达到条数上限或等待时间后批量发送</li>
+ *   <li>批次的JSON编解码，超过传输上限时 gzip 压缩</li>
+ *   <li>按来源/目标节点记录投递指标</li>
+ * </ul>
+ * 子类只需实现批次的发送与接收。
+ */
+@Slf4j
+public abstract class AbstractClusterEventBus implements ClusterEventBus {
+
+  /** 广播目标 */
+  protected static final String BROADCAST = "*";
+
+  private static final String GZIP_PREFIX = "z:";
+  /** 多线程并发入队时的重试时限，超时视为入队失败而不是无限自旋 */
+  private static final Sinks.EmitFailureHandler EMIT_RETRY =
+      Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+  protected final ClusterProperties properties;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+  private final Map<Long, String> owners = new ConcurrentHashMap<>();
+  private final List<BiPredicate<Long, ChatEvent>> handlers = new CopyOnWriteArrayList<>();
+  private final Sinks.Many<Outbound> outbound = Sinks.many().unicast().onBackpressureBuffer();
+  private Disposable batching;
+
+  protected AbstractClusterEventBus(
+      ClusterProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /** 发送一个已编码的批次；target 为节点ID或 {@link #BROADCAST} */
+  protected abstract void sendBatch(String target, String payload) throws Exception;
+
+  /** 单个批次允许的最大字节数 */
+  protected abstract int maxPayloadBytes();
+
+  protected void startBatching() {
+    batching =
+        outbound
+            .asFlux()
+            .groupBy(Outbound::target)
+            .flatMap(
+                group ->
+                    group.bufferTimeout(
+                        Math.max(1, properties.getBatchMaxEvents()),
+                        Duration.ofMillis(Math.max(1, properties.getBatchFlushMs()))),
+                Integer.MAX_VALUE)
+            .subscribe(this::flush, error -> log.error("集群事件批处理异常终止", error));
+  }
+
+  protected void stopBatching() {
+    outbound.tryEmitComplete();
+    if (batching != null) {
+      batching.dispose();
+    }
+  }
+
+  @Override
+  public String nodeId() {
+    return properties.getNodeId();
+  }
+
+  @Override
+  public void claim(Long conversationId) {
+    owners.put(conversationId, nodeId());
+    enqueue(BROADCAST, control("claim", conversationId));
+  }
+
+  @Override
+  public void release(Long conversationId) {
+    owners.remove(conversationId, nodeId());
+    enqueue(BROADCAST, control("release", conversationId));
+  }
+
+  @Override
+  public void route(Long conversationId, ChatEvent event) {
+    String owner = owners.get(conversationId);
+    ObjectNode envelope = objectMapper.createObjectNode();
+    envelope.put("k", "event");
+    envelope.put("c", conversationId);
+    envelope.put("t", event.getType().name());
+    envelope.set("p", objectMapper.valueToTree(event.getPayload()));
+    enqueue(owner != null && !owner.equals(nodeId()) ? owner : BROADCAST, envelope);
+  }
+
+  @Override
+  public void onEvent(BiPredicate<Long, ChatEvent> handler) {
+    handlers.add(handler);
+  }
+
+  /** 子类收到批次时调用 */
+  protected void receiveBatch(String payload) {
+    JsonNode batch;
+    try {
+      batch = objectMapper.readTree(decode(payload));
+    } catch (IOException e) {
+      log.warn("无法解析集群事件批次: {}", e.getMessage());
+      return;
+    }
+    String source = batch.path("s").asText();
+    if (nodeId().equals(source)) {
+      return;
+    }
+    for (JsonNode envelope : batch.path("e")) {
+      Long conversationId = envelope.path("c").asLong();
+      switch (envelope.path("k").asText()) {
+        case "claim" -> owners.put(conversationId, source);
+        case "release" -> owners.remove(conversationId, source);
+        case "event" -> dispatch(source, conversationId, envelope);
+        default -> log.debug("忽略未知的集群消息类型: {}", envelope.path("k").asText());
+      }
+    }
+  }
+
+  private void dispatch(String source, Long conversationId, JsonNode envelope) {
+    ChatEvent.ChatEventType type;
+    Object payload;
+    try {
+      type = ChatEvent.ChatEventType.valueOf(envelope.path("t").asText());
+      payload = objectMapper.treeToValue(envelope.path("p"), payloadClass(type));
+    } catch (IllegalArgumentException | IOException e) {
+      log.warn("无法解析集群事件: {}", e.getMessage());
+      return;
+    }
+    count("ai.cluster.events.received", "source", source);
+    ChatEvent event = ChatEvent.of(type, payload);
+    boolean delivered = false;
+    for (BiPredicate<Long, ChatEvent> handler : handlers) {
+      delivered |= handler.test(conversationId, event);
+    }
+    // 广播时只有持有节点能投递，其它节点计为未投递
+    count(delivered ? "ai.cluster.events.delivered" : "ai.cluster.events.undeliverable",
+        "source", source);
+  }
+
+  private static Class<?> payloadClass(ChatEvent.ChatEventType type) {
+    return switch (type) {
+      case START -> ChatEvent.StartPayload.class;
+      case CHUNK, THINKING -> ChatEvent.ChunkPayload.class;
+      case SEARCH -> ChatEvent.SearchPayload.class;
+      case SEARCH_RESULTS -> ChatEvent.SearchResultsPayload.class;
+      case END -> ChatEvent.EndPayload.class;
+      case ERROR -> ChatEvent.ErrorPayload.class;
+    };
+  }
+
+  private ObjectNode control(String kind, Long conversationId) {
+    ObjectNode envelope = objectMapper.createObjectNode();
+    envelope.put("k", kind);
+    envelope.put("c", conversationId);
+    return envelope;
+  }
+
+  private void enqueue(String target, ObjectNode envelope) {
+    try {
+      outbound.emitNext(new Outbound(target, envelope), EMIT_RETRY);
+    } catch (Sinks.EmissionException e) {
+      log.warn("集群事件入队失败: {}", e.getReason());
+      count("ai.cluster.events.dropped", "target", target);
+    }
+  }
+
+  /** 按传输上限切分批次后发送 */
+  private void flush(List<Outbound> items) {
+    if (items.isEmpty()) {
+      return;
+    }
+    String target = items.get(0).target();
+    List<ObjectNode> current = new ArrayList<>();
+    for (Outbound item : items) {
+      current.add(item.envelope());
+      if (current.size() > 1 && byteLength(encode(current)) > maxPayloadBytes()) {
+        current.remove(current.size() - 1);
+        send(target, current);
+        current = new ArrayList<>();
+        current.add(item.envelope());
+      }
+    }
+    send(target, current);
+  }
+
+  private void send(String target, List<ObjectNode> envelopes) {
+    String payload = encode(envelopes);
+    if (byteLength(payload) > maxPayloadBytes()) {
+      log.warn("集群事件超过传输上限被丢弃: target={}, bytes={}", target, byteLength(payload));
+      count("ai.cluster.events.dropped", "target", target, envelopes.size());
+      return;
+    }
+    try {
+      sendBatch(target, payload);
+      count("ai.cluster.events.sent", "target", target, envelopes.size());
+      count("ai.cluster.batches.sent", "target", target, 1);
+    } catch (Exception e) {
+      log.warn("集群事件发送失败: target={}, error={}", target, e.getMessage());
+      count("ai.cluster.events.failed", "target", target, envelopes.size());
+    }
+  }
+
+  private String encode(List<ObjectNode> envelopes) {
+    ObjectNode batch = objectMapper.createObjectNode();
+    batch.put("s", nodeId());
+    ArrayNode array = batch.putArray("e");
+    envelopes.forEach(array::add);
+    String json = batch.toString();
+    if (byteLength(json) <= maxPayloadBytes()) {
+      return json;
+    }
+    // 搜索结果等大事件压缩后再发送
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(json.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      return json;
+    }
+    return GZIP_PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray());
+  }
+
+  private static int byteLength(String payload) {
+    return payload.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  private static String decode(String payload) throws IOException {
+    if (!payload.startsWith(GZIP_PREFIX)) {
+      return payload;
+    }
+    byte[] compressed = Base64.getDecoder().decode(payload.substring(GZIP_PREFIX.length()));
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private void count(String name, String tagKey, String tagValue) {
+    count(name, tagKey, tagValue, 1);
+  }
+
+  private void count(String name, String tagKey, String tagValue, int amount) {
+    if (meterRegistry != null) {
+      meterRegistry
+          .counter(name, "node", nodeId(), tagKey, BROADCAST.equals(tagValue) ? "all" : tagValue)
+          .increment(amount);
+    }
+  }
+
+  private record Outbound(String target, ObjectNode envelope) {}
+}
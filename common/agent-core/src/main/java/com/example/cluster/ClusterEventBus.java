@@ -0,0 +1,27 @@
+package com.example.cluster;
+
+import com.example.dto.stream.ChatEvent;
+import java.util.function.BiPredicate;
+
+/**
+ * 集群事件总线
+ *
+ * <p>会话的SSE连接只存在于一个节点上。节点注册会话时声明持有，其它节点发布该会话的事件时
+ * 经总线路由到持有节点；持有者未知时广播给所有节点。
+ */
+public interface ClusterEventBus {
+
+  String nodeId();
+
+  /** 声明本节点持有该会话的事件流 */
+  void claim(Long conversationId);
+
+  /** 本节点不再持有该会话的事件流 */
+  void release(Long conversationId);
+
+  /** 将事件路由到持有该会话的节点 */
+  void route(Long conversationId, ChatEvent event);
+
+  /** 注册本节点收到远程事件时的处理器，返回是否投递到了本地会话流 */
+  void onEvent(BiPredicate<Long, ChatEvent> handler);
+}
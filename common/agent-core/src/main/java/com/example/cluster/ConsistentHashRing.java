@@ -0,0 +1,73 @@
+package com.example.cluster;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 会话一致性哈希环（不可变）
+ *
+ * <p>每个节点按虚拟节点数映射到环上多个位置，节点加入/离开时只有相邻区间的会话改变归属。
+ */
+public final class ConsistentHashRing {
+
+  private final TreeMap<Long, String> ring = new TreeMap<>();
+  private final Set<String> nodes;
+
+  private ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+    this.nodes = Set.copyOf(new TreeSet<>(nodes));
+    int replicas = Math.max(1, virtualNodes);
+    for (String node : this.nodes) {
+      for (int i = 0; i < replicas; i++) {
+        ring.put(hash(node + "#" + i), node);
+      }
+    }
+  }
+
+  public static ConsistentHashRing of(Collection<String> nodes, int virtualNodes) {
+    return new ConsistentHashRing(nodes, virtualNodes);
+  }
+
+  public Set<String> nodes() {
+    return nodes;
+  }
+
+  public boolean isEmpty() {
+    return ring.isEmpty();
+  }
+
+  /** 会话的持有节点；环为空时返回 null */
+  public String ownerOf(Long conversationId) {
+    if (ring.isEmpty() || conversationId == null) {
+      return null;
+    }
+    Map.Entry<Long, String> entry = ring.ceilingEntry(mix(conversationId));
+    return (entry != null ? entry : ring.firstEntry()).getValue();
+  }
+
+  /** 会话ID本身是自增序列，先做雪崩混合再上环 */
+  private static long mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return key;
+  }
+
+  private static long hash(String value) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+      return ByteBuffer.wrap(digest).getLong();
+    } catch (NoSuchAlgorithmException e) {
+      return mix(value.hashCode());
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.example.cluster;
+
+import java.util.Objects;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 集群成员变化导致会话归属重新分配时发布，
+ * 监听方据此清理归属已变化会话的本地状态。
+ */
+public class ConversationRebalanceEvent extends ApplicationEvent {
+
+  private final ConsistentHashRing previous;
+  private final ConsistentHashRing current;
+
+  public ConversationRebalanceEvent(
+      Object source, ConsistentHashRing previous, ConsistentHashRing current) {
+    super(source);
+    this.previous = previous;
+    this.current = current;
+  }
+
+  public ConsistentHashRing getPrevious() {
+    return previous;
+  }
+
+  public ConsistentHashRing getCurrent() {
+    return current;
+  }
+
+  /** 会话归属是否在本次变化中改变 */
+  public boolean isReassigned(Long conversationId) {
+    return !Objects.equals(previous.ownerOf(conversationId), current.ownerOf(conversationId));
+  }
+}
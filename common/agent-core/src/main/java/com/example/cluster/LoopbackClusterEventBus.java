@@ -0,0 +1,64 @@
+package com.example.cluster;
+
+import com.example.config.ClusterProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * 进程内回环事件总线
+ *
+ * <p>同一JVM内的多个节点实例通过静态节点表互相投递，编解码与批处理路径与真实总线一致，
+ * 用于测试与单机多实例演示。
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${ai.cluster.enabled:false} and '${ai.cluster.bus:postgres}' == 'loopback'")
+public class LoopbackClusterEventBus extends AbstractClusterEventBus {
+
+  private static final Map<String, LoopbackClusterEventBus> NODES = new ConcurrentHashMap<>();
+
+  public LoopbackClusterEventBus(
+      ClusterProperties properties,
+      ObjectMapper objectMapper,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    super(properties, objectMapper, meterRegistry.getIfAvailable());
+  }
+
+  @PostConstruct
+  public void start() {
+    NODES.put(nodeId(), this);
+    startBatching();
+    log.info("🔁 集群回环事件总线已启动: node={}", nodeId());
+  }
+
+  @PreDestroy
+  public void stop() {
+    NODES.remove(nodeId(), this);
+    stopBatching();
+  }
+
+  @Override
+  protected void sendBatch(String target, String payload) {
+    if (BROADCAST.equals(target)) {
+      NODES.values().forEach(node -> node.receiveBatch(payload));
+      return;
+    }
+    LoopbackClusterEventBus node = NODES.get(target);
+    if (node != null) {
+      node.receiveBatch(payload);
+    }
+  }
+
+  @Override
+  protected int maxPayloadBytes() {
+    return 7900;
+  }
+}
@@ -0,0 +1,24 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 阻塞I/O（MyBatis/JDBC）专用调度器配置
+ * 线程数默认与 Hikari 连接池大小一致，避免线程多于连接时在连接池上排队
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.blocking-io")
+public class BlockingIoProperties {
+
+  /** 最大线程数，0 表示取 spring.datasource.hikari.maximum-pool-size（缺省10） */
+  private int maxThreads = 0;
+  /** 线程全忙时允许排队的任务数 */
+  private int queueCapacity = 10000;
+  /** 空闲线程回收时间（秒） */
+  private int ttlSeconds = 60;
+  /** 安装 BlockHound，非阻塞线程（Netty事件循环、parallel）上的阻塞调用直接抛错；需 -Pblockhound */
+  private boolean blockHound = false;
+}
@@ -0,0 +1,53 @@
+package com.example.config;
+
+import java.util.UUID;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 集群配置
+ * 多节点部署时，会话事件经集群事件总线路由到持有该会话SSE连接的节点
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.cluster")
+public class ClusterProperties {
+
+  private boolean enabled = false;
+  /** 节点ID，默认随机生成；同一节点重启后会视为新节点 */
+  private String nodeId = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+  /** 事件总线实现：postgres（LISTEN/NOTIFY）或 loopback（进程内，用于测试） */
+  private String bus = "postgres";
+  /** 通道名前缀 */
+  private String channelPrefix = "chat_events";
+  /** 单批最多合并的事件数 */
+  private int batchMaxEvents = 32;
+  /** 批量发送的最长等待时间 */
+  private long batchFlushMs = 20;
+  /** 会话亲和路由 */
+  private Affinity affinity = new Affinity();
+
+  @Data
+  public static class Affinity {
+    private boolean enabled = false;
+    /** 非持有节点收到会话请求时的处理：advisory（仅提供归属查询）、redirect（307到持有节点）、forward（代理持有节点的SSE流） */
+    private String mode = "advisory";
+    /** 本节点对其它节点/网关可达的地址，为空时使用本机IP与 server.port */
+    private String advertisedUrl;
+    /** 心跳间隔 */
+    private long heartbeatIntervalMs = 5000;
+    /** 超过该时间未心跳的节点视为下线 */
+    private long nodeTtlMs = 15000;
+    /** 每个节点在哈希环上的虚拟节点数 */
+    private int virtualNodes = 128;
+
+    public boolean isRedirect() {
+      return "redirect".equalsIgnoreCase(mode);
+    }
+
+    public boolean isForward() {
+      return "forward".equalsIgnoreCase(mode);
+    }
+  }
+}
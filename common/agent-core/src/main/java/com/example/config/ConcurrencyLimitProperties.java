@@ -0,0 +1,34 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 流式生成自适应并发限制配置
+ * 基于首token延迟的梯度算法动态调整在途生成数上限，超限时快速拒绝并返回重试提示。
+ * 默认关闭：启用前按部署的上游容量设置 initialLimit，limit 在积累首token延迟样本之前不会自行调整
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.concurrency")
+public class ConcurrencyLimitProperties {
+
+  private boolean enabled = false;
+  private int initialLimit = 20;
+  private int minLimit = 4;
+  private int maxLimit = 200;
+  /** 新旧limit的平滑系数，越小调整越平缓 */
+  private double smoothing = 0.2;
+  /** 长期延迟基线的EMA窗口（样本数） */
+  private int longWindow = 600;
+  /** 允许短期延迟高于基线的倍数，超过后开始收缩limit */
+  private double rttTolerance = 1.5;
+  /** 生成失败时limit的收缩比例 */
+  private double backoffRatio = 0.9;
+  /** 超限时允许排队等待的请求数，0 表示直接拒绝 */
+  private int queueCapacity = 0;
+  private long maxQueueWaitMs = 1000;
+  /** 拒绝时返回给客户端的重试间隔 */
+  private long retryAfterMs = 3000;
+}
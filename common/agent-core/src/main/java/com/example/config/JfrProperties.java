@@ -0,0 +1,20 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * JFR 录制端点配置
+ * 端点可启停录制并向本地磁盘写文件，默认不注册；导出目录只取自配置，不接受调用方传入
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.jfr")
+public class JfrProperties {
+
+  /** 是否注册 /actuator/jfr 端点（仍需加入 management.endpoints.web.exposure.include） */
+  private boolean endpointEnabled = false;
+  /** 录制导出目录 */
+  private String directory = "./jfr-recordings";
+}
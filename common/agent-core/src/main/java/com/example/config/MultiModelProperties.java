@@ -20,6 +20,8 @@ public class MultiModelProperties {
   private String defaultProvider = "deepseek";
   private String defaultModel = "deepseek-chat";
   private GlobalDefaults defaults = new GlobalDefaults();
+  private Hedging hedging = new Hedging();
+  private Mock mock = new Mock();
   private Map<String, ProviderConfig> providers = new HashMap<>();
 
   @Autowired(required = false)
@@ -34,14 +36,64 @@ public class MultiModelProperties {
     private boolean streamEnabled = true;
   }
 
+  /**
+   * 对冲请求配置：主provider在首token延迟超过分位阈值时，向备用provider发送同一请求，先出token者胜出。
+   */
+  @Data
+  public static class Hedging {
+    private boolean enabled = false;
+    /** 备用provider，为空时取第一个其它已启用的provider */
+    private String secondaryProvider;
+    /** 用于计算对冲延迟的首token延迟分位数 */
+    private double percentile = 0.95;
+    /** 额外请求预算占比，0.05 表示最多多发 5% 的请求 */
+    private double budgetRatio = 0.05;
+    /** 预算最多累积的对冲次数，避免空闲后突发 */
+    private double maxBudget = 10;
+    /** 样本不足时使用的初始对冲延迟 */
+    private long initialDelayMs = 3000;
+    private long minDelayMs = 500;
+    private long maxDelayMs = 10000;
+    /** 每个provider保留的首token延迟样本数 */
+    private int sampleWindow = 200;
+    /** 少于该样本数时使用 initialDelayMs */
+    private int minSamples = 20;
+  }
+
+  /**
+   * 模拟provider（providers.mock）的行为配置：合成token流，用于离线压测与复现慢provider场景。
+   */
+  @Data
+  public static class Mock {
+    /** 每次响应的token数，不超过请求的 maxTokens */
+    private int tokens = 200;
+    private double tokensPerSecond = 50;
+    private long firstTokenDelayMs = 300;
+    /** 延迟随机抖动比例，0.2 表示 ±20% */
+    private double jitterRatio = 0.2;
+    /** 注入错误的请求比例，错误发生在流中随机位置 */
+    private double errorRate = 0;
+    private String errorMessage = "mock provider injected failure: 503 Service Unavailable";
+    /** 首轮响应改为工具调用的比例（仅当请求注册了该工具） */
+    private double toolCallRate = 0;
+    private String toolName = "searchWeb";
+  }
+
   @Data
   public static class ProviderConfig {
     private boolean enabled = true;
+    /** 是否需要API key才视为可用；本地模拟provider不需要 */
+    private boolean apiKeyRequired = true;
     private String displayName;
     private String apiKey;
     private String baseUrl;
     private Integer connectTimeoutMs = 10000;
     private Integer readTimeoutMs = 30000;
+    /** 该provider同时进行的上游调用上限，为空时使用 ai.scheduler.default-max-concurrency */
+    private Integer maxConcurrency;
+    /** provider配额：每分钟请求数与token数，为空表示不做客户端限流 */
+    private Integer requestsPerMinute;
+    private Integer tokensPerMinute;
     private List<ModelConfig> models;
   }
 
@@ -75,6 +127,9 @@ public class MultiModelProperties {
     if (provider == null || !provider.isEnabled()) {
       return false;
     }
+    if (!provider.isApiKeyRequired()) {
+      return true;
+    }
 
     String apiKey = getApiKey(providerName);
     if (apiKey != null && !apiKey.trim().isEmpty()) {
@@ -0,0 +1,21 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 客户端侧provider限流配置
+ * 每分钟请求数/令牌数取 ai.models.providers.&lt;name&gt;.requests-per-minute / tokens-per-minute，未配置即不限
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.rate-limit")
+public class RateLimitProperties {
+
+  private boolean enabled = true;
+  /** 预留令牌最多等待的时长，超过则改投其他provider或直接失败 */
+  private long maxWaitMs = 10000;
+  /** 调用方未锁定provider时，允许改投到其他有余量的provider */
+  private boolean rerouteEnabled = true;
+}
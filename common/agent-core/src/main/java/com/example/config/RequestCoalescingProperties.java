@@ -0,0 +1,18 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 相同请求合并配置（默认关闭）
+ * 开启后，温度为 0、标记 cacheable 或 coalescable 的相同请求同时进行时共享一次上游生成；
+ * 合并键包含用户、会话与助手消息ID，只有同一会话同一轮的重复请求才会合并
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.coalescing")
+public class RequestCoalescingProperties {
+
+  private boolean enabled = false;
+}
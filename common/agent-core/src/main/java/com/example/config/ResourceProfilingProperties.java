@@ -0,0 +1,23 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 请求级内存分配与CPU时间采样配置
+ * 按采样率选中的请求按阶段记录线程分配字节数与CPU时间，默认关闭
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.profiling")
+public class ResourceProfilingProperties {
+
+  private boolean enabled = false;
+  /** 采样率（0~1） */
+  private double sampleRate = 0.05;
+  /** 保留的最重请求条数 */
+  private int topN = 20;
+  /** 是否注册 /actuator/heaviestrequests 端点（含可清空列表的 DELETE），默认不注册 */
+  private boolean endpointEnabled = false;
+}
@@ -0,0 +1,24 @@
+package com.example.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 确定性请求的响应缓存配置
+ * 仅缓存 temperature 为 0 或显式标记 cacheable 的请求，启用搜索/工具的请求不缓存
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.response-cache")
+public class ResponseCacheProperties {
+
+  private boolean enabled = false;
+  private int maxEntries = 500;
+  private Duration ttl = Duration.ofMinutes(30);
+  /** 单条响应超过该字符数则不缓存 */
+  private int maxResponseChars = 200000;
+  /** 命中时回放相邻chunk的间隔，0 表示一次性输出 */
+  private long replayChunkDelayMs = 0;
+}
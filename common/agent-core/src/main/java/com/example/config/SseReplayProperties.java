@@ -0,0 +1,24 @@
+package com.example.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 可续传SSE配置
+ * 每次生成保留有限的事件回放缓冲，客户端携带 Last-Event-ID 重连时从缓冲续传
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.sse.replay")
+public class SseReplayProperties {
+
+  private boolean enabled = true;
+  /** 每次生成保留的事件数 */
+  private int bufferSize = 2048;
+  /** 生成结束后缓冲保留时长 */
+  private Duration ttl = Duration.ofSeconds(60);
+  /** 客户端全部断开后等待重连的时长，超时则取消生成 */
+  private Duration detachGrace = Duration.ofSeconds(30);
+}
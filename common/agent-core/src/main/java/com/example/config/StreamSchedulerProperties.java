@@ -0,0 +1,38 @@
+package com.example.config;
+
+import com.example.stream.StreamPriority;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 上游调用公平调度配置
+ * provider并发上限取 ai.models.providers.&lt;name&gt;.max-concurrency，未配置时使用 defaultMaxConcurrency。
+ * 默认关闭：启用前按各provider的实际并发能力配置上限，否则会在未达到上游容量时就开始排队
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.scheduler")
+public class StreamSchedulerProperties {
+
+  private boolean enabled = false;
+  private int defaultMaxConcurrency = 16;
+  /** 排队超过该时长则失败，避免provider饱和时长时间占住排队中的SSE连接 */
+  private long maxQueueWaitMs = 10000;
+  /** 各优先级类别的调度权重，权重越高获得的并发份额越大 */
+  private Map<StreamPriority, Integer> weights = defaultWeights();
+
+  private static Map<StreamPriority, Integer> defaultWeights() {
+    Map<StreamPriority, Integer> weights = new EnumMap<>(StreamPriority.class);
+    weights.put(StreamPriority.INTERACTIVE, 8);
+    weights.put(StreamPriority.NOVEL, 3);
+    weights.put(StreamPriority.BATCH, 1);
+    return weights;
+  }
+
+  public int weightOf(StreamPriority priority) {
+    return Math.max(1, weights.getOrDefault(priority, 1));
+  }
+}
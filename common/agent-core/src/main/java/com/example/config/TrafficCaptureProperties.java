@@ -0,0 +1,30 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 上游流量录制/回放配置
+ * record 模式把上游SSE与JSON响应连同时序写入目录；replay 模式按原时序回放，不访问网络
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.traffic-capture")
+public class TrafficCaptureProperties {
+
+  /** off | record | replay */
+  private String mode = "off";
+  /** 录制文件目录，按上游主机分子目录 */
+  private String directory = "./traffic-recordings";
+  /** 回放速度倍数，2 表示两倍速，0 表示不等待 */
+  private double replaySpeed = 1.0;
+
+  public boolean isRecord() {
+    return "record".equalsIgnoreCase(mode);
+  }
+
+  public boolean isReplay() {
+    return "replay".equalsIgnoreCase(mode);
+  }
+}
@@ -78,13 +78,19 @@ public class ChatEvent {
     return of(ChatEventType.ERROR, new ErrorPayload(message));
   }
 
+  public static ChatEvent error(String message, String code, Long retryAfterMs) {
+    return of(ChatEventType.ERROR, new ErrorPayload(message, code, retryAfterMs));
+  }
+
   @Data
+  @NoArgsConstructor
   @AllArgsConstructor
   public static class StartPayload {
     private String message;
   }
 
   @Data
+  @NoArgsConstructor
   @AllArgsConstructor
   public static class ChunkPayload {
     private Long messageId;
@@ -92,12 +98,14 @@ public class ChatEvent {
   }
 
   @Data
+  @NoArgsConstructor
   @AllArgsConstructor
   public static class SearchPayload {
     private String status;
   }
 
   @Data
+  @NoArgsConstructor
   @AllArgsConstructor
   public static class SearchResultsPayload {
     private Long messageId;
@@ -105,6 +113,7 @@ public class ChatEvent {
   }
 
   @Data
+  @NoArgsConstructor
   @AllArgsConstructor
   public static class EndPayload {
     private Long messageId;
@@ -112,9 +121,19 @@ public class ChatEvent {
   }
 
   @Data
+  @NoArgsConstructor
   @AllArgsConstructor
+  @JsonInclude(JsonInclude.Include.NON_NULL)
   public static class ErrorPayload {
     private String message;
+    /** 机器可读的错误码，如 OVERLOADED */
+    private String code;
+    /** 建议客户端重试前等待的毫秒数 */
+    private Long retryAfterMs;
+
+    public ErrorPayload(String message) {
+      this.message = message;
+    }
   }
 }
 
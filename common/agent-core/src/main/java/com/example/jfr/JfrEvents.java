@@ -0,0 +1,82 @@
+package com.example.jfr;
+
+import com.example.stream.TextStreamRequest;
+import java.util.concurrent.atomic.AtomicInteger;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+/**
+ * JFR 事件埋点工具
+ *
+ * <p>事件未在录制中启用时 {@code isEnabled()} 为 false，直接返回原流，不产生额外开销。
+ */
+public final class JfrEvents {
+
+  private JfrEvents() {}
+
+  /** 为上游流记录开始/首token/结束事件 */
+  public static Flux<String> traceStream(TextStreamRequest request, Flux<String> upstream) {
+    return Flux.defer(
+        () -> {
+          StreamEvent event = new StreamEvent();
+          if (!event.isEnabled()) {
+            return upstream;
+          }
+          event.begin();
+          long start = System.nanoTime();
+          AtomicInteger chunks = new AtomicInteger();
+          return upstream
+              .doOnNext(
+                  chunk -> {
+                    if (chunks.getAndIncrement() == 0) {
+                      event.firstTokenNanos = System.nanoTime() - start;
+                      StreamFirstTokenEvent first = new StreamFirstTokenEvent();
+                      if (first.isEnabled()) {
+                        first.provider = request.getProvider();
+                        first.model = request.getModel();
+                        first.conversationId = idOf(request.getConversationId());
+                        first.latencyNanos = event.firstTokenNanos;
+                        first.commit();
+                      }
+                    }
+                  })
+              .doFinally(
+                  signal -> {
+                    event.end();
+                    if (event.shouldCommit()) {
+                      event.provider = request.getProvider();
+                      event.model = request.getModel();
+                      event.conversationId = idOf(request.getConversationId());
+                      event.chunks = chunks.get();
+                      event.outcome = outcomeOf(signal);
+                      event.commit();
+                    }
+                  });
+        });
+  }
+
+  /** 记录SSE事件发布结果 */
+  public static void ssePublish(Long conversationId, String eventType, String outcome) {
+    SsePublishEvent event = new SsePublishEvent();
+    if (event.isEnabled()) {
+      event.conversationId = idOf(conversationId);
+      event.eventType = eventType;
+      event.outcome = outcome;
+      event.commit();
+    }
+  }
+
+  /** JFR 事件中缺失的会话ID记为 -1 */
+  public static long idOf(Long id) {
+    return id != null ? id : -1L;
+  }
+
+  private static String outcomeOf(SignalType signal) {
+    return switch (signal) {
+      case ON_COMPLETE -> "complete";
+      case ON_ERROR -> "error";
+      case CANCEL -> "cancel";
+      default -> signal.name().toLowerCase();
+    };
+  }
+}
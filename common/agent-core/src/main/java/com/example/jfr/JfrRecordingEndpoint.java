@@ -0,0 +1,138 @@
+package com.example.jfr;
+
+import com.example.config.JfrProperties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * JFR 录制管理端点（/actuator/jfr）
+ *
+ * <ul>
+ *   <li>GET：当前录制状态</li>
+ *   <li>POST /actuator/jfr/start：开始录制，可选 settings（default/profile）与 maxAgeSeconds</li>
+ *   <li>POST /actuator/jfr/dump：把当前录制写出到配置的 ai.jfr.directory 并返回文件路径</li>
+ *   <li>DELETE：停止并关闭录制</li>
+ * </ul>
+ * 同一时间只维护一个录制；应用自定义事件（com.example.ai.*）始终随录制启用。
+ * 仅在 ai.jfr.endpoint-enabled=true 时注册。
+ */
+@Slf4j
+@Component
+@Endpoint(id = "jfr")
+@ConditionalOnProperty(prefix = "ai.jfr", name = "endpoint-enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class JfrRecordingEndpoint {
+
+  private static final DateTimeFormatter FILE_TIME =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+  private static final List<Class<? extends Event>> APP_EVENTS =
+      List.of(
+          StreamEvent.class,
+          StreamFirstTokenEvent.class,
+          MemoryLoadEvent.class,
+          SsePublishEvent.class,
+          ToolExecutionEvent.class);
+
+  private final JfrProperties properties;
+
+  private Recording recording;
+
+  @ReadOperation
+  public synchronized Map<String, Object> status() {
+    Map<String, Object> status = new LinkedHashMap<>();
+    if (recording == null) {
+      status.put("state", "NONE");
+      return status;
+    }
+    status.put("state", recording.getState().name());
+    status.put("name", recording.getName());
+    status.put("startTime", recording.getStartTime());
+    status.put(
+        "maxAgeSeconds", recording.getMaxAge() != null ? recording.getMaxAge().toSeconds() : null);
+    status.put("sizeBytes", recording.getSize());
+    return status;
+  }
+
+  @WriteOperation
+  public Map<String, Object> control(
+      @Selector String action, @Nullable String settings, @Nullable Long maxAgeSeconds)
+      throws IOException, ParseException {
+    return switch (action) {
+      case "start" -> start(settings, maxAgeSeconds);
+      case "dump" -> dump();
+      default -> Map.of("error", "unknown action: " + action);
+    };
+  }
+
+  private synchronized Map<String, Object> start(String settings, Long maxAgeSeconds)
+      throws IOException, ParseException {
+    if (recording != null && recording.getState() == RecordingState.RUNNING) {
+      return status();
+    }
+    closeRecording();
+    Recording created =
+        new Recording(Configuration.getConfiguration(settings != null ? settings : "default"));
+    created.setName("ai-chat-" + FILE_TIME.format(Instant.now()));
+    created.setMaxAge(Duration.ofSeconds(maxAgeSeconds != null ? maxAgeSeconds : 600));
+    created.setToDisk(true);
+    APP_EVENTS.forEach(type -> created.enable(type).withoutStackTrace());
+    created.start();
+    recording = created;
+    log.info("JFR录制已开始: name={}, settings={}", created.getName(), settings);
+    return status();
+  }
+
+  private synchronized Map<String, Object> dump() throws IOException {
+    Map<String, Object> result = new LinkedHashMap<>();
+    if (recording == null || recording.getState() != RecordingState.RUNNING) {
+      result.put("error", "no running recording");
+      return result;
+    }
+    Path dir = Path.of(properties.getDirectory());
+    Files.createDirectories(dir);
+    Path file = dir.resolve(recording.getName() + "-" + FILE_TIME.format(Instant.now()) + ".jfr");
+    recording.dump(file);
+    log.info("JFR录制已导出: {}", file);
+    result.put("file", file.toAbsolutePath().toString());
+    result.put("sizeBytes", Files.size(file));
+    return result;
+  }
+
+  @DeleteOperation
+  public synchronized Map<String, Object> stop() {
+    closeRecording();
+    return status();
+  }
+
+  private void closeRecording() {
+    if (recording != null) {
+      recording.close();
+      log.info("JFR录制已关闭: {}", recording.getName());
+      recording = null;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** 加载会话历史 */
+@Name("com.example.ai.MemoryLoad")
+@Label("Chat Memory Load")
+@Category({"AI Chat", "Memory"})
+@Description("Conversation history loaded for a chat memory advisor")
+@StackTrace(false)
+public class MemoryLoadEvent extends jdk.jfr.Event {
+
+  @Label("Conversation ID")
+  public long conversationId;
+
+  @Label("Messages")
+  public int messages;
+
+  @Label("Content Length")
+  @Description("Total characters of loaded message content")
+  public long contentChars;
+
+  @Label("Success")
+  public boolean success;
+}
@@ -0,0 +1,26 @@
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** 向会话事件流发布一个SSE事件的结果 */
+@Name("com.example.ai.SsePublish")
+@Label("SSE Publish")
+@Category({"AI Chat", "SSE"})
+@Description("Outcome of publishing an event to a conversation sink")
+@StackTrace(false)
+public class SsePublishEvent extends jdk.jfr.Event {
+
+  @Label("Conversation ID")
+  public long conversationId;
+
+  @Label("Event Type")
+  public String eventType;
+
+  /** OK、FAIL_OVERFLOW、FAIL_NON_SERIALIZED 等 EmitResult，或 NO_SINK / ROUTED */
+  @Label("Outcome")
+  public String outcome;
+}
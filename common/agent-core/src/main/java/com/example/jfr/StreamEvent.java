@@ -0,0 +1,36 @@
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** 一次上游流式调用：事件起止即流的开始与结束 */
+@Name("com.example.ai.Stream")
+@Label("AI Stream")
+@Category({"AI Chat", "Stream"})
+@Description("Upstream model streaming call from subscribe to termination")
+@StackTrace(false)
+public class StreamEvent extends jdk.jfr.Event {
+
+  @Label("Provider")
+  public String provider;
+
+  @Label("Model")
+  public String model;
+
+  @Label("Conversation ID")
+  public long conversationId;
+
+  @Label("First Token")
+  @Timespan(Timespan.NANOSECONDS)
+  public long firstTokenNanos;
+
+  @Label("Chunks")
+  public int chunks;
+
+  @Label("Outcome")
+  public String outcome;
+}
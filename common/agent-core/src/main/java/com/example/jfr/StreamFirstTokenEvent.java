@@ -0,0 +1,30 @@
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** 上游流式调用收到首个token */
+@Name("com.example.ai.StreamFirstToken")
+@Label("AI Stream First Token")
+@Category({"AI Chat", "Stream"})
+@Description("First token received from an upstream model stream")
+@StackTrace(false)
+public class StreamFirstTokenEvent extends jdk.jfr.Event {
+
+  @Label("Provider")
+  public String provider;
+
+  @Label("Model")
+  public String model;
+
+  @Label("Conversation ID")
+  public long conversationId;
+
+  @Label("Latency")
+  @Timespan(Timespan.NANOSECONDS)
+  public long latencyNanos;
+}
@@ -0,0 +1,25 @@
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** 一次工具执行 */
+@Name("com.example.ai.ToolExecution")
+@Label("Tool Execution")
+@Category({"AI Chat", "Tool"})
+@Description("Execution span of a tool invoked by the model")
+@StackTrace(false)
+public class ToolExecutionEvent extends jdk.jfr.Event {
+
+  @Label("Tool")
+  public String tool;
+
+  @Label("Conversation ID")
+  public long conversationId;
+
+  @Label("Success")
+  public boolean success;
+}
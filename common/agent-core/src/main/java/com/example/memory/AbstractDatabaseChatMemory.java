@@ -4,6 +4,7 @@ import static com.example.constant.MessageRoles.ASSISTANT;
 import static com.example.constant.MessageRoles.SYSTEM;
 import static com.example.constant.MessageRoles.USER;
 
+import com.example.jfr.MemoryLoadEvent;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
@@ -68,22 +69,28 @@ public abstract class AbstractDatabaseChatMemory implements ChatMemory {
       return List.of();
     }
 
+    MemoryLoadEvent event = new MemoryLoadEvent();
+    event.begin();
     try {
       List<MessageEntity> entities = loadMessages(cid);
       List<Message> messages = new ArrayList<>(entities.size());
 
+      long chars = 0;
       for (MessageEntity entity : entities) {
         Message msg = toSpringAiMessage(entity);
         if (msg != null) {
           messages.add(msg);
+          chars += msg.getText() != null ? msg.getText().length() : 0;
         }
       }
 
       log.debug("加载历史消息: conversationId={}, count={}", cid, messages.size());
+      commitLoadEvent(event, cid, messages.size(), chars, true);
       return messages;
 
     } catch (Exception e) {
       log.error("加载历史消息失败: conversationId={}, error={}", cid, e.getMessage(), e);
+      commitLoadEvent(event, cid, 0, 0, false);
       return List.of();
     }
   }
@@ -104,6 +111,18 @@ public abstract class AbstractDatabaseChatMemory implements ChatMemory {
     }
   }
 
+  private static void commitLoadEvent(
+      MemoryLoadEvent event, Long cid, int messages, long chars, boolean success) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.conversationId = cid;
+      event.messages = messages;
+      event.contentChars = chars;
+      event.success = success;
+      event.commit();
+    }
+  }
+
   protected abstract void saveMessage(Long conversationId, String role, String content);
 
   protected abstract List<MessageEntity> loadMessages(Long conversationId);
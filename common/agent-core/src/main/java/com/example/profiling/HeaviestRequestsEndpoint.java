@@ -0,0 +1,39 @@
+package com.example.profiling;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 最重请求端点（/actuator/heaviestrequests）
+ *
+ * <p>GET 返回采样请求中分配字节数最多的 Top-N 及其分阶段明细，DELETE 清空列表。
+ * 仅在 ai.profiling.endpoint-enabled=true 时注册。
+ */
+@Component
+@Endpoint(id = "heaviestrequests")
+@ConditionalOnProperty(prefix = "ai.profiling", name = "endpoint-enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class HeaviestRequestsEndpoint {
+
+  private final RequestResourceTracker tracker;
+
+  @ReadOperation
+  public Map<String, Object> heaviest() {
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("enabled", tracker.isEnabled());
+    result.put("sampleRate", tracker.properties().getSampleRate());
+    result.put("requests", tracker.heaviest());
+    return result;
+  }
+
+  @DeleteOperation
+  public void reset() {
+    tracker.reset();
+  }
+}
@@ -0,0 +1,361 @@
+package com.example.profiling;
+
+import com.example.config.ResourceProfilingProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+/**
+ * 请求级内存分配与CPU时间采样
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>按采样率选中请求，账本随 Reactor Context 传递</li>
+ *   <li>阶段算子在每次 subscribe/request/信号投递时按线程计量
+ *       （{@code com.sun.management.ThreadMXBean}），嵌套阶段从外层扣除，避免重复计算</li>
+ *   <li>通过 Reactor 调度钩子把当前阶段带到 boundedElastic 等工作线程，跨线程的工作同样计入</li>
+ *   <li>请求结束后写入 Micrometer 分布统计，并维护最重请求 Top-N</li>
+ * </ul>
+ * 未启用或未被采样的请求不做任何包装。
+ */
+@Slf4j
+@Component
+public class RequestResourceTracker {
+
+  private static final String SCHEDULE_HOOK = "request-resource-tracker";
+  private static final ThreadLocal<Deque<Frame>> FRAMES = ThreadLocal.withInitial(ArrayDeque::new);
+
+  private final ResourceProfilingProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final com.sun.management.ThreadMXBean threadBean;
+  private final PriorityQueue<ResourceAccount.Snapshot> heaviest =
+      new PriorityQueue<>(Comparator.comparingLong(ResourceAccount.Snapshot::allocatedBytes));
+
+  public RequestResourceTracker(
+      ResourceProfilingProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry.getIfAvailable();
+    this.threadBean =
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()
+                && bean.isCurrentThreadCpuTimeSupported()
+            ? bean
+            : null;
+  }
+
+  @PostConstruct
+  public void install() {
+    if (!isEnabled()) {
+      return;
+    }
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+    threadBean.setThreadCpuTimeEnabled(true);
+    Schedulers.onScheduleHook(SCHEDULE_HOOK, this::propagate);
+    log.info("请求资源采样已启用: sampleRate={}", properties.getSampleRate());
+  }
+
+  @PreDestroy
+  public void uninstall() {
+    Schedulers.resetOnScheduleHook(SCHEDULE_HOOK);
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled() && threadBean != null;
+  }
+
+  /** 对一次请求按采样率开启计量，未采样时原样返回 */
+  public <T> Flux<T> track(String operation, Long conversationId, Flux<T> request) {
+    if (!isEnabled() || ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+      return request;
+    }
+    return Flux.defer(
+        () -> {
+          ResourceAccount account = new ResourceAccount(operation, conversationId);
+          return lift(request, account, "other")
+              .doFinally(
+                  signal -> {
+                    if (account.terminate()) {
+                      publish(account);
+                    }
+                  })
+              .contextWrite(Context.of(ResourceAccount.class, account));
+        });
+  }
+
+  /** 将响应式阶段的工作计入账本 */
+  public <T> Flux<T> stage(String stage, Flux<T> source) {
+    if (!isEnabled()) {
+      return source;
+    }
+    return Flux.deferContextual(
+        ctx ->
+            ctx.<ResourceAccount>getOrEmpty(ResourceAccount.class)
+                .map(account -> lift(source, account, stage))
+                .orElse(source));
+  }
+
+  public <T> Mono<T> stage(String stage, Mono<T> source) {
+    if (!isEnabled()) {
+      return source;
+    }
+    return Mono.deferContextual(
+        ctx ->
+            ctx.<ResourceAccount>getOrEmpty(ResourceAccount.class)
+                .map(account -> lift(source, account, stage))
+                .orElse(source));
+  }
+
+  /** 同步代码段计量，账本取自当前线程正在计量的阶段 */
+  public <T> T measure(String stage, Supplier<T> work) {
+    Frame top = isEnabled() ? FRAMES.get().peek() : null;
+    if (top == null) {
+      return work.get();
+    }
+    enter(top.account, stage);
+    try {
+      return work.get();
+    } finally {
+      exit();
+    }
+  }
+
+  public void measure(String stage, Runnable work) {
+    measure(
+        stage,
+        () -> {
+          work.run();
+          return null;
+        });
+  }
+
+  /** 最重请求（按分配字节数降序） */
+  public synchronized List<ResourceAccount.Snapshot> heaviest() {
+    List<ResourceAccount.Snapshot> list = new ArrayList<>(heaviest);
+    list.sort(Comparator.comparingLong(ResourceAccount.Snapshot::allocatedBytes).reversed());
+    return list;
+  }
+
+  public synchronized void reset() {
+    heaviest.clear();
+  }
+
+  ResourceProfilingProperties properties() {
+    return properties;
+  }
+
+  private void publish(ResourceAccount account) {
+    if (meterRegistry != null) {
+      account
+          .stages()
+          .forEach(
+              (stage, usage) ->
+                  record(
+                      account.operation(),
+                      stage,
+                      usage.allocatedBytes.sum(),
+                      usage.cpuNanos.sum()));
+      record(account.operation(), "total", account.totalAllocatedBytes(), account.totalCpuNanos());
+    }
+    ResourceAccount.Snapshot snapshot = account.snapshot();
+    synchronized (this) {
+      heaviest.offer(snapshot);
+      while (heaviest.size() > Math.max(1, properties.getTopN())) {
+        heaviest.poll();
+      }
+    }
+  }
+
+  private void record(String operation, String stage, long allocatedBytes, long cpuNanos) {
+    DistributionSummary.builder("ai.request.allocated.bytes")
+        .description("Thread-allocated bytes per sampled request stage")
+        .baseUnit("bytes")
+        .tag("operation", operation)
+        .tag("stage", stage)
+        .publishPercentileHistogram()
+        .register(meterRegistry)
+        .record(allocatedBytes);
+    DistributionSummary.builder("ai.request.cpu.time")
+        .description("Thread CPU time per sampled request stage")
+        .baseUnit("milliseconds")
+        .tag("operation", operation)
+        .tag("stage", stage)
+        .publishPercentileHistogram()
+        .register(meterRegistry)
+        .record(cpuNanos / 1_000_000.0);
+  }
+
+  /** 调度到工作线程的任务继承提交时的阶段 */
+  private Runnable propagate(Runnable task) {
+    Frame top = FRAMES.get().peek();
+    if (top == null) {
+      return task;
+    }
+    ResourceAccount account = top.account;
+    String stage = top.stage;
+    return () -> {
+      enter(account, stage);
+      try {
+        task.run();
+      } finally {
+        exit();
+      }
+    };
+  }
+
+  private <T> Flux<T> lift(Flux<T> source, ResourceAccount account, String stage) {
+    return Flux.from(measured(this.<T>stageOperator(account, stage).apply(source), account, stage));
+  }
+
+  private <T> Mono<T> lift(Mono<T> source, ResourceAccount account, String stage) {
+    return Mono.fromDirect(
+        measured(this.<T>stageOperator(account, stage).apply(source), account, stage));
+  }
+
+  /** subscribe 本身（defer/fromCallable 等的同步工作）也计入阶段 */
+  private <T> Publisher<T> measured(
+      Publisher<? extends T> source, ResourceAccount account, String stage) {
+    return subscriber -> {
+      enter(account, stage);
+      try {
+        source.subscribe(subscriber);
+      } finally {
+        exit();
+      }
+    };
+  }
+
+  private <T> Function<? super Publisher<T>, ? extends Publisher<T>> stageOperator(
+      ResourceAccount account, String stage) {
+    return Operators.<T, T>lift(
+        (scannable, actual) -> new StageSubscriber<>(actual, account, stage));
+  }
+
+  private void enter(ResourceAccount account, String stage) {
+    account.opened();
+    FRAMES
+        .get()
+        .push(
+            new Frame(
+                account,
+                stage,
+                threadBean.getCurrentThreadAllocatedBytes(),
+                threadBean.getCurrentThreadCpuTime()));
+  }
+
+  private void exit() {
+    Deque<Frame> frames = FRAMES.get();
+    Frame frame = frames.pop();
+    long allocated = threadBean.getCurrentThreadAllocatedBytes() - frame.startAllocated;
+    long cpu = threadBean.getCurrentThreadCpuTime() - frame.startCpu;
+    frame.account.charge(frame.stage, allocated - frame.childAllocated, cpu - frame.childCpu);
+    Frame parent = frames.peek();
+    if (parent != null) {
+      parent.childAllocated += allocated;
+      parent.childCpu += cpu;
+    }
+    if (frames.isEmpty()) {
+      FRAMES.remove();
+    }
+    if (frame.account.closed()) {
+      publish(frame.account);
+    }
+  }
+
+  /** 当前线程上一段正在计量的阶段 */
+  private static final class Frame {
+    private final ResourceAccount account;
+    private final String stage;
+    private final long startAllocated;
+    private final long startCpu;
+    private long childAllocated;
+    private long childCpu;
+
+    Frame(ResourceAccount account, String stage, long startAllocated, long startCpu) {
+      this.account = account;
+      this.stage = stage;
+      this.startAllocated = startAllocated;
+      this.startCpu = startCpu;
+    }
+  }
+
+  /** 在 subscribe/request/信号投递期间计量的订阅者 */
+  private final class StageSubscriber<T> implements CoreSubscriber<T>, Subscription {
+    private final CoreSubscriber<? super T> actual;
+    private final ResourceAccount account;
+    private final String stage;
+    private Subscription upstream;
+
+    StageSubscriber(CoreSubscriber<? super T> actual, ResourceAccount account, String stage) {
+      this.actual = actual;
+      this.account = account;
+      this.stage = stage;
+    }
+
+    @Override
+    public Context currentContext() {
+      return actual.currentContext();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.upstream = subscription;
+      run(() -> actual.onSubscribe(this));
+    }
+
+    @Override
+    public void onNext(T value) {
+      run(() -> actual.onNext(value));
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      run(() -> actual.onError(error));
+    }
+
+    @Override
+    public void onComplete() {
+      run(actual::onComplete);
+    }
+
+    @Override
+    public void request(long n) {
+      run(() -> upstream.request(n));
+    }
+
+    @Override
+    public void cancel() {
+      upstream.cancel();
+    }
+
+    private void run(Runnable signal) {
+      enter(account, stage);
+      try {
+        signal.run();
+      } finally {
+        exit();
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.example.profiling;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/** 一次被采样请求的资源账本，按阶段累计分配字节数与CPU时间 */
+public final class ResourceAccount {
+
+  private final String operation;
+  private final Long conversationId;
+  private final Instant startedAt = Instant.now();
+  private final long startNanos = System.nanoTime();
+  private final Map<String, Usage> stages = new ConcurrentHashMap<>();
+  private final AtomicInteger openFrames = new AtomicInteger();
+  private final AtomicBoolean published = new AtomicBoolean();
+  private volatile boolean terminated;
+  private volatile long durationNanos = -1;
+
+  ResourceAccount(String operation, Long conversationId) {
+    this.operation = operation;
+    this.conversationId = conversationId;
+  }
+
+  String operation() {
+    return operation;
+  }
+
+  Map<String, Usage> stages() {
+    return stages;
+  }
+
+  void charge(String stage, long allocatedBytes, long cpuNanos) {
+    Usage usage = stages.computeIfAbsent(stage, key -> new Usage());
+    usage.allocatedBytes.add(Math.max(0, allocatedBytes));
+    usage.cpuNanos.add(Math.max(0, cpuNanos));
+  }
+
+  void opened() {
+    openFrames.incrementAndGet();
+  }
+
+  /** 关闭一段计量；请求已结束且没有仍在计量的线程时返回 true（仅一次） */
+  boolean closed() {
+    return openFrames.decrementAndGet() == 0 && terminated && published.compareAndSet(false, true);
+  }
+
+  /**
+   * 标记请求结束。终止信号通常在计量段内部投递，此时要等最外层计量段关闭后才能发布，
+   * 否则外层段尚未计入的分配会丢失。
+   */
+  boolean terminate() {
+    durationNanos = System.nanoTime() - startNanos;
+    terminated = true;
+    return openFrames.get() == 0 && published.compareAndSet(false, true);
+  }
+
+  long totalAllocatedBytes() {
+    return stages.values().stream().mapToLong(usage -> usage.allocatedBytes.sum()).sum();
+  }
+
+  long totalCpuNanos() {
+    return stages.values().stream().mapToLong(usage -> usage.cpuNanos.sum()).sum();
+  }
+
+  /** 完成时刻的只读快照 */
+  Snapshot snapshot() {
+    Map<String, Map<String, Long>> byStage = new LinkedHashMap<>();
+    stages.forEach(
+        (stage, usage) ->
+            byStage.put(
+                stage,
+                Map.of(
+                    "allocatedBytes", usage.allocatedBytes.sum(),
+                    "cpuMicros", usage.cpuNanos.sum() / 1000)));
+    return new Snapshot(
+        operation,
+        conversationId,
+        startedAt,
+        durationNanos / 1_000_000,
+        totalAllocatedBytes(),
+        totalCpuNanos() / 1000,
+        byStage);
+  }
+
+  static final class Usage {
+    final LongAdder allocatedBytes = new LongAdder();
+    final LongAdder cpuNanos = new LongAdder();
+  }
+
+  /** 最重请求列表中的一项 */
+  public record Snapshot(
+      String operation,
+      Long conversationId,
+      Instant startedAt,
+      long durationMs,
+      long allocatedBytes,
+      long cpuMicros,
+      Map<String, Map<String, Long>> stages) {}
+}
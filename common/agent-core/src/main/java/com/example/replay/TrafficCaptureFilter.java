@@ -0,0 +1,256 @@
+package com.example.replay;
+
+import com.example.config.TrafficCaptureProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 上游流量录制/回放过滤器
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>record：透传请求，把响应状态、头到达时间与每个响应块的到达时间写入JSON文件</li>
+ *   <li>replay：不访问网络，按 方法+主机+路径 轮询选取录制，按原时序（可调速）返回响应块</li>
+ * </ul>
+ * 请求带 {@link #SKIP_ATTRIBUTE} 属性时不参与录制/回放（如集群节点间转发）。
+ */
+@Slf4j
+@Component
+public class TrafficCaptureFilter implements ExchangeFilterFunction {
+
+  /** 请求属性：跳过录制/回放 */
+  public static final String SKIP_ATTRIBUTE = TrafficCaptureFilter.class.getName() + ".skip";
+
+  private final TrafficCaptureProperties properties;
+  private final ObjectMapper objectMapper;
+  private final AtomicLong sequence = new AtomicLong();
+  private final Map<String, Map<String, List<Recording>>> loaded = new ConcurrentHashMap<>();
+  private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+
+  public TrafficCaptureFilter(TrafficCaptureProperties properties, ObjectMapper objectMapper) {
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    if (request.attribute(SKIP_ATTRIBUTE).isPresent()) {
+      return next.exchange(request);
+    }
+    if (properties.isReplay()) {
+      return replay(request);
+    }
+    if (properties.isRecord()) {
+      return record(request, next);
+    }
+    return next.exchange(request);
+  }
+
+  private Mono<ClientResponse> record(ClientRequest request, ExchangeFunction next) {
+    return Mono.defer(
+        () -> {
+          long start = System.nanoTime();
+          return next.exchange(request)
+              .map(
+                  response -> {
+                    Recording recording = new Recording();
+                    recording.setMethod(request.method().name());
+                    recording.setHost(request.url().getHost());
+                    recording.setPath(request.url().getRawPath());
+                    recording.setStatus(response.statusCode().value());
+                    recording.setContentType(
+                        response.headers().contentType().map(Object::toString).orElse(null));
+                    recording.setRecordedAt(Instant.now().toString());
+                    recording.setHeadersAtMs(elapsedMs(start));
+                    return response
+                        .mutate()
+                        .body(
+                            body ->
+                                body.doOnNext(
+                                        buffer ->
+                                            recording
+                                                .getChunks()
+                                                .add(new Chunk(elapsedMs(start), copy(buffer))))
+                                    .doOnComplete(() -> save(recording)))
+                        .build();
+                  });
+        });
+  }
+
+  private Mono<ClientResponse> replay(ClientRequest request) {
+    String host = request.url().getHost();
+    String key = keyOf(request.method().name(), request.url().getRawPath());
+    List<Recording> candidates = recordingsOf(host).get(key);
+    if (candidates == null || candidates.isEmpty()) {
+      return Mono.error(
+          new IllegalStateException("no traffic recording for " + key + " on host " + host));
+    }
+    int index =
+        Math.floorMod(
+            cursors.computeIfAbsent(host + key, k -> new AtomicInteger()).getAndIncrement(),
+            candidates.size());
+    Recording recording = candidates.get(index);
+
+    Flux<DataBuffer> body =
+        Flux.fromIterable(recording.getChunks())
+            .index()
+            .concatMap(
+                indexed -> {
+                  long previous =
+                      indexed.getT1() == 0
+                          ? recording.getHeadersAtMs()
+                          : recording.getChunks().get(indexed.getT1().intValue() - 1).getAtMs();
+                  DataBuffer buffer =
+                      DefaultDataBufferFactory.sharedInstance.wrap(indexed.getT2().getData());
+                  return Mono.delay(scaled(indexed.getT2().getAtMs() - previous))
+                      .thenReturn(buffer);
+                });
+    ClientResponse.Builder response =
+        ClientResponse.create(HttpStatusCode.valueOf(recording.getStatus())).body(body);
+    if (recording.getContentType() != null) {
+      response.header(HttpHeaders.CONTENT_TYPE, recording.getContentType());
+    }
+    return Mono.delay(scaled(recording.getHeadersAtMs())).thenReturn(response.build());
+  }
+
+  private Map<String, List<Recording>> recordingsOf(String host) {
+    return loaded.computeIfAbsent(
+        host,
+        h -> {
+          Path dir = Paths.get(properties.getDirectory(), h);
+          if (!Files.isDirectory(dir)) {
+            log.warn("流量回放目录不存在: {}", dir);
+            return Map.of();
+          }
+          try (Stream<Path> files = Files.list(dir)) {
+            Map<String, List<Recording>> byKey =
+                files
+                    .filter(file -> file.toString().endsWith(".json"))
+                    .sorted(Comparator.naturalOrder())
+                    .map(this::read)
+                    .filter(Objects::nonNull)
+                    .collect(
+                        Collectors.groupingBy(
+                            recording -> keyOf(recording.getMethod(), recording.getPath())));
+            log.info(
+                "加载流量录制: host={}, exchanges={}",
+                h,
+                byKey.values().stream().mapToInt(List::size).sum());
+            return byKey;
+          } catch (IOException e) {
+            log.warn("读取流量录制失败: {}", e.getMessage());
+            return Map.of();
+          }
+        });
+  }
+
+  private Recording read(Path file) {
+    try {
+      return objectMapper.readValue(file.toFile(), Recording.class);
+    } catch (IOException e) {
+      log.warn("忽略无法解析的流量录制 {}: {}", file, e.getMessage());
+      return null;
+    }
+  }
+
+  private void save(Recording recording) {
+    Schedulers.boundedElastic()
+        .schedule(
+            () -> {
+              Path dir = Paths.get(properties.getDirectory(), recording.getHost());
+              String name =
+                  String.format(
+                      "%d-%06d-%s.json",
+                      System.currentTimeMillis(),
+                      sequence.incrementAndGet(),
+                      recording.getPath().replaceAll("[^A-Za-z0-9]+", "_"));
+              try {
+                Files.createDirectories(dir);
+                objectMapper.writeValue(dir.resolve(name).toFile(), recording);
+              } catch (IOException e) {
+                log.warn("写入流量录制失败: {}", e.getMessage());
+              }
+            });
+  }
+
+  private Duration scaled(long millis) {
+    double speed = properties.getReplaySpeed();
+    if (speed <= 0 || millis <= 0) {
+      return Duration.ZERO;
+    }
+    return Duration.ofMillis(Math.round(millis / speed));
+  }
+
+  private static byte[] copy(DataBuffer buffer) {
+    int length = buffer.readableByteCount();
+    ByteBuffer target = ByteBuffer.allocate(length);
+    buffer.toByteBuffer(buffer.readPosition(), target, 0, length);
+    return target.array();
+  }
+
+  private static long elapsedMs(long startNanos) {
+    return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+  }
+
+  private static String keyOf(String method, String path) {
+    return method + " " + path;
+  }
+
+  /** 一次上游交换的录制 */
+  @Data
+  public static class Recording {
+    private String method;
+    private String host;
+    private String path;
+    private int status;
+    private String contentType;
+    private String recordedAt;
+    /** 响应头到达时间（相对请求发出） */
+    private long headersAtMs;
+    private List<Chunk> chunks = new ArrayList<>();
+  }
+
+  /** 一个响应块及其到达时间，data 以 base64 存储 */
+  @Data
+  public static class Chunk {
+    private long atMs;
+    private byte[] data;
+
+    public Chunk() {}
+
+    Chunk(long atMs, byte[] data) {
+      this.atMs = atMs;
+      this.data = data;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.example.replay;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * 为容器提供的 WebClient.Builder 挂载录制/回放过滤器
+ * 覆盖使用该Builder的上游调用：Spring AI provider、长城大模型、Tavily搜索
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${ai.traffic-capture.mode:off}' != 'off'")
+public class TrafficCaptureWebClientCustomizer implements WebClientCustomizer {
+
+  private final TrafficCaptureFilter filter;
+
+  @Override
+  public void customize(WebClient.Builder webClientBuilder) {
+    webClientBuilder.filter(filter);
+  }
+}
@@ -1,18 +1,25 @@
 package com.example.service.impl;
 
+import com.example.cluster.ClusterEventBus;
+import com.example.cluster.ConversationRebalanceEvent;
 import com.example.dto.response.SearchResult;
 import com.example.dto.stream.ChatEvent;
+import com.example.jfr.JfrEvents;
 import com.example.service.SseEventPublisher;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Sinks;
 
 /**
  * 通用的 SSE 事件发布器实现。
+ * 启用集群事件总线时，本节点没有该会话事件流的事件会路由到持有它的节点。
  */
 @Slf4j
 @Service
@@ -27,6 +34,27 @@ public class DefaultSseEventPublisher implements SseEventPublisher {
   private final ConcurrentHashMap<Long, List<SearchResult>> messageSearchResults =
       new ConcurrentHashMap<>();
 
+  @Autowired(required = false)
+  private ClusterEventBus clusterEventBus;
+
+  @PostConstruct
+  public void subscribeCluster() {
+    if (clusterEventBus != null) {
+      clusterEventBus.onEvent(this::deliverRemote);
+      log.info("🌐 SSE事件发布器已接入集群事件总线: node={}", clusterEventBus.nodeId());
+    }
+  }
+
+  /** 会话归属变化后，清理本节点不再持有且没有活跃连接的会话缓存 */
+  @EventListener
+  public void onRebalance(ConversationRebalanceEvent event) {
+    int before = conversationSearchResults.size();
+    conversationSearchResults
+        .keySet()
+        .removeIf(id -> event.isReassigned(id) && !conversationSinks.containsKey(id));
+    log.info("会话归属重新分配，清理搜索结果缓存 {} 个会话", before - conversationSearchResults.size());
+  }
+
   @Override
   public void publishSearchStart(Long conversationId) {
     if (conversationId != null) {
@@ -111,6 +139,9 @@ public class DefaultSseEventPublisher implements SseEventPublisher {
     if (sink != null) {
       sink.tryEmitComplete();
       log.debug("移除会话事件发射器，会话ID: {}", conversationId);
+      if (clusterEventBus != null) {
+        clusterEventBus.release(conversationId);
+      }
     }
     if (conversationId != null) {
       conversationSearchResults.remove(conversationId);
@@ -137,25 +168,55 @@ public class DefaultSseEventPublisher implements SseEventPublisher {
     Sinks.Many<ChatEvent> sink = Sinks.many().multicast().onBackpressureBuffer(1000, false);
     conversationSinks.put(conversationId, sink);
     log.debug("注册会话事件发射器（缓冲容量：1000），会话ID: {}", conversationId);
+    if (clusterEventBus != null) {
+      clusterEventBus.claim(conversationId);
+    }
     return sink;
   }
 
   private void publishEvent(Long conversationId, ChatEvent event) {
-    Sinks.Many<ChatEvent> sink = conversationSinks.get(conversationId);
-    if (sink != null) {
-      Sinks.EmitResult result = sink.tryEmitNext(event);
-      if (result == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
-        log.warn("⚠️ 事件发送失败（非序列化），会话ID: {}, 事件类型: {}", conversationId, event.getType());
-      } else if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
-        log.warn(
-            "⚠️ 事件发送失败（缓冲区溢出），会话ID: {}, 事件类型: {}，尝试清理旧事件",
-            conversationId,
-            event.getType());
-      } else if (result == Sinks.EmitResult.FAIL_CANCELLED
-          || result == Sinks.EmitResult.FAIL_TERMINATED) {
-        conversationSinks.remove(conversationId);
+    if (emitLocal(conversationId, event)) {
+      return;
+    }
+    if (clusterEventBus != null) {
+      clusterEventBus.route(conversationId, event);
+    }
+    JfrEvents.ssePublish(
+        conversationId, event.getType().name(), clusterEventBus != null ? "ROUTED" : "NO_SINK");
+  }
+
+  /** 来自其它节点的事件：仅在本节点持有该会话时投递 */
+  private boolean deliverRemote(Long conversationId, ChatEvent event) {
+    if (event.getPayload() instanceof ChatEvent.SearchResultsPayload payload
+        && conversationSinks.containsKey(conversationId)
+        && payload.getResults() != null) {
+      conversationSearchResults.put(conversationId, payload.getResults());
+      if (payload.getMessageId() != null) {
+        messageSearchResults.put(payload.getMessageId(), payload.getResults());
       }
     }
+    return emitLocal(conversationId, event);
+  }
+
+  private boolean emitLocal(Long conversationId, ChatEvent event) {
+    Sinks.Many<ChatEvent> sink = conversationSinks.get(conversationId);
+    if (sink == null) {
+      return false;
+    }
+    Sinks.EmitResult result = sink.tryEmitNext(event);
+    JfrEvents.ssePublish(conversationId, event.getType().name(), result.name());
+    if (result == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+      log.warn("⚠️ 事件发送失败（非序列化），会话ID: {}, 事件类型: {}", conversationId, event.getType());
+    } else if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+      log.warn(
+          "⚠️ 事件发送失败（缓冲区溢出），会话ID: {}, 事件类型: {}，尝试清理旧事件",
+          conversationId,
+          event.getType());
+    } else if (result == Sinks.EmitResult.FAIL_CANCELLED
+        || result == Sinks.EmitResult.FAIL_TERMINATED) {
+      conversationSinks.remove(conversationId);
+    }
+    return true;
   }
 
   @PreDestroy
@@ -1,6 +1,7 @@
 package com.example.sse;
 
 import com.example.dto.stream.ChatEvent;
+import java.time.Duration;
 import org.springframework.http.codec.ServerSentEvent;
 
 /**
@@ -8,9 +9,45 @@ import org.springframework.http.codec.ServerSentEvent;
  */
 public final class SseEventMapper {
 
+  private static final String ID_SEPARATOR = "-";
+
   private SseEventMapper() {}
 
   public static ServerSentEvent<Object> toSseEvent(ChatEvent event) {
+    return build(event, null);
+  }
+
+  /**
+   * 带事件ID的映射，ID 由生成ID与生成内单调递增的序号组成，供客户端以 Last-Event-ID 续传。
+   */
+  public static ServerSentEvent<Object> toSseEvent(ChatEvent event, String generationId, long seq) {
+    return build(event, eventId(generationId, seq));
+  }
+
+  public static String eventId(String generationId, long seq) {
+    return generationId + ID_SEPARATOR + seq;
+  }
+
+  /** 解析事件ID中的生成ID，格式不符时返回 null */
+  public static String generationIdOf(String eventId) {
+    int idx = eventId == null ? -1 : eventId.lastIndexOf(ID_SEPARATOR);
+    return idx > 0 ? eventId.substring(0, idx) : null;
+  }
+
+  /** 解析事件ID中的序号，格式不符时返回 -1 */
+  public static long sequenceOf(String eventId) {
+    int idx = eventId == null ? -1 : eventId.lastIndexOf(ID_SEPARATOR);
+    if (idx <= 0) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(eventId.substring(idx + 1));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static ServerSentEvent<Object> build(ChatEvent event, String id) {
     String name = switch (event.getType()) {
       case START -> "start";
       case CHUNK -> "chunk";
@@ -20,7 +57,16 @@ public final class SseEventMapper {
       case END -> "end";
       case ERROR -> "error";
     };
-    return ServerSentEvent.builder(event.getPayload()).event(name).build();
+    ServerSentEvent.Builder<Object> builder =
+        ServerSentEvent.builder(event.getPayload()).event(name);
+    if (id != null) {
+      builder.id(id);
+    }
+    if (event.getPayload() instanceof ChatEvent.ErrorPayload error
+        && error.getRetryAfterMs() != null) {
+      builder.retry(Duration.ofMillis(error.getRetryAfterMs()));
+    }
+    return builder.build();
   }
 }
 
@@ -0,0 +1,182 @@
+package com.example.sse;
+
+import com.example.config.SseReplayProperties;
+import com.example.dto.stream.ChatEvent;
+import com.example.handler.ChatErrorHandler;
+import java.util.Objects;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 可续传SSE生成注册表
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>生成独立于客户端连接运行，事件按序号写入有界回放缓冲</li>
+ *   <li>客户端携带 Last-Event-ID 重连时，从缓冲续传并继续接收仍在进行的生成；
+ *       生成须属于请求路径中的会话，否则按已过期处理</li>
+ *   <li>所有客户端断开超过宽限期后取消生成；生成结束后缓冲保留 TTL 再清理</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SseReplayRegistry {
+
+  public static final String RESUME_GAP = "RESUME_GAP";
+  public static final String RESUME_EXPIRED = "RESUME_EXPIRED";
+
+  private final SseReplayProperties properties;
+  private final ChatErrorHandler errorHandler;
+  private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+
+  /**
+   * 启动一次可续传生成，返回首个客户端的事件流。
+   *
+   * @param conversationId 生成所属的会话，续传时校验
+   */
+  public Flux<ServerSentEvent<Object>> start(Long conversationId, Flux<ChatEvent> source) {
+    if (!properties.isEnabled()) {
+      return source.map(SseEventMapper::toSseEvent);
+    }
+    return Flux.defer(
+        () -> {
+          Generation generation =
+              new Generation(UUID.randomUUID().toString().replace("-", ""), conversationId);
+          generations.put(generation.id, generation);
+          generation.connect(source);
+          return attach(generation, -1);
+        });
+  }
+
+  /**
+   * 按 Last-Event-ID 续传；生成已过期、不存在或不属于该会话时返回 RESUME_EXPIRED 错误事件。
+   *
+   * @param conversationId 请求路径中的会话ID
+   */
+  public Flux<ServerSentEvent<Object>> resume(Long conversationId, String lastEventId) {
+    String generationId = SseEventMapper.generationIdOf(lastEventId);
+    long seq = SseEventMapper.sequenceOf(lastEventId);
+    Generation generation = generationId == null ? null : generations.get(generationId);
+    if (generation != null && !Objects.equals(generation.conversationId, conversationId)) {
+      // 不区分“不存在”与“属于其它会话”，避免借 Last-Event-ID 探测或读取其它会话的生成
+      log.warn(
+          "续传的生成不属于该会话: conversationId={}, lastEventId={}", conversationId, lastEventId);
+      generation = null;
+    }
+    if (generation == null || seq < 0) {
+      log.info("续传失败，生成已过期: lastEventId={}", lastEventId);
+      return Flux.just(
+          SseEventMapper.toSseEvent(
+              ChatEvent.error("连接已中断且生成已过期，请重新发送消息", RESUME_EXPIRED, null)));
+    }
+    log.info("SSE续传: generation={}, fromSeq={}", generationId, seq + 1);
+    return attach(generation, seq);
+  }
+
+  private Flux<ServerSentEvent<Object>> attach(Generation generation, long afterSeq) {
+    return generation
+        .sink
+        .asFlux()
+        .filter(indexed -> indexed.seq() > afterSeq)
+        .switchOnFirst(
+            (signal, flux) -> {
+              if (afterSeq >= 0 && signal.hasValue() && signal.get().seq() > afterSeq + 1) {
+                // 需要的事件已被挤出回放缓冲，无法无缝续传
+                log.warn("SSE续传缺口: generation={}, afterSeq={}", generation.id, afterSeq);
+                return Flux.just(
+                    new Indexed(
+                        afterSeq + 1,
+                        ChatEvent.error("部分内容已无法找回，请重新发送消息", RESUME_GAP, null)));
+              }
+              return flux;
+            })
+        .map(indexed -> SseEventMapper.toSseEvent(indexed.event(), generation.id, indexed.seq()))
+        .doOnSubscribe(subscription -> generation.attached())
+        .doFinally(signal -> generation.detached());
+  }
+
+  /** 带序号的事件 */
+  private record Indexed(long seq, ChatEvent event) {}
+
+  /** 一次生成及其回放缓冲 */
+  private final class Generation {
+    private final String id;
+    private final Long conversationId;
+    private final Sinks.Many<Indexed> sink =
+        Sinks.many().replay().limit(Math.max(1, properties.getBufferSize()));
+    private final AtomicInteger clients = new AtomicInteger();
+    private volatile Disposable upstream;
+    private volatile Disposable graceTimer;
+    private volatile boolean done;
+    private long nextSeq;
+
+    Generation(String id, Long conversationId) {
+      this.id = id;
+      this.conversationId = conversationId;
+    }
+
+    void connect(Flux<ChatEvent> source) {
+      upstream =
+          source.subscribe(
+              event -> sink.tryEmitNext(new Indexed(nextSeq++, event)),
+              error -> {
+                log.warn("生成异常结束: generation={}, error={}", id, error.getMessage());
+                // 与实时链路一致，经错误处理器映射为面向用户的提示，不透出原始异常信息
+                sink.tryEmitNext(
+                    new Indexed(nextSeq++, ChatEvent.error(errorHandler.getErrorMessage(error))));
+                finish();
+              },
+              this::finish);
+    }
+
+    void attached() {
+      clients.incrementAndGet();
+      Disposable timer = graceTimer;
+      if (timer != null) {
+        timer.dispose();
+      }
+    }
+
+    void detached() {
+      if (clients.decrementAndGet() > 0 || done) {
+        return;
+      }
+      graceTimer =
+          Mono.delay(properties.getDetachGrace())
+              .subscribe(
+                  tick -> {
+                    if (clients.get() == 0 && !done) {
+                      log.info("客户端未在宽限期内重连，取消生成: generation={}", id);
+                      cancel();
+                    }
+                  });
+    }
+
+    private void finish() {
+      done = true;
+      sink.tryEmitComplete();
+      Mono.delay(properties.getTtl()).subscribe(tick -> generations.remove(id, this));
+    }
+
+    private void cancel() {
+      Disposable subscription = upstream;
+      if (subscription != null) {
+        subscription.dispose();
+      }
+      done = true;
+      sink.tryEmitComplete();
+      generations.remove(id, this);
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.example.stream;
+
+/**
+ * 上游调用的优先级类别，调度器按权重在类别之间分配provider并发。
+ */
+public enum StreamPriority {
+  /** 交互式聊天 */
+  INTERACTIVE,
+  /** 小说/故事等长文本生成 */
+  NOVEL,
+  /** 不直接响应用户等待的后台调用（如由模型生成摘要、标题）；当前标题按规则本地生成，不经上游 */
+  BATCH
+}
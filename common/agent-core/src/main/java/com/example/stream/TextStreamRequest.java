@@ -7,7 +7,7 @@ import lombok.Data;
  * 通用的文本流请求参数。
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class TextStreamRequest {
   private String provider;
   private String model;
@@ -22,7 +22,34 @@ public class TextStreamRequest {
   private boolean deepThinking;
   private boolean searchEnabled;
 
+  /**
+   * 可选：本轮之前会话中最后一条消息的ID，无历史时为 0。与 conversationId 一起标识会话记忆，
+   * 缓存/合并键据此生成而无需读取会话记忆；带 conversationId 却未设置时不参与缓存与合并
+   */
+  private Long lastMessageId;
+
+  /** 可选：调用方的请求ID，透传到工具上下文，工具侧指标据此关联到本次请求 */
+  private Long requestId;
+
+  /**
+   * 可选：会话记忆（MessageChatMemoryAdvisor）在发送前注入的历史消息的token估算，
+   * prompt 中不含这部分，限流预留与对账时一并计入
+   */
+  private Integer historyTokens;
+
   /** 可选：用于绑定消息ID（如需工具调用精确归属） */
   private Long assistantMessageId;
+
+  /** 可选：调用方未锁定provider/model，允许改用其它provider（对冲请求、限流时改路） */
+  private boolean modelUnpinned;
+
+  /** 可选：调度优先级，为空按交互式处理 */
+  private StreamPriority priority;
+
+  /** 可选：非零温度下也允许复用缓存的响应 */
+  private boolean cacheable;
+
+  /** 可选：允许与同时进行的相同请求共享一次上游生成 */
+  private boolean coalescable;
 }
 
@@ -0,0 +1,84 @@
+package com.example.stream.cache;
+
+import com.example.config.RequestCoalescingProperties;
+import com.example.stream.TextStreamRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * 进行中请求合并（single-flight）
+ *
+ * <p>相同键的请求共享同一个可回放的上游流：后加入者先收到已产生的前缀，再接收实时chunk；
+ * 只有最后一个订阅者离开时才取消上游。
+ */
+@Slf4j
+@Component
+public class InflightRequestCoalescer {
+
+  private final RequestCoalescingProperties properties;
+  private final Map<String, Flux<String>> inflight = new ConcurrentHashMap<>();
+  private final Counter joinedCounter;
+
+  public InflightRequestCoalescer(
+      RequestCoalescingProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+    this.properties = properties;
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    if (registry != null) {
+      this.joinedCounter = Counter.builder("ai.stream.coalesce.joined").register(registry);
+      Gauge.builder("ai.stream.coalesce.inflight", inflight, Map::size).register(registry);
+    } else {
+      this.joinedCounter = null;
+    }
+  }
+
+  public boolean accepts(TextStreamRequest request, ChatOptions options) {
+    return properties.isEnabled()
+        && !request.isSearchEnabled()
+        && (request.isCoalescable()
+            || request.isCacheable()
+            || StreamRequestKeyGenerator.isDeterministic(options));
+  }
+
+  /** 加入相同键的进行中生成，不存在时发起新的上游调用 */
+  public Flux<String> join(String key, Supplier<Flux<String>> upstream) {
+    return Flux.defer(
+        () -> {
+          boolean[] created = {false};
+          Flux<String> shared =
+              inflight.computeIfAbsent(
+                  key,
+                  k -> {
+                    created[0] = true;
+                    return share(k, upstream);
+                  });
+          if (!created[0]) {
+            log.debug("合并到进行中的相同请求: key={}", key);
+            if (joinedCounter != null) {
+              joinedCounter.increment();
+            }
+          }
+          return shared;
+        });
+  }
+
+  private Flux<String> share(String key, Supplier<Flux<String>> upstream) {
+    AtomicReference<Flux<String>> self = new AtomicReference<>();
+    // 上游结束或被取消后移除，后续请求重新发起
+    self.set(
+        Flux.defer(upstream)
+            .doFinally(signal -> inflight.remove(key, self.get()))
+            .replay()
+            .refCount());
+    return self.get();
+  }
+}
@@ -0,0 +1,150 @@
+package com.example.stream.cache;
+
+import com.example.config.ResponseCacheProperties;
+import com.example.stream.TextStreamRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 确定性请求的精确匹配响应缓存
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>按 {@link StreamRequestKeyGenerator} 生成的键缓存完整响应的chunk序列</li>
+ *   <li>命中时按配置节奏回放chunk，不触达上游</li>
+ *   <li>LRU 限制条目数，超过 TTL 的条目在访问时淘汰</li>
+ *   <li>暴露命中/未命中计数、命中率与条目数指标</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+
+  private final ResponseCacheProperties properties;
+  private final Map<String, Entry> entries;
+  private final Counter hitCounter;
+  private final Counter missCounter;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger lookups = new AtomicInteger();
+
+  public ResponseCache(
+      ResponseCacheProperties properties,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    this.properties = properties;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > properties.getMaxEntries();
+          }
+        };
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    if (registry != null) {
+      this.hitCounter = Counter.builder("ai.stream.cache.hits").register(registry);
+      this.missCounter = Counter.builder("ai.stream.cache.misses").register(registry);
+      Gauge.builder("ai.stream.cache.size", this, ResponseCache::size).register(registry);
+      Gauge.builder("ai.stream.cache.hit.ratio", this, ResponseCache::hitRatio).register(registry);
+    } else {
+      this.hitCounter = null;
+      this.missCounter = null;
+    }
+  }
+
+  /**
+   * 是否可缓存：需启用缓存、未启用搜索/工具，且温度为 0 或请求标记 cacheable。
+   */
+  public boolean accepts(TextStreamRequest request, ChatOptions options) {
+    return properties.isEnabled()
+        && !request.isSearchEnabled()
+        && (StreamRequestKeyGenerator.isDeterministic(options) || request.isCacheable());
+  }
+
+  /** 命中则回放缓存，否则执行上游并在正常完成后写入缓存 */
+  public Flux<String> cached(String key, Supplier<Flux<String>> upstream) {
+    lookups.incrementAndGet();
+    Optional<List<String>> hit = get(key);
+    if (hit.isPresent()) {
+      hits.incrementAndGet();
+      increment(hitCounter);
+      log.debug("响应缓存命中: key={}", key);
+      return replay(hit.get());
+    }
+    increment(missCounter);
+    return Flux.defer(
+        () -> {
+          List<String> chunks = new ArrayList<>();
+          int[] chars = {0};
+          return upstream
+              .get()
+              .doOnNext(
+                  chunk -> {
+                    chars[0] += chunk.length();
+                    if (chars[0] <= properties.getMaxResponseChars()) {
+                      chunks.add(chunk);
+                    }
+                  })
+              .doFinally(
+                  signal -> {
+                    if (signal == SignalType.ON_COMPLETE
+                        && !chunks.isEmpty()
+                        && chars[0] <= properties.getMaxResponseChars()) {
+                      put(key, chunks);
+                    }
+                  });
+        });
+  }
+
+  private Flux<String> replay(List<String> chunks) {
+    Flux<String> flux = Flux.fromIterable(chunks);
+    long delay = properties.getReplayChunkDelayMs();
+    return delay > 0 ? flux.delayElements(Duration.ofMillis(delay)) : flux;
+  }
+
+  private synchronized Optional<List<String>> get(String key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return Optional.empty();
+    }
+    if (System.nanoTime() - entry.createdAt > properties.getTtl().toNanos()) {
+      entries.remove(key);
+      return Optional.empty();
+    }
+    return Optional.of(entry.chunks);
+  }
+
+  private synchronized void put(String key, List<String> chunks) {
+    entries.put(key, new Entry(List.copyOf(chunks), System.nanoTime()));
+  }
+
+  private synchronized int size() {
+    return entries.size();
+  }
+
+  private double hitRatio() {
+    int total = lookups.get();
+    return total == 0 ? 0 : (double) hits.get() / total;
+  }
+
+  private static void increment(Counter counter) {
+    if (counter != null) {
+      counter.increment();
+    }
+  }
+
+  private record Entry(List<String> chunks, long createdAt) {}
+}
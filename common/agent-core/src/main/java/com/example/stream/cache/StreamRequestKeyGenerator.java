@@ -0,0 +1,113 @@
+package com.example.stream.cache;
+
+import com.example.client.SystemPromptProvider;
+import com.example.stream.TextStreamRequest;
+import com.example.stream.springai.ChatOptionsFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 流式请求指纹生成器
+ *
+ * <p>对 provider、model、生效的 ChatOptions、system prompt、会话记忆标识
+ * （conversationId + lastMessageId）以及本次 prompt 做 SHA-256，作为响应缓存键；请求合并键在此之上再加入
+ * 用户、会话与助手消息ID，跟随者的回答才会按各自会话保存。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StreamRequestKeyGenerator {
+
+  private final ChatOptionsFactory optionsFactory;
+
+  @Autowired(required = false)
+  private SystemPromptProvider systemPromptProvider;
+
+  /** 解析请求最终生效的 ChatOptions（与实际调用使用同一工厂） */
+  public ChatOptions resolveOptions(TextStreamRequest request) {
+    return optionsFactory.build(request.getProvider(), request.getModel(), request);
+  }
+
+  /**
+   * 请求能否生成键：带会话ID时须同时带 lastMessageId，否则会话记忆内容未知，
+   * 不读取记忆就无法区分同一会话的不同轮次
+   */
+  public static boolean isKeyable(TextStreamRequest request) {
+    return request.getConversationId() == null || request.getLastMessageId() != null;
+  }
+
+  /** 温度为 0 视为确定性请求 */
+  public static boolean isDeterministic(ChatOptions options) {
+    return options != null && options.getTemperature() != null && options.getTemperature() == 0;
+  }
+
+  public String generate(TextStreamRequest request, ChatOptions options) {
+    MessageDigest digest = sha256();
+    update(digest, request.getProvider());
+    update(digest, request.getModel());
+    if (options != null) {
+      update(digest, options.getModel());
+      update(digest, options.getTemperature());
+      update(digest, options.getTopP());
+      update(digest, options.getTopK());
+      update(digest, options.getMaxTokens());
+      update(digest, options.getFrequencyPenalty());
+      update(digest, options.getPresencePenalty());
+      update(digest, options.getStopSequences());
+    }
+    update(digest, request.isDeepThinking());
+    update(digest, request.isSearchEnabled());
+    update(digest, systemPrompt(request.getProvider()));
+    // 无历史时不区分会话，不同会话的相同首轮请求可共享缓存
+    boolean hasHistory = request.getLastMessageId() != null && request.getLastMessageId() > 0;
+    update(digest, hasHistory ? request.getConversationId() : null);
+    update(digest, hasHistory ? request.getLastMessageId() : null);
+    update(digest, request.getPrompt());
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * 请求合并键：内容指纹加请求归属。会话记忆与工具调用记录只由发起上游的请求写入，
+   * 归属不同的请求即使内容相同也不能共享一次生成
+   */
+  public String coalescingKey(String contentKey, TextStreamRequest request) {
+    MessageDigest digest = sha256();
+    update(digest, contentKey);
+    update(digest, request.getUserId());
+    update(digest, request.getConversationId());
+    update(digest, request.getAssistantMessageId());
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private String systemPrompt(String provider) {
+    if (systemPromptProvider == null || provider == null) {
+      return null;
+    }
+    return systemPromptProvider.getSystemPrompt(provider);
+  }
+
+  private static void update(MessageDigest digest, Object value) {
+    byte[] bytes =
+        value == null ? new byte[0] : String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    // 长度前缀避免字段拼接产生歧义
+    String length = Integer.toString(value == null ? -1 : bytes.length);
+    digest.update(length.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) ':');
+    digest.update(bytes);
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 不可用", e);
+    }
+  }
+}
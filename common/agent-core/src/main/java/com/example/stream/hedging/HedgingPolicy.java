@@ -0,0 +1,193 @@
+package com.example.stream.hedging;
+
+import com.example.config.MultiModelProperties;
+import com.example.stream.TextStreamRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 对冲请求策略
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>按provider记录首token延迟样本，按配置分位数推导对冲延迟</li>
+ *   <li>维护全局对冲预算：每个请求存入 budgetRatio 个额度，每次对冲消耗 1 个</li>
+ *   <li>为未锁定模型的请求解析备用provider及其默认模型</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HedgingPolicy {
+
+  private final MultiModelProperties multiModelProperties;
+
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+
+  private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+  private final Object budgetLock = new Object();
+  private double budget;
+
+  public boolean isEnabled() {
+    return multiModelProperties.getHedging().isEnabled();
+  }
+
+  /**
+   * 解析对冲请求：调用方未锁定模型、未启用工具（工具调用有副作用）且存在可用的备用provider时返回。
+   */
+  public Optional<TextStreamRequest> secondaryRequest(TextStreamRequest request) {
+    if (!request.isModelUnpinned() || request.isSearchEnabled()) {
+      return Optional.empty();
+    }
+    String secondary = resolveSecondaryProvider(request.getProvider());
+    if (secondary == null) {
+      return Optional.empty();
+    }
+    MultiModelProperties.ModelConfig modelConfig =
+        multiModelProperties.getEnabledModels(secondary).stream().findFirst()
+            .orElse(null);
+    if (modelConfig == null) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        request.toBuilder().provider(secondary).model(modelConfig.getName()).build());
+  }
+
+  /** 当前provider的对冲延迟：首token延迟分位数，样本不足时使用初始值 */
+  public Duration hedgeDelay(String provider) {
+    MultiModelProperties.Hedging config = multiModelProperties.getHedging();
+    LatencyWindow window = windows.get(providerKey(provider));
+    long delayMs =
+        window == null
+            ? config.getInitialDelayMs()
+            : window.percentileMs(config.getPercentile(), config.getMinSamples())
+                .orElse(config.getInitialDelayMs());
+    return Duration.ofMillis(
+        Math.max(config.getMinDelayMs(), Math.min(config.getMaxDelayMs(), delayMs)));
+  }
+
+  /** 每个主请求存入预算额度 */
+  public void depositBudget() {
+    MultiModelProperties.Hedging config = multiModelProperties.getHedging();
+    synchronized (budgetLock) {
+      budget = Math.min(config.getMaxBudget(), budget + config.getBudgetRatio());
+    }
+  }
+
+  /** 尝试消耗一次对冲额度 */
+  public boolean tryAcquireHedge(String primary, String secondary) {
+    boolean acquired;
+    synchronized (budgetLock) {
+      acquired = budget >= 1;
+      if (acquired) {
+        budget -= 1;
+      }
+    }
+    if (acquired) {
+      log.info("⏱️ 首token超时，触发对冲请求: {} -> {}", primary, secondary);
+      count("ai.stream.hedge.fired", secondary);
+    } else {
+      log.debug("对冲预算不足，跳过对冲: provider={}", primary);
+      count("ai.stream.hedge.budget.denied", primary);
+    }
+    return acquired;
+  }
+
+  /** 记录获胜流 */
+  public void recordWin(String provider, boolean hedge) {
+    count(hedge ? "ai.stream.hedge.won" : "ai.stream.hedge.primary.won", provider);
+  }
+
+  /**
+   * 为流附加首token延迟采样。流在首token前被取消时以已等待时长作为下界样本，避免慢provider的样本因对冲而丢失。
+   */
+  public Flux<String> recordFirstToken(String provider, Flux<String> source) {
+    return Flux.defer(
+        () -> {
+          long start = System.nanoTime();
+          AtomicBoolean first = new AtomicBoolean();
+          return source
+              .doOnNext(
+                  chunk -> {
+                    if (first.compareAndSet(false, true)) {
+                      addSample(provider, System.nanoTime() - start);
+                    }
+                  })
+              .doFinally(
+                  signal -> {
+                    if (signal == SignalType.CANCEL && first.compareAndSet(false, true)) {
+                      addSample(provider, System.nanoTime() - start);
+                    }
+                  });
+        });
+  }
+
+  private void addSample(String provider, long nanos) {
+    int size = Math.max(1, multiModelProperties.getHedging().getSampleWindow());
+    windows
+        .computeIfAbsent(providerKey(provider), key -> new LatencyWindow(size))
+        .add(Duration.ofNanos(nanos).toMillis());
+  }
+
+  private String resolveSecondaryProvider(String primary) {
+    String configured = multiModelProperties.getHedging().getSecondaryProvider();
+    if (configured != null && !configured.isBlank()) {
+      return configured.equalsIgnoreCase(primary) ? null : configured;
+    }
+    return multiModelProperties.getProviders().keySet().stream()
+        .filter(name -> !name.equalsIgnoreCase(primary))
+        .filter(multiModelProperties::isProviderAvailable)
+        .sorted()
+        .findFirst()
+        .orElse(null);
+  }
+
+  private void count(String name, String provider) {
+    if (meterRegistry != null) {
+      meterRegistry.counter(name, "provider", providerKey(provider)).increment();
+    }
+  }
+
+  private static String providerKey(String provider) {
+    return provider == null ? "default" : provider.toLowerCase();
+  }
+
+  /** 固定容量的首token延迟环形窗口 */
+  static final class LatencyWindow {
+    private final long[] samples;
+    private int count;
+    private int next;
+
+    LatencyWindow(int size) {
+      this.samples = new long[size];
+    }
+
+    synchronized void add(long millis) {
+      samples[next] = millis;
+      next = (next + 1) % samples.length;
+      count = Math.min(count + 1, samples.length);
+    }
+
+    synchronized Optional<Long> percentileMs(double percentile, int minSamples) {
+      if (count == 0 || count < minSamples) {
+        return Optional.empty();
+      }
+      long[] sorted = Arrays.copyOf(samples, count);
+      Arrays.sort(sorted);
+      int index = (int) Math.ceil(percentile * count) - 1;
+      return Optional.of(sorted[Math.max(0, Math.min(count - 1, index))]);
+    }
+  }
+}
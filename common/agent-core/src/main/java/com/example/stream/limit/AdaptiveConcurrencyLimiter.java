@@ -0,0 +1,267 @@
+package com.example.stream.limit;
+
+import com.example.config.ConcurrencyLimitProperties;
+import com.example.dto.stream.ChatEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 流式生成自适应并发限制器（Gradient2 风格）
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>限制在途生成数，limit 随首token延迟相对长期基线的梯度动态伸缩</li>
+ *   <li>超限时可短暂排队，超出队列或等待超时则快速返回带重试提示的错误事件</li>
+ *   <li>暴露 limit、在途数、排队数、拒绝数与排队耗时指标</li>
+ * </ul>
+ * 聊天与小说生成端点共用同一实例，共享上游provider的容量。
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+  public static final String OVERLOADED = "OVERLOADED";
+
+  private final ConcurrencyLimitProperties properties;
+  private final AtomicInteger inflight = new AtomicInteger();
+  private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+  private final Counter rejectedCounter;
+  private final Timer queueWaitTimer;
+
+  private volatile double limit;
+  private double longRttNanos;
+
+  public AdaptiveConcurrencyLimiter(
+      ConcurrencyLimitProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+    this.properties = properties;
+    this.limit = properties.getInitialLimit();
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    if (registry != null) {
+      Gauge.builder("ai.stream.concurrency.limit", () -> limit).register(registry);
+      Gauge.builder("ai.stream.concurrency.inflight", inflight, AtomicInteger::get)
+          .register(registry);
+      Gauge.builder("ai.stream.concurrency.queued", waiters, Queue::size).register(registry);
+      this.rejectedCounter = Counter.builder("ai.stream.concurrency.rejected").register(registry);
+      this.queueWaitTimer = Timer.builder("ai.stream.concurrency.queue.wait").register(registry);
+    } else {
+      this.rejectedCounter = null;
+      this.queueWaitTimer = null;
+    }
+  }
+
+  /**
+   * 在并发限制下执行生成流；未获得许可时返回单个 OVERLOADED 错误事件。
+   *
+   * @param source 获得许可后才订阅的事件流
+   */
+  public Flux<ChatEvent> guard(Supplier<Flux<ChatEvent>> source) {
+    if (!properties.isEnabled()) {
+      return Flux.defer(source);
+    }
+    return acquire()
+        .flatMapMany(
+            permit ->
+                permit == Permit.REJECTED ? Flux.just(rejected()) : run(permit, source));
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getInflight() {
+    return inflight.get();
+  }
+
+  private Flux<ChatEvent> run(Permit permit, Supplier<Flux<ChatEvent>> source) {
+    long start = System.nanoTime();
+    AtomicBoolean sampled = new AtomicBoolean();
+    AtomicBoolean failed = new AtomicBoolean();
+    return Flux.defer(source)
+        .doOnNext(
+            event -> {
+              if (event.getType() == ChatEvent.ChatEventType.ERROR) {
+                failed.set(true);
+              } else if (isToken(event) && sampled.compareAndSet(false, true)) {
+                onSample(System.nanoTime() - start);
+              }
+            })
+        .doFinally(
+            signal -> {
+              if (signal == SignalType.ON_ERROR || failed.get()) {
+                onDropped();
+              } else if (signal == SignalType.ON_COMPLETE && sampled.compareAndSet(false, true)) {
+                onSample(System.nanoTime() - start);
+              }
+              release(permit);
+            });
+  }
+
+  private static boolean isToken(ChatEvent event) {
+    return event.getType() == ChatEvent.ChatEventType.CHUNK
+        || event.getType() == ChatEvent.ChatEventType.THINKING;
+  }
+
+  private Mono<Permit> acquire() {
+    return Mono.defer(
+        () -> {
+          if (waiters.isEmpty() && tryAcquireSlot()) {
+            return Mono.just(new Permit());
+          }
+          if (waiters.size() >= properties.getQueueCapacity()) {
+            return Mono.just(Permit.REJECTED);
+          }
+          Waiter waiter = new Waiter();
+          waiters.add(waiter);
+          drain();
+          return waiter
+              .sink
+              .asMono()
+              .timeout(
+                  Duration.ofMillis(properties.getMaxQueueWaitMs()),
+                  Mono.fromSupplier(
+                      () -> {
+                        waiters.remove(waiter);
+                        return waiter.abandon();
+                      }))
+              .doOnSuccess(
+                  permit -> {
+                    if (queueWaitTimer != null) {
+                      queueWaitTimer.record(Duration.ofNanos(System.nanoTime() - waiter.enqueuedAt));
+                    }
+                  })
+              .doOnCancel(
+                  () -> {
+                    waiters.remove(waiter);
+                    waiter.abandon().release(this);
+                  });
+        });
+  }
+
+  /** 将空出的槽位交给排队者 */
+  private void drain() {
+    while (!waiters.isEmpty() && tryAcquireSlot()) {
+      Waiter waiter = waiters.poll();
+      if (waiter == null || !waiter.grant(new Permit())) {
+        inflight.decrementAndGet();
+        if (waiter == null) {
+          return;
+        }
+      }
+    }
+  }
+
+  private boolean tryAcquireSlot() {
+    while (true) {
+      int current = inflight.get();
+      if (current >= (int) limit) {
+        return false;
+      }
+      if (inflight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void release(Permit permit) {
+    if (permit.released.compareAndSet(false, true)) {
+      inflight.decrementAndGet();
+      drain();
+    }
+  }
+
+  private ChatEvent rejected() {
+    if (rejectedCounter != null) {
+      rejectedCounter.increment();
+    }
+    log.warn("生成并发已达上限，拒绝请求: limit={}, inflight={}", getLimit(), inflight.get());
+    return ChatEvent.error("服务繁忙，请稍后重试", OVERLOADED, properties.getRetryAfterMs());
+  }
+
+  /** 根据首token延迟样本调整limit：短期延迟高于长期基线时收缩，低于时按 sqrt(limit) 试探增长 */
+  private synchronized void onSample(long rttNanos) {
+    double rtt = Math.max(1, rttNanos);
+    longRttNanos =
+        longRttNanos == 0
+            ? rtt
+            : longRttNanos + (rtt - longRttNanos) * 2 / (properties.getLongWindow() + 1);
+    if (longRttNanos / rtt > 2) {
+      // 延迟显著改善后让基线更快回落，避免长期停留在过高的基线上
+      longRttNanos *= 0.95;
+    }
+    if (inflight.get() < limit / 2) {
+      // 未充分利用时不增长，避免limit脱离真实负载
+      return;
+    }
+    double gradient =
+        Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRttNanos / rtt));
+    double newLimit = limit * gradient + Math.sqrt(limit);
+    updateLimit(limit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing());
+  }
+
+  private synchronized void onDropped() {
+    updateLimit(limit * properties.getBackoffRatio());
+  }
+
+  private void updateLimit(double candidate) {
+    double previous = limit;
+    limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), candidate));
+    if ((int) previous != (int) limit) {
+      log.debug("生成并发limit调整: {} -> {}", (int) previous, (int) limit);
+      if (limit > previous) {
+        drain();
+      }
+    }
+  }
+
+  /** 单次生成持有的许可，释放幂等 */
+  private static final class Permit {
+    static final Permit REJECTED = new Permit();
+    final AtomicBoolean released = new AtomicBoolean();
+
+    void release(AdaptiveConcurrencyLimiter limiter) {
+      if (this != REJECTED) {
+        limiter.release(this);
+      }
+    }
+  }
+
+  /** 排队者：许可要么被授予，要么被放弃（超时或客户端断开），二者只会发生一个 */
+  private static final class Waiter {
+    final Sinks.One<Permit> sink = Sinks.one();
+    final long enqueuedAt = System.nanoTime();
+    final AtomicBoolean settled = new AtomicBoolean();
+    volatile Permit granted;
+
+    boolean grant(Permit permit) {
+      granted = permit;
+      if (!settled.compareAndSet(false, true)) {
+        return false;
+      }
+      sink.tryEmitValue(permit);
+      return true;
+    }
+
+    /** 放弃排队；已被授予时返回授予的许可，由调用方继续使用或释放 */
+    Permit abandon() {
+      if (settled.compareAndSet(false, true)) {
+        return Permit.REJECTED;
+      }
+      return granted;
+    }
+  }
+}
@@ -0,0 +1,369 @@
+package com.example.stream.ratelimit;
+
+import com.example.config.MultiModelProperties;
+import com.example.config.RateLimitProperties;
+import com.example.stream.TextStreamRequest;
+import com.example.util.TokenEstimator;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 客户端侧provider限流器（按 provider + API key 分桶）
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>调用前按 prompt 与会话历史估算 + maxTokens 预留请求数与token数，余量不足时延迟发起</li>
+ *   <li>等待超过上限时，未锁定provider的请求改投其他有余量的provider，否则快速失败</li>
+ *   <li>调用结束后按响应usage（缺失时按输出估算）多退少补</li>
+ *   <li>上游返回 429 时清空余量，避免重试风暴</li>
+ *   <li>对冲等附加调用只在目标provider当前即有余量时发起，不等待也不改投</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ProviderRateLimiter {
+
+  private final RateLimitProperties properties;
+  private final MultiModelProperties multiModelProperties;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, QuotaBuckets> buckets = new ConcurrentHashMap<>();
+
+  public ProviderRateLimiter(
+      RateLimitProperties properties,
+      MultiModelProperties multiModelProperties,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    this.properties = properties;
+    this.multiModelProperties = multiModelProperties;
+    this.meterRegistry = meterRegistry.getIfAvailable();
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /**
+   * 在provider配额内执行调用；call 接收可能已改投provider的请求。
+   */
+  public Flux<String> limit(
+      TextStreamRequest request, Function<TextStreamRequest, Flux<String>> call) {
+    return Mono.defer(() -> reserve(request)).flatMapMany(reservation -> run(reservation, call));
+  }
+
+  /**
+   * 按请求的provider立即预留并执行；余量不足以立即发起时不预留，返回空，调用方应放弃本次调用。
+   */
+  public Optional<Flux<String>> tryLimit(
+      TextStreamRequest request, Function<TextStreamRequest, Flux<String>> call) {
+    Optional<Reservation> reservation = tryReserve(request, estimateTokens(request), 0);
+    if (reservation.isEmpty()) {
+      count("ai.stream.ratelimit.skipped", request.getProvider());
+    }
+    return reservation.map(reserved -> run(reserved, call));
+  }
+
+  private Mono<Reservation> reserve(TextStreamRequest request) {
+    int estimate = estimateTokens(request);
+    long maxWaitNanos = Duration.ofMillis(properties.getMaxWaitMs()).toNanos();
+    Optional<Reservation> primary = tryReserve(request, estimate, maxWaitNanos);
+    if (primary.isPresent()) {
+      return Mono.just(primary.get());
+    }
+    if (properties.isRerouteEnabled() && request.isModelUnpinned()) {
+      for (String provider : multiModelProperties.getProviders().keySet()) {
+        if (provider.equalsIgnoreCase(request.getProvider())
+            || !multiModelProperties.isProviderAvailable(provider)) {
+          continue;
+        }
+        Optional<Reservation> rerouted =
+            multiModelProperties.getEnabledModels(provider).stream()
+                .findFirst()
+                .flatMap(
+                    model ->
+                        tryReserve(
+                            request.toBuilder().provider(provider).model(model.getName()).build(),
+                            estimate,
+                            maxWaitNanos));
+        if (rerouted.isPresent()) {
+          log.info("provider {} 配额不足，改投 {}", request.getProvider(), provider);
+          count("ai.stream.ratelimit.rerouted", request.getProvider());
+          return Mono.just(rerouted.get());
+        }
+      }
+    }
+    count("ai.stream.ratelimit.rejected", request.getProvider());
+    return Mono.error(
+        new IllegalStateException(
+            "provider " + request.getProvider() + " rate limit exceeded, please retry later"));
+  }
+
+  private Optional<Reservation> tryReserve(
+      TextStreamRequest request, int estimate, long maxWaitNanos) {
+    QuotaBuckets quota = bucketsOf(request.getProvider());
+    if (quota == null) {
+      return Optional.of(new Reservation(request, null, 0, 0));
+    }
+    long wait = quota.tryReserve(estimate, maxWaitNanos);
+    if (wait < 0) {
+      return Optional.empty();
+    }
+    return Optional.of(new Reservation(request, quota, estimate, wait));
+  }
+
+  private Flux<String> run(
+      Reservation reservation, Function<TextStreamRequest, Flux<String>> call) {
+    UsageTracker tracker = new UsageTracker(reservation);
+    Flux<String> upstream =
+        call.apply(reservation.request)
+            .doOnNext(tracker::onOutput)
+            .doOnError(
+                error -> {
+                  if (reservation.quota != null && isRateLimited(error)) {
+                    log.warn("provider {} 返回限流，清空本地余量", reservation.request.getProvider());
+                    reservation.quota.exhaust();
+                  }
+                })
+            .doFinally(signal -> tracker.reconcile())
+            .contextWrite(ctx -> ctx.put(TokenUsageListener.class, tracker));
+    if (reservation.waitNanos <= 0) {
+      return upstream;
+    }
+    Duration wait = Duration.ofNanos(reservation.waitNanos);
+    log.debug("provider {} 配额不足，延迟 {}ms 发起", reservation.request.getProvider(), wait.toMillis());
+    count("ai.stream.ratelimit.delayed", reservation.request.getProvider());
+    if (meterRegistry != null) {
+      meterRegistry
+          .timer("ai.stream.ratelimit.wait", "provider", providerKey(reservation.request.getProvider()))
+          .record(wait);
+    }
+    return Mono.delay(wait).doOnCancel(reservation::cancel).thenMany(upstream);
+  }
+
+  private int estimateTokens(TextStreamRequest request) {
+    Integer maxTokens =
+        request.getMaxTokens() != null
+            ? request.getMaxTokens()
+            : multiModelProperties.getDefaults().getMaxTokens();
+    return inputTokens(request) + (maxTokens != null ? maxTokens : 0);
+  }
+
+  /** 实际发往上游的输入：prompt 加上会话记忆注入的历史 */
+  private static int inputTokens(TextStreamRequest request) {
+    Integer history = request.getHistoryTokens();
+    return TokenEstimator.estimate(request.getPrompt()) + (history != null ? history : 0);
+  }
+
+  private QuotaBuckets bucketsOf(String provider) {
+    if (provider == null) {
+      return null;
+    }
+    MultiModelProperties.ProviderConfig config = multiModelProperties.getProviders().get(provider);
+    if (config == null
+        || (config.getRequestsPerMinute() == null && config.getTokensPerMinute() == null)) {
+      return null;
+    }
+    String apiKey = multiModelProperties.getApiKey(provider);
+    String key =
+        providerKey(provider) + ":" + (apiKey == null ? "-" : Integer.toHexString(apiKey.hashCode()));
+    return buckets.computeIfAbsent(
+        key,
+        k ->
+            new QuotaBuckets(
+                TokenBucket.perMinute(config.getRequestsPerMinute()),
+                TokenBucket.perMinute(config.getTokensPerMinute())));
+  }
+
+  /** 优先按HTTP状态码判断；Spring AI 重试层抛出的异常只带响应文本，再退回按消息匹配 */
+  private static boolean isRateLimited(Throwable error) {
+    for (Throwable e = error; e != null; e = e.getCause()) {
+      if (e instanceof WebClientResponseException response) {
+        return response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+      }
+      if (e instanceof RestClientResponseException response) {
+        return response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+      }
+    }
+    String msg = error.getMessage() == null ? "" : error.getMessage().toLowerCase();
+    return msg.contains("429") || msg.contains("rate limit") || msg.contains("too many requests");
+  }
+
+  private void count(String name, String provider) {
+    if (meterRegistry != null) {
+      meterRegistry.counter(name, "provider", providerKey(provider)).increment();
+    }
+  }
+
+  private static String providerKey(String provider) {
+    return provider == null ? "default" : provider.toLowerCase();
+  }
+
+  /** 一次调用的预留 */
+  private static final class Reservation {
+    private final TextStreamRequest request;
+    private final QuotaBuckets quota;
+    private final int tokens;
+    private final long waitNanos;
+
+    Reservation(TextStreamRequest request, QuotaBuckets quota, int tokens, long waitNanos) {
+      this.request = request;
+      this.quota = quota;
+      this.tokens = tokens;
+      this.waitNanos = waitNanos;
+    }
+
+    /** 等待期间被取消，归还全部预留 */
+    void cancel() {
+      if (quota != null) {
+        quota.refund(1, tokens);
+      }
+    }
+  }
+
+  /** 汇总上游usage与输出估算，结束时与预留对账 */
+  private final class UsageTracker implements TokenUsageListener {
+    private final Reservation reservation;
+    private final int promptEstimate;
+    private volatile int outputEstimate;
+    private volatile Integer reportedTotal;
+
+    UsageTracker(Reservation reservation) {
+      this.reservation = reservation;
+      this.promptEstimate = inputTokens(reservation.request);
+    }
+
+    void onOutput(String chunk) {
+      outputEstimate += TokenEstimator.estimate(chunk);
+    }
+
+    @Override
+    public void onUsage(String provider, Usage usage) {
+      Integer total = usage.getTotalTokens();
+      if (total == null || total <= 0) {
+        return;
+      }
+      if (provider != null && provider.equalsIgnoreCase(reservation.request.getProvider())) {
+        reportedTotal = reportedTotal == null ? total : Math.max(reportedTotal, total);
+      } else {
+        // 未经本次预留的其他provider用量（对冲请求已有自己的预留）直接计入其配额
+        QuotaBuckets other = bucketsOf(provider);
+        if (other != null) {
+          other.refund(0, -total);
+        }
+      }
+    }
+
+    void reconcile() {
+      if (reservation.quota == null) {
+        return;
+      }
+      int actual = reportedTotal != null ? reportedTotal : promptEstimate + outputEstimate;
+      reservation.quota.refund(0, reservation.tokens - actual);
+    }
+  }
+
+  /** 同一 provider + API key 的请求桶与token桶 */
+  private static final class QuotaBuckets {
+    private final TokenBucket requests;
+    private final TokenBucket tokens;
+
+    QuotaBuckets(TokenBucket requests, TokenBucket tokens) {
+      this.requests = requests;
+      this.tokens = tokens;
+    }
+
+    /** 预留并返回需等待的纳秒数；超过 maxWaitNanos 时不预留并返回 -1 */
+    synchronized long tryReserve(int tokenCost, long maxWaitNanos) {
+      long now = System.nanoTime();
+      long wait =
+          Math.max(
+              requests != null ? requests.waitNanos(1, now) : 0,
+              tokens != null ? tokens.waitNanos(tokenCost, now) : 0);
+      if (wait > maxWaitNanos) {
+        return -1;
+      }
+      if (requests != null) {
+        requests.take(1);
+      }
+      if (tokens != null) {
+        tokens.take(tokenCost);
+      }
+      return wait;
+    }
+
+    /** 归还（正数）或追加扣减（负数）余量 */
+    synchronized void refund(int requestCount, int tokenCount) {
+      long now = System.nanoTime();
+      if (requests != null && requestCount != 0) {
+        requests.give(requestCount, now);
+      }
+      if (tokens != null && tokenCount != 0) {
+        tokens.give(tokenCount, now);
+      }
+    }
+
+    synchronized void exhaust() {
+      long now = System.nanoTime();
+      if (requests != null) {
+        requests.exhaust(now);
+      }
+      if (tokens != null) {
+        tokens.exhaust(now);
+      }
+    }
+  }
+
+  /** 允许透支的令牌桶：透支部分按补充速率折算为等待时间 */
+  private static final class TokenBucket {
+    private final double capacity;
+    private final double refillPerNano;
+    private double available;
+    private long lastRefill = System.nanoTime();
+
+    private TokenBucket(double perMinute) {
+      this.capacity = perMinute;
+      this.refillPerNano = perMinute / Duration.ofMinutes(1).toNanos();
+      this.available = perMinute;
+    }
+
+    static TokenBucket perMinute(Integer perMinute) {
+      return perMinute == null || perMinute <= 0 ? null : new TokenBucket(perMinute);
+    }
+
+    long waitNanos(int cost, long now) {
+      refill(now);
+      double deficit = Math.min(cost, capacity) - available;
+      return deficit <= 0 ? 0 : (long) Math.ceil(deficit / refillPerNano);
+    }
+
+    void take(int cost) {
+      available -= cost;
+    }
+
+    void give(int amount, long now) {
+      refill(now);
+      available = Math.min(capacity, available + amount);
+    }
+
+    void exhaust(long now) {
+      refill(now);
+      available = Math.min(available, 0);
+    }
+
+    private void refill(long now) {
+      available = Math.min(capacity, available + (now - lastRefill) * refillPerNano);
+      lastRefill = now;
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.example.stream.ratelimit;
+
+import org.springframework.ai.chat.metadata.Usage;
+
+/**
+ * 上游响应携带的token用量回调，通过 Reactor Context 传递给流客户端。
+ */
+@FunctionalInterface
+public interface TokenUsageListener {
+
+  void onUsage(String provider, Usage usage);
+}
@@ -0,0 +1,289 @@
+package com.example.stream.scheduling;
+
+import com.example.config.MultiModelProperties;
+import com.example.config.StreamSchedulerProperties;
+import com.example.stream.StreamPriority;
+import com.example.stream.TextStreamRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * 上游调用加权公平调度器
+ *
+ * <p>职责：
+ * <ul>
+ *   <li>按provider限制同时进行的上游调用数</li>
+ *   <li>优先级类别之间按权重做 stride 调度，高优先级获得更大份额但低优先级不会饿死</li>
+ *   <li>同一类别内按用户轮转，单个用户的大量请求不会挤占其他用户</li>
+ *   <li>记录排队耗时指标</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class FairStreamScheduler {
+
+  private static final long STRIDE = 1L << 20;
+
+  private final StreamSchedulerProperties properties;
+  private final MultiModelProperties multiModelProperties;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, ProviderLane> lanes = new ConcurrentHashMap<>();
+
+  public FairStreamScheduler(
+      StreamSchedulerProperties properties,
+      MultiModelProperties multiModelProperties,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    this.properties = properties;
+    this.multiModelProperties = multiModelProperties;
+    this.meterRegistry = meterRegistry.getIfAvailable();
+  }
+
+  /**
+   * 获得provider并发槽位后才订阅上游流，流结束或取消时归还槽位。
+   */
+  public Flux<String> schedule(TextStreamRequest request, Supplier<Flux<String>> upstream) {
+    if (!properties.isEnabled()) {
+      return Flux.defer(upstream);
+    }
+    ProviderLane lane = lanes.computeIfAbsent(providerKey(request.getProvider()), this::newLane);
+    StreamPriority priority =
+        request.getPriority() != null ? request.getPriority() : StreamPriority.INTERACTIVE;
+    return Flux.usingWhen(
+        lane.acquire(priority, userKey(request)),
+        ticket -> Flux.defer(upstream),
+        ticket -> Mono.fromRunnable(() -> lane.release(ticket)));
+  }
+
+  private ProviderLane newLane(String provider) {
+    ProviderLane lane = new ProviderLane(provider);
+    if (meterRegistry != null) {
+      Gauge.builder("ai.stream.scheduler.running", lane, l -> l.running)
+          .tag("provider", provider)
+          .register(meterRegistry);
+      Gauge.builder("ai.stream.scheduler.queued", lane, l -> l.queued)
+          .tag("provider", provider)
+          .register(meterRegistry);
+    }
+    return lane;
+  }
+
+  private int capacityOf(String provider) {
+    MultiModelProperties.ProviderConfig config = multiModelProperties.getProviders().get(provider);
+    Integer cap = config != null ? config.getMaxConcurrency() : null;
+    return Math.max(1, cap != null ? cap : properties.getDefaultMaxConcurrency());
+  }
+
+  private void recordQueueWait(String provider, StreamPriority priority, long waitNanos) {
+    if (meterRegistry != null) {
+      Timer.builder("ai.stream.scheduler.queue.wait")
+          .tag("provider", provider)
+          .tag("priority", priority.name().toLowerCase())
+          .register(meterRegistry)
+          .record(Duration.ofNanos(waitNanos));
+    }
+  }
+
+  private static String userKey(TextStreamRequest request) {
+    if (request.getUserId() != null) {
+      return "u:" + request.getUserId();
+    }
+    if (request.getConversationId() != null) {
+      return "c:" + request.getConversationId();
+    }
+    return "anonymous";
+  }
+
+  private static String providerKey(String provider) {
+    return provider == null ? "default" : provider.toLowerCase();
+  }
+
+  /** 单个provider的调度队列，所有状态变更在 lane 锁内完成，回调在锁外触发 */
+  private final class ProviderLane {
+    private final String provider;
+    private final Map<StreamPriority, ClassQueue> classes = new EnumMap<>(StreamPriority.class);
+    private int running;
+    private int queued;
+    private long virtualTime;
+
+    ProviderLane(String provider) {
+      this.provider = provider;
+      for (StreamPriority priority : StreamPriority.values()) {
+        classes.put(priority, new ClassQueue());
+      }
+    }
+
+    Mono<Ticket> acquire(StreamPriority priority, String user) {
+      Mono<Ticket> acquire =
+          Mono.create(
+              sink -> {
+                Ticket ticket = new Ticket(priority, user, sink);
+                boolean immediate;
+                synchronized (this) {
+                  immediate = queued == 0 && running < capacityOf(provider);
+                  if (immediate) {
+                    running++;
+                    ticket.granted = true;
+                  } else {
+                    enqueue(ticket);
+                  }
+                }
+                sink.onCancel(() -> cancel(ticket));
+                if (immediate) {
+                  recordQueueWait(provider, priority, 0);
+                  sink.success(ticket);
+                }
+              });
+      long maxWait = properties.getMaxQueueWaitMs();
+      if (maxWait <= 0) {
+        return acquire;
+      }
+      return acquire.timeout(
+          Duration.ofMillis(maxWait),
+          Mono.error(
+              () ->
+                  new TimeoutException(
+                      "上游模型 " + provider + " 排队超时(" + maxWait + "ms)，请稍后重试")));
+    }
+
+    void release(Ticket ticket) {
+      List<Ticket> started;
+      synchronized (this) {
+        if (ticket.released) {
+          return;
+        }
+        ticket.released = true;
+        running--;
+        started = dispatch();
+      }
+      start(started);
+    }
+
+    private void cancel(Ticket ticket) {
+      boolean wasGranted;
+      synchronized (this) {
+        if (ticket.cancelled) {
+          return;
+        }
+        ticket.cancelled = true;
+        wasGranted = ticket.granted;
+        if (!wasGranted) {
+          queued--;
+          classes.get(ticket.priority).remove(ticket);
+        }
+      }
+      if (wasGranted) {
+        // 槽位已授予但订阅者已离开，归还给下一个排队者
+        release(ticket);
+      }
+    }
+
+    private void enqueue(Ticket ticket) {
+      ClassQueue queue = classes.get(ticket.priority);
+      if (queue.isEmpty()) {
+        // 空闲类别重新进入时从当前虚拟时间起步，避免积攒的份额造成突发
+        queue.pass = Math.max(queue.pass, virtualTime);
+      }
+      queue.add(ticket);
+      queued++;
+    }
+
+    /** 在容量允许范围内按 stride 选择类别、类别内按用户轮转出队 */
+    private List<Ticket> dispatch() {
+      List<Ticket> started = new ArrayList<>();
+      int capacity = capacityOf(provider);
+      while (running < capacity && queued > 0) {
+        StreamPriority next = null;
+        for (Map.Entry<StreamPriority, ClassQueue> entry : classes.entrySet()) {
+          ClassQueue queue = entry.getValue();
+          if (!queue.isEmpty() && (next == null || queue.pass < classes.get(next).pass)) {
+            next = entry.getKey();
+          }
+        }
+        ClassQueue queue = classes.get(next);
+        virtualTime = queue.pass;
+        queue.pass += STRIDE / properties.weightOf(next);
+        Ticket ticket = queue.poll();
+        queued--;
+        running++;
+        ticket.granted = true;
+        started.add(ticket);
+      }
+      return started;
+    }
+
+    private void start(List<Ticket> started) {
+      for (Ticket ticket : started) {
+        recordQueueWait(provider, ticket.priority, System.nanoTime() - ticket.enqueuedAt);
+        ticket.sink.success(ticket);
+      }
+    }
+  }
+
+  /** 单个优先级类别：用户按到达顺序轮转，每次出队后移到队尾 */
+  private static final class ClassQueue {
+    private final LinkedHashMap<String, ArrayDeque<Ticket>> users = new LinkedHashMap<>();
+    private long pass;
+
+    boolean isEmpty() {
+      return users.isEmpty();
+    }
+
+    void add(Ticket ticket) {
+      users.computeIfAbsent(ticket.user, key -> new ArrayDeque<>()).add(ticket);
+    }
+
+    Ticket poll() {
+      Iterator<Map.Entry<String, ArrayDeque<Ticket>>> it = users.entrySet().iterator();
+      Map.Entry<String, ArrayDeque<Ticket>> first = it.next();
+      ArrayDeque<Ticket> tickets = first.getValue();
+      Ticket ticket = tickets.poll();
+      it.remove();
+      if (!tickets.isEmpty()) {
+        users.put(first.getKey(), tickets);
+      }
+      return ticket;
+    }
+
+    void remove(Ticket ticket) {
+      ArrayDeque<Ticket> tickets = users.get(ticket.user);
+      if (tickets != null && tickets.remove(ticket) && tickets.isEmpty()) {
+        users.remove(ticket.user);
+      }
+    }
+  }
+
+  /** 一次排队/运行中的上游调用 */
+  private static final class Ticket {
+    private final StreamPriority priority;
+    private final String user;
+    private final MonoSink<Ticket> sink;
+    private final long enqueuedAt = System.nanoTime();
+    private boolean granted;
+    private boolean cancelled;
+    private boolean released;
+
+    Ticket(StreamPriority priority, String user, MonoSink<Ticket> sink) {
+      this.priority = priority;
+      this.user = user;
+      this.sink = sink;
+    }
+  }
+}
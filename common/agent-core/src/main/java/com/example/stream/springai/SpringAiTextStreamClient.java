@@ -1,19 +1,43 @@
 package com.example.stream.springai;
 
+import com.example.jfr.JfrEvents;
 import com.example.stream.TextStreamClient;
 import com.example.stream.TextStreamRequest;
+import com.example.stream.cache.InflightRequestCoalescer;
+import com.example.stream.cache.ResponseCache;
+import com.example.stream.cache.StreamRequestKeyGenerator;
+import com.example.stream.hedging.HedgingPolicy;
+import com.example.stream.ratelimit.ProviderRateLimiter;
+import com.example.stream.ratelimit.TokenUsageListener;
+import com.example.stream.scheduling.FairStreamScheduler;
 import com.example.tool.ToolManager;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
 
 /**
  * 基于 Spring AI ChatClient 的通用文本流客户端
  * 使用ToolManager动态注入工具，避免不必要的工具注册
+ * 启用对冲时，主provider首token超时后向备用provider发送同一请求，先出token者胜出，另一路立即取消
+ * 每次上游调用先经 FairStreamScheduler 按provider并发上限与优先级排队
+ * 配置了provider配额时，由 ProviderRateLimiter 预留令牌后再发起，余量不足时延迟或改投；
+ * 对冲请求同样占用备用provider的配额，备用provider当前无余量时放弃对冲
+ * 确定性请求（温度为 0 或标记 cacheable）可命中 ResponseCache，直接回放已缓存的响应
+ * 同时进行的相同请求由 InflightRequestCoalescer 合并为一次上游调用
+ * 每次上游调用记录 JFR 流事件（开始/首token/结束），未录制时无开销
  */
 @Slf4j
 @Component
@@ -26,8 +50,143 @@ public class SpringAiTextStreamClient implements TextStreamClient {
   @Autowired(required = false)
   private ToolManager toolManager;
 
+  @Autowired(required = false)
+  private HedgingPolicy hedgingPolicy;
+
+  @Autowired(required = false)
+  private FairStreamScheduler scheduler;
+
+  @Autowired(required = false)
+  private ProviderRateLimiter rateLimiter;
+
+  @Autowired(required = false)
+  private StreamRequestKeyGenerator keyGenerator;
+
+  @Autowired(required = false)
+  private ResponseCache responseCache;
+
+  @Autowired(required = false)
+  private InflightRequestCoalescer coalescer;
+
   @Override
   public Flux<String> stream(TextStreamRequest request) {
+    if (keyGenerator == null
+        || request.isSearchEnabled()
+        || !StreamRequestKeyGenerator.isKeyable(request)) {
+      return limited(request);
+    }
+    return Flux.defer(
+        () -> {
+          ChatOptions options = keyGenerator.resolveOptions(request);
+          boolean cache = responseCache != null && responseCache.accepts(request, options);
+          boolean coalesce = coalescer != null && coalescer.accepts(request, options);
+          if (!cache && !coalesce) {
+            return limited(request);
+          }
+          String key = keyGenerator.generate(request, options);
+          Supplier<Flux<String>> upstream =
+              coalesce
+                  ? () ->
+                      coalescer.join(
+                          keyGenerator.coalescingKey(key, request), () -> limited(request))
+                  : () -> limited(request);
+          return cache ? responseCache.cached(key, upstream) : upstream.get();
+        });
+  }
+
+  private Flux<String> limited(TextStreamRequest request) {
+    if (rateLimiter == null || !rateLimiter.isEnabled()) {
+      return route(request);
+    }
+    return rateLimiter.limit(request, this::route);
+  }
+
+  private Flux<String> route(TextStreamRequest request) {
+    if (hedgingPolicy == null || !hedgingPolicy.isEnabled()) {
+      return scheduled(request);
+    }
+    hedgingPolicy.depositBudget();
+    Flux<String> primary =
+        hedgingPolicy.recordFirstToken(request.getProvider(), scheduled(request));
+    Optional<TextStreamRequest> secondary = hedgingPolicy.secondaryRequest(request);
+    if (secondary.isEmpty()) {
+      return primary;
+    }
+    return hedged(request, primary, secondary.get());
+  }
+
+  /**
+   * 主流与延迟触发的对冲流竞速：首个信号所在的流胜出，另一路被 firstWithSignal 取消。
+   * 对冲流在出token前失败或空完成时不参与竞速，由主流决定结果。
+   */
+  private Flux<String> hedged(
+      TextStreamRequest request, Flux<String> primary, TextStreamRequest secondary) {
+    AtomicBoolean fired = new AtomicBoolean();
+    Flux<String> hedge =
+        Mono.delay(hedgingPolicy.hedgeDelay(request.getProvider()))
+            .flatMapMany(
+                tick -> {
+                  if (!hedgingPolicy.tryAcquireHedge(
+                      request.getProvider(), secondary.getProvider())) {
+                    return Flux.never();
+                  }
+                  Optional<Flux<String>> limited = limitedHedge(secondary);
+                  if (limited.isEmpty()) {
+                    log.debug("备用provider {} 配额不足，放弃对冲", secondary.getProvider());
+                    return Flux.never();
+                  }
+                  fired.set(true);
+                  return hedgingPolicy
+                      .recordFirstToken(secondary.getProvider(), limited.get())
+                      .switchOnFirst(
+                          (signal, flux) -> {
+                            if (signal.isOnError()) {
+                              log.warn(
+                                  "对冲请求失败，继续等待主provider: {}",
+                                  signal.getThrowable().getMessage());
+                              return Flux.never();
+                            }
+                            if (signal.isOnComplete()) {
+                              // 空响应同样不能胜出，否则会取消仍在生成的主流
+                              log.warn("对冲请求未返回内容，继续等待主provider");
+                              return Flux.never();
+                            }
+                            if (signal.isOnNext()) {
+                              hedgingPolicy.recordWin(secondary.getProvider(), true);
+                            }
+                            return flux;
+                          });
+                });
+
+    Flux<String> trackedPrimary =
+        primary.switchOnFirst(
+            (signal, flux) -> {
+              if (signal.isOnNext() && fired.get()) {
+                hedgingPolicy.recordWin(request.getProvider(), false);
+              }
+              return flux;
+            });
+
+    return Flux.firstWithSignal(trackedPrimary, hedge);
+  }
+
+  /** 对冲请求在备用provider配额内立即发起，不等待、不改投；无余量时为空 */
+  private Optional<Flux<String>> limitedHedge(TextStreamRequest secondary) {
+    if (rateLimiter == null || !rateLimiter.isEnabled()) {
+      return Optional.of(scheduled(secondary));
+    }
+    return rateLimiter.tryLimit(secondary, this::scheduled);
+  }
+
+  /** 经公平调度器获取provider并发槽位后再发起上游调用 */
+  private Flux<String> scheduled(TextStreamRequest request) {
+    if (scheduler == null) {
+      return Flux.defer(() -> doStream(request));
+    }
+    return scheduler.schedule(request, () -> doStream(request));
+  }
+
+  private Flux<String> doStream(TextStreamRequest request) {
     ChatClient client = clientResolver.resolve(request.getProvider());
     var options = optionsFactory.build(request.getProvider(), request.getModel(), request);
 
@@ -64,16 +223,53 @@ public class SpringAiTextStreamClient implements TextStreamClient {
     if (toolManager != null) {
       List<Object> tools = toolManager.resolveTools(request);
       if (!tools.isEmpty()) {
-        promptSpec = promptSpec.tools(tools.toArray());
+        promptSpec = promptSpec.tools(tools.toArray()).toolContext(toolContext(request));
         log.debug("注入 {} 个工具到prompt", tools.size());
       }
     }
 
-    return promptSpec
-        .stream()
-        .chatResponse()
-        .mapNotNull(resp -> resp.getResult() != null ? resp.getResult().getOutput() : null)
-        .mapNotNull(out -> out.getText())
-        .filter(s -> s != null && !s.trim().isEmpty());
+    Flux<String> upstream =
+        promptSpec
+            .stream()
+            .chatResponse()
+            .doOnEach(
+                signal -> {
+                  if (signal.isOnNext()) {
+                    reportUsage(request.getProvider(), signal.get(), signal.getContextView());
+                  }
+                })
+            .mapNotNull(resp -> resp.getResult() != null ? resp.getResult().getOutput() : null)
+            .mapNotNull(out -> out.getText())
+            .filter(s -> s != null && !s.trim().isEmpty());
+    return JfrEvents.traceStream(request, upstream);
+  }
+
+  /** 工具执行时可见的请求上下文；助手消息ID预分配时工具调用记录可直接关联 */
+  private static Map<String, Object> toolContext(TextStreamRequest request) {
+    Map<String, Object> context = new HashMap<>();
+    if (request.getConversationId() != null) {
+      context.put("conversationId", request.getConversationId());
+    }
+    if (request.getAssistantMessageId() != null) {
+      context.put("messageId", request.getAssistantMessageId());
+    }
+    if (request.getRequestId() != null) {
+      context.put("requestId", request.getRequestId());
+    }
+    context.put("searchEnabled", request.isSearchEnabled());
+    return context;
+  }
+
+  /** 将响应中的usage回传给限流器（若调用链上存在） */
+  private void reportUsage(String provider, ChatResponse response, ContextView context) {
+    if (response == null || response.getMetadata() == null) {
+      return;
+    }
+    var usage = response.getMetadata().getUsage();
+    if (usage != null) {
+      context
+          .<TokenUsageListener>getOrEmpty(TokenUsageListener.class)
+          .ifPresent(listener -> listener.onUsage(provider, usage));
+    }
   }
 }
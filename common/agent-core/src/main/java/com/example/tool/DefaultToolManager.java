@@ -4,35 +4,41 @@ import com.example.stream.TextStreamRequest;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
 /**
  * 默认的工具管理器实现
- * 
- * <p>自动发现所有带@Tool注解的bean，并根据请求上下文动态注入
+ *
+ * <p>自动发现所有带@Tool注解的bean，并根据请求上下文动态注入。
+ * 发现在所有单例创建完成后按bean类型进行，不在构造时依赖全部bean，避免与使用本管理器的bean形成循环依赖。
  */
 @Slf4j
 @Component
-public class DefaultToolManager implements ToolManager {
+public class DefaultToolManager implements ToolManager, SmartInitializingSingleton {
 
-  private final Map<String, Object> availableTools;
+  private final ListableBeanFactory beanFactory;
+  private final Map<String, Object> availableTools = new ConcurrentHashMap<>();
 
-  @Autowired
-  public DefaultToolManager(@Autowired(required = false) List<Object> allBeans) {
-    this.availableTools = new java.util.HashMap<>();
-    
-    if (allBeans != null) {
-      for (Object bean : allBeans) {
-        if (hasToolAnnotation(bean)) {
-          String toolName = bean.getClass().getSimpleName();
-          availableTools.put(toolName, bean);
-          log.debug("注册工具: {}", toolName);
-        }
+  public DefaultToolManager(ListableBeanFactory beanFactory) {
+    this.beanFactory = beanFactory;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    for (String beanName : beanFactory.getBeanNamesForType(Object.class, false, false)) {
+      Class<?> type = beanFactory.getType(beanName, false);
+      if (type != null && hasToolAnnotation(ClassUtils.getUserClass(type))) {
+        String toolName = ClassUtils.getUserClass(type).getSimpleName();
+        availableTools.put(toolName, beanFactory.getBean(beanName));
+        log.debug("注册工具: {}", toolName);
       }
     }
-    
+
     log.info("ToolManager初始化完成，已注册 {} 个工具", availableTools.size());
   }
 
@@ -55,13 +61,7 @@ public class DefaultToolManager implements ToolManager {
     return tools;
   }
 
-  private boolean hasToolAnnotation(Object bean) {
-    Class<?> clazz = bean.getClass();
-    
-    if (clazz.getSimpleName().contains("CGLIB")) {
-      clazz = clazz.getSuperclass();
-    }
-    
+  private boolean hasToolAnnotation(Class<?> clazz) {
     return java.util.Arrays.stream(clazz.getMethods())
         .anyMatch(
             method ->
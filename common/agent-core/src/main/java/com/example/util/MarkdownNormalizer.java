@@ -1,37 +1,573 @@
 package com.example.util;
 
+/**
+ * 模型输出的Markdown规范化：补全行首列表空格、拆分行内拼接的列表项、加粗小标题换行、
+ * 补齐未闭合的代码块，并在列表与加粗小标题前后补空行。
+ *
+ * <p>按字符单遍处理：各规则是串联的小状态机，每条规则只缓存判定所需的最少字符
+ * （加粗小标题规则最多缓存到行尾），不产生中间字符串。{@link #incremental()} 可在流式输出时
+ * 逐片段喂入，片段边界上的行首、代码块计数等状态自动延续，结束时无需再整体扫描。
+ */
 public class MarkdownNormalizer {
 
-  private static final java.util.regex.Pattern INLINE_BULLET = java.util.regex.Pattern.compile("(?m)^-\\S");
-  private static final java.util.regex.Pattern INLINE_CONCAT_LIST =
-      java.util.regex.Pattern.compile("(?<!^)\\S-([\\u4e00-\\u9fa5A-Za-z])");
-  private static final java.util.regex.Pattern BOLD_AT_MIDLN_HEADING =
-      java.util.regex.Pattern.compile("(?<!\\n)\\*\\*([\\u4e00-\\u9fa5A-Za-z0-9：:（）()\u3000\s]{2,40})\\*\\*(?=\\n|$)");
+  private static final int NEED_MORE = -1;
+  private static final int NO_MATCH = 0;
+  /** 加粗小标题内容的最大长度 */
+  private static final int MAX_HEADING_CHARS = 40;
 
   public static String normalize(String text) {
-    if (text == null || text.isBlank()) return text;
-    String s = text;
-    s = INLINE_BULLET.matcher(s).replaceAll(m -> m.group().charAt(0) + " " + m.group().substring(1));
-    s = INLINE_CONCAT_LIST.matcher(s).replaceAll("\n- $1");
-    s = BOLD_AT_MIDLN_HEADING.matcher(s).replaceAll("\n**$1**");
-    int fences = countOccurrences(s, "```\n");
-    fences += countOccurrences(s, "```");
-    if ((fences % 2) == 1) {
-      s = s + "\n```\n";
-    }
-    s = s.replaceAll("(?m)([^\n])\n(- )", "$1\n\n$2");
-    s = s.replaceAll("(?m)([^\n])\n(\\*\\*[^\n]+\\*\\*)$", "$1\n\n$2");
-    s = s.replaceAll("(?m)^(\\*\\*[^\n]+\\*\\*)\n(?!\n)", "$1\n\n");
-    return s;
-  }
-
-  private static int countOccurrences(String s, String sub) {
-    int count = 0, idx = 0;
-    while ((idx = s.indexOf(sub, idx)) != -1) {
-      count++;
-      idx += sub.length();
-    }
-    return count;
+    if (text == null || text.isBlank()) {
+      return text;
+    }
+    Incremental normalizer = new Incremental(text.length() + 16);
+    normalizer.feed(text);
+    normalizer.head.finish();
+    return normalizer.out.toString();
   }
-}
 
+  /** 创建流式规范化器 */
+  public static Incremental incremental() {
+    return new Incremental(256);
+  }
+
+  /**
+   * 流式规范化器：append 返回本次已确定的输出，finish 返回剩余输出；
+   * 所有返回值按序拼接等于对完整文本调用 {@link #normalize(String)} 的结果。非线程安全。
+   */
+  public static final class Incremental {
+    private final StringBuilder out;
+    private final Stage head;
+    private final Stage[] stages;
+    private int drained;
+    private boolean finished;
+
+    private Incremental(int capacity) {
+      this.out = new StringBuilder(capacity);
+      Stage tail = new Sink(out);
+      tail = new BoldHeadingSpacing(tail);
+      tail = new BoldLineSpacing(tail);
+      tail = new ListSpacing(tail);
+      tail = new FenceCloser(tail);
+      tail = new BoldHeadingBreak(tail);
+      tail = new InlineListSplit(tail);
+      this.head = new InlineBullet(tail);
+      this.stages = new Stage[7];
+      Stage stage = head;
+      for (int i = 0; i < stages.length; i++, stage = stage.next) {
+        stages[i] = stage;
+      }
+    }
+
+    public String append(CharSequence chunk) {
+      if (finished) {
+        throw new IllegalStateException("normalizer already finished");
+      }
+      feed(chunk);
+      return drain();
+    }
+
+    public String finish() {
+      if (!finished) {
+        finished = true;
+        head.finish();
+      }
+      return drain();
+    }
+
+    private void feed(CharSequence chunk) {
+      int length = chunk.length();
+      int i = 0;
+      while (i < length) {
+        // 快速路径：各环节无待定字符时，普通字符（且其后仍是普通字符）不会触发任何规则，直接输出
+        int end = i;
+        while (end + 1 < length && isPlain(chunk.charAt(end)) && isPlain(chunk.charAt(end + 1))) {
+          end++;
+        }
+        if (end > i && idle()) {
+          out.append(chunk, i, end);
+          for (Stage stage : stages) {
+            stage.skipped(chunk.charAt(end - 1));
+          }
+          i = end;
+        }
+        head.accept(chunk.charAt(i));
+        i++;
+      }
+    }
+
+    private boolean idle() {
+      for (Stage stage : stages) {
+        if (!stage.idle()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private String drain() {
+      String result = out.substring(drained);
+      drained = out.length();
+      return result;
+    }
+  }
+
+  /** 处理环节：接收上一环节的输出字符 */
+  private abstract static class Stage {
+    final Stage next;
+
+    Stage(Stage next) {
+      this.next = next;
+    }
+
+    abstract void accept(char c);
+
+    abstract void finish();
+
+    /** 没有待定字符 */
+    boolean idle() {
+      return true;
+    }
+
+    /** 快速路径跳过了一段普通字符，last 为其最后一个字符 */
+    void skipped(char last) {}
+
+    void emit(char c) {
+      next.accept(c);
+    }
+
+    void emit(CharSequence text) {
+      for (int i = 0; i < text.length(); i++) {
+        next.accept(text.charAt(i));
+      }
+    }
+  }
+
+  private static final class Sink extends Stage {
+    private final StringBuilder out;
+
+    Sink(StringBuilder out) {
+      super(null);
+      this.out = out;
+    }
+
+    @Override
+    void accept(char c) {
+      out.append(c);
+    }
+
+    @Override
+    void finish() {}
+  }
+
+  /**
+   * 按正则 replaceAll 语义逐位置尝试匹配的环节：匹配成功时输出替换并跳过已消费字符，
+   * 否则原样输出当前字符；lookbehind 使用本环节输入中的前一个字符。
+   */
+  private abstract static class MatchStage extends Stage {
+    private final StringBuilder buf = new StringBuilder();
+    private int start;
+    /** 当前缓冲首字符之前的输入字符，-1 表示输入开头 */
+    int prev = -1;
+    /** prev 已被上一次匹配消费（不可再作为下一次匹配的首个捕获字符） */
+    boolean prevMatched;
+    /** 候选匹配需要等到换行符才能判定 */
+    boolean awaitNewline;
+
+    MatchStage(Stage next) {
+      super(next);
+    }
+
+    /**
+     * 尝试在缓冲首字符处匹配。
+     *
+     * @return 消费的字符数（已输出替换），{@link #NO_MATCH} 或 {@link #NEED_MORE}
+     */
+    abstract int match(boolean eof);
+
+    @Override
+    void accept(char c) {
+      buf.append(c);
+      if (awaitNewline && c != '\n') {
+        return;
+      }
+      awaitNewline = false;
+      drain(false);
+    }
+
+    @Override
+    void finish() {
+      awaitNewline = false;
+      drain(true);
+      next.finish();
+    }
+
+    private void drain(boolean eof) {
+      while (start < buf.length()) {
+        int consumed = match(eof);
+        if (consumed == NEED_MORE) {
+          break;
+        }
+        if (consumed == NO_MATCH) {
+          char c = buf.charAt(start);
+          emit(c);
+          prev = c;
+          prevMatched = false;
+          start++;
+        } else {
+          prev = buf.charAt(start + consumed - 1);
+          prevMatched = true;
+          start += consumed;
+        }
+      }
+      if (start == buf.length()) {
+        buf.setLength(0);
+        start = 0;
+      } else if (start > 1024 && start > buf.length() / 2) {
+        buf.delete(0, start);
+        start = 0;
+      }
+    }
+
+    /** 缓冲中首字符之后第 offset 个字符，不存在时返回 -1 */
+    int at(int offset) {
+      int index = start + offset;
+      return index < buf.length() ? buf.charAt(index) : -1;
+    }
+
+    int available() {
+      return buf.length() - start;
+    }
+
+    /** 第一个 '\n' 相对首字符的偏移，不存在时返回 -1 */
+    int newlineFrom(int offset) {
+      int index = buf.indexOf("\n", start + offset);
+      return index < 0 ? -1 : index - start;
+    }
+
+    @Override
+    boolean idle() {
+      return start == buf.length();
+    }
+
+    @Override
+    void skipped(char last) {
+      prev = last;
+      prevMatched = false;
+    }
+
+    void emitRange(int from, int to) {
+      emit(buf.subSequence(start + from, start + to));
+    }
+  }
+
+  /** 行首 "-X" 补为 "- X"：(?m)^-\S */
+  private static final class InlineBullet extends MatchStage {
+    InlineBullet(Stage next) {
+      super(next);
+    }
+
+    @Override
+    int match(boolean eof) {
+      if (at(0) != '-' || !(prev == -1 || isLineTerminator(prev))) {
+        return NO_MATCH;
+      }
+      int c = at(1);
+      if (c == -1) {
+        return eof ? NO_MATCH : NEED_MORE;
+      }
+      if (isWhitespace(c)) {
+        return NO_MATCH;
+      }
+      emit("- ");
+      emit((char) c);
+      return 2;
+    }
+  }
+
+  /** 行内 "X-列表项" 拆为新的列表行：(?<!^)\S-([一-龥A-Za-z]) */
+  private static final class InlineListSplit extends MatchStage {
+    InlineListSplit(Stage next) {
+      super(next);
+    }
+
+    @Override
+    int match(boolean eof) {
+      if (prev == -1 || isWhitespace(at(0))) {
+        return NO_MATCH;
+      }
+      int dash = at(1);
+      if (dash == -1) {
+        return eof ? NO_MATCH : NEED_MORE;
+      }
+      if (dash != '-') {
+        return NO_MATCH;
+      }
+      int item = at(2);
+      if (item == -1) {
+        return eof ? NO_MATCH : NEED_MORE;
+      }
+      if (!isListItemStart(item)) {
+        return NO_MATCH;
+      }
+      emit("\n- ");
+      emit((char) item);
+      return 3;
+    }
+  }
+
+  /** 行中的加粗短标题移到新行：(?<!\n)\*\*([标题字符]{2,40})\*\*(?=\n|$) */
+  private static final class BoldHeadingBreak extends MatchStage {
+    BoldHeadingBreak(Stage next) {
+      super(next);
+    }
+
+    @Override
+    int match(boolean eof) {
+      if (prev == '\n' || at(0) != '*') {
+        return NO_MATCH;
+      }
+      int c = at(1);
+      if (c != '*') {
+        return c == -1 && !eof ? NEED_MORE : NO_MATCH;
+      }
+      int end = 2;
+      while (end - 2 <= MAX_HEADING_CHARS && isHeadingChar(at(end))) {
+        end++;
+      }
+      int length = end - 2;
+      if (length > MAX_HEADING_CHARS) {
+        return NO_MATCH;
+      }
+      if (at(end) == -1) {
+        return eof ? NO_MATCH : NEED_MORE;
+      }
+      if (length < 2 || at(end) != '*') {
+        return NO_MATCH;
+      }
+      int close = at(end + 1);
+      if (close != '*') {
+        return close == -1 && !eof ? NEED_MORE : NO_MATCH;
+      }
+      int lookahead = atEndOfLine(end + 2, eof);
+      if (lookahead != end + 2) {
+        return lookahead;
+      }
+      emit("\n**");
+      emitRange(2, end);
+      emit("**");
+      return end + 2;
+    }
+
+    /**
+     * 判定 (?=\n|$)：offset 处为 '\n'，或其后只剩一个行结束符/输入结束。
+     * 成立时返回 offset，不成立返回 NO_MATCH，无法判定返回 NEED_MORE。
+     */
+    private int atEndOfLine(int offset, boolean eof) {
+      int c = at(offset);
+      if (c == -1) {
+        return eof ? offset : NEED_MORE;
+      }
+      if (c == '\n') {
+        return offset;
+      }
+      if (!isLineTerminator(c)) {
+        return NO_MATCH;
+      }
+      int after = offset + 1;
+      if (c == '\r' && at(after) == '\n') {
+        after++;
+      }
+      if (at(after) != -1) {
+        return NO_MATCH;
+      }
+      if (!eof) {
+        // "\r" 之后可能还有 "\n"，需等待更多输入
+        return NEED_MORE;
+      }
+      return offset;
+    }
+  }
+
+  /** 统计代码块围栏，结束时围栏数为奇数则补一个闭合围栏 */
+  private static final class FenceCloser extends Stage {
+    private int backticks;
+    private int fences;
+
+    FenceCloser(Stage next) {
+      super(next);
+    }
+
+    @Override
+    void accept(char c) {
+      if (c == '`') {
+        backticks++;
+      } else {
+        // 与 indexOf("```\n") 和 indexOf("```") 的不重叠计数一致
+        if (c == '\n' && backticks >= 3) {
+          fences++;
+        }
+        fences += backticks / 3;
+        backticks = 0;
+      }
+      emit(c);
+    }
+
+    @Override
+    boolean idle() {
+      return backticks == 0;
+    }
+
+    @Override
+    void finish() {
+      fences += backticks / 3;
+      backticks = 0;
+      if (fences % 2 == 1) {
+        emit("\n```\n");
+      }
+      next.finish();
+    }
+  }
+
+  /**
+   * 列表项前补空行：([^\n])\n(- ) -> $1\n\n$2
+   * 捕获的首字符原样保留，等价于以换行为起点、前一字符作 lookbehind（该字符未被上次匹配消费）。
+   */
+  private static final class ListSpacing extends MatchStage {
+    ListSpacing(Stage next) {
+      super(next);
+    }
+
+    @Override
+    int match(boolean eof) {
+      if (at(0) != '\n' || prev == -1 || prev == '\n' || prevMatched) {
+        return NO_MATCH;
+      }
+      for (int i = 1; i < 3; i++) {
+        int c = at(i);
+        if (c == -1) {
+          return eof ? NO_MATCH : NEED_MORE;
+        }
+        if (c != "- ".charAt(i - 1)) {
+          return NO_MATCH;
+        }
+      }
+      emit("\n\n- ");
+      return 3;
+    }
+  }
+
+  /** 独占一行的加粗内容前补空行：(?m)([^\n])\n(\*\*[^\n]+\*\*)$ -> $1\n\n$2，首字符处理同 ListSpacing */
+  private static final class BoldLineSpacing extends MatchStage {
+    BoldLineSpacing(Stage next) {
+      super(next);
+    }
+
+    @Override
+    int match(boolean eof) {
+      if (at(0) != '\n' || prev == -1 || prev == '\n' || prevMatched) {
+        return NO_MATCH;
+      }
+      for (int i = 1; i < 3; i++) {
+        int c = at(i);
+        if (c == -1) {
+          return eof ? NO_MATCH : NEED_MORE;
+        }
+        if (c != '*') {
+          return NO_MATCH;
+        }
+      }
+      int lineEnd = newlineFrom(3);
+      if (lineEnd < 0) {
+        if (!eof) {
+          awaitNewline = true;
+          return NEED_MORE;
+        }
+        lineEnd = available();
+      }
+      // [^\n]+ 贪婪匹配：取行内最靠后的、其后为行结束位置的 "**"
+      for (int end = lineEnd; end >= 6; end--) {
+        if (at(end - 2) == '*'
+            && at(end - 1) == '*'
+            && (end == lineEnd || isLineTerminator(at(end)))) {
+          emit("\n\n");
+          emitRange(1, end);
+          return end;
+        }
+      }
+      return NO_MATCH;
+    }
+  }
+
+  /** 行首加粗行之后补空行：(?m)^(\*\*[^\n]+\*\*)\n(?!\n) -> $1\n\n */
+  private static final class BoldHeadingSpacing extends MatchStage {
+    BoldHeadingSpacing(Stage next) {
+      super(next);
+    }
+
+    @Override
+    int match(boolean eof) {
+      if (!(prev == -1 || isLineTerminator(prev)) || at(0) != '*') {
+        return NO_MATCH;
+      }
+      int c = at(1);
+      if (c != '*') {
+        return c == -1 && !eof ? NEED_MORE : NO_MATCH;
+      }
+      int lineEnd = newlineFrom(2);
+      if (lineEnd < 0) {
+        if (eof) {
+          return NO_MATCH;
+        }
+        awaitNewline = true;
+        return NEED_MORE;
+      }
+      if (lineEnd < 5 || at(lineEnd - 2) != '*' || at(lineEnd - 1) != '*') {
+        return NO_MATCH;
+      }
+      int after = at(lineEnd + 1);
+      if (after == -1 && !eof) {
+        return NEED_MORE;
+      }
+      if (after == '\n') {
+        return NO_MATCH;
+      }
+      emitRange(0, lineEnd);
+      emit("\n\n");
+      return lineEnd + 1;
+    }
+  }
+
+  /** 不参与任何规则判定的字符 */
+  private static boolean isPlain(char c) {
+    return c != '-' && c != '*' && c != '`' && !isLineTerminator(c);
+  }
+
+  /** 与正则 \s 一致 */
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+  }
+
+  /** 与正则多行模式的行结束符一致 */
+  private static boolean isLineTerminator(int c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == 0x2028 || c == 0x2029;
+  }
+
+  private static boolean isListItemStart(int c) {
+    return (c >= '\u4e00' && c <= '\u9fa5') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+  }
+
+  private static boolean isHeadingChar(int c) {
+    return (c >= '\u4e00' && c <= '\u9fa5')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= 'a' && c <= 'z')
+        || (c >= '0' && c <= '9')
+        || c == '：'
+        || c == ':'
+        || c == '（'
+        || c == '）'
+        || c == '('
+        || c == ')'
+        || c == '\u3000'
+        || c == ' ';
+  }
+}
@@ -0,0 +1,39 @@
+package com.example.util;
+
+/**
+ * 粗略的token数估算：CJK字符按每字 1 token，其余字符按每 4 字符 1 token。
+ * 仅用于限流预留，实际用量以provider返回的usage为准。
+ */
+public class TokenEstimator {
+
+  private TokenEstimator() {
+    throw new UnsupportedOperationException("Utility class");
+  }
+
+  public static int estimate(CharSequence text) {
+    if (text == null || text.length() == 0) {
+      return 0;
+    }
+    int cjk = 0;
+    int other = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (isCjk(text.charAt(i))) {
+        cjk++;
+      } else {
+        other++;
+      }
+    }
+    return cjk + (other + 3) / 4;
+  }
+
+  private static boolean isCjk(char c) {
+    Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
+    return block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+        || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+        || block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+        || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS
+        || block == Character.UnicodeBlock.HIRAGANA
+        || block == Character.UnicodeBlock.KATAKANA
+        || block == Character.UnicodeBlock.HANGUL_SYLLABLES;
+  }
+}
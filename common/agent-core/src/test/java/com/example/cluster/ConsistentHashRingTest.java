@@ -0,0 +1,83 @@
+package com.example.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ConsistentHashRing 成员变化时的归属稳定性：只有移入新节点或移出离开节点的会话改变归属
+ */
+class ConsistentHashRingTest {
+
+  private static final int VIRTUAL_NODES = 160;
+  private static final long CONVERSATIONS = 20_000;
+
+  @Test
+  void joiningNodeOnlyTakesConversationsForItself() {
+    ConsistentHashRing before = ConsistentHashRing.of(List.of("a", "b", "c"), VIRTUAL_NODES);
+    ConsistentHashRing after = ConsistentHashRing.of(List.of("a", "b", "c", "d"), VIRTUAL_NODES);
+
+    long moved = 0;
+    for (long id = 1; id <= CONVERSATIONS; id++) {
+      String previous = before.ownerOf(id);
+      String current = after.ownerOf(id);
+      if (!previous.equals(current)) {
+        assertEquals("d", current, "会话 " + id + " 在既有节点之间迁移");
+        moved++;
+      }
+    }
+    // 新节点接手约 1/4 的会话
+    assertFraction(moved, 0.25);
+  }
+
+  @Test
+  void leavingNodeOnlyReleasesItsOwnConversations() {
+    ConsistentHashRing before = ConsistentHashRing.of(List.of("a", "b", "c", "d"), VIRTUAL_NODES);
+    ConsistentHashRing after = ConsistentHashRing.of(List.of("a", "b", "c"), VIRTUAL_NODES);
+
+    long moved = 0;
+    for (long id = 1; id <= CONVERSATIONS; id++) {
+      String previous = before.ownerOf(id);
+      String current = after.ownerOf(id);
+      if (!previous.equals(current)) {
+        assertEquals("d", previous, "会话 " + id + " 的持有节点未离开却改变了归属");
+        moved++;
+      }
+    }
+    assertFraction(moved, 0.25);
+  }
+
+  @Test
+  void ownershipIsIndependentOfMemberOrderAndSpreadAcrossNodes() {
+    ConsistentHashRing ring = ConsistentHashRing.of(List.of("a", "b", "c"), VIRTUAL_NODES);
+    ConsistentHashRing reordered = ConsistentHashRing.of(List.of("c", "a", "b"), VIRTUAL_NODES);
+
+    Map<String, Long> owned = new HashMap<>();
+    for (long id = 1; id <= CONVERSATIONS; id++) {
+      assertEquals(ring.ownerOf(id), reordered.ownerOf(id));
+      owned.merge(ring.ownerOf(id), 1L, Long::sum);
+    }
+    // 自增会话ID经混合后均匀上环
+    owned.values().forEach(count -> assertFraction(count, 1.0 / 3));
+  }
+
+  @Test
+  void emptyRingHasNoOwner() {
+    ConsistentHashRing ring = ConsistentHashRing.of(List.of(), VIRTUAL_NODES);
+
+    assertTrue(ring.isEmpty());
+    assertNull(ring.ownerOf(1L));
+  }
+
+  private static void assertFraction(long count, double expected) {
+    double actual = (double) count / CONVERSATIONS;
+    assertTrue(
+        Math.abs(actual - expected) < expected * 0.3,
+        String.format("占比 %.3f 偏离期望 %.3f", actual, expected));
+  }
+}
@@ -0,0 +1,102 @@
+package com.example.replay;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Assumptions;
+
+/**
+ * 回放回归基线
+ *
+ * <p>基线是同一组录制、同一负载在参考机器上的测量值，预算由基线加容差派生：
+ * <ul>
+ *   <li>p99 不高于基线 ×(1 + replay.tolerance.latency)，默认 0.5</li>
+ *   <li>吞吐不低于基线 ×(1 - replay.tolerance.throughput)，默认 0.3</li>
+ *   <li>单请求分配不高于基线 ×(1 + replay.tolerance.allocation)，默认 0.2；分配与机器无关，容差最紧</li>
+ * </ul>
+ * 吞吐与 p99 是墙钟测量，随机器而变：提交的基线只对参考机器有效，不应在 CI 共享节点或开发机上直接比较。
+ * 在其他机器上评估改动时，先在改动前的提交上以 -Dreplay.baseline.update=true 运行生成本地基线（不提交），
+ * 再在改动后运行校验。
+ */
+public record ReplayBaseline(
+    double throughputPerSecond, long p99Ms, double allocatedBytesPerRequest) {
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+  /**
+   * 按基线校验一轮测量结果；刷新基线模式下写入结果后跳过测试
+   *
+   * @param file 基线文件，相对模块目录，如 src/test/resources/replay/baseline.json
+   */
+  public static void verify(Path file, ReplayLoadRunner.Result result) {
+    assertEquals(0, result.failures(), "回放请求出现失败: " + result);
+    assertFalse(Double.isNaN(result.allocatedBytesPerRequest()), "未采样到请求分配，检查 ai.profiling 配置");
+
+    ReplayBaseline measured =
+        new ReplayBaseline(
+            result.throughputPerSecond(), result.p99Ms(), result.allocatedBytesPerRequest());
+    if (Boolean.getBoolean("replay.baseline.update")) {
+      measured.save(file);
+      Assumptions.abort("已刷新回放基线: " + file + " -> " + measured);
+    }
+    assertTrue(Files.exists(file), "缺少回放基线 " + file + "，以 -Dreplay.baseline.update=true 运行生成");
+
+    ReplayBaseline baseline = load(file);
+    double throughputFloor =
+        baseline.throughputPerSecond * (1 - tolerance("replay.tolerance.throughput", 0.3));
+    double p99Ceiling = baseline.p99Ms * (1 + tolerance("replay.tolerance.latency", 0.5));
+    double allocationCeiling =
+        baseline.allocatedBytesPerRequest * (1 + tolerance("replay.tolerance.allocation", 0.2));
+    assertAll(
+        () ->
+            assertTrue(
+                measured.throughputPerSecond >= throughputFloor,
+                String.format(
+                    "吞吐 %.2f req/s 低于预算 %.2f（基线 %.2f）",
+                    measured.throughputPerSecond, throughputFloor, baseline.throughputPerSecond)),
+        () ->
+            assertTrue(
+                measured.p99Ms <= p99Ceiling,
+                String.format(
+                    "p99 %dms 超出预算 %.0fms（基线 %dms）", measured.p99Ms, p99Ceiling, baseline.p99Ms)),
+        () ->
+            assertTrue(
+                measured.allocatedBytesPerRequest <= allocationCeiling,
+                String.format(
+                    "单请求分配 %.0f bytes 超出预算 %.0f（基线 %.0f）",
+                    measured.allocatedBytesPerRequest,
+                    allocationCeiling,
+                    baseline.allocatedBytesPerRequest)));
+  }
+
+  static ReplayBaseline load(Path file) {
+    try {
+      return MAPPER.readValue(file.toFile(), ReplayBaseline.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException("读取回放基线失败: " + file, e);
+    }
+  }
+
+  void save(Path file) {
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      MAPPER.writeValue(file.toFile(), this);
+    } catch (IOException e) {
+      throw new UncheckedIOException("写入回放基线失败: " + file, e);
+    }
+  }
+
+  private static double tolerance(String property, double defaultValue) {
+    String value = System.getProperty(property);
+    return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value);
+  }
+}
@@ -0,0 +1,126 @@
+package com.example.replay;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 回放回归的负载驱动
+ *
+ * <p>以固定并发发出一组流式请求并读完各自的事件流，统计吞吐、p99 与单请求分配字节数。
+ * 分配取自 RequestResourceTracker 发布的 ai.request.allocated.bytes（stage=total），
+ * 被测应用需以 ai.profiling.enabled=true、ai.profiling.sample-rate=1 启动。
+ * 与前端一致，收到 end 或 error 事件即视为请求结束；事件流出错或包含 error 事件的请求计为失败。
+ */
+public final class ReplayLoadRunner {
+
+  private static final String END = "end";
+  private static final String ERROR = "error";
+  private static final String ALLOCATED_BYTES = "ai.request.allocated.bytes";
+  private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+
+  private ReplayLoadRunner() {}
+
+  /**
+   * 执行一轮负载
+   *
+   * @param requests 请求数
+   * @param concurrency 并发数
+   * @param request 按序号发出一次请求，返回其SSE事件流
+   * @param meterRegistry 被测应用的指标注册表
+   * @param operation RequestResourceTracker 的 operation 标签，如 chat / novel
+   */
+  public static Result run(
+      int requests,
+      int concurrency,
+      IntFunction<Flux<ServerSentEvent<String>>> request,
+      MeterRegistry meterRegistry,
+      String operation) {
+    Allocation before = Allocation.of(meterRegistry, operation);
+    List<Long> latencies = Collections.synchronizedList(new ArrayList<>(requests));
+    AtomicInteger failures = new AtomicInteger();
+
+    long start = System.nanoTime();
+    Flux.range(0, requests)
+        .flatMap(
+            i ->
+                Mono.defer(
+                    () -> {
+                      long begin = System.nanoTime();
+                      return request
+                          .apply(i)
+                          .takeUntil(
+                              event -> END.equals(event.event()) || ERROR.equals(event.event()))
+                          .any(event -> ERROR.equals(event.event()))
+                          .timeout(REQUEST_TIMEOUT)
+                          .onErrorReturn(true)
+                          .doOnNext(
+                              failed -> {
+                                latencies.add(System.nanoTime() - begin);
+                                if (failed) {
+                                  failures.incrementAndGet();
+                                }
+                              });
+                    }),
+            concurrency)
+        .blockLast();
+    long elapsed = System.nanoTime() - start;
+
+    Allocation after = Allocation.of(meterRegistry, operation);
+    long sampled = after.count - before.count;
+    double allocatedPerRequest =
+        sampled > 0 ? (after.totalBytes - before.totalBytes) / sampled : Double.NaN;
+    return new Result(
+        requests,
+        failures.get(),
+        requests / (elapsed / 1_000_000_000.0),
+        percentileMs(latencies, 0.99),
+        allocatedPerRequest);
+  }
+
+  private static long percentileMs(List<Long> nanos, double percentile) {
+    List<Long> sorted = new ArrayList<>(nanos);
+    if (sorted.isEmpty()) {
+      return 0;
+    }
+    Collections.sort(sorted);
+    int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+    return Duration.ofNanos(sorted.get(Math.max(0, index))).toMillis();
+  }
+
+  /**
+   * 一轮负载的测量结果
+   *
+   * @param allocatedBytesPerRequest 采样请求的平均分配字节数，未采样到请求时为 NaN
+   */
+  public record Result(
+      int requests,
+      int failures,
+      double throughputPerSecond,
+      long p99Ms,
+      double allocatedBytesPerRequest) {}
+
+  /** ai.request.allocated.bytes 在某一时刻的累计值 */
+  private record Allocation(long count, double totalBytes) {
+
+    static Allocation of(MeterRegistry meterRegistry, String operation) {
+      DistributionSummary summary =
+          meterRegistry
+              .find(ALLOCATED_BYTES)
+              .tag("operation", operation)
+              .tag("stage", "total")
+              .summary();
+      return summary == null
+          ? new Allocation(0, 0)
+          : new Allocation(summary.count(), summary.totalAmount());
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.example.sse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.config.SseReplayProperties;
+import com.example.dto.stream.ChatEvent;
+import com.example.handler.ChatErrorHandler;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+/**
+ * SseReplayRegistry 续传：缓冲内续传、缓冲外缺口、跨会话续传、生成结束后清理与断开宽限期
+ */
+class SseReplayRegistryTest {
+
+  private static final long CONVERSATION_ID = 7L;
+  private static final Duration VERIFY_TIMEOUT = Duration.ofSeconds(5);
+
+  private final SseReplayProperties properties = new SseReplayProperties();
+  private final Sinks.Many<ChatEvent> source = Sinks.many().unicast().onBackpressureBuffer();
+
+  private SseReplayRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    ChatErrorHandler errorHandler = mock(ChatErrorHandler.class);
+    when(errorHandler.getErrorMessage(any())).thenReturn("生成失败，请稍后重试");
+    registry = new SseReplayRegistry(properties, errorHandler);
+  }
+
+  @Test
+  void resumesFromTheEventAfterLastEventIdInsideTheBuffer() {
+    List<ServerSentEvent<Object>> received =
+        firstClientReceives(ChatEvent.start("开始"), ChatEvent.chunk("你"), ChatEvent.chunk("好"));
+
+    String lastEventId = received.get(1).id();
+    StepVerifier.create(registry.resume(CONVERSATION_ID, lastEventId))
+        .assertNext(event -> assertChunk(event, "好", received.get(2).id()))
+        .then(() -> source.tryEmitNext(ChatEvent.chunk("！")))
+        .assertNext(event -> assertChunk(event, "！", SseEventMapper.eventId(generationOf(event), 3)))
+        .then(() -> source.tryEmitNext(ChatEvent.end(1L)))
+        .then(source::tryEmitComplete)
+        .assertNext(event -> assertEquals("end", event.event()))
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+  }
+
+  @Test
+  void reportsAGapWhenLastEventIdIsOlderThanTheBuffer() {
+    properties.setBufferSize(2);
+    List<ServerSentEvent<Object>> received = firstClientReceives(ChatEvent.start("开始"));
+    // 客户端断开期间继续生成，最早的事件被挤出容量为 2 的回放缓冲
+    source.tryEmitNext(ChatEvent.chunk("一"));
+    source.tryEmitNext(ChatEvent.chunk("二"));
+    source.tryEmitNext(ChatEvent.chunk("三"));
+
+    StepVerifier.create(registry.resume(CONVERSATION_ID, received.get(0).id()))
+        .assertNext(event -> assertError(event, SseReplayRegistry.RESUME_GAP))
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+  }
+
+  @Test
+  void refusesToResumeAGenerationOfAnotherConversation() {
+    List<ServerSentEvent<Object>> received =
+        firstClientReceives(ChatEvent.start("开始"), ChatEvent.chunk("私密内容"));
+
+    StepVerifier.create(registry.resume(CONVERSATION_ID + 1, received.get(0).id()))
+        .assertNext(event -> assertError(event, SseReplayRegistry.RESUME_EXPIRED))
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+  }
+
+  @Test
+  void evictsTheGenerationOnceTheTtlAfterCompletionElapses() throws InterruptedException {
+    properties.setTtl(Duration.ofMillis(100));
+    List<ServerSentEvent<Object>> received =
+        firstClientReceives(ChatEvent.start("开始"), ChatEvent.chunk("完"));
+    source.tryEmitComplete();
+    String lastEventId = received.get(0).id();
+
+    // TTL 内仍可从缓冲回放已结束的生成
+    StepVerifier.create(registry.resume(CONVERSATION_ID, lastEventId))
+        .assertNext(event -> assertChunk(event, "完", received.get(1).id()))
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+
+    Thread.sleep(500);
+    StepVerifier.create(registry.resume(CONVERSATION_ID, lastEventId))
+        .assertNext(event -> assertError(event, SseReplayRegistry.RESUME_EXPIRED))
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+  }
+
+  @Test
+  void cancelsTheGenerationWhenNoClientReattachesWithinTheGrace() throws InterruptedException {
+    properties.setDetachGrace(Duration.ofMillis(100));
+    AtomicBoolean cancelled = new AtomicBoolean();
+    Flux<ChatEvent> generation = source.asFlux().doOnCancel(() -> cancelled.set(true));
+    String[] lastEventId = new String[1];
+
+    StepVerifier.create(registry.start(CONVERSATION_ID, generation))
+        .then(() -> source.tryEmitNext(ChatEvent.start("开始")))
+        .assertNext(event -> lastEventId[0] = event.id())
+        .thenCancel()
+        .verify(VERIFY_TIMEOUT);
+    Thread.sleep(500);
+
+    assertTrue(cancelled.get(), "宽限期后生成未被取消");
+    StepVerifier.create(registry.resume(CONVERSATION_ID, lastEventId[0]))
+        .assertNext(event -> assertError(event, SseReplayRegistry.RESUME_EXPIRED))
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+  }
+
+  @Test
+  void surfacesGenerationErrorsThroughTheErrorHandler() {
+    StepVerifier.create(registry.start(CONVERSATION_ID, source.asFlux()))
+        .then(() -> source.tryEmitError(new IllegalStateException("jdbc://secret")))
+        .assertNext(
+            event -> {
+              assertEquals("error", event.event());
+              ChatEvent.ErrorPayload error = (ChatEvent.ErrorPayload) event.data();
+              assertEquals("生成失败，请稍后重试", error.getMessage());
+            })
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+  }
+
+  /** 首个客户端收到给定事件后断开，生成继续在后台运行 */
+  private List<ServerSentEvent<Object>> firstClientReceives(ChatEvent... events) {
+    Flux<ServerSentEvent<Object>> first = registry.start(CONVERSATION_ID, source.asFlux());
+    for (ChatEvent event : events) {
+      source.tryEmitNext(event);
+    }
+    return first.take(events.length).collectList().block(VERIFY_TIMEOUT);
+  }
+
+  private static void assertChunk(ServerSentEvent<Object> event, String content, String id) {
+    assertEquals("chunk", event.event());
+    assertEquals(content, ((ChatEvent.ChunkPayload) event.data()).getContent());
+    assertEquals(id, event.id());
+  }
+
+  private static void assertError(ServerSentEvent<Object> event, String code) {
+    assertEquals("error", event.event());
+    assertEquals(code, ((ChatEvent.ErrorPayload) event.data()).getCode());
+  }
+
+  private static String generationOf(ServerSentEvent<Object> event) {
+    return SseEventMapper.generationIdOf(event.id());
+  }
+}
@@ -0,0 +1,147 @@
+package com.example.stream.limit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.example.config.ConcurrencyLimitProperties;
+import com.example.dto.stream.ChatEvent;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+/**
+ * AdaptiveConcurrencyLimiter 许可获取、释放、排队、拒绝与 limit 调整
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final Duration VERIFY_TIMEOUT = Duration.ofSeconds(5);
+
+  private final ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+
+  @BeforeEach
+  void setUp() {
+    properties.setEnabled(true);
+    properties.setInitialLimit(1);
+    properties.setMinLimit(1);
+    properties.setRetryAfterMs(2500);
+  }
+
+  @Test
+  void rejectsWithRetryAfterWhenLimitIsReachedAndQueueIsFull() {
+    AdaptiveConcurrencyLimiter limiter = limiter();
+    Sinks.Many<ChatEvent> held = Sinks.many().unicast().onBackpressureBuffer();
+
+    StepVerifier.create(limiter.guard(held::asFlux))
+        .then(() -> assertEquals(1, limiter.getInflight()))
+        .then(
+            () ->
+                StepVerifier.create(limiter.guard(() -> Flux.just(ChatEvent.chunk("不应执行"))))
+                    .assertNext(
+                        event -> {
+                          ChatEvent.ErrorPayload error = (ChatEvent.ErrorPayload) event.getPayload();
+                          assertEquals(ChatEvent.ChatEventType.ERROR, event.getType());
+                          assertEquals(AdaptiveConcurrencyLimiter.OVERLOADED, error.getCode());
+                          assertEquals(2500L, error.getRetryAfterMs());
+                        })
+                    .verifyComplete())
+        .then(held::tryEmitComplete)
+        .verifyComplete();
+    assertEquals(0, limiter.getInflight());
+  }
+
+  @Test
+  void releasesThePermitWhenTheSubscriberCancels() {
+    AdaptiveConcurrencyLimiter limiter = limiter();
+
+    StepVerifier.create(limiter.guard(Flux::never))
+        .then(() -> assertEquals(1, limiter.getInflight()))
+        .thenCancel()
+        .verify(VERIFY_TIMEOUT);
+
+    assertEquals(0, limiter.getInflight());
+    StepVerifier.create(limiter.guard(() -> Flux.just(ChatEvent.chunk("你好"))))
+        .expectNextMatches(event -> event.getType() == ChatEvent.ChatEventType.CHUNK)
+        .verifyComplete();
+  }
+
+  @Test
+  void releasesThePermitAndBacksOffWhenTheGenerationFails() {
+    properties.setInitialLimit(10);
+    properties.setBackoffRatio(0.5);
+    AdaptiveConcurrencyLimiter limiter = limiter();
+
+    StepVerifier.create(limiter.guard(() -> Flux.error(new IllegalStateException("上游失败"))))
+        .verifyError(IllegalStateException.class);
+    assertEquals(0, limiter.getInflight());
+    assertEquals(5, limiter.getLimit());
+
+    StepVerifier.create(limiter.guard(() -> Flux.just(ChatEvent.error("生成失败"))))
+        .expectNextMatches(event -> event.getType() == ChatEvent.ChatEventType.ERROR)
+        .verifyComplete();
+    assertEquals(2, limiter.getLimit());
+  }
+
+  @Test
+  void queuedRequestRunsOnceAPermitIsReleased() {
+    properties.setQueueCapacity(1);
+    AdaptiveConcurrencyLimiter limiter = limiter();
+    Sinks.Many<ChatEvent> held = Sinks.many().unicast().onBackpressureBuffer();
+
+    StepVerifier.create(limiter.guard(held::asFlux))
+        .then(
+            () ->
+                StepVerifier.create(limiter.guard(() -> Flux.just(ChatEvent.chunk("排队后执行"))))
+                    .then(held::tryEmitComplete)
+                    .expectNextMatches(event -> event.getType() == ChatEvent.ChatEventType.CHUNK)
+                    .expectComplete()
+                    .verify(VERIFY_TIMEOUT))
+        .verifyComplete();
+    assertEquals(0, limiter.getInflight());
+  }
+
+  @Test
+  void limitGrowsWhileSaturatedAndLatencyStaysAtTheBaseline() {
+    properties.setInitialLimit(4);
+    properties.setSmoothing(1.0);
+    AdaptiveConcurrencyLimiter limiter = limiter();
+    Sinks.Many<ChatEvent> tokens = Sinks.many().multicast().directBestEffort();
+
+    // 4 路生成同时在途（达到 limit），首token延迟与基线一致时按 sqrt(limit) 增长
+    Flux<ChatEvent> saturated =
+        Flux.merge(
+            limiter.guard(tokens::asFlux),
+            limiter.guard(tokens::asFlux),
+            limiter.guard(tokens::asFlux),
+            limiter.guard(tokens::asFlux));
+    StepVerifier.create(saturated)
+        .then(() -> assertEquals(4, limiter.getInflight()))
+        .then(() -> tokens.tryEmitNext(ChatEvent.chunk("首token")))
+        .expectNextCount(4)
+        .then(tokens::tryEmitComplete)
+        .verifyComplete();
+
+    assertTrue(limiter.getLimit() > 4, "limit 未增长: " + limiter.getLimit());
+    assertEquals(0, limiter.getInflight());
+  }
+
+  @Test
+  void passesThroughWhenDisabled() {
+    properties.setEnabled(false);
+    AdaptiveConcurrencyLimiter limiter = limiter();
+
+    StepVerifier.create(limiter.guard(() -> Flux.just(ChatEvent.chunk("a"), ChatEvent.chunk("b"))))
+        .expectNextCount(2)
+        .verifyComplete();
+    assertEquals(0, limiter.getInflight());
+  }
+
+  @SuppressWarnings("unchecked")
+  private AdaptiveConcurrencyLimiter limiter() {
+    return new AdaptiveConcurrencyLimiter(properties, mock(ObjectProvider.class));
+  }
+}
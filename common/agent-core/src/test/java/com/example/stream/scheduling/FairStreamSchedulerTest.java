@@ -0,0 +1,125 @@
+package com.example.stream.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.example.config.MultiModelProperties;
+import com.example.config.StreamSchedulerProperties;
+import com.example.stream.StreamPriority;
+import com.example.stream.TextStreamRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+/**
+ * FairStreamScheduler 类别间 stride 份额、类别内按用户轮转与排队超时
+ *
+ * <p>provider 并发上限为 1，先由一个请求占住槽位，其余请求排队；放开后按出队顺序记录各请求的启动次序。
+ */
+class FairStreamSchedulerTest {
+
+  private static final String PROVIDER = "deepseek";
+
+  private final StreamSchedulerProperties properties = new StreamSchedulerProperties();
+  private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+  private FairStreamScheduler scheduler;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    properties.setEnabled(true);
+    properties.setDefaultMaxConcurrency(1);
+    scheduler =
+        new FairStreamScheduler(properties, new MultiModelProperties(), mock(ObjectProvider.class));
+  }
+
+  @Test
+  void interactiveRequestIsNotStarvedBehindQueuedNovelLoad() {
+    Sinks.Empty<Void> blocker = holdSlot();
+    // 小说请求先到并占满队列，交互式请求随后才到
+    for (int i = 0; i < 6; i++) {
+      enqueue("N" + i, StreamPriority.NOVEL, 100L + i);
+    }
+    for (int i = 0; i < 6; i++) {
+      enqueue("I" + i, StreamPriority.INTERACTIVE, 200L + i);
+    }
+
+    blocker.tryEmitEmpty();
+
+    assertEquals(12, started.size(), "排队请求未全部启动: " + started);
+    assertTrue(started.indexOf("I0") <= 1, "交互式请求被排在小说负载之后: " + started);
+    List<String> firstEight = started.subList(0, 8);
+    long interactive = firstEight.stream().filter(name -> name.startsWith("I")).count();
+    long novel = firstEight.size() - interactive;
+    // 权重 8:3，交互式获得大部分份额，小说仍按比例推进而不被饿死
+    assertTrue(interactive > novel, "交互式份额不足: " + started);
+    assertTrue(novel >= 2, "小说请求被饿死: " + started);
+  }
+
+  @Test
+  void requestsOfTheSameClassRotateBetweenUsers() {
+    Sinks.Empty<Void> blocker = holdSlot();
+    enqueue("A1", StreamPriority.INTERACTIVE, 1L);
+    enqueue("A2", StreamPriority.INTERACTIVE, 1L);
+    enqueue("A3", StreamPriority.INTERACTIVE, 1L);
+    enqueue("B1", StreamPriority.INTERACTIVE, 2L);
+
+    blocker.tryEmitEmpty();
+
+    assertEquals(List.of("A1", "B1", "A2", "A3"), started);
+  }
+
+  @Test
+  void queuedRequestFailsAfterTheMaxQueueWait() {
+    properties.setMaxQueueWaitMs(50);
+    Sinks.Empty<Void> blocker = holdSlot();
+
+    StepVerifier.create(scheduler.schedule(request(StreamPriority.INTERACTIVE, 1L), Flux::empty))
+        .expectError(TimeoutException.class)
+        .verify(Duration.ofSeconds(5));
+
+    blocker.tryEmitEmpty();
+    // 超时的排队者已移出队列，槽位空出后新请求立即启动
+    enqueue("after", StreamPriority.INTERACTIVE, 1L);
+    assertEquals(List.of("after"), started);
+  }
+
+  /** 占住唯一的并发槽位，直到返回的 sink 完成 */
+  private Sinks.Empty<Void> holdSlot() {
+    Sinks.Empty<Void> blocker = Sinks.empty();
+    scheduler
+        .schedule(request(StreamPriority.NOVEL, 0L), () -> blocker.asMono().thenMany(Flux.empty()))
+        .subscribe();
+    return blocker;
+  }
+
+  private void enqueue(String name, StreamPriority priority, Long userId) {
+    scheduler
+        .schedule(
+            request(priority, userId),
+            () -> {
+              started.add(name);
+              return Flux.<String>empty();
+            })
+        .subscribe();
+  }
+
+  private static TextStreamRequest request(StreamPriority priority, Long userId) {
+    return TextStreamRequest.builder()
+        .provider(PROVIDER)
+        .priority(priority)
+        .userId(userId)
+        .prompt("你好")
+        .build();
+  }
+}
@@ -0,0 +1,89 @@
+package com.example.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * MarkdownNormalizer 黄金样例测试
+ *
+ * <p>期望输出取自原多遍正则实现（benchmarks 模块的 LegacyMarkdownNormalizer），
+ * 单遍实现与流式逐片段实现在任意切分下都必须与之逐字一致。
+ */
+class MarkdownNormalizerTest {
+
+  /** 流式切分的片段长度，1 覆盖规则跨片段边界的所有位置 */
+  private static final int[] CHUNK_SIZES = {1, 3, 4, 7, 64};
+
+  /** 覆盖各条规则及其边界的样例：输入与原实现的输出 */
+  static Stream<Arguments> golden() {
+    return Stream.of(
+        Arguments.of("-第一项\n-第二项\n- 第三项", "- 第一项\n\n- 第二项\n\n- 第三项"),
+        Arguments.of("连接池-线程池-缓存", "连接\n\n- 线程\n\n- 缓存"),
+        Arguments.of("说明文字**核心要点**\n正文", "说明文字\n\n**核心要点**\n\n正文"),
+        Arguments.of("**开头标题**\n正文", "\n**开头标题**\n\n正文"),
+        Arguments.of("段落\n**加粗行**\n紧接正文", "段落\n\n**加粗行**\n\n紧接正文"),
+        Arguments.of("段落\n- 列表一\n- 列表二", "段落\n\n- 列表一\n\n- 列表二"),
+        Arguments.of("```java\nint a = 1;\n", "```java\nint a = 1;\n\n```\n"),
+        Arguments.of("```\ncode\n```\n", "```\ncode\n```\n"),
+        Arguments.of(
+            "文字**这是一个超过四十个字符的加粗内容用于验证长度上限不会被当作小标题处理的情况啊**\n",
+            "文字\n\n**这是一个超过四十个字符的加粗内容用于验证长度上限不会被当作小标题处理的情况啊**\n\n"),
+        Arguments.of("-\r-中\r\n**标题**\r\n", "-\r- 中\r\n\n**标题**\r\n"),
+        Arguments.of("x**ab**", "x\n\n**ab**"),
+        Arguments.of("**a**\n\n**b**\nc", "**a**\n\n**b**\n\nc"),
+        Arguments.of("a\n- \n- b", "a\n\n- \n- b"),
+        Arguments.of("---\n***\n", "- --\n***\n"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("golden")
+  void normalizeMatchesGolden(String input, String expected) {
+    assertEquals(expected, MarkdownNormalizer.normalize(input));
+  }
+
+  @ParameterizedTest
+  @MethodSource("golden")
+  void incrementalMatchesGoldenForAnyChunking(String input, String expected) {
+    for (int chunkSize : CHUNK_SIZES) {
+      assertEquals(expected, incremental(input, chunkSize), "chunkSize=" + chunkSize);
+    }
+  }
+
+  @Test
+  void incrementalMatchesSinglePassOnLongAnswer() {
+    String answer = longAnswer();
+    String expected = MarkdownNormalizer.normalize(answer);
+    for (int chunkSize : CHUNK_SIZES) {
+      assertEquals(expected, incremental(answer, chunkSize), "chunkSize=" + chunkSize);
+    }
+  }
+
+  private static String incremental(String text, int chunkSize) {
+    MarkdownNormalizer.Incremental normalizer = MarkdownNormalizer.incremental();
+    StringBuilder out = new StringBuilder();
+    for (int i = 0; i < text.length(); i += chunkSize) {
+      out.append(normalizer.append(text.substring(i, Math.min(text.length(), i + chunkSize))));
+    }
+    return out.append(normalizer.finish()).toString();
+  }
+
+  /** 混合标题、加粗小标题、列表、代码块与中英文段落的典型回答 */
+  private static String longAnswer() {
+    String section =
+        "## 问题分析\n"
+            + "在高并发场景下，响应式流的背压处理决定了服务的稳定性。\n"
+            + "**核心要点**\n"
+            + "-首先确认阻塞点\n-其次隔离到弹性线程池\n- 最后用指标验证效果\n"
+            + "常见做法包括：连接池-线程池-缓存三者配合使用。\n"
+            + "```java\nFlux.fromIterable(items)\n    .flatMap(this::load, 8)\n    .collectList();\n```\n"
+            + "**注意事项：**\n"
+            + "1. 不要在 map 中执行 IO\n2. 超时必须显式设置\n3. 重试需要退避\n"
+            + "The same applies to JDBC calls: keep the event loop free.\n\n";
+    return section.repeat(20);
+  }
+}
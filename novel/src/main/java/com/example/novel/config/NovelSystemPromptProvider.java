@@ -2,12 +2,15 @@ package com.example.novel.config;
 
 import com.example.client.SystemPromptProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
 /**
  * Novel模块的SystemPromptProvider实现
  * 提供专门用于长文本创作的system prompt
+ * 启用时优先于 agent-core 的 ConfigurableSystemPromptProvider
  */
+@Primary
 @Component
 @ConditionalOnProperty(
     prefix = "novel.system-prompt",
@@ -16,6 +16,7 @@ import com.example.novel.service.rag.RagService;
 import com.example.novel.service.mcp.McpService;
 import lombok.extern.slf4j.Slf4j;
 import com.example.sse.SseEventMapper;
+import com.example.stream.limit.AdaptiveConcurrencyLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
@@ -38,6 +39,9 @@ public class NovelController {
     @Autowired
     private McpService mcpService;
 
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
     @GetMapping("/models")
     public Mono<ModelListResponse> getModels() {
         return novelService.getAvailableModels();
@@ -46,8 +50,8 @@ public class NovelController {
     @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<Object>> streamGenerate(@RequestBody NovelStreamRequest request) {
         log.info("Novel stream request: model={}, temperature={}", request.getModel(), request.getTemperature());
-        return novelService.streamGenerate(request)
-                .map(obj -> (ChatEvent) obj)
+        return concurrencyLimiter.guard(() -> novelService.streamGenerate(request)
+                        .map(obj -> (ChatEvent) obj))
                 .map(SseEventMapper::toSseEvent)
                 .doOnNext(event -> log.debug("发送SSE事件: {}", event.event()))
                 .doOnError(error -> log.error("Novel流式生成发生错误", error))
@@ -1,5 +1,6 @@
 package com.example.novel.service.impl;
 
+import com.example.blocking.BlockingIoExecutor;
 import com.example.novel.dto.response.NovelMessageResponse;
 import com.example.novel.dto.response.NovelSessionResponse;
 import com.example.novel.dto.response.NovelReferenceResponse;
@@ -27,22 +28,29 @@ public class NovelHistoryServiceImpl implements NovelHistoryService {
   private final NovelMessageMapper messageMapper;
   private final NovelReferenceMapper referenceMapper;
   private final NovelToolCallMapper toolCallMapper;
+  private final BlockingIoExecutor blockingIo;
 
   @Override
   public Mono<List<NovelSessionResponse>> getRecentSessions(int limit) {
-    return Mono.fromCallable(() -> sessionMapper.selectRecent(Math.max(1, limit)))
+    return blockingIo
+        .call("novelSession.recent", () -> sessionMapper.selectRecent(Math.max(1, limit)))
         .map(list -> list.stream().map(this::toSessionResp).collect(Collectors.toList()));
   }
 
   @Override
   public Mono<List<NovelMessageResponse>> getSessionMessages(Long sessionId, int limit) {
-    return Mono.fromCallable(() -> messageMapper.selectBySessionIdWithLimit(sessionId, limit))
+    return blockingIo
+        .call(
+            "novelMessage.list",
+            () -> messageMapper.selectBySessionIdWithLimit(sessionId, limit))
         .map(list -> list.stream().map(this::toMessageResp).collect(Collectors.toList()));
   }
 
   @Override
   public Mono<List<NovelReferenceResponse>> getReferences(Long sessionId, Long messageId) {
-    return Mono.fromCallable(
+    return blockingIo
+        .call(
+            "novelReference.list",
             () -> {
               if (messageId != null) return referenceMapper.selectByMessageId(messageId);
               if (sessionId != null) return referenceMapper.selectBySessionId(sessionId);
@@ -53,7 +61,9 @@ public class NovelHistoryServiceImpl implements NovelHistoryService {
 
   @Override
   public Mono<List<NovelToolCallResponse>> getToolCalls(Long sessionId, Long messageId) {
-    return Mono.fromCallable(
+    return blockingIo
+        .call(
+            "novelToolCall.list",
             () -> {
               if (messageId != null) return toolCallMapper.selectByMessageId(messageId);
               if (sessionId != null) return toolCallMapper.selectBySessionId(sessionId);
@@ -11,8 +11,10 @@ import com.example.novel.converter.NovelModelResponseConverter;
 import com.example.novel.dto.request.NovelStreamRequest;
 import com.example.novel.dto.response.ModelListResponse;
 import com.example.novel.service.NovelService;
+import com.example.profiling.RequestResourceTracker;
 import com.example.service.BaseChatService;
 import com.example.service.catalog.ModelCatalogService;
+import com.example.stream.StreamPriority;
 import com.example.stream.TextStreamRequest;
 import com.example.stream.springai.SpringAiTextStreamClient;
 import com.example.strategy.model.ModelSelector;
@@ -35,6 +37,7 @@ public class NovelServiceImpl extends BaseChatService implements NovelService {
   private final com.example.novel.mapper.NovelMessageMapper novelMessageMapper;
   private final MultiModelProperties multiModelProperties;
   private final NovelModelResponseConverter modelResponseConverter;
+  private final RequestResourceTracker resourceTracker;
 
   public NovelServiceImpl(
       ChatErrorHandler errorHandler,
@@ -44,7 +47,8 @@ public class NovelServiceImpl extends BaseChatService implements NovelService {
       com.example.novel.mapper.NovelSessionMapper novelSessionMapper,
       com.example.novel.mapper.NovelMessageMapper novelMessageMapper,
       MultiModelProperties multiModelProperties,
-      NovelModelResponseConverter modelResponseConverter) {
+      NovelModelResponseConverter modelResponseConverter,
+      RequestResourceTracker resourceTracker) {
     super(textStreamClient);
     this.errorHandler = errorHandler;
     this.modelSelector = modelSelector;
@@ -53,6 +57,7 @@ public class NovelServiceImpl extends BaseChatService implements NovelService {
     this.novelMessageMapper = novelMessageMapper;
     this.multiModelProperties = multiModelProperties;
     this.modelResponseConverter = modelResponseConverter;
+    this.resourceTracker = resourceTracker;
   }
 
   @Override
@@ -76,6 +81,11 @@ public class NovelServiceImpl extends BaseChatService implements NovelService {
 
   @Override
   public Flux<Object> streamGenerate(NovelStreamRequest request) {
+    // 会话与用户消息在订阅时写入，以便资源采样计入
+    return resourceTracker.track("novel", null, Flux.defer(() -> doStreamGenerate(request)));
+  }
+
+  private Flux<Object> doStreamGenerate(NovelStreamRequest request) {
     String defaultProvider = multiModelProperties.getDefaultProvider();
     var selected = modelSelector.selectModelForUser(null, defaultProvider, request.getModel());
 
@@ -86,13 +96,13 @@ public class NovelServiceImpl extends BaseChatService implements NovelService {
     session.setTemperature(request.getTemperature());
     session.setMaxTokens(request.getMaxTokens());
     session.setTopP(request.getTopP());
-    novelSessionMapper.insert(session);
+    resourceTracker.measure("session_insert", () -> novelSessionMapper.insert(session));
 
     var userMsg = new com.example.novel.entity.NovelMessage();
     userMsg.setSessionId(session.getId());
     userMsg.setRole(ROLE_USER);
     userMsg.setContent(request.getPrompt());
-    novelMessageMapper.insert(userMsg);
+    resourceTracker.measure("user_message", () -> novelMessageMapper.insert(userMsg));
 
     // 构建流式请求 - RAG将由NovelRagAdvisor自动处理
     TextStreamRequest req =
@@ -106,6 +116,7 @@ public class NovelServiceImpl extends BaseChatService implements NovelService {
             .conversationId(session.getId()) // 设置会话ID以触发Memory和RAG Advisor
             .searchEnabled(false)
             .deepThinking(false)
+            .priority(StreamPriority.NOVEL)
             .build();
 
     Flux<ChatEvent> streamFlux =
@@ -118,7 +129,9 @@ public class NovelServiceImpl extends BaseChatService implements NovelService {
                       return ChatEvent.end(null);
                     }));
 
-    return Flux.concat(Flux.just(ChatEvent.start("novel-generation")), streamFlux)
+    return Flux.concat(
+            Flux.just(ChatEvent.start("novel-generation")),
+            resourceTracker.stage("generate", streamFlux))
         .onErrorResume(errorHandler::handleChatError)
         .cast(Object.class);
   }
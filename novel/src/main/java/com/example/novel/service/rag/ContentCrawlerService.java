@@ -16,6 +16,7 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.nio.charset.StandardCharsets;
 import java.net.URI;
@@ -84,7 +85,7 @@ public class ContentCrawlerService {
 
       resp.setErrors(errors);
       return resp;
-    });
+    }).subscribeOn(Schedulers.boundedElastic()); // 抓取、限速等待与文件写入均为阻塞操作
   }
 
   private int crawlWithLimit(RagCrawlRequest request, Path baseDir, List<String> errors) {
@@ -9,6 +9,7 @@ import com.example.novel.dto.response.story.StoryInitResponse;
 import com.example.novel.service.rag.RagService;
 import com.example.novel.dto.request.RagSearchRequest;
 import com.example.novel.dto.response.RagSearchResponse;
+import com.example.stream.StreamPriority;
 import com.example.stream.TextStreamRequest;
 import com.example.stream.springai.SpringAiTextStreamClient;
 import java.util.*;
@@ -212,6 +213,8 @@ public class InMemoryStoryService implements StoryService {
         .topP(0.9)
         .searchEnabled(false)
         .deepThinking(false)
+        .priority(StreamPriority.NOVEL)
+        .coalescable(true)  // 多个标签页同时重新生成同一段落时共享一次生成
         .build();
 
     java.util.concurrent.atomic.AtomicReference<StringBuilder> acc = new java.util.concurrent.atomic.AtomicReference<>(new StringBuilder());